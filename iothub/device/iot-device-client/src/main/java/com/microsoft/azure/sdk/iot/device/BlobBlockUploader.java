@@ -0,0 +1,523 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device;
+
+import com.microsoft.azure.sdk.iot.device.transport.HttpProxySocketFactory;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Uploads a stream to an Azure Storage block blob using a SAS URI provided by IoT hub.
+ *
+ * <p>
+ * The stream is read sequentially into blocks of a fixed size, and each block is sent with its own Put Block request so
+ * that several blocks can be in flight at once. Blocks are read into a bounded pool of buffers, one per concurrent
+ * upload, so memory use does not grow with the size of the stream. Each block is sent with its MD5 hash so that the
+ * service rejects corrupted blocks, and a block whose request fails or whose returned hash does not match is retried on
+ * its own. Once every block has been uploaded, a Put Block List request commits them in order as the content of the blob.
+ * </p>
+ */
+@Slf4j
+final class BlobBlockUploader
+{
+    private static final String BLOCK_THREAD_NAME = "azure-iot-sdk-FileUploadBlockTask";
+
+    // The oldest service version that allows blocks larger than 4 MiB
+    private static final String STORAGE_SERVICE_VERSION = "2016-05-31";
+    private static final String STORAGE_SERVICE_VERSION_HEADER = "x-ms-version";
+    private static final String CONTENT_MD5_HEADER = "Content-MD5";
+    private static final String CONTENT_TYPE_HEADER = "Content-Type";
+    private static final String BLOCK_LIST_CONTENT_TYPE = "application/xml";
+
+    // Every block id of a blob must have the same length, so block indexes are zero padded
+    private static final String BLOCK_ID_FORMAT = "block-%010d";
+
+    private static final long INITIAL_RETRY_DELAY_MILLISECONDS = 100;
+    private static final long MAX_RETRY_DELAY_MILLISECONDS = 10 * 1000;
+
+    private static final int HTTP_REQUEST_TIMEOUT = 408;
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    private final URL blobUrl;
+    private final int blockSize;
+    private final int parallelism;
+    private final int blockRetryCount;
+    private final ProxySettings proxySettings;
+    private final SSLContext sslContext;
+    private final int connectTimeoutMilliseconds;
+    private final int readTimeoutMilliseconds;
+
+    /**
+     * @param blobUrl the SAS URL of the blob, including its SAS token. Must use https, or http to localhost.
+     * @param blockSize the size in bytes of each uploaded block.
+     * @param parallelism the maximum number of blocks that are uploaded, and held in memory, at once.
+     * @param blockRetryCount the number of times a failed block is retried before the upload fails.
+     * @param proxySettings the proxy to upload through. May be null.
+     * @param sslContext the SSL context of the client, used for the TLS connection that is tunnelled through the proxy.
+     * May be null, in which case the default SSL context is used.
+     * @param connectTimeoutMilliseconds the connect timeout of each request, or 0 for no timeout.
+     * @param readTimeoutMilliseconds the read timeout of each request, or 0 for no timeout.
+     */
+    BlobBlockUploader(
+        URL blobUrl,
+        int blockSize,
+        int parallelism,
+        int blockRetryCount,
+        ProxySettings proxySettings,
+        SSLContext sslContext,
+        int connectTimeoutMilliseconds,
+        int readTimeoutMilliseconds)
+    {
+        if (blobUrl == null)
+        {
+            throw new IllegalArgumentException("Blob url cannot be null");
+        }
+
+        boolean isHttps = blobUrl.getProtocol().equalsIgnoreCase("https");
+        boolean isLocalHttp = blobUrl.getProtocol().equalsIgnoreCase("http")
+            && (blobUrl.getHost().equalsIgnoreCase("localhost") || blobUrl.getHost().equals("127.0.0.1"));
+        if (!isHttps && !isLocalHttp)
+        {
+            // http is only allowed for local storage emulators
+            throw new IllegalArgumentException("Blob url must use https unless it refers to localhost");
+        }
+
+        if (blockSize <= 0)
+        {
+            throw new IllegalArgumentException("Block size must be greater than 0");
+        }
+
+        if (parallelism <= 0)
+        {
+            throw new IllegalArgumentException("Parallelism must be greater than 0");
+        }
+
+        if (blockRetryCount < 0)
+        {
+            throw new IllegalArgumentException("Block retry count must be greater than or equal to 0");
+        }
+
+        this.blobUrl = blobUrl;
+        this.blockSize = blockSize;
+        this.parallelism = parallelism;
+        this.blockRetryCount = blockRetryCount;
+        this.proxySettings = proxySettings;
+        this.sslContext = sslContext;
+        this.connectTimeoutMilliseconds = connectTimeoutMilliseconds;
+        this.readTimeoutMilliseconds = readTimeoutMilliseconds;
+    }
+
+    /**
+     * Thrown when the storage service rejects a request, so that the status code can be reported to IoT hub in the
+     * file upload completion notification.
+     */
+    static final class BlobStorageException extends IOException
+    {
+        @Getter
+        private final int statusCode;
+
+        BlobStorageException(int statusCode, String message)
+        {
+            super(message);
+            this.statusCode = statusCode;
+        }
+    }
+
+    /**
+     * Upload the full content of the provided stream as the content of the blob, replacing any previous content. The
+     * stream is read until its end but is not closed.
+     *
+     * @param inputStream the content to upload.
+     * @throws IOException if reading the stream fails, if a block still fails after all of its retries, or if the block
+     * list cannot be committed. Rejections by the storage service are thrown as {@link BlobStorageException}.
+     */
+    void upload(InputStream inputStream) throws IOException
+    {
+        upload(inputStream, null);
+    }
+
+    /**
+     * Upload the full content of the provided stream as the content of the blob, skipping the blocks that the journal
+     * records as already uploaded and recording each block in the journal once it is uploaded. The stream is read
+     * until its end but is not closed.
+     *
+     * @param inputStream the content to upload. Must have the same content as when the journal was written.
+     * @param journal the journal of this upload, or null to upload every block.
+     * @throws IOException if reading the stream fails, if a block still fails after all of its retries, or if the block
+     * list cannot be committed. Rejections by the storage service are thrown as {@link BlobStorageException}.
+     */
+    void upload(InputStream inputStream, FileUploadJournal journal) throws IOException
+    {
+        if (inputStream == null)
+        {
+            throw new IllegalArgumentException("Input stream cannot be null");
+        }
+
+        List<String> blockIds = new ArrayList<>();
+        List<Future<?>> blockUploads = new ArrayList<>();
+        AtomicReference<IOException> firstFailure = new AtomicReference<>();
+
+        // A buffer is only allocated once a permit is acquired and all free buffers are in use, so no more than
+        // parallelism buffers ever exist
+        Semaphore bufferPermits = new Semaphore(this.parallelism);
+        Queue<byte[]> freeBuffers = new ConcurrentLinkedQueue<>();
+
+        ExecutorService executor = Executors.newFixedThreadPool(this.parallelism);
+        try
+        {
+            while (firstFailure.get() == null)
+            {
+                if (journal != null && journal.isBlockUploaded(blockIds.size()))
+                {
+                    long skipped = skipBlock(inputStream);
+                    if (skipped == 0)
+                    {
+                        break;
+                    }
+
+                    blockIds.add(getBlockId(blockIds.size()));
+                    if (skipped < this.blockSize)
+                    {
+                        break;
+                    }
+
+                    continue;
+                }
+
+                bufferPermits.acquire();
+                if (firstFailure.get() != null)
+                {
+                    // a block failed while waiting for a buffer, so there is no point in reading more of the stream
+                    bufferPermits.release();
+                    break;
+                }
+
+                byte[] buffer = freeBuffers.poll();
+                if (buffer == null)
+                {
+                    buffer = new byte[this.blockSize];
+                }
+
+                int length = readBlock(inputStream, buffer);
+                if (length == 0)
+                {
+                    freeBuffers.add(buffer);
+                    bufferPermits.release();
+                    break;
+                }
+
+                final byte[] blockBuffer = buffer;
+                final int blockIndex = blockIds.size();
+                final String blockId = getBlockId(blockIndex);
+                blockIds.add(blockId);
+                blockUploads.add(executor.submit(() ->
+                {
+                    Thread.currentThread().setName(BLOCK_THREAD_NAME);
+                    try
+                    {
+                        putBlockWithRetry(blockId, blockBuffer, length);
+                        if (journal != null)
+                        {
+                            journal.blockUploaded(blockIndex);
+                        }
+                    }
+                    catch (IOException e)
+                    {
+                        firstFailure.compareAndSet(null, e);
+                    }
+                    finally
+                    {
+                        freeBuffers.add(blockBuffer);
+                        bufferPermits.release();
+                    }
+                }));
+
+                if (length < this.blockSize)
+                {
+                    // readBlock only returns a partial block at the end of the stream
+                    break;
+                }
+            }
+
+            for (Future<?> blockUpload : blockUploads)
+            {
+                blockUpload.get();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while uploading blocks");
+        }
+        catch (ExecutionException e)
+        {
+            throw new IOException("Unexpected failure while uploading a block", e.getCause());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+
+        if (firstFailure.get() != null)
+        {
+            throw firstFailure.get();
+        }
+
+        putBlockList(blockIds);
+    }
+
+    static String getBlockId(int blockIndex)
+    {
+        return Base64.getEncoder().encodeToString(String.format(BLOCK_ID_FORMAT, blockIndex).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Skips a block of the stream unless the end of the stream is reached first. Returns the number of bytes skipped.
+    private long skipBlock(InputStream inputStream) throws IOException
+    {
+        long skipped = 0;
+        while (skipped < this.blockSize)
+        {
+            long skippedNow = inputStream.skip(this.blockSize - skipped);
+            if (skippedNow <= 0)
+            {
+                // skip may return 0 before the end of the stream, so fall back to reading to tell the two apart
+                if (inputStream.read() < 0)
+                {
+                    break;
+                }
+
+                skippedNow = 1;
+            }
+
+            skipped += skippedNow;
+        }
+
+        return skipped;
+    }
+
+    // Fills the buffer unless the end of the stream is reached first. Returns the number of bytes read.
+    private static int readBlock(InputStream inputStream, byte[] buffer) throws IOException
+    {
+        int length = 0;
+        while (length < buffer.length)
+        {
+            int read = inputStream.read(buffer, length, buffer.length - length);
+            if (read < 0)
+            {
+                break;
+            }
+
+            length += read;
+        }
+
+        return length;
+    }
+
+    private void putBlockWithRetry(String blockId, byte[] buffer, int length) throws IOException
+    {
+        String contentMd5 = Base64.getEncoder().encodeToString(md5(buffer, length));
+        URL putBlockUrl = withQuery("comp=block&blockid=" + URLEncoder.encode(blockId, StandardCharsets.UTF_8.name()));
+
+        for (int attempt = 0; ; attempt++)
+        {
+            try
+            {
+                putBlock(putBlockUrl, contentMd5, buffer, length);
+                return;
+            }
+            catch (IOException e)
+            {
+                if (attempt >= this.blockRetryCount || !isRetryable(e))
+                {
+                    throw e;
+                }
+
+                long delayMilliseconds = Math.min(INITIAL_RETRY_DELAY_MILLISECONDS << attempt, MAX_RETRY_DELAY_MILLISECONDS);
+                log.debug("Failed to upload block {}, retrying in {} milliseconds", blockId, delayMilliseconds, e);
+
+                try
+                {
+                    Thread.sleep(delayMilliseconds);
+                }
+                catch (InterruptedException interruptedException)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting to retry a block");
+                }
+            }
+        }
+    }
+
+    private void putBlock(URL putBlockUrl, String contentMd5, byte[] buffer, int length) throws IOException
+    {
+        HttpURLConnection connection = openConnection(putBlockUrl);
+        try
+        {
+            connection.setRequestProperty(CONTENT_MD5_HEADER, contentMd5);
+            send(connection, buffer, length);
+
+            String returnedMd5 = connection.getHeaderField(CONTENT_MD5_HEADER);
+            if (returnedMd5 != null && !returnedMd5.equals(contentMd5))
+            {
+                // The service computes this hash from the bytes it received
+                throw new IOException("Block content MD5 returned by the service did not match the uploaded block");
+            }
+        }
+        finally
+        {
+            connection.disconnect();
+        }
+    }
+
+    private void putBlockList(List<String> blockIds) throws IOException
+    {
+        StringBuilder blockList = new StringBuilder("<?xml version=\"1.0\" encoding=\"utf-8\"?><BlockList>");
+        for (String blockId : blockIds)
+        {
+            blockList.append("<Latest>").append(blockId).append("</Latest>");
+        }
+
+        blockList.append("</BlockList>");
+        byte[] body = blockList.toString().getBytes(StandardCharsets.UTF_8);
+
+        HttpURLConnection connection = openConnection(withQuery("comp=blocklist"));
+        try
+        {
+            connection.setRequestProperty(CONTENT_TYPE_HEADER, BLOCK_LIST_CONTENT_TYPE);
+            send(connection, body, body.length);
+        }
+        finally
+        {
+            connection.disconnect();
+        }
+
+        log.debug("Committed {} block(s) to blob {}", blockIds.size(), this.blobUrl.getPath());
+    }
+
+    private HttpURLConnection openConnection(URL url) throws IOException
+    {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        if (this.proxySettings != null && connection instanceof HttpsURLConnection)
+        {
+            // Same approach as HttpsConnection, which tunnels through the proxy from the SSL socket factory
+            try
+            {
+                SSLContext proxiedSslContext = this.sslContext != null ? this.sslContext : SSLContext.getDefault();
+                ((HttpsURLConnection) connection).setSSLSocketFactory(
+                    new HttpProxySocketFactory(proxiedSslContext.getSocketFactory(), this.proxySettings));
+            }
+            catch (GeneralSecurityException e)
+            {
+                throw new IOException("Failed to get the default SSL context", e);
+            }
+        }
+
+        connection.setRequestMethod("PUT");
+        connection.setConnectTimeout(this.connectTimeoutMilliseconds);
+        connection.setReadTimeout(this.readTimeoutMilliseconds);
+        connection.setRequestProperty(STORAGE_SERVICE_VERSION_HEADER, STORAGE_SERVICE_VERSION);
+        return connection;
+    }
+
+    // Streams the body straight from the buffer rather than letting HttpURLConnection buffer a copy of it
+    private static void send(HttpURLConnection connection, byte[] body, int length) throws IOException
+    {
+        connection.setDoOutput(true);
+        connection.setFixedLengthStreamingMode(length);
+        try (OutputStream outputStream = connection.getOutputStream())
+        {
+            outputStream.write(body, 0, length);
+        }
+
+        int statusCode = connection.getResponseCode();
+        drain(statusCode < 400 ? connection.getInputStream() : connection.getErrorStream());
+
+        if (statusCode < 200 || statusCode >= 300)
+        {
+            throw new BlobStorageException(statusCode, "Storage service rejected the request with status code " + statusCode
+                + (connection.getResponseMessage() != null ? ": " + connection.getResponseMessage() : ""));
+        }
+    }
+
+    // Reading the response to its end lets HttpURLConnection reuse the underlying connection for the next block
+    private static void drain(InputStream inputStream) throws IOException
+    {
+        if (inputStream == null)
+        {
+            return;
+        }
+
+        try (InputStream stream = inputStream)
+        {
+            byte[] discard = new byte[1024];
+            while (stream.read(discard) >= 0)
+            {
+                // discard the response body
+            }
+        }
+    }
+
+    // Also used to tell apart failed uploads that are worth resuming later from those that would fail again
+    static boolean isRetryable(IOException e)
+    {
+        if (e instanceof InterruptedIOException && Thread.currentThread().isInterrupted())
+        {
+            return false;
+        }
+
+        if (e instanceof BlobStorageException)
+        {
+            int statusCode = ((BlobStorageException) e).getStatusCode();
+            return statusCode == HTTP_REQUEST_TIMEOUT || statusCode == HTTP_TOO_MANY_REQUESTS || statusCode >= 500;
+        }
+
+        // network failures and hash mismatches
+        return true;
+    }
+
+    private URL withQuery(String query) throws IOException
+    {
+        String url = this.blobUrl.toString();
+        return new URL(url + (this.blobUrl.getQuery() == null ? "?" : "&") + query);
+    }
+
+    private static byte[] md5(byte[] buffer, int length) throws IOException
+    {
+        try
+        {
+            MessageDigest messageDigest = MessageDigest.getInstance("MD5");
+            messageDigest.update(buffer, 0, length);
+            return messageDigest.digest();
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IOException("MD5 is not supported on this device", e);
+        }
+    }
+}
@@ -4,6 +4,7 @@
 package com.microsoft.azure.sdk.iot.device;
 
 import com.microsoft.azure.sdk.iot.device.transport.ExponentialBackoffWithJitter;
+import com.microsoft.azure.sdk.iot.device.transport.ReconnectCoordinator;
 import com.microsoft.azure.sdk.iot.device.twin.Pair;
 import com.microsoft.azure.sdk.iot.device.auth.*;
 import com.microsoft.azure.sdk.iot.device.transport.RetryPolicy;
@@ -17,6 +18,7 @@ import lombok.extern.slf4j.Slf4j;
 import javax.net.ssl.SSLContext;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
@@ -41,6 +43,19 @@ public final class ClientConfiguration
 
     public static final int DEFAULT_SEND_INTERVAL_IN_MILLISECONDS = 10;
 
+    // relatively arbitrary, but only because Paho doesn't have any particular recommendations here. Just a high enough
+    // value that users who are building a gateway type solution don't find this value to be a bottleneck.
+    public static final int DEFAULT_MQTT_MAX_IN_FLIGHT_MESSAGES = 65000;
+
+    public static final int DEFAULT_AMQP_RECEIVER_LINK_CREDIT_WINDOW = 1024;
+
+    public static final int DEFAULT_FILE_UPLOAD_BLOCK_SIZE_IN_BYTES = 4 * 1024 * 1024; // 4 MiB
+    public static final int DEFAULT_FILE_UPLOAD_PARALLELISM = 4;
+    public static final int DEFAULT_FILE_UPLOAD_BLOCK_RETRY_COUNT = 3;
+
+    // The largest block that Azure Storage accepts in the service version used for file uploads
+    private static final int MAX_FILE_UPLOAD_BLOCK_SIZE_IN_BYTES = 100 * 1024 * 1024;
+
     /** The default value for messageLockTimeoutSecs. */
     private static final int DEFAULT_MESSAGE_LOCK_TIMEOUT_SECS = 180;
 
@@ -96,6 +111,51 @@ public final class ClientConfiguration
     @Getter
     private long messageExpiredCheckPeriod;
 
+    @Getter
+    private long reportedPropertiesCoalescingWindow;
+
+    @Getter
+    private long twinCacheMaxAge;
+
+    @Getter
+    private int directMethodDispatchThreadCount;
+
+    @Getter
+    private int directMethodConcurrencyLimit = 1;
+
+    @Getter
+    private Map<String, Integer> directMethodConcurrencyLimits;
+
+    @Getter
+    private long directMethodTimeout;
+
+    @Getter
+    private int mqttMaxInFlightMessages = DEFAULT_MQTT_MAX_IN_FLIGHT_MESSAGES;
+
+    @Getter
+    private int amqpCloudToDeviceMessageCreditWindow = DEFAULT_AMQP_RECEIVER_LINK_CREDIT_WINDOW;
+
+    @Getter
+    private int amqpTwinCreditWindow = DEFAULT_AMQP_RECEIVER_LINK_CREDIT_WINDOW;
+
+    @Getter
+    private int amqpDirectMethodCreditWindow = DEFAULT_AMQP_RECEIVER_LINK_CREDIT_WINDOW;
+
+    @Getter
+    private int fileUploadBlockSize = DEFAULT_FILE_UPLOAD_BLOCK_SIZE_IN_BYTES;
+
+    @Getter
+    private int fileUploadParallelism = DEFAULT_FILE_UPLOAD_PARALLELISM;
+
+    @Getter
+    private int fileUploadBlockRetryCount = DEFAULT_FILE_UPLOAD_BLOCK_RETRY_COUNT;
+
+    @Getter
+    private Path fileUploadJournalDirectory;
+
+    @Getter
+    private ReconnectCoordinator reconnectCoordinator;
+
     private boolean useIdentifiableThreadNames = true;
 
     private boolean logRoutineDisconnectsAsErrors = true;
@@ -235,6 +295,21 @@ public final class ClientConfiguration
         this.useIdentifiableThreadNames = clientOptions == null || clientOptions.isUsingIdentifiableThreadNames();
         this.logRoutineDisconnectsAsErrors = clientOptions == null || clientOptions.isLoggingRoutineDisconnectsAsErrors();
         this.messageExpiredCheckPeriod = clientOptions != null ? clientOptions.getMessageExpirationCheckPeriod() : DEFAULT_MESSAGE_EXPIRATION_CHECK_PERIOD;
+        this.reportedPropertiesCoalescingWindow = clientOptions != null ? clientOptions.getReportedPropertiesCoalescingWindow() : 0;
+        this.twinCacheMaxAge = clientOptions != null ? clientOptions.getTwinCacheMaxAge() : 0;
+        this.directMethodDispatchThreadCount = clientOptions != null ? clientOptions.getDirectMethodDispatchThreadCount() : 0;
+        this.directMethodConcurrencyLimit = clientOptions != null ? clientOptions.getDirectMethodConcurrencyLimit() : 1;
+        this.directMethodConcurrencyLimits = clientOptions != null ? clientOptions.getDirectMethodConcurrencyLimits() : null;
+        this.directMethodTimeout = clientOptions != null ? clientOptions.getDirectMethodTimeout() : 0;
+        this.mqttMaxInFlightMessages = clientOptions != null ? clientOptions.getMqttMaxInFlightMessages() : DEFAULT_MQTT_MAX_IN_FLIGHT_MESSAGES;
+        this.amqpCloudToDeviceMessageCreditWindow = clientOptions != null ? clientOptions.getAmqpCloudToDeviceMessageCreditWindow() : DEFAULT_AMQP_RECEIVER_LINK_CREDIT_WINDOW;
+        this.amqpTwinCreditWindow = clientOptions != null ? clientOptions.getAmqpTwinCreditWindow() : DEFAULT_AMQP_RECEIVER_LINK_CREDIT_WINDOW;
+        this.amqpDirectMethodCreditWindow = clientOptions != null ? clientOptions.getAmqpDirectMethodCreditWindow() : DEFAULT_AMQP_RECEIVER_LINK_CREDIT_WINDOW;
+        this.fileUploadBlockSize = clientOptions != null ? clientOptions.getFileUploadBlockSize() : DEFAULT_FILE_UPLOAD_BLOCK_SIZE_IN_BYTES;
+        this.fileUploadParallelism = clientOptions != null ? clientOptions.getFileUploadParallelism() : DEFAULT_FILE_UPLOAD_PARALLELISM;
+        this.fileUploadBlockRetryCount = clientOptions != null ? clientOptions.getFileUploadBlockRetryCount() : DEFAULT_FILE_UPLOAD_BLOCK_RETRY_COUNT;
+        this.fileUploadJournalDirectory = clientOptions != null ? clientOptions.getFileUploadJournalDirectory() : null;
+        this.reconnectCoordinator = clientOptions != null ? clientOptions.getReconnectCoordinator() : null;
 
         if (proxySettings != null)
         {
@@ -287,6 +362,66 @@ public final class ClientConfiguration
         {
             throw new IllegalArgumentException("ClientOption amqpDeviceSessionTimeout must be greater than 0");
         }
+
+        if (this.reportedPropertiesCoalescingWindow < 0)
+        {
+            throw new IllegalArgumentException("ClientOption reportedPropertiesCoalescingWindow must be greater than or equal to 0");
+        }
+
+        if (this.twinCacheMaxAge < 0)
+        {
+            throw new IllegalArgumentException("ClientOption twinCacheMaxAge must be greater than or equal to 0");
+        }
+
+        if (this.directMethodDispatchThreadCount < 0)
+        {
+            throw new IllegalArgumentException("ClientOption directMethodDispatchThreadCount must be greater than or equal to 0");
+        }
+
+        if (this.directMethodConcurrencyLimit <= 0)
+        {
+            throw new IllegalArgumentException("ClientOption directMethodConcurrencyLimit must be greater than 0");
+        }
+
+        if (this.directMethodTimeout < 0)
+        {
+            throw new IllegalArgumentException("ClientOption directMethodTimeout must be greater than or equal to 0");
+        }
+
+        if (this.mqttMaxInFlightMessages <= 0)
+        {
+            throw new IllegalArgumentException("ClientOption mqttMaxInFlightMessages must be greater than 0");
+        }
+
+        if (this.amqpCloudToDeviceMessageCreditWindow <= 0)
+        {
+            throw new IllegalArgumentException("ClientOption amqpCloudToDeviceMessageCreditWindow must be greater than 0");
+        }
+
+        if (this.amqpTwinCreditWindow <= 0)
+        {
+            throw new IllegalArgumentException("ClientOption amqpTwinCreditWindow must be greater than 0");
+        }
+
+        if (this.amqpDirectMethodCreditWindow <= 0)
+        {
+            throw new IllegalArgumentException("ClientOption amqpDirectMethodCreditWindow must be greater than 0");
+        }
+
+        if (this.fileUploadBlockSize <= 0 || this.fileUploadBlockSize > MAX_FILE_UPLOAD_BLOCK_SIZE_IN_BYTES)
+        {
+            throw new IllegalArgumentException("ClientOption fileUploadBlockSize must be greater than 0 and at most 100 MiB");
+        }
+
+        if (this.fileUploadParallelism <= 0)
+        {
+            throw new IllegalArgumentException("ClientOption fileUploadParallelism must be greater than 0");
+        }
+
+        if (this.fileUploadBlockRetryCount < 0)
+        {
+            throw new IllegalArgumentException("ClientOption fileUploadBlockRetryCount must be greater than or equal to 0");
+        }
     }
 
     ClientConfiguration(IotHubConnectionString iotHubConnectionString, IotHubClientProtocol protocol, SSLContext sslContext)
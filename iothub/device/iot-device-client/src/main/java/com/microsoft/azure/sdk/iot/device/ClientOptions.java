@@ -3,12 +3,20 @@
 
 package com.microsoft.azure.sdk.iot.device;
 
+import com.microsoft.azure.sdk.iot.device.transport.ReconnectCoordinator;
 import lombok.Builder;
 import lombok.Getter;
 
 import javax.net.ssl.SSLContext;
+import java.nio.file.Path;
+import java.util.Map;
 
+import static com.microsoft.azure.sdk.iot.device.ClientConfiguration.DEFAULT_AMQP_RECEIVER_LINK_CREDIT_WINDOW;
+import static com.microsoft.azure.sdk.iot.device.ClientConfiguration.DEFAULT_FILE_UPLOAD_BLOCK_RETRY_COUNT;
+import static com.microsoft.azure.sdk.iot.device.ClientConfiguration.DEFAULT_FILE_UPLOAD_BLOCK_SIZE_IN_BYTES;
+import static com.microsoft.azure.sdk.iot.device.ClientConfiguration.DEFAULT_FILE_UPLOAD_PARALLELISM;
 import static com.microsoft.azure.sdk.iot.device.ClientConfiguration.DEFAULT_KEEP_ALIVE_INTERVAL_IN_SECONDS;
+import static com.microsoft.azure.sdk.iot.device.ClientConfiguration.DEFAULT_MQTT_MAX_IN_FLIGHT_MESSAGES;
 
 /**
  * Options that allow configuration of the device client instance during initialization.
@@ -203,6 +211,210 @@ public final class ClientOptions
     @Builder.Default
     private final long messageExpirationCheckPeriod = 10000;
 
+    /**
+     * The window (in milliseconds) over which reported properties updates made through
+     * {@link InternalClient#updateReportedPropertiesAsync(com.microsoft.azure.sdk.iot.device.twin.TwinCollection, com.microsoft.azure.sdk.iot.device.twin.ReportedPropertiesCallback, Object)}
+     * are merged into a single patch before being sent.
+     *
+     * When a reported properties update is requested, it is held for up to this long so that any other updates requested
+     * in the meantime can be merged into it. If multiple updates set the same key, the most recently requested value is sent.
+     * Each caller whose update was merged has its callback executed with the result of the single merged request.
+     *
+     * Higher values mean fewer requests are sent to the service when reported properties are updated frequently, but
+     * each update is delayed by up to this long before it is sent.
+     *
+     * Reported properties updates that specify a version are never merged and are sent immediately, after any
+     * pending merged update.
+     *
+     * By default, this value is 0 and every reported properties update is sent as its own request.
+     */
+    @Getter
+    @Builder.Default
+    private final long reportedPropertiesCoalescingWindow = 0;
+
+    /**
+     * The maximum age (in milliseconds) of the locally cached twin that {@link InternalClient#getTwinAsync(com.microsoft.azure.sdk.iot.device.twin.GetTwinCallback, Object)}
+     * may return instead of requesting the twin from the service.
+     *
+     * When set, this client keeps a copy of the twin from the last getTwin response and applies every desired properties
+     * update and every accepted reported properties update to it in version order. As long as no update was missed and
+     * the last getTwin response is no older than this value, getTwin calls are served from that copy. When a desired
+     * properties update is received whose version does not directly follow the cached version, the client refreshes
+     * the copy with a single getTwin request.
+     *
+     * Twins served from the cache only execute {@link com.microsoft.azure.sdk.iot.device.twin.GetTwinCorrelatingMessageCallback#onResponseReceived}
+     * with a null message.
+     *
+     * By default, this value is 0 and every getTwin call is sent to the service.
+     */
+    @Getter
+    @Builder.Default
+    private final long twinCacheMaxAge = 0;
+
+    /**
+     * This option is applicable for MQTT, MQTT_WS, AMQPS, and AMQPS_WS.
+     * The number of threads that direct method callbacks are executed on.
+     *
+     * By default, this value is 0 and each direct method callback is executed on the thread that received the direct
+     * method invocation. In that case, a slow direct method callback delays every other direct method, cloud to device
+     * message and twin callback of this client, and of every other client on the same multiplexed connection.
+     *
+     * If greater than 0, direct method callbacks are executed on a dedicated pool of this many threads, and the
+     * {@link #directMethodConcurrencyLimit}, {@link #directMethodConcurrencyLimits} and {@link #directMethodTimeout}
+     * options apply.
+     */
+    @Getter
+    @Builder.Default
+    private final int directMethodDispatchThreadCount = 0;
+
+    /**
+     * This option is only applicable if {@link #directMethodDispatchThreadCount} is greater than 0.
+     * The maximum number of invocations of any one direct method name that may be executing at the same time. Further
+     * invocations of that method are queued and executed in the order they were received.
+     *
+     * By default, this value is 1 so that invocations of the same method are executed, and responded to, one at a time
+     * and in order, while invocations of different methods are executed concurrently.
+     */
+    @Getter
+    @Builder.Default
+    private final int directMethodConcurrencyLimit = 1;
+
+    /**
+     * This option is only applicable if {@link #directMethodDispatchThreadCount} is greater than 0.
+     * Overrides of {@link #directMethodConcurrencyLimit} for particular direct method names, keyed by method name.
+     *
+     * By default, this value is null and every method uses {@link #directMethodConcurrencyLimit}.
+     */
+    @Getter
+    @Builder.Default
+    private final Map<String, Integer> directMethodConcurrencyLimits = null;
+
+    /**
+     * This option is only applicable if {@link #directMethodDispatchThreadCount} is greater than 0.
+     * The time (in milliseconds) after a direct method invocation is received that its callback is cancelled if it has not
+     * completed yet. A cancelled callback's thread is interrupted and its response is not sent. This value should
+     * generally match the response timeout that service applications use when invoking methods on this client, since the
+     * service stops waiting for a response after that time.
+     *
+     * By default, this value is 0 and direct method callbacks are never cancelled.
+     */
+    @Getter
+    @Builder.Default
+    private final long directMethodTimeout = 0;
+
+    /**
+     * This option is applicable for MQTT and MQTT_WS only.
+     * The maximum number of published messages that may be waiting for an acknowledgement from the service at once.
+     *
+     * Once this many messages are in flight, this client stops sending until the service acknowledges one of them.
+     * Messages sent in the meantime stay queued in this client. Lower values bound how many messages are lost
+     * if the connection drops, while higher values allow more throughput over high latency connections.
+     *
+     * By default, this value is 65000.
+     */
+    @Getter
+    @Builder.Default
+    private final int mqttMaxInFlightMessages = DEFAULT_MQTT_MAX_IN_FLIGHT_MESSAGES;
+
+    /**
+     * This option is applicable for AMQPS and AMQPS_WS only.
+     * The maximum number of cloud to device messages that may be in flight to this client or waiting for their
+     * callback to complete at once.
+     *
+     * The service stops delivering cloud to device messages while this many are unacknowledged, so messages wait in
+     * IoT hub rather than in this client when the application falls behind. Within this maximum, the number of messages
+     * that the service may deliver grows while the application keeps up, and shrinks while it falls behind.
+     *
+     * By default, this value is 1024.
+     */
+    @Getter
+    @Builder.Default
+    private final int amqpCloudToDeviceMessageCreditWindow = DEFAULT_AMQP_RECEIVER_LINK_CREDIT_WINDOW;
+
+    /**
+     * This option is applicable for AMQPS and AMQPS_WS only.
+     * The maximum number of twin messages that may be in flight to this client or waiting for their callback to
+     * complete at once. See {@link #amqpCloudToDeviceMessageCreditWindow} for how this window adapts.
+     *
+     * By default, this value is 1024.
+     */
+    @Getter
+    @Builder.Default
+    private final int amqpTwinCreditWindow = DEFAULT_AMQP_RECEIVER_LINK_CREDIT_WINDOW;
+
+    /**
+     * This option is applicable for AMQPS and AMQPS_WS only.
+     * The maximum number of direct method invocations that may be in flight to this client or waiting for their
+     * callback to complete at once. See {@link #amqpCloudToDeviceMessageCreditWindow} for how this window adapts.
+     *
+     * By default, this value is 1024.
+     */
+    @Getter
+    @Builder.Default
+    private final int amqpDirectMethodCreditWindow = DEFAULT_AMQP_RECEIVER_LINK_CREDIT_WINDOW;
+
+    /**
+     * This option is only applicable to {@link DeviceClient#uploadFile(String, java.io.InputStream)}.
+     * The size (in bytes) of each block that a file is split into when it is uploaded to Azure Storage. A blob can
+     * have at most 50,000 blocks, so this value bounds the size of the largest file that can be uploaded. At most
+     * {@link #fileUploadParallelism} blocks are held in memory at once.
+     *
+     * By default, this value is 4 MiB. It may be at most 100 MiB.
+     */
+    @Getter
+    @Builder.Default
+    private final int fileUploadBlockSize = DEFAULT_FILE_UPLOAD_BLOCK_SIZE_IN_BYTES;
+
+    /**
+     * This option is only applicable to {@link DeviceClient#uploadFile(String, java.io.InputStream)}.
+     * The maximum number of blocks of a file that are uploaded to Azure Storage at once.
+     *
+     * By default, this value is 4.
+     */
+    @Getter
+    @Builder.Default
+    private final int fileUploadParallelism = DEFAULT_FILE_UPLOAD_PARALLELISM;
+
+    /**
+     * This option is only applicable to {@link DeviceClient#uploadFile(String, java.io.InputStream)}.
+     * The number of times that the upload of a single block is retried after a network failure, a throttling or
+     * server error response, or a content hash mismatch, before the whole file upload fails.
+     *
+     * By default, this value is 3.
+     */
+    @Getter
+    @Builder.Default
+    private final int fileUploadBlockRetryCount = DEFAULT_FILE_UPLOAD_BLOCK_RETRY_COUNT;
+
+    /**
+     * This option is only applicable to {@link DeviceClient#uploadFile(String, Path)}.
+     * The directory that file uploads are journaled in so that they can be resumed. If set, each uploaded block of a file
+     * is recorded in a small journal file in this directory, and an upload of the same unchanged file to the same blob
+     * that was interrupted by a restart or a lost connection continues from the blocks that were already uploaded rather
+     * than starting over. The journal records the correlation id of the upload but not its SAS token, so a resumed upload
+     * continues with a new SAS URI from IoT hub, and IoT hub is notified that the interrupted upload failed.
+     *
+     * An upload that fails because of a network error leaves its journal in place and does not notify IoT hub, so
+     * that it can be resumed by calling {@link DeviceClient#uploadFile(String, Path)} again. The directory should be
+     * on persistent storage for uploads to be resumable across restarts.
+     *
+     * By default, this value is null and file uploads are not resumable.
+     */
+    @Getter
+    @Builder.Default
+    private final Path fileUploadJournalDirectory = null;
+
+    /**
+     * The coordinator that this client's reconnection attempts must be admitted by, in addition to the delays of its
+     * {@link com.microsoft.azure.sdk.iot.device.transport.RetryPolicy}. Give the same coordinator to every client in
+     * a process to bound the rate at which they reconnect after a shared outage, such as a lost network connection.
+     *
+     * By default, this value is null and each client reconnects as soon as its retry policy allows.
+     */
+    @Getter
+    @Builder.Default
+    private final ReconnectCoordinator reconnectCoordinator = null;
+
     public boolean isUsingIdentifiableThreadNames()
     {
         // Using a manually written method here to override the name that Lombok would have given it
@@ -10,7 +10,13 @@ import com.microsoft.azure.sdk.iot.device.transport.https.HttpsTransportManager;
 import com.microsoft.azure.sdk.iot.provisioning.security.SecurityProvider;
 import lombok.extern.slf4j.Slf4j;
 
+import javax.net.ssl.SSLContext;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 /**
  * <p>
@@ -37,6 +43,13 @@ public final class DeviceClient extends InternalClient
 
     private FileUpload fileUpload;
 
+    // The status reported to IoT hub for file uploads done by this client. These are not interpreted by IoT hub, only
+    // forwarded to service applications that listen for file upload notifications.
+    private static final int FILE_UPLOAD_SUCCESS_STATUS_CODE = 200;
+    private static final String FILE_UPLOAD_SUCCESS_STATUS_DESCRIPTION = "Success";
+    private static final int FILE_UPLOAD_FAILURE_STATUS_CODE = 500;
+    private static final String FILE_UPLOAD_INTERRUPTED_STATUS_DESCRIPTION = "The upload was interrupted and is resumed with a new SAS URI";
+
     private static final String MULTIPLEXING_CLOSE_ERROR_MESSAGE = "Cannot close a multiplexed client through this method. Must use multiplexingClient.unregisterDeviceClient(deviceClient)";
     private static final String MULTIPLEXING_OPEN_ERROR_MESSAGE = "Cannot open a multiplexed client through this method. Must use multiplexingClient.registerDeviceClient(deviceClient)";
 
@@ -260,6 +273,176 @@ public final class DeviceClient extends InternalClient
         this.fileUpload.sendNotification(notification);
     }
 
+    /**
+     * Upload a file to Azure Storage through IoT hub. This gets a SAS URI for the blob from IoT hub, uploads the file
+     * to it in blocks, and then notifies IoT hub of the outcome of the upload, so it replaces the
+     * {@link #getFileUploadSasUri(FileUploadSasUriRequest)} and {@link #completeFileUpload(FileUploadCompletionNotification)}
+     * calls and the use of the Azure Storage SDK in between them.
+     *
+     * <p>
+     * The file is uploaded in blocks of {@link ClientOptions#getFileUploadBlockSize()} bytes, up to
+     * {@link ClientOptions#getFileUploadParallelism()} at once, and each block is retried on its own if it fails. If
+     * {@link ClientOptions#getFileUploadJournalDirectory()} is set, the upload is resumable: calling this method again
+     * after it failed because of a network error, or after a restart, continues from the blocks that were already
+     * uploaded. See {@link ClientOptions} for details.
+     * </p>
+     * @param blobName The name of the destination blob.
+     * @param path The file to upload.
+     * @throws IotHubClientException If getting the SAS URI or sending the completion notification fails.
+     * @throws IOException If the file could not be read or could not be uploaded to Azure Storage. IoT hub is notified
+     * of the failed upload before this is thrown, unless the upload is resumable and failed because of a network error.
+     */
+    public void uploadFile(String blobName, Path path) throws IotHubClientException, IOException
+    {
+        if (path == null)
+        {
+            throw new IllegalArgumentException("path cannot be null");
+        }
+
+        if (this.config.getFileUploadJournalDirectory() != null)
+        {
+            uploadFileResumably(blobName, path, this.config.getFileUploadJournalDirectory());
+            return;
+        }
+
+        try (InputStream inputStream = Files.newInputStream(path))
+        {
+            uploadFile(blobName, inputStream);
+        }
+    }
+
+    /**
+     * Upload the content of a stream to Azure Storage through IoT hub. The stream is read until its end but is not
+     * closed. Uploads of streams are never resumable. See {@link #uploadFile(String, Path)} for more details.
+     *
+     * @param blobName The name of the destination blob.
+     * @param inputStream The content to upload.
+     * @throws IotHubClientException If getting the SAS URI or sending the completion notification fails.
+     * @throws IOException If the stream could not be read or could not be uploaded to Azure Storage. IoT hub is
+     * notified of the failed upload before this is thrown.
+     */
+    public void uploadFile(String blobName, InputStream inputStream) throws IotHubClientException, IOException
+    {
+        if (inputStream == null)
+        {
+            throw new IllegalArgumentException("inputStream cannot be null");
+        }
+
+        FileUploadSasUriResponse sasUriResponse = getFileUploadSasUri(new FileUploadSasUriRequest(blobName));
+
+        try
+        {
+            newBlobBlockUploader(sasUriResponse).upload(inputStream);
+        }
+        catch (IOException e)
+        {
+            notifyFileUploadFailure(sasUriResponse, e);
+            throw e;
+        }
+
+        notifyFileUploadSuccess(sasUriResponse);
+    }
+
+    private void uploadFileResumably(String blobName, Path path, Path journalDirectory) throws IotHubClientException, IOException
+    {
+        FileUploadJournal journal = FileUploadJournal.open(journalDirectory, blobName, path, this.config.getFileUploadBlockSize());
+
+        // The journal does not keep the SAS token of an interrupted upload, so the upload continues with a new SAS URI.
+        // The interrupted upload is completed as failed first so that it does not hold one of the device's concurrent
+        // file uploads until its SAS URI expires.
+        String interruptedCorrelationId = journal.getCorrelationId();
+        if (interruptedCorrelationId != null)
+        {
+            notifyFileUploadInterrupted(interruptedCorrelationId);
+        }
+
+        FileUploadSasUriResponse sasUriResponse = getFileUploadSasUri(new FileUploadSasUriRequest(blobName));
+        journal.setCorrelationId(sasUriResponse.getCorrelationId());
+
+        try (InputStream inputStream = Files.newInputStream(path))
+        {
+            newBlobBlockUploader(sasUriResponse).upload(inputStream, journal);
+        }
+        catch (BlobBlockUploader.BlobStorageException e)
+        {
+            if (BlobBlockUploader.isRetryable(e))
+            {
+                log.debug("File upload {} failed, it can be resumed from {} uploaded block(s)", sasUriResponse.getCorrelationId(), journal.getUploadedBlockCount(), e);
+                throw e;
+            }
+
+            // This includes the service rejecting the block list because the uncommitted blocks of an old
+            // journal were already discarded, so the next upload must start over
+            journal.delete();
+            notifyFileUploadFailure(sasUriResponse, e);
+            throw e;
+        }
+        catch (IOException e)
+        {
+            log.debug("File upload {} failed, it can be resumed from {} uploaded block(s)", sasUriResponse.getCorrelationId(), journal.getUploadedBlockCount(), e);
+            throw e;
+        }
+
+        notifyFileUploadSuccess(sasUriResponse);
+        journal.delete();
+    }
+
+    private void notifyFileUploadInterrupted(String correlationId)
+    {
+        log.debug("Resuming interrupted file upload {} with a new SAS URI, notifying IoT hub that the interrupted upload failed", correlationId);
+        try
+        {
+            completeFileUpload(new FileUploadCompletionNotification(correlationId, false, FILE_UPLOAD_FAILURE_STATUS_CODE, FILE_UPLOAD_INTERRUPTED_STATUS_DESCRIPTION));
+        }
+        catch (IotHubClientException e)
+        {
+            // The interrupted upload may have expired already, which does not prevent resuming it
+            log.debug("Failed to notify IoT hub that interrupted file upload {} failed", correlationId, e);
+        }
+    }
+
+    private BlobBlockUploader newBlobBlockUploader(FileUploadSasUriResponse sasUriResponse) throws IOException
+    {
+        URL blobUrl;
+        try
+        {
+            blobUrl = sasUriResponse.getBlobUri().toURL();
+        }
+        catch (URISyntaxException e)
+        {
+            throw new IOException("Failed to build the blob uri", e);
+        }
+
+        // The SSL context is only needed to tunnel the TLS connection through the proxy
+        ProxySettings proxySettings = this.config.getProxySettings();
+        SSLContext sslContext = proxySettings != null ? this.config.getAuthenticationProvider().getSSLContext() : null;
+
+        return new BlobBlockUploader(
+            blobUrl,
+            this.config.getFileUploadBlockSize(),
+            this.config.getFileUploadParallelism(),
+            this.config.getFileUploadBlockRetryCount(),
+            proxySettings,
+            sslContext,
+            this.config.getHttpsConnectTimeout(),
+            this.config.getHttpsReadTimeout());
+    }
+
+    private void notifyFileUploadSuccess(FileUploadSasUriResponse sasUriResponse) throws IotHubClientException
+    {
+        completeFileUpload(new FileUploadCompletionNotification(sasUriResponse.getCorrelationId(), true, FILE_UPLOAD_SUCCESS_STATUS_CODE, FILE_UPLOAD_SUCCESS_STATUS_DESCRIPTION));
+    }
+
+    private void notifyFileUploadFailure(FileUploadSasUriResponse sasUriResponse, IOException e) throws IotHubClientException
+    {
+        int statusCode = e instanceof BlobBlockUploader.BlobStorageException
+            ? ((BlobBlockUploader.BlobStorageException) e).getStatusCode()
+            : FILE_UPLOAD_FAILURE_STATUS_CODE;
+
+        log.debug("File upload {} failed, notifying IoT hub of the failure", sasUriResponse.getCorrelationId(), e);
+        completeFileUpload(new FileUploadCompletionNotification(sasUriResponse.getCorrelationId(), false, statusCode, e.getMessage()));
+    }
+
     /**
      * Returns if this client is or ever was registered to a {@link MultiplexingClient} instance. Device clients that were
      * cannot be used in non-multiplexed connections. Device clients that aren't registered to any multiplexing client
@@ -140,6 +140,11 @@ final class DeviceIO implements IotHubConnectionStatusChangeCallback
         this.transport.setMultiplexingRetryPolicy(retryPolicy);
     }
 
+    void setMultiplexingReconnectCoordinator(ReconnectCoordinator reconnectCoordinator)
+    {
+        this.transport.setMultiplexingReconnectCoordinator(reconnectCoordinator);
+    }
+
     void setMaxNumberOfMessagesSentPerSendThread(int maxNumberOfMessagesSentPerSendThread)
     {
         this.transport.setMaxNumberOfMessagesSentPerSendThread(maxNumberOfMessagesSentPerSendThread);
@@ -3,15 +3,22 @@
 
 package com.microsoft.azure.sdk.iot.device;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.microsoft.azure.sdk.iot.device.internal.GsonSerializers;
+
+import java.io.IOException;
 
 /**
  * The request payload to send to IoT Hub to notify it when a file upload is completed, whether successful or not.
  * Must set whether the file upload was a success or not, and must set the correlation Id, but all other fields are optional.
  */
+@JsonAdapter(FileUploadCompletionNotification.FileUploadCompletionNotificationAdapter.class)
 public class FileUploadCompletionNotification
 {
     private static final String CORRELATION_ID_TAG = "correlationId";
@@ -78,9 +85,7 @@ public class FileUploadCompletionNotification
      */
     public String toJson()
     {
-        Gson gson = new GsonBuilder().disableHtmlEscaping().serializeNulls().create();
-
-        return gson.toJson(this);
+        return GsonSerializers.FILE_UPLOAD.toJson(this);
     }
 
     /**
@@ -159,4 +164,71 @@ public class FileUploadCompletionNotification
     public FileUploadCompletionNotification()
     {
     }
+
+    /**
+     * Serializes this class without reflection. Used by every Gson instance through the {@link JsonAdapter} annotation on this class.
+     */
+    static final class FileUploadCompletionNotificationAdapter extends TypeAdapter<FileUploadCompletionNotification>
+    {
+        @Override
+        public void write(JsonWriter writer, FileUploadCompletionNotification notification) throws IOException
+        {
+            if (notification == null)
+            {
+                writer.nullValue();
+                return;
+            }
+
+            writer.beginObject();
+            writer.name(CORRELATION_ID_TAG).value(notification.correlationId);
+            writer.name(IS_SUCCESS_TAG).value(notification.isSuccess);
+            writer.name(STATUS_CODE_TAG).value(notification.statusCode);
+            writer.name(STATUS_DESCRIPTION_TAG).value(notification.statusDescription);
+            writer.endObject();
+        }
+
+        @Override
+        public FileUploadCompletionNotification read(JsonReader reader) throws IOException
+        {
+            if (reader.peek() == JsonToken.NULL)
+            {
+                reader.nextNull();
+                return null;
+            }
+
+            FileUploadCompletionNotification notification = new FileUploadCompletionNotification();
+            reader.beginObject();
+            while (reader.hasNext())
+            {
+                String name = reader.nextName();
+                if (reader.peek() == JsonToken.NULL)
+                {
+                    reader.nextNull();
+                    continue;
+                }
+
+                switch (name)
+                {
+                    case CORRELATION_ID_TAG:
+                        notification.correlationId = reader.nextString();
+                        break;
+                    case IS_SUCCESS_TAG:
+                        notification.isSuccess = reader.nextBoolean();
+                        break;
+                    case STATUS_CODE_TAG:
+                        notification.statusCode = reader.nextInt();
+                        break;
+                    case STATUS_DESCRIPTION_TAG:
+                        notification.statusDescription = reader.nextString();
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+
+            reader.endObject();
+            return notification;
+        }
+    }
 }
@@ -0,0 +1,266 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A small local file that records the progress of a resumable file upload, so that an upload that is interrupted by a
+ * reboot or a lost connection can continue from the blocks that were already uploaded instead of from the start.
+ *
+ * <p>
+ * The journal of a blob is named after a hash of the blob name. Its first line records the correlation id of the upload
+ * along with the size and modification time of the file being uploaded and the block size, and each following line
+ * records the index of one uploaded block. The SAS URI of the upload is not recorded, so that its SAS token is never
+ * written to disk; a resumed upload continues with a new SAS URI instead. Blocks are appended as they are uploaded and synced to disk
+ * so that a block is never recorded before it is uploaded. A journal whose file or block size no longer match is
+ * discarded, since its blocks would not line up with the file anymore.
+ * </p>
+ */
+@Slf4j
+final class FileUploadJournal
+{
+    private static final String JOURNAL_FILE_EXTENSION = ".journal";
+    private static final String TEMPORARY_FILE_EXTENSION = ".tmp";
+
+    private static final String CORRELATION_ID_TAG = "correlationId";
+    private static final String SOURCE_SIZE_TAG = "sourceSize";
+    private static final String SOURCE_LAST_MODIFIED_TAG = "sourceLastModified";
+    private static final String BLOCK_SIZE_TAG = "blockSize";
+
+    private final Path journalPath;
+    private final long sourceSize;
+    private final long sourceLastModified;
+    private final int blockSize;
+
+    // guarded by this
+    private final BitSet uploadedBlocks;
+    private String correlationId;
+
+    private FileUploadJournal(Path journalPath, long sourceSize, long sourceLastModified, int blockSize)
+    {
+        this.journalPath = journalPath;
+        this.sourceSize = sourceSize;
+        this.sourceLastModified = sourceLastModified;
+        this.blockSize = blockSize;
+        this.uploadedBlocks = new BitSet();
+    }
+
+    /**
+     * Load the journal of an upload of the provided file to the provided blob, or start a new one if there is no
+     * journal for that blob or if its file or block size don't match.
+     *
+     * @param journalDirectory the directory that journals are kept in. Created if it does not exist.
+     * @param blobName the name of the destination blob.
+     * @param source the file being uploaded.
+     * @param blockSize the block size of the upload.
+     * @return the journal of the upload.
+     * @throws IOException if the journal directory could not be created or the file could not be accessed.
+     */
+    static FileUploadJournal open(Path journalDirectory, String blobName, Path source, int blockSize) throws IOException
+    {
+        Files.createDirectories(journalDirectory);
+
+        FileUploadJournal journal = new FileUploadJournal(
+            journalDirectory.resolve(hash(blobName) + JOURNAL_FILE_EXTENSION),
+            Files.size(source),
+            Files.getLastModifiedTime(source).toMillis(),
+            blockSize);
+
+        journal.load();
+        return journal;
+    }
+
+    /**
+     * @return the correlation id of the upload recorded in this journal, or null if there is none yet.
+     */
+    synchronized String getCorrelationId()
+    {
+        return this.correlationId;
+    }
+
+    /**
+     * Record the correlation id of the SAS URI that the upload continues with. Blocks uploaded with a previous SAS URI
+     * stay recorded, since the blob keeps its uncommitted blocks regardless of which SAS URI they were uploaded with.
+     *
+     * @param correlationId the correlation id of the upload.
+     * @throws IOException if the journal could not be written.
+     */
+    synchronized void setCorrelationId(String correlationId) throws IOException
+    {
+        this.correlationId = correlationId;
+        rewrite();
+    }
+
+    /**
+     * @param blockIndex the index of the block.
+     * @return true if the block was recorded as uploaded.
+     */
+    synchronized boolean isBlockUploaded(int blockIndex)
+    {
+        return this.uploadedBlocks.get(blockIndex);
+    }
+
+    /**
+     * Record that a block was uploaded.
+     *
+     * @param blockIndex the index of the block.
+     * @throws IOException if the journal could not be written.
+     */
+    synchronized void blockUploaded(int blockIndex) throws IOException
+    {
+        if (this.uploadedBlocks.get(blockIndex))
+        {
+            return;
+        }
+
+        Files.write(
+            this.journalPath,
+            (blockIndex + System.lineSeparator()).getBytes(StandardCharsets.UTF_8),
+            StandardOpenOption.APPEND,
+            StandardOpenOption.DSYNC);
+
+        this.uploadedBlocks.set(blockIndex);
+    }
+
+    /**
+     * @return the number of blocks recorded as uploaded.
+     */
+    synchronized int getUploadedBlockCount()
+    {
+        return this.uploadedBlocks.cardinality();
+    }
+
+    /**
+     * Delete this journal, once its upload has completed or can no longer be resumed.
+     */
+    synchronized void delete()
+    {
+        try
+        {
+            Files.deleteIfExists(this.journalPath);
+        }
+        catch (IOException e)
+        {
+            // A leftover journal is discarded by the next upload to the same blob, since its SAS URI will have expired
+            log.warn("Failed to delete file upload journal {}", this.journalPath, e);
+        }
+
+        this.uploadedBlocks.clear();
+        this.correlationId = null;
+    }
+
+    private synchronized void load() throws IOException
+    {
+        List<String> lines;
+        try
+        {
+            lines = Files.readAllLines(this.journalPath, StandardCharsets.UTF_8);
+        }
+        catch (NoSuchFileException e)
+        {
+            return;
+        }
+
+        try
+        {
+            JsonObject header = JsonParser.parseString(lines.get(0)).getAsJsonObject();
+            if (header.get(SOURCE_SIZE_TAG).getAsLong() != this.sourceSize
+                || header.get(SOURCE_LAST_MODIFIED_TAG).getAsLong() != this.sourceLastModified
+                || header.get(BLOCK_SIZE_TAG).getAsInt() != this.blockSize)
+            {
+                log.debug("Discarding file upload journal {} since the file or block size changed since it was written", this.journalPath);
+                return;
+            }
+
+            this.correlationId = header.get(CORRELATION_ID_TAG).getAsString();
+        }
+        catch (RuntimeException e)
+        {
+            log.debug("Discarding unreadable file upload journal {}", this.journalPath, e);
+            return;
+        }
+
+        for (String line : lines.subList(1, lines.size()))
+        {
+            try
+            {
+                this.uploadedBlocks.set(Integer.parseInt(line.trim()));
+            }
+            catch (NumberFormatException e)
+            {
+                // The last line may have been cut short if the device lost power while it was being appended
+                log.trace("Ignoring malformed file upload journal entry {}", line);
+            }
+        }
+
+        log.debug("Resuming file upload {} with {} block(s) already uploaded", this.correlationId, this.uploadedBlocks.cardinality());
+    }
+
+    // Replaces the journal with the current header and blocks, such that a crash leaves either the old or the new journal
+    private void rewrite() throws IOException
+    {
+        JsonObject header = new JsonObject();
+        header.addProperty(CORRELATION_ID_TAG, this.correlationId);
+        header.addProperty(SOURCE_SIZE_TAG, this.sourceSize);
+        header.addProperty(SOURCE_LAST_MODIFIED_TAG, this.sourceLastModified);
+        header.addProperty(BLOCK_SIZE_TAG, this.blockSize);
+
+        Path temporaryPath = this.journalPath.resolveSibling(this.journalPath.getFileName() + TEMPORARY_FILE_EXTENSION);
+        try (BufferedWriter writer = Files.newBufferedWriter(temporaryPath, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE, StandardOpenOption.DSYNC))
+        {
+            writer.write(header.toString());
+            writer.newLine();
+            for (int blockIndex = this.uploadedBlocks.nextSetBit(0); blockIndex >= 0; blockIndex = this.uploadedBlocks.nextSetBit(blockIndex + 1))
+            {
+                writer.write(Integer.toString(blockIndex));
+                writer.newLine();
+            }
+        }
+
+        try
+        {
+            Files.move(temporaryPath, this.journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (AtomicMoveNotSupportedException e)
+        {
+            Files.move(temporaryPath, this.journalPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static String hash(String blobName) throws IOException
+    {
+        try
+        {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(blobName.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest)
+            {
+                hex.append(String.format("%02x", b));
+            }
+
+            return hex.toString();
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IOException("SHA-256 is not supported on this device", e);
+        }
+    }
+}
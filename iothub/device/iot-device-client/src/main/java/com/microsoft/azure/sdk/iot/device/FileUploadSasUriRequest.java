@@ -3,16 +3,23 @@
 
 package com.microsoft.azure.sdk.iot.device;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.microsoft.azure.sdk.iot.device.internal.GsonSerializers;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.io.IOException;
+
 /**
  * The request parameters when getting a file upload sas uri from IoT Hub.
  */
+@JsonAdapter(FileUploadSasUriRequest.FileUploadSasUriRequestAdapter.class)
 public class FileUploadSasUriRequest
 {
     private static final String BLOB_NAME_TAG = "blobName";
@@ -40,9 +47,7 @@ public class FileUploadSasUriRequest
      */
     public String toJson()
     {
-        Gson gson = new GsonBuilder().disableHtmlEscaping().serializeNulls().create();
-
-        return gson.toJson(this);
+        return GsonSerializers.FILE_UPLOAD.toJson(this);
     }
 
     /**
@@ -52,4 +57,51 @@ public class FileUploadSasUriRequest
     FileUploadSasUriRequest()
     {
     }
+
+    /**
+     * Serializes this class without reflection. Used by every Gson instance through the {@link JsonAdapter} annotation on this class.
+     */
+    static final class FileUploadSasUriRequestAdapter extends TypeAdapter<FileUploadSasUriRequest>
+    {
+        @Override
+        public void write(JsonWriter writer, FileUploadSasUriRequest request) throws IOException
+        {
+            if (request == null)
+            {
+                writer.nullValue();
+                return;
+            }
+
+            writer.beginObject();
+            writer.name(BLOB_NAME_TAG).value(request.blobName);
+            writer.endObject();
+        }
+
+        @Override
+        public FileUploadSasUriRequest read(JsonReader reader) throws IOException
+        {
+            if (reader.peek() == JsonToken.NULL)
+            {
+                reader.nextNull();
+                return null;
+            }
+
+            FileUploadSasUriRequest request = new FileUploadSasUriRequest();
+            reader.beginObject();
+            while (reader.hasNext())
+            {
+                if (BLOB_NAME_TAG.equals(reader.nextName()) && reader.peek() != JsonToken.NULL)
+                {
+                    request.blobName = reader.nextString();
+                }
+                else
+                {
+                    reader.skipValue();
+                }
+            }
+
+            reader.endObject();
+            return request;
+        }
+    }
 }
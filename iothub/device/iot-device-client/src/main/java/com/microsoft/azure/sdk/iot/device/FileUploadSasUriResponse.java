@@ -3,14 +3,19 @@
 
 package com.microsoft.azure.sdk.iot.device;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
 import com.google.gson.annotations.Expose;
+import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.microsoft.azure.sdk.iot.device.internal.GsonSerializers;
 import com.microsoft.azure.sdk.iot.device.twin.ParserUtility;
 import lombok.Getter;
 
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -20,6 +25,7 @@ import java.nio.charset.StandardCharsets;
 /**
  * The information provided from IoT Hub that can be used with the Azure Storage SDK to upload a file from your device, including authentication.
  */
+@JsonAdapter(FileUploadSasUriResponse.FileUploadSasUriResponseAdapter.class)
 public class FileUploadSasUriResponse
 {
     private static final String HTTPS_URL_STRING = "https://";
@@ -62,13 +68,12 @@ public class FileUploadSasUriResponse
      */
     public FileUploadSasUriResponse(String json) throws IllegalArgumentException
     {
-        Gson gson = new GsonBuilder().disableHtmlEscaping().serializeNulls().create();
         FileUploadSasUriResponse newFileUploadSasUriResponse;
 
         ParserUtility.validateStringUTF8(json);
         try
         {
-            newFileUploadSasUriResponse = gson.fromJson(json, FileUploadSasUriResponse.class);
+            newFileUploadSasUriResponse = GsonSerializers.FILE_UPLOAD.fromJson(json, FileUploadSasUriResponse.class);
         }
         catch (JsonSyntaxException malformed)
         {
@@ -106,4 +111,75 @@ public class FileUploadSasUriResponse
     FileUploadSasUriResponse()
     {
     }
+
+    /**
+     * Deserializes this class without reflection. Used by every Gson instance through the {@link JsonAdapter} annotation on this class.
+     */
+    static final class FileUploadSasUriResponseAdapter extends TypeAdapter<FileUploadSasUriResponse>
+    {
+        @Override
+        public void write(JsonWriter writer, FileUploadSasUriResponse response) throws IOException
+        {
+            if (response == null)
+            {
+                writer.nullValue();
+                return;
+            }
+
+            writer.beginObject();
+            writer.name(CORRELATION_ID_TAG).value(response.correlationId);
+            writer.name(HOST_NAME_TAG).value(response.hostName);
+            writer.name(CONTAINER_NAME_TAG).value(response.containerName);
+            writer.name(BLOB_NAME_TAG).value(response.blobName);
+            writer.name(SAS_TOKEN_TAG).value(response.sasToken);
+            writer.endObject();
+        }
+
+        @Override
+        public FileUploadSasUriResponse read(JsonReader reader) throws IOException
+        {
+            if (reader.peek() == JsonToken.NULL)
+            {
+                reader.nextNull();
+                return null;
+            }
+
+            FileUploadSasUriResponse response = new FileUploadSasUriResponse();
+            reader.beginObject();
+            while (reader.hasNext())
+            {
+                String name = reader.nextName();
+                if (reader.peek() == JsonToken.NULL)
+                {
+                    reader.nextNull();
+                    continue;
+                }
+
+                switch (name)
+                {
+                    case CORRELATION_ID_TAG:
+                        response.correlationId = reader.nextString();
+                        break;
+                    case HOST_NAME_TAG:
+                        response.hostName = reader.nextString();
+                        break;
+                    case CONTAINER_NAME_TAG:
+                        response.containerName = reader.nextString();
+                        break;
+                    case BLOB_NAME_TAG:
+                        response.blobName = reader.nextString();
+                        break;
+                    case SAS_TOKEN_TAG:
+                        response.sasToken = reader.nextString();
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+
+            reader.endObject();
+            return response;
+        }
+    }
 }
@@ -168,6 +168,17 @@ public class InternalClient
      */
     public void close()
     {
+        if (this.twin != null)
+        {
+            // send any coalesced reported properties updates before the connection goes away
+            this.twin.close();
+        }
+
+        if (this.method != null)
+        {
+            this.method.close();
+        }
+
         this.deviceIO.close();
         this.method = null;
         this.twin = null;
@@ -711,6 +722,11 @@ public class InternalClient
             throw new IllegalStateException("Open the client connection before using it");
         }
 
+        if (this.twin != null)
+        {
+            this.twin.close();
+        }
+
         this.twin = new DeviceTwin(this);
         this.twin.subscribeToDesiredPropertiesAsync(
             subscriptionAcknowledgedCallback,
@@ -919,6 +935,11 @@ public class InternalClient
             throw new IllegalArgumentException("Callback cannot be null");
         }
 
+        if (this.method != null)
+        {
+            this.method.close();
+        }
+
         this.method = new DirectMethod(this, methodStatusCallback, methodStatusCallbackContext);
         this.method.subscribeToDirectMethods(methodCallback, methodCallbackContext);
     }
@@ -992,6 +1013,11 @@ public class InternalClient
     // callbacks
     void markTwinAsUnsubscribed()
     {
+        if (this.twin != null)
+        {
+            this.twin.close();
+        }
+
         this.twin = null;
     }
 
@@ -999,6 +1025,11 @@ public class InternalClient
     // callbacks
     void markMethodsAsUnsubscribed()
     {
+        if (this.method != null)
+        {
+            this.method.close();
+        }
+
         this.method = null;
     }
 
@@ -27,6 +27,16 @@ public class Message
 
     private static final String UTC_TIMEZONE = "UTC";
 
+    // SimpleDateFormat is not thread safe, so each thread that sends messages keeps its own
+    private static final ThreadLocal<SimpleDateFormat> CREATION_TIME_UTC_FORMAT = ThreadLocal.withInitial(() ->
+    {
+        SimpleDateFormat sdf = new SimpleDateFormat(DATE_TIME_FORMAT);
+        sdf.setTimeZone(TimeZone.getTimeZone(UTC_TIMEZONE));
+        return sdf;
+    });
+
+    private static volatile MessageIdGenerator messageIdGenerator = new SequentialMessageIdGenerator();
+
     // ----- Data Fields -----
 
     /**
@@ -92,6 +102,11 @@ public class Message
      */
     private ArrayList<MessageProperty> properties;
 
+    /**
+     * Read only view of the user-defined properties, so that they can be read without copying them.
+     */
+    private List<MessageProperty> unmodifiableProperties;
+
     /**
      * The message body
      */
@@ -117,9 +132,29 @@ public class Message
      * @see <a href="https://docs.microsoft.com/en-us/azure/iot-develop/overview-iot-plug-and-play">What is IoT Plug and Play?</a>
      */
     @Getter
-    @Setter
     String componentName;
 
+    /**
+     * The template that this message was created from, or null if it was not created from a template or if one of the
+     * template's values has been changed on this message since.
+     */
+    private MessageTemplate messageTemplate;
+
+    /**
+     * This option is applicable for telemetry messages sent over MQTT and MQTT_WS only, and is ignored otherwise.
+     * If true, this message is published with QoS 0 rather than QoS 1, so the service does not acknowledge it.
+     *
+     * The message's sent callback is executed as soon as the message has been handed to the MQTT client for writing to
+     * the socket, and the message is not retried if the connection drops before it reaches the service. This allows
+     * much higher throughput for high rate telemetry that can tolerate occasional loss, such as sensor readings that
+     * are superseded by the next reading.
+     *
+     * By default, this value is false and the message is acknowledged by the service before its callback is executed.
+     */
+    @Getter
+    @Setter
+    private boolean atMostOnceDelivery;
+
     // ----- Constructors -----
 
     /**
@@ -207,23 +242,13 @@ public class Message
      */
     public String getProperty(String name)
     {
-        MessageProperty messageProperty = null;
-
-        for (MessageProperty currentMessageProperty: this.properties)
-        {
-            if (currentMessageProperty.hasSameName(name))
-            {
-                messageProperty = currentMessageProperty;
-                break;
-            }
-        }
-
-        if (messageProperty == null)
+        int index = indexOfProperty(name);
+        if (index < 0)
         {
             return null;
         }
 
-        return messageProperty.getValue();
+        return this.properties.get(index).getValue();
     }
 
     /**
@@ -244,23 +269,21 @@ public class Message
             throw new IllegalArgumentException("Property value cannot be 'null'.");
         }
 
-        MessageProperty messageProperty = null;
+        // create the property first so that a reserved name leaves the existing properties untouched
+        MessageProperty messageProperty = new MessageProperty(name, value);
 
-        for (MessageProperty currentMessageProperty: this.properties)
+        int index = indexOfProperty(name);
+        if (index >= 0)
         {
-            if (currentMessageProperty.hasSameName(name))
+            if (this.messageTemplate != null && index < this.messageTemplate.getProperties().size())
             {
-                messageProperty = currentMessageProperty;
-                break;
+                this.messageTemplate = null;
             }
-        }
 
-        if (messageProperty != null)
-        {
-            this.properties.remove(messageProperty);
+            this.properties.remove(index);
         }
 
-        this.properties.add(new MessageProperty(name, value));
+        this.properties.add(messageProperty);
     }
 
     /**
@@ -273,19 +296,103 @@ public class Message
         return properties.toArray(new MessageProperty[this.properties.size()]);
     }
 
+    /**
+     * Returns a read only view of the message properties. Unlike {@link #getProperties()}, this does not copy the
+     * properties, so it reflects any property that is set afterwards.
+     *
+     * @return a read only view of the message properties.
+     */
+    public List<MessageProperty> getUnmodifiableProperties()
+    {
+        return this.unmodifiableProperties;
+    }
+
+    /**
+     * Set the generator of the message id and correlation id of every message that is created from now on, in this
+     * process. By default, messages use a {@link SequentialMessageIdGenerator} that generates both ids.
+     *
+     * @param messageIdGenerator the generator to use. It cannot be null.
+     * @exception IllegalArgumentException If the provided generator is null.
+     */
+    public static void setMessageIdGenerator(MessageIdGenerator messageIdGenerator)
+    {
+        if (messageIdGenerator == null)
+        {
+            throw new IllegalArgumentException("Message id generator cannot be 'null'.");
+        }
+
+        Message.messageIdGenerator = messageIdGenerator;
+    }
+
+    /**
+     * Set the DTDL component name from where the telemetry message has originated. This field is only relevant for
+     * Plug and Play certified devices.
+     *
+     * @param componentName the component name. May be null.
+     */
+    public void setComponentName(String componentName)
+    {
+        this.messageTemplate = null;
+        this.componentName = componentName;
+    }
+
+    /**
+     * Get the template that this message was created from. The transports encode the template's values once for the
+     * template instead of once for each message, and only encode the properties of this message that come after the
+     * template's properties.
+     *
+     * @return the template that this message was created from, or null if it was not created from a template or if the
+     * content type, content encoding, component name or one of the template's properties has been changed on this
+     * message since. If not null, the first properties of this message are the template's properties.
+     */
+    public MessageTemplate getMessageTemplate()
+    {
+        return this.messageTemplate;
+    }
+
     // ----- Private Methods -----
 
+    /**
+     * Copy the values of the provided template to this message, which must not have any properties yet.
+     *
+     * @param messageTemplate the template this message is created from.
+     */
+    void applyTemplate(MessageTemplate messageTemplate)
+    {
+        // the template's properties were validated when it was built, so they are shared rather than recreated
+        this.properties.addAll(messageTemplate.getProperties());
+        this.contentType = messageTemplate.getContentType();
+        this.contentEncoding = messageTemplate.getContentEncoding();
+        this.componentName = messageTemplate.getComponentName();
+        this.messageTemplate = messageTemplate;
+    }
+
     /**
      * Internal initializer method for a new Message instance.
      */
     private void initialize()
     {
-        this.messageId = UUID.randomUUID().toString();
-        this.correlationId = UUID.randomUUID().toString();
+        MessageIdGenerator messageIdGenerator = Message.messageIdGenerator;
+        this.messageId = messageIdGenerator.generateMessageId();
+        this.correlationId = messageIdGenerator.generateCorrelationId();
         this.properties = new ArrayList<>();
+        this.unmodifiableProperties = Collections.unmodifiableList(this.properties);
         this.isSecurityClient = false;
     }
 
+    private int indexOfProperty(String name)
+    {
+        for (int i = 0; i < this.properties.size(); i++)
+        {
+            if (this.properties.get(i).hasSameName(name))
+            {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
     /**
      * Verifies whether the message is expired or not
      * @return true if the message is expired, false otherwise
@@ -513,6 +620,7 @@ public class Message
      */
     public final void setContentType(String contentType)
     {
+        this.messageTemplate = null;
         this.contentType = contentType;
     }
 
@@ -531,6 +639,7 @@ public class Message
      */
     public void setContentEncoding(String contentEncoding)
     {
+        this.messageTemplate = null;
         this.contentEncoding = contentEncoding;
     }
 
@@ -555,9 +664,7 @@ public class Message
             return null;
         }
 
-        SimpleDateFormat sdf = new SimpleDateFormat(DATE_TIME_FORMAT);
-        sdf.setTimeZone(TimeZone.getTimeZone(UTC_TIMEZONE));
-        return sdf.format(this.creationTimeUTC).replace("_", "T") + "Z";
+        return CREATION_TIME_UTC_FORMAT.get().format(this.creationTimeUTC).replace("_", "T") + "Z";
     }
 
     public final void setCreationTimeUTC(Date creationTimeUTC)
@@ -568,6 +675,7 @@ public class Message
     public void setAsSecurityMessage()
     {
         // Set the message as json encoding
+        this.messageTemplate = null;
         this.contentEncoding = SECURITY_CLIENT_JSON_ENCODING;
         this.isSecurityClient = true;
     }
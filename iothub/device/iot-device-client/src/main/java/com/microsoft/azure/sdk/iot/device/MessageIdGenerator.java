@@ -0,0 +1,30 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device;
+
+/**
+ * Generates the message id and correlation id of each new {@link Message}.
+ * <p>
+ * Set the generator that all new messages use with {@link Message#setMessageIdGenerator(MessageIdGenerator)}. By
+ * default, messages use a {@link SequentialMessageIdGenerator} that generates both ids.
+ */
+public interface MessageIdGenerator
+{
+    /**
+     * Called from the constructors of {@link Message}, possibly from many threads at once.
+     *
+     * @return the id for a new message. It must not be null, and it must differ from the id of every other message that
+     * this process may have in flight at the same time, since the client uses it to match each message with its
+     * acknowledgement.
+     */
+    String generateMessageId();
+
+    /**
+     * Called from the constructors of {@link Message}, possibly from many threads at once.
+     *
+     * @return the correlation id for a new message, or null to leave it unset. Messages without a correlation id can't be
+     * tracked with a {@link CorrelatingMessageCallback}, but they can still be sent and acknowledged.
+     */
+    String generateCorrelationId();
+}
@@ -0,0 +1,165 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The content type, content encoding, component name and application properties that many messages have in common.
+ * <p>
+ * The properties of a template are validated once when it is built rather than each time a message is created, and
+ * each connection encodes them once for the template rather than for each message that is sent. Messages created from
+ * a template can have properties of their own as well, which are encoded with each message as usual.
+ * <p>
+ * If the content type, content encoding, component name or one of the template's properties is changed on a message
+ * that was created from a template, that message is sent as if it was not created from a template.
+ */
+public final class MessageTemplate
+{
+    /**
+     * The content type of the messages created from this template. May be null.
+     */
+    @Getter
+    private final String contentType;
+
+    /**
+     * The content encoding of the messages created from this template. May be null.
+     */
+    @Getter
+    private final String contentEncoding;
+
+    /**
+     * The DTDL component name of the messages created from this template. May be null.
+     */
+    @Getter
+    private final String componentName;
+
+    private final List<MessageProperty> properties;
+
+    /**
+     * Create a template.
+     *
+     * @param contentType the content type of the messages created from this template. May be null.
+     * @param contentEncoding the content encoding of the messages created from this template. May be null.
+     * @param componentName the DTDL component name of the messages created from this template. May be null.
+     * @param properties the application properties of the messages created from this template, in the order that they
+     * are set on each message.
+     * @exception IllegalArgumentException If any property has a reserved or invalid name or value, or if two properties
+     * have the same name, ignoring case.
+     */
+    @Builder
+    private MessageTemplate(String contentType, String contentEncoding, String componentName, Map<String, String> properties)
+    {
+        List<MessageProperty> messageProperties = new ArrayList<>(properties.size());
+        for (Map.Entry<String, String> property : properties.entrySet())
+        {
+            for (MessageProperty messageProperty : messageProperties)
+            {
+                if (messageProperty.hasSameName(property.getKey()))
+                {
+                    throw new IllegalArgumentException("Message template cannot have more than one property with the name " + property.getKey());
+                }
+            }
+
+            messageProperties.add(new MessageProperty(property.getKey(), property.getValue()));
+        }
+
+        this.contentType = contentType;
+        this.contentEncoding = contentEncoding;
+        this.componentName = componentName;
+        this.properties = Collections.unmodifiableList(messageProperties);
+    }
+
+    /**
+     * Create a message with the provided body and the values of this template.
+     *
+     * @param body the body of the new message.
+     * @return the new message.
+     * @exception IllegalArgumentException If the body is null.
+     */
+    public Message createMessage(byte[] body)
+    {
+        Message message = new Message(body);
+        message.applyTemplate(this);
+        return message;
+    }
+
+    /**
+     * Create a message with the provided body and the values of this template.
+     *
+     * @param body the body of the new message. It is serialized to a byte array using UTF-8 encoding.
+     * @return the new message.
+     * @exception IllegalArgumentException If the body is null.
+     */
+    public Message createMessage(String body)
+    {
+        if (body == null)
+        {
+            throw new IllegalArgumentException("Message body cannot be 'null'.");
+        }
+
+        return createMessage(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the application properties of the messages created from this template, in the order that they are set on
+     * each message.
+     */
+    public List<MessageProperty> getProperties()
+    {
+        return this.properties;
+    }
+
+    /**
+     * Builder for a {@link MessageTemplate}. Application properties are kept in the order that they are added.
+     */
+    public static class MessageTemplateBuilder
+    {
+        private final Map<String, String> properties = new LinkedHashMap<>();
+
+        /**
+         * Add an application property to the template.
+         *
+         * @param name the name of the property.
+         * @param value the value of the property.
+         * @return this builder.
+         */
+        public MessageTemplateBuilder property(String name, String value)
+        {
+            this.properties.put(name, value);
+            return this;
+        }
+
+        /**
+         * Add application properties to the template.
+         *
+         * @param properties the properties to add, in the order of the map's entries.
+         * @return this builder.
+         */
+        public MessageTemplateBuilder properties(Map<String, String> properties)
+        {
+            this.properties.putAll(properties);
+            return this;
+        }
+
+        /**
+         * Remove all application properties that were added to this builder.
+         *
+         * @return this builder.
+         */
+        public MessageTemplateBuilder clearProperties()
+        {
+            this.properties.clear();
+            return this;
+        }
+    }
+}
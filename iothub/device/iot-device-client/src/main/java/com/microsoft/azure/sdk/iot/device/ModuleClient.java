@@ -364,6 +364,22 @@ public class ModuleClient extends InternalClient
         commonConstructorSetup();
     }
 
+    /**
+     * Close the client. For a client created from the Edge environment, this also closes its connection to the HSM
+     * unit that signs its sas tokens.
+     */
+    @Override
+    public void close()
+    {
+        super.close();
+
+        IotHubAuthenticationProvider authenticationProvider = this.config.getAuthenticationProvider();
+        if (authenticationProvider instanceof IotHubSasTokenHsmAuthenticationProvider)
+        {
+            ((IotHubSasTokenHsmAuthenticationProvider) authenticationProvider).close();
+        }
+    }
+
     /**
      * Synchronously sends a message to to a particular outputName.
      *
@@ -23,6 +23,9 @@ import static com.microsoft.azure.sdk.iot.device.ClientConfiguration.DEFAULT_SEN
  * threads. Multiplexing may be worthwhile if you want fewer worker threads.
  * <p>
  * Only AMQPS and AMQPS_WS support multiplexing, and only symmetric key authenticated devices can be multiplexed.
+ * IoT hub's MQTT endpoint authenticates exactly one device identity per connection, in the CONNECT packet, and its
+ * topics are only scoped to that identity, so MQTT connections cannot carry more than one device. Gateways that need to
+ * connect many devices over few connections should use AMQPS or AMQPS_WS for the upstream connection.
  * <p>
  * {@link ModuleClient} instances cannot be multiplexed.
  */
@@ -88,7 +91,8 @@ public class MultiplexingClient
             case AMQPS_WS:
                 break;
             default:
-                throw new IllegalArgumentException("Multiplexing is only supported for AMQPS and AMQPS_WS");
+                throw new IllegalArgumentException("Multiplexing is only supported for AMQPS and AMQPS_WS. IoT hub only "
+                    + "allows one device identity per MQTT connection, so MQTT connections cannot be multiplexed.");
         }
 
         // Deliberately using HashMap instead of ConcurrentHashMap here. HashMap is faster for several operations such
@@ -147,6 +151,7 @@ public class MultiplexingClient
         this.deviceIO.setMaxNumberOfMessagesSentPerSendThread(sendMessagesPerThread);
         this.deviceIO.setSendPeriodInMilliseconds(sendPeriod);
         this.deviceIO.setReceivePeriodInMilliseconds(receivePeriod);
+        this.deviceIO.setMultiplexingReconnectCoordinator(options != null ? options.getReconnectCoordinator() : null);
     }
 
     /**
@@ -3,6 +3,7 @@
 
 package com.microsoft.azure.sdk.iot.device;
 
+import com.microsoft.azure.sdk.iot.device.transport.ReconnectCoordinator;
 import lombok.Builder;
 import lombok.Getter;
 
@@ -117,6 +118,19 @@ public final class MultiplexingClientOptions
     @Builder.Default
     private final long messageExpirationCheckPeriod = 10000;
 
+    /**
+     * The coordinator that reconnection attempts of the multiplexed connection must be admitted by, in addition to the
+     * delays of the retry policy set with {@link MultiplexingClient#setRetryPolicy(com.microsoft.azure.sdk.iot.device.transport.RetryPolicy)}.
+     * Give the same coordinator to every client in a process to bound the rate at which they reconnect after a shared
+     * outage. Reconnection attempts of individual multiplexed device sessions use the coordinator of that device's
+     * {@link ClientOptions} instead.
+     *
+     * By default, this value is null and the connection reconnects as soon as its retry policy allows.
+     */
+    @Getter
+    @Builder.Default
+    private final ReconnectCoordinator reconnectCoordinator = null;
+
     public boolean isUsingIdentifiableThreadNames()
     {
         // Using a manually written method here to override the name that Lombok would have given it
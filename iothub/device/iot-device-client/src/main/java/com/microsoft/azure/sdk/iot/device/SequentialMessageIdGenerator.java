@@ -0,0 +1,76 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates message ids from a random base that is picked once per process and a counter, rather than from
+ * {@link UUID#randomUUID()}, which has every message go through a single shared {@link java.security.SecureRandom}.
+ * <p>
+ * The ids keep the format of a version 4 UUID. They are unique within the process since each id takes the next value of
+ * the counter, and ids from different processes are as unlikely to collide as random UUIDs are since each process
+ * starts from its own random base.
+ */
+public final class SequentialMessageIdGenerator implements MessageIdGenerator
+{
+    // the bits of each half of a UUID that are left for its value once the version and variant bits are set
+    private static final long VERSION_CLEAR_MASK = 0xFFFFFFFFFFFF0FFFL;
+    private static final long VERSION_4 = 0x0000000000004000L;
+    private static final long VARIANT_CLEAR_MASK = 0x3FFFFFFFFFFFFFFFL;
+    private static final long VARIANT_IETF = 0x8000000000000000L;
+
+    // shared by all instances so that two generators in one process never produce the same id
+    private static final long MOST_SIGNIFICANT_BITS;
+    private static final long LEAST_SIGNIFICANT_BITS_BASE;
+    private static final AtomicLong COUNTER = new AtomicLong();
+
+    static
+    {
+        UUID base = UUID.randomUUID();
+        MOST_SIGNIFICANT_BITS = base.getMostSignificantBits();
+        LEAST_SIGNIFICANT_BITS_BASE = base.getLeastSignificantBits();
+    }
+
+    private final boolean generateCorrelationIds;
+
+    /**
+     * Create a generator that generates both message ids and correlation ids.
+     */
+    public SequentialMessageIdGenerator()
+    {
+        this(true);
+    }
+
+    /**
+     * Create a generator that generates message ids, and optionally correlation ids.
+     *
+     * @param generateCorrelationIds if false, messages are created without a correlation id. This saves generating an id
+     * for telemetry that is never tracked with a {@link CorrelatingMessageCallback}.
+     */
+    public SequentialMessageIdGenerator(boolean generateCorrelationIds)
+    {
+        this.generateCorrelationIds = generateCorrelationIds;
+    }
+
+    @Override
+    public String generateMessageId()
+    {
+        return nextId();
+    }
+
+    @Override
+    public String generateCorrelationId()
+    {
+        return this.generateCorrelationIds ? nextId() : null;
+    }
+
+    private static String nextId()
+    {
+        long mostSignificantBits = (MOST_SIGNIFICANT_BITS & VERSION_CLEAR_MASK) | VERSION_4;
+        long leastSignificantBits = ((LEAST_SIGNIFICANT_BITS_BASE + COUNTER.incrementAndGet()) & VARIANT_CLEAR_MASK) | VARIANT_IETF;
+        return new UUID(mostSignificantBits, leastSignificantBits).toString();
+    }
+}
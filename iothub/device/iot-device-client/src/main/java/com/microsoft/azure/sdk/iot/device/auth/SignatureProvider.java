@@ -23,4 +23,12 @@ public interface SignatureProvider
      * @throws TransportException If the http client cannot reach the signing party
      */
     String sign(String keyName, String data, String generationId) throws TransportException, UnsupportedEncodingException;
+
+    /**
+     * Release any connection to the signing party that was left open between sign requests. The provider may still be
+     * used to sign afterwards. Does nothing by default.
+     */
+    default void close()
+    {
+    }
 }
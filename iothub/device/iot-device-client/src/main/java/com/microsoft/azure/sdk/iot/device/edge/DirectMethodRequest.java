@@ -5,9 +5,9 @@
 
 package com.microsoft.azure.sdk.iot.device.edge;
 
-import com.google.gson.GsonBuilder;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
+import com.microsoft.azure.sdk.iot.device.internal.GsonSerializers;
 
 /**
  * Json parser for a method request. Used to invoke methods on other devices/modules
@@ -78,7 +78,7 @@ public class DirectMethodRequest
      */
     public String toJson()
     {
-        return new GsonBuilder().create().toJson(this);
+        return GsonSerializers.DEFAULT.toJson(this);
     }
 
     //empty constructor for gson
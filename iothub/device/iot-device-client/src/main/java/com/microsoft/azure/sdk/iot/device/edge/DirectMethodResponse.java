@@ -5,10 +5,10 @@
 
 package com.microsoft.azure.sdk.iot.device.edge;
 
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
+import com.microsoft.azure.sdk.iot.device.internal.GsonSerializers;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
@@ -34,7 +34,7 @@ public class DirectMethodResponse
 
     public DirectMethodResponse(String json)
     {
-        DirectMethodResponse result = new GsonBuilder().create().fromJson(json, DirectMethodResponse.class);
+        DirectMethodResponse result = GsonSerializers.DEFAULT.fromJson(json, DirectMethodResponse.class);
 
         this.payload = result.payload;
         this.status = result.status;
@@ -66,6 +66,6 @@ public class DirectMethodResponse
      */
     public <T> T getPayload(Class<T> clazz)
     {
-        return new GsonBuilder().create().fromJson(payload, clazz);
+        return GsonSerializers.DEFAULT.fromJson(payload, clazz);
     }
 }
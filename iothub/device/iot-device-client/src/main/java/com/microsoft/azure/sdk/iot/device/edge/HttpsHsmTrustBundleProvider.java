@@ -31,7 +31,15 @@ public class HttpsHsmTrustBundleProvider implements TrustBundleProvider
     public String getTrustBundleCerts(String providerUri, String apiVersion, UnixDomainSocketChannel unixDomainSocketChannel) throws URISyntaxException, TransportException
     {
         HttpsHsmClient httpsHsmClient = new HttpsHsmClient(providerUri, unixDomainSocketChannel);
-        TrustBundleResponse response = httpsHsmClient.getTrustBundle(apiVersion);
-        return response.getCertificates();
+        try
+        {
+            TrustBundleResponse response = httpsHsmClient.getTrustBundle(apiVersion);
+            return response.getCertificates();
+        }
+        finally
+        {
+            // The channel is shared with the client that signs sas tokens, so it must not be left open by this one
+            httpsHsmClient.close();
+        }
     }
 }
@@ -16,9 +16,15 @@ import java.io.UnsupportedEncodingException;
 import java.net.URISyntaxException;
 import java.net.URLEncoder;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 
 /**
  * Provides a means to sign data for authentication purposes
+ *
+ * <p>
+ * Signatures are cached process wide, across all instances of this class, until the sas token they were made for
+ * expires, and concurrent requests for the same signature are coalesced into a single request to the HSM.
+ * </p>
  */
 @Slf4j
 public class HttpHsmSignatureProvider implements SignatureProvider
@@ -26,8 +32,16 @@ public class HttpHsmSignatureProvider implements SignatureProvider
     private static final String ENCODING_CHARSET = "UTF-8";
     private static final String MAC = "HmacSHA256";
     private static final String DEFAULT_KEY_ID = "primary";
+
+    // Bounds both the number and the lifetime of cached signatures. Signatures of sas tokens are kept until the token
+    // expires, but no longer than the default token lifetime. Signatures of any other data are kept for that long too.
+    private static final int MAXIMUM_CACHED_SIGNATURES = 256;
+    private static final long MAXIMUM_SIGNATURE_RETENTION_MILLISECONDS = 60 * 60 * 1000;
+    private static final SignatureCache SIGNATURE_CACHE = new SignatureCache(MAXIMUM_CACHED_SIGNATURES);
+
     private final Mac defaultSignRequestAlgo = Mac.getInstance(MAC);
 
+    private final String providerUri;
     private final String apiVersion;
     private final HttpsHsmClient httpClient;
 
@@ -55,11 +69,13 @@ public class HttpHsmSignatureProvider implements SignatureProvider
         log.trace("Creating HttpHsmSignatureProvider with providerUri {}", providerUri);
 
         this.httpClient = new HttpsHsmClient(providerUri, unixDomainSocketChannel);
+        this.providerUri = providerUri;
         this.apiVersion = apiVersion;
     }
 
     /**
-     * Sign the provided data using the provided key name
+     * Sign the provided data using the provided key name. If the same data was signed with the same key and generation
+     * id recently, or is being signed right now, that signature is returned instead of asking the HSM again.
      * @param keyName the key used for signing
      * @param data the data to be signed
      * @param generationId the generation id
@@ -72,6 +88,24 @@ public class HttpHsmSignatureProvider implements SignatureProvider
             throw new IllegalArgumentException("Data cannot be null or empty");
         }
 
+        return SIGNATURE_CACHE.get(
+            Arrays.asList(this.providerUri, this.apiVersion, keyName, data, generationId),
+            getRetainUntilMillis(data),
+            () -> signWithHsm(keyName, data, generationId));
+    }
+
+    /**
+     * Close the unix domain socket to the HSM if it was left open after a sign request. The next sign request opens
+     * it again.
+     */
+    @Override
+    public void close()
+    {
+        this.httpClient.close();
+    }
+
+    private String signWithHsm(String keyName, String data, String generationId) throws TransportException, UnsupportedEncodingException
+    {
         SignRequest signRequest = new SignRequest();
         signRequest.setAlgo(defaultSignRequestAlgo);
         signRequest.setData(data.getBytes(ENCODING_CHARSET));
@@ -81,4 +115,27 @@ public class HttpHsmSignatureProvider implements SignatureProvider
 
         return URLEncoder.encode(response.getDigest(), ENCODING_CHARSET);
     }
+
+    /**
+     * Sas tokens sign "{audience}\n{expiry in seconds since the epoch}", and the signature is of no use once that
+     * expiry has passed.
+     */
+    private static long getRetainUntilMillis(String data)
+    {
+        long maximumRetainUntilMillis = System.currentTimeMillis() + MAXIMUM_SIGNATURE_RETENTION_MILLISECONDS;
+        int expiryStart = data.lastIndexOf('\n') + 1;
+        if (expiryStart > 0 && expiryStart < data.length())
+        {
+            try
+            {
+                return Math.min(Long.parseLong(data.substring(expiryStart)) * 1000, maximumRetainUntilMillis);
+            }
+            catch (NumberFormatException e)
+            {
+                // not a sas token, so fall back to the maximum retention
+            }
+        }
+
+        return maximumRetainUntilMillis;
+    }
 }
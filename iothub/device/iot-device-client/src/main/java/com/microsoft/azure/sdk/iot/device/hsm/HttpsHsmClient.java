@@ -27,6 +27,7 @@ public class HttpsHsmClient
     private final String baseUrl;
     private final String scheme;
     private final UnixDomainSocketChannel unixDomainSocketChannel;
+    private final UnixDomainSocketHttpConnection unixDomainSocketConnection; // null if there is no unix domain socket channel
 
     private static final String HTTPS_SCHEME = "https";
     private static final String HTTP_SCHEME = "http";
@@ -55,6 +56,21 @@ public class HttpsHsmClient
 
         // unixDomainSocketChannel is allowed to be null since the module may not need to do unix domain socket communication during setup depending on the Edge environment.
         this.unixDomainSocketChannel = unixDomainSocketChannel;
+        this.unixDomainSocketConnection = unixDomainSocketChannel != null
+            ? new UnixDomainSocketHttpConnection(unixDomainSocketChannel)
+            : null;
+    }
+
+    /**
+     * Close the unix domain socket if this client left it open after a request. The client can still be used
+     * afterwards, the next request over a unix domain socket opens it again.
+     */
+    public void close()
+    {
+        if (this.unixDomainSocketConnection != null)
+        {
+            this.unixDomainSocketConnection.close();
+        }
     }
 
     /**
@@ -233,7 +249,8 @@ public class HttpsHsmClient
     }
 
     /**
-     * Send an HTTP request over a unix domain socket
+     * Send an HTTP request over a unix domain socket. The socket is kept open for later requests, see
+     * {@link UnixDomainSocketHttpConnection}.
      * @param httpsRequest the request to send
      * @return the response from the HSM unit
      * @throws IOException If the unix domain socket cannot be reached
@@ -242,75 +259,19 @@ public class HttpsHsmClient
     {
         log.debug("Sending data over unix domain socket");
 
-        HttpsResponse response;
-        try
+        byte[] requestBytes = HttpsRequestResponseSerializer.serializeRequest(httpsRequest, httpRequestPath, httpRequestQueryString, unixSocketAddress, true);
+        byte[] body = httpsRequest.getBody();
+        if (body != null && body.length > 0)
         {
-            //write to socket
-            byte[] requestBytes = HttpsRequestResponseSerializer.serializeRequest(httpsRequest, httpRequestPath, httpRequestQueryString, unixSocketAddress);
-            unixDomainSocketChannel.open(unixSocketAddress);
-
-            if (httpsRequest.getBody() != null)
-            {
-                // closes the output stream when it exits this block
-                try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream())
-                {
-                    //append http request body to the request bytes
-                    outputStream.write(requestBytes);
-                    outputStream.write(httpsRequest.getBody());
-
-                    byte[] output = outputStream.toByteArray();
-                    log.trace("Writing {} bytes to unix domain socket", output.length);
-                    log.trace("Contents of the request:\r\n{}", new String(output, StandardCharsets.UTF_8));
-                    unixDomainSocketChannel.write(output);
-                }
-            }
-            else
-            {
-                log.trace("Writing {} bytes to unix domain socket", requestBytes.length);
-                log.trace("Contents of the request:\r\n{}", new String(requestBytes, StandardCharsets.UTF_8));
-                unixDomainSocketChannel.write(requestBytes);
-            }
-
-            //read response
-            String responseString = readResponseFromChannel(unixDomainSocketChannel);
-            response = HttpsRequestResponseSerializer.deserializeResponse(new BufferedReader(new StringReader(responseString)));
-        }
-        finally
-        {
-            log.trace("Closing unix domain socket");
-            unixDomainSocketChannel.close();
+            // append http request body to the request bytes so that the request is written all at once
+            byte[] requestWithBody = Arrays.copyOf(requestBytes, requestBytes.length + body.length);
+            System.arraycopy(body, 0, requestWithBody, requestBytes.length, body.length);
+            requestBytes = requestWithBody;
         }
 
-        return response;
-    }
-
-    private String readResponseFromChannel(UnixDomainSocketChannel channel) throws IOException
-    {
-        log.debug("Reading response from unix domain socket");
-
-        byte[] buf = new byte[400];
-        StringBuilder responseStringBuilder = new StringBuilder();
-        int numRead = channel.read(buf);
-
-        // keep reading from the unix domain socket in chunks until no more bytes are read
-        while (numRead >= 0)
-        {
-            log.trace("Read {} bytes from unix domain socket", numRead);
-
-            // buf may not be filled completely, so take the subArray of bytes sized equal to numRead
-            String readChunk = new String(Arrays.copyOfRange(buf, 0, numRead), StandardCharsets.US_ASCII);
-            log.trace("Read chunk of data from unix domain socket:");
-            log.trace("{}", readChunk);
-            responseStringBuilder.append(readChunk);
+        HttpsResponse response = this.unixDomainSocketConnection.send(unixSocketAddress, requestBytes);
 
-            // Read bytes from the channel
-            numRead = channel.read(buf);
-        }
-
-        String response = responseStringBuilder.toString();
         log.debug("Read response from unix domain socket channel");
-        log.debug("{}", response);
-
         return response;
     }
 }
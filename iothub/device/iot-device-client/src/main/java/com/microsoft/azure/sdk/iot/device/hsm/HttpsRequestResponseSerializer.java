@@ -9,7 +9,9 @@ import com.microsoft.azure.sdk.iot.device.transport.https.HttpsRequest;
 import com.microsoft.azure.sdk.iot.device.transport.https.HttpsResponse;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
 
@@ -24,6 +26,14 @@ class HttpsRequestResponseSerializer
     private static final String VERSION = "1.1";
 
     private static final long MAXIMUM_HEADER_COUNT = 500;
+    private static final int MAXIMUM_LINE_LENGTH = 8 * 1024;
+    private static final int MAXIMUM_BODY_LENGTH = 16 * 1024 * 1024;
+
+    // lower case, since readResponse lower cases header names
+    private static final String CONTENT_LENGTH_HEADER = "content-length";
+    private static final String TRANSFER_ENCODING_HEADER = "transfer-encoding";
+    private static final String CONNECTION_HEADER = "connection";
+    private static final String CHUNKED = "chunked";
 
     /**
      * Serialize the provided request
@@ -36,6 +46,23 @@ class HttpsRequestResponseSerializer
      * @throws IllegalArgumentException if the provided httpsRequest is null or has a null request url
      */
     public static byte[] serializeRequest(HttpsRequest httpsRequest, String path, String queryString, String host) throws IllegalArgumentException
+    {
+        return serializeRequest(httpsRequest, path, queryString, host, false);
+    }
+
+    /**
+     * Serialize the provided request
+     *
+     * @param httpsRequest the request to be serialized
+     * @param path the path for the request to invoke on (e.g. /trust-bundle)
+     * @param queryString the full querystring associated with the http request. Should not include the '?' character at the beginning
+     * @param host the host that the request is being made to
+     * @param keepAlive if false, the request asks the server to close the connection after responding. Otherwise the
+     * connection stays open, since that is the default for HTTP/1.1
+     * @return the serialized request
+     * @throws IllegalArgumentException if the provided httpsRequest is null or has a null request url
+     */
+    static byte[] serializeRequest(HttpsRequest httpsRequest, String path, String queryString, String host, boolean keepAlive) throws IllegalArgumentException
     {
         if (httpsRequest == null)
         {
@@ -58,7 +85,10 @@ class HttpsRequestResponseSerializer
         // <header>: <value>
         // <header>: <value1>; <value2>
 
-        httpsRequest.setHeaderField("Connection", "close");
+        if (!keepAlive)
+        {
+            httpsRequest.setHeaderField("Connection", "close");
+        }
 
         String updatedPath = preProcessRequestPath(path);
 
@@ -154,6 +184,258 @@ class HttpsRequestResponseSerializer
         return new HttpsResponse(statusCode, body, headerFields, errorReason);
     }
 
+    /**
+     * Read exactly one response from a stream of bytes from an HSM party, leaving any bytes that follow it unread so
+     * that the next response on the same connection can be read from the same stream. Unlike
+     * {@link #deserializeResponse(BufferedReader)}, the body is read as raw bytes, framed by its Content-Length header
+     * or by chunked transfer encoding, so it is not altered by line based parsing.
+     *
+     * @param inputStream the stream to read from. Is not closed by this method
+     * @return the deserialized response
+     * @throws IOException if the stream cannot be read from, ends before the response does, or has a malformed response
+     */
+    static HttpsResponse readResponse(InputStream inputStream) throws IOException
+    {
+        if (inputStream == null)
+        {
+            throw new IllegalArgumentException("input stream cannot be null");
+        }
+
+        String statusLine = readLine(inputStream);
+        if (statusLine == null || statusLine.isEmpty())
+        {
+            throw new IOException("Response is empty.");
+        }
+
+        // <version> SP <status code> SP <reason phrase>, where the reason phrase may contain spaces or be empty
+        String[] statusLineParts = statusLine.split(SP, 3);
+        if (statusLineParts.length < 2 || !statusLineParts[0].startsWith(Protocol + ProtocolVersionSeparator))
+        {
+            throw new IOException("Status line is not valid: " + statusLine);
+        }
+
+        int statusCode;
+        try
+        {
+            statusCode = Integer.parseInt(statusLineParts[1]);
+        }
+        catch (NumberFormatException e)
+        {
+            throw new IOException("StatusCode is not valid " + statusLineParts[1] + ".");
+        }
+
+        Map<String, List<String>> headerFields = new HashMap<>();
+        String header = readLine(inputStream);
+        while (header != null && !header.isEmpty())
+        {
+            if (headerFields.size() >= MAXIMUM_HEADER_COUNT)
+            {
+                throw new IOException("HSM provided too many http headers");
+            }
+
+            int headerSeparatorPosition = header.indexOf(HeaderSeparator);
+            if (headerSeparatorPosition <= 0)
+            {
+                throw new IOException("Header is invalid " + header + ".");
+            }
+
+            String headerName = header.substring(0, headerSeparatorPosition).trim().toLowerCase();
+            String headerValue = header.substring(headerSeparatorPosition + 1).trim();
+            headerFields.computeIfAbsent(headerName, name -> new ArrayList<>()).add(headerValue);
+            header = readLine(inputStream);
+        }
+
+        if (header == null)
+        {
+            throw new IOException("Response ended before its headers did.");
+        }
+
+        byte[] body;
+        if (!hasBody(statusCode))
+        {
+            body = new byte[0];
+        }
+        else if (isChunked(headerFields))
+        {
+            body = readChunkedBody(inputStream);
+        }
+        else if (headerFields.containsKey(CONTENT_LENGTH_HEADER))
+        {
+            body = readBytes(inputStream, parseLength(headerFields.get(CONTENT_LENGTH_HEADER).get(0), 10));
+        }
+        else
+        {
+            // without any framing, the body lasts until the server closes the connection
+            body = readToEnd(inputStream);
+        }
+
+        byte[] errorReason = statusLineParts.length > 2 ? statusLineParts[2].getBytes(StandardCharsets.UTF_8) : new byte[0];
+        return new HttpsResponse(statusCode, body, headerFields, errorReason);
+    }
+
+    /**
+     * @param response a response read by {@link #readResponse(InputStream)}
+     * @return true if another request can be sent on the connection that the response was read from
+     */
+    static boolean isConnectionReusable(HttpsResponse response)
+    {
+        String connection = response.getHeaderField(CONNECTION_HEADER);
+        if (connection != null && connection.toLowerCase().contains("close"))
+        {
+            return false;
+        }
+
+        // A body without a length or chunked encoding was read until the connection closed
+        String transferEncoding = response.getHeaderField(TRANSFER_ENCODING_HEADER);
+        return !hasBody(response.getStatus())
+            || response.getHeaderField(CONTENT_LENGTH_HEADER) != null
+            || (transferEncoding != null && transferEncoding.toLowerCase().contains(CHUNKED));
+    }
+
+    private static boolean hasBody(int statusCode)
+    {
+        return statusCode >= 200 && statusCode != 204 && statusCode != 304;
+    }
+
+    private static boolean isChunked(Map<String, List<String>> headerFields)
+    {
+        List<String> transferEncodings = headerFields.get(TRANSFER_ENCODING_HEADER);
+        if (transferEncodings == null)
+        {
+            return false;
+        }
+
+        for (String transferEncoding : transferEncodings)
+        {
+            if (transferEncoding.toLowerCase().contains(CHUNKED))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static byte[] readChunkedBody(InputStream inputStream) throws IOException
+    {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        while (true)
+        {
+            String chunkSizeLine = readLine(inputStream);
+            if (chunkSizeLine == null)
+            {
+                throw new IOException("Response ended before its body did.");
+            }
+
+            // chunk extensions follow the size after a semicolon
+            int extensionStart = chunkSizeLine.indexOf(';');
+            int chunkSize = parseLength(extensionStart >= 0 ? chunkSizeLine.substring(0, extensionStart) : chunkSizeLine, 16);
+            if (chunkSize == 0)
+            {
+                break;
+            }
+
+            body.write(readBytes(inputStream, chunkSize));
+            if (body.size() > MAXIMUM_BODY_LENGTH)
+            {
+                throw new IOException("HSM provided a response body that is too large");
+            }
+
+            if (!"".equals(readLine(inputStream)))
+            {
+                throw new IOException("Chunk is not terminated by a line break.");
+            }
+        }
+
+        // skip any trailers up to the empty line that ends the response
+        String trailer = readLine(inputStream);
+        while (trailer != null && !trailer.isEmpty())
+        {
+            trailer = readLine(inputStream);
+        }
+
+        return body.toByteArray();
+    }
+
+    private static int parseLength(String length, int radix) throws IOException
+    {
+        try
+        {
+            int parsedLength = Integer.parseInt(length.trim(), radix);
+            if (parsedLength < 0 || parsedLength > MAXIMUM_BODY_LENGTH)
+            {
+                throw new IOException("HSM provided an invalid body length " + length + ".");
+            }
+
+            return parsedLength;
+        }
+        catch (NumberFormatException e)
+        {
+            throw new IOException("HSM provided an invalid body length " + length + ".");
+        }
+    }
+
+    private static byte[] readBytes(InputStream inputStream, int length) throws IOException
+    {
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        while (offset < length)
+        {
+            int read = inputStream.read(bytes, offset, length - offset);
+            if (read < 0)
+            {
+                throw new IOException("Response ended before its body did.");
+            }
+
+            offset += read;
+        }
+
+        return bytes;
+    }
+
+    private static byte[] readToEnd(InputStream inputStream) throws IOException
+    {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = inputStream.read(buffer)) >= 0)
+        {
+            body.write(buffer, 0, read);
+            if (body.size() > MAXIMUM_BODY_LENGTH)
+            {
+                throw new IOException("HSM provided a response body that is too large");
+            }
+        }
+
+        return body.toByteArray();
+    }
+
+    // Reads a line terminated by LF or CRLF, without the terminator. Returns null if the stream ends before any byte.
+    private static String readLine(InputStream inputStream) throws IOException
+    {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int next = inputStream.read();
+        if (next < 0)
+        {
+            return null;
+        }
+
+        while (next >= 0 && next != '\n')
+        {
+            if (line.size() >= MAXIMUM_LINE_LENGTH)
+            {
+                throw new IOException("HSM provided a status or header line that is too long");
+            }
+
+            line.write(next);
+            next = inputStream.read();
+        }
+
+        byte[] lineBytes = line.toByteArray();
+        int length = lineBytes.length > 0 && lineBytes[lineBytes.length - 1] == '\r' ? lineBytes.length - 1 : lineBytes.length;
+        return new String(lineBytes, 0, length, StandardCharsets.US_ASCII);
+    }
+
     private static String preProcessRequestPath(String path)
     {
         return path.replace("[", "").replace("]", "");
@@ -9,19 +9,54 @@ import com.microsoft.azure.sdk.iot.device.auth.IotHubSasToken;
 import com.microsoft.azure.sdk.iot.device.auth.IotHubSasTokenWithRefreshAuthenticationProvider;
 import com.microsoft.azure.sdk.iot.device.auth.SignatureProvider;
 import com.microsoft.azure.sdk.iot.device.transport.TransportException;
+import lombok.extern.slf4j.Slf4j;
 
 import javax.net.ssl.SSLContext;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Authentication method that uses HSM to get a SAS token.
+ *
+ * <p>
+ * The next sas token is signed in the background shortly before the current one is due for renewal, so that renewing
+ * it does not have to wait on the HSM. A token that was signed only moments ago is handed out again rather than
+ * signing a new one.
+ * </p>
  */
+@Slf4j
 public class IotHubSasTokenHsmAuthenticationProvider extends IotHubSasTokenWithRefreshAuthenticationProvider
 {
+    private static final String PRE_SIGN_THREAD_NAME = "azure-iot-sdk-SasTokenPreSignTask";
+    private static final long MAXIMUM_REUSABLE_TOKEN_AGE_MILLISECONDS = 60 * 1000;
+
+    // Shared by all instances of this class. The thread is a daemon so that it never keeps the process alive, and it
+    // only holds instances weakly so that a scheduled pre-sign never keeps an abandoned client alive either.
+    private static final ScheduledExecutorService PRE_SIGN_SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable ->
+    {
+        Thread thread = new Thread(runnable, PRE_SIGN_THREAD_NAME);
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final SignatureProvider signatureProvider;
     private final String generationId;
 
+    // Held while pre-signing so that close() can wait for a pre-sign that is already under way, which would otherwise
+    // reopen the connection to the HSM after it was closed.
+    private final Object preSignLock = new Object();
+    private volatile boolean isClosed;
+
+    // guarded by this
+    private long sasTokenSignedAtMillis = System.currentTimeMillis();
+    private SignedSasToken preSignedSasToken;
+    private ScheduledFuture<?> preSignTask;
+
     /**
      * Constructor for a IotHubSasTokenHsmAuthenticationProvider instance
      * @param signatureProvider the signature provider to be used when generating sas tokens
@@ -60,7 +95,7 @@ public class IotHubSasTokenHsmAuthenticationProvider extends IotHubSasTokenWithR
             signatureProvider,
             suggestedTimeToLiveSeconds);
 
-        return new IotHubSasTokenHsmAuthenticationProvider(
+        IotHubSasTokenHsmAuthenticationProvider authenticationProvider = new IotHubSasTokenHsmAuthenticationProvider(
             hostname,
             gatewayHostname,
             deviceId,
@@ -70,6 +105,9 @@ public class IotHubSasTokenHsmAuthenticationProvider extends IotHubSasTokenWithR
             signatureProvider,
             suggestedTimeToLiveSeconds,
             timeBufferPercentage);
+
+        authenticationProvider.schedulePreSign();
+        return authenticationProvider;
     }
 
     /**
@@ -113,7 +151,7 @@ public class IotHubSasTokenHsmAuthenticationProvider extends IotHubSasTokenWithR
                 signatureProvider,
                 suggestedTimeToLiveSeconds);
 
-        return new IotHubSasTokenHsmAuthenticationProvider(
+        IotHubSasTokenHsmAuthenticationProvider authenticationProvider = new IotHubSasTokenHsmAuthenticationProvider(
             hostname,
             gatewayHostname,
             deviceId,
@@ -124,23 +162,95 @@ public class IotHubSasTokenHsmAuthenticationProvider extends IotHubSasTokenWithR
             suggestedTimeToLiveSeconds,
             timeBufferPercentage,
             sslContext);
+
+        authenticationProvider.schedulePreSign();
+        return authenticationProvider;
     }
 
     /**
-     * Renew the saved sas token using the HSM unit
+     * Renew the saved sas token using the HSM unit. The token that was signed in the background ahead of this renewal
+     * is used if there is one, so the saved sas token is always replaced.
      * @throws IOException If the Hsm unit cannot be reached
      * @throws TransportException If the Hsm unit cannot be reached
      */
-    public void refreshSasToken() throws IOException, TransportException
+    public synchronized void refreshSasToken() throws IOException, TransportException
     {
-        this.sasToken = createNewSasToken(
-            this.hostname,
-            this.gatewayHostname,
-            this.deviceId,
-            this.moduleId,
-            this.generationId,
-            this.signatureProvider,
-            this.tokenValidSecs);
+        renewSasToken(true);
+    }
+
+    /**
+     * Get the saved sas token, renewing it first unless it was signed only moments ago. Transports call this for every
+     * connection and link that they authenticate, so reusing a token that was just signed saves a request to the HSM
+     * unit for each of them.
+     * @return the sas token
+     * @throws IOException If the Hsm unit cannot be reached
+     * @throws TransportException If the Hsm unit cannot be reached
+     */
+    @Override
+    public synchronized char[] getSasToken() throws IOException, TransportException
+    {
+        renewSasToken(false);
+        return this.sasToken.toString().toCharArray();
+    }
+
+    // guarded by this
+    private void renewSasToken(boolean isExplicitRefresh) throws IOException, TransportException
+    {
+        // the client is being opened again after it was closed
+        this.isClosed = false;
+
+        long now = System.currentTimeMillis();
+        long maximumReusableTokenAgeMillis = getMaximumReusableTokenAgeMillis();
+        if (!isExplicitRefresh && now - this.sasTokenSignedAtMillis <= maximumReusableTokenAgeMillis)
+        {
+            log.trace("Keeping the sas token that was signed {} milliseconds ago", now - this.sasTokenSignedAtMillis);
+            return;
+        }
+
+        SignedSasToken preSignedSasToken = this.preSignedSasToken;
+        this.preSignedSasToken = null;
+        if (preSignedSasToken != null && now - preSignedSasToken.signedAtMillis <= maximumReusableTokenAgeMillis)
+        {
+            log.debug("Renewing the sas token with the token that was signed in the background");
+            setSasToken(preSignedSasToken.sasToken, preSignedSasToken.signedAtMillis);
+            return;
+        }
+
+        setSasToken(
+            createNewSasToken(
+                this.hostname,
+                this.gatewayHostname,
+                this.deviceId,
+                this.moduleId,
+                this.generationId,
+                this.signatureProvider,
+                this.tokenValidSecs),
+            now);
+    }
+
+    /**
+     * Stop signing sas tokens in the background and close the connection to the HSM unit. The next sas token that is
+     * requested from this provider reopens the connection.
+     */
+    public void close()
+    {
+        synchronized (this.preSignLock)
+        {
+            this.isClosed = true;
+        }
+
+        synchronized (this)
+        {
+            if (this.preSignTask != null)
+            {
+                this.preSignTask.cancel(false);
+                this.preSignTask = null;
+            }
+
+            this.preSignedSasToken = null;
+        }
+
+        this.signatureProvider.close();
     }
 
     /**
@@ -152,6 +262,102 @@ public class IotHubSasTokenHsmAuthenticationProvider extends IotHubSasTokenWithR
         return true;
     }
 
+    // guarded by this
+    private void setSasToken(IotHubSasToken sasToken, long signedAtMillis)
+    {
+        this.sasToken = sasToken;
+        this.sasTokenSignedAtMillis = signedAtMillis;
+        schedulePreSign();
+    }
+
+    /**
+     * Schedule the next sas token to be signed shortly before the current one is due for renewal, so that it is still
+     * young enough to be used when the renewal happens.
+     */
+    private synchronized void schedulePreSign()
+    {
+        if (this.preSignTask != null)
+        {
+            this.preSignTask.cancel(false);
+            this.preSignTask = null;
+        }
+
+        if (this.isClosed)
+        {
+            return;
+        }
+
+        long maximumReusableTokenAgeMillis = getMaximumReusableTokenAgeMillis();
+        if (maximumReusableTokenAgeMillis <= 0)
+        {
+            // tokens aren't renewed until the end of their life, so there is no margin to sign ahead of time in
+            return;
+        }
+
+        long preSignAtMillis = this.sasTokenSignedAtMillis + getMillisecondsBeforeProactiveRenewal() - maximumReusableTokenAgeMillis / 2;
+        long delayMillis = Math.max(0, preSignAtMillis - System.currentTimeMillis());
+        WeakReference<IotHubSasTokenHsmAuthenticationProvider> authenticationProviderReference = new WeakReference<>(this);
+        this.preSignTask = PRE_SIGN_SCHEDULER.schedule(() ->
+        {
+            IotHubSasTokenHsmAuthenticationProvider authenticationProvider = authenticationProviderReference.get();
+            if (authenticationProvider != null)
+            {
+                authenticationProvider.preSign();
+            }
+        }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void preSign()
+    {
+        synchronized (this.preSignLock)
+        {
+            if (!this.isClosed)
+            {
+                signNextSasToken();
+            }
+        }
+    }
+
+    // guarded by preSignLock
+    private void signNextSasToken()
+    {
+        long signedAtMillis = System.currentTimeMillis();
+        try
+        {
+            // Signed without holding the lock so that a renewal that can't wait for this one isn't blocked by it. If
+            // both end up signing the same data, the signature provider may coalesce the two requests.
+            IotHubSasToken nextSasToken = createNewSasToken(
+                this.hostname,
+                this.gatewayHostname,
+                this.deviceId,
+                this.moduleId,
+                this.generationId,
+                this.signatureProvider,
+                this.tokenValidSecs);
+
+            synchronized (this)
+            {
+                this.preSignedSasToken = new SignedSasToken(nextSasToken, signedAtMillis);
+            }
+
+            log.trace("Signed the next sas token ahead of its renewal");
+        }
+        catch (IOException | TransportException | RuntimeException e)
+        {
+            log.debug("Failed to sign the next sas token ahead of its renewal, it will be signed when it is renewed instead", e);
+        }
+    }
+
+    /**
+     * A token that is handed out this long after it was signed still has most of its renewal margin left, so a
+     * transport that renews it once its time buffer has elapsed still does so well before it expires.
+     */
+    private long getMaximumReusableTokenAgeMillis()
+    {
+        long renewalMarginMillis = this.tokenValidSecs * 1000 - getMillisecondsBeforeProactiveRenewal();
+        return Math.min(MAXIMUM_REUSABLE_TOKEN_AGE_MILLISECONDS, renewalMarginMillis / 4);
+    }
+
     private static IotHubSasToken createNewSasToken(
         String hostname,
         String gatewayHostName,
@@ -212,4 +418,16 @@ public class IotHubSasTokenHsmAuthenticationProvider extends IotHubSasTokenWithR
         this.signatureProvider = signatureProvider;
         this.generationId = generationId;
     }
+
+    private static final class SignedSasToken
+    {
+        final IotHubSasToken sasToken;
+        final long signedAtMillis;
+
+        SignedSasToken(IotHubSasToken sasToken, long signedAtMillis)
+        {
+            this.sasToken = sasToken;
+            this.signedAtMillis = signedAtMillis;
+        }
+    }
 }
@@ -0,0 +1,159 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device.hsm;
+
+import com.microsoft.azure.sdk.iot.device.transport.TransportException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Caches signatures from the HSM until the data they sign is no longer of use, and coalesces concurrent requests for
+ * the same signature so that only one of them is sent to the HSM while the others wait for its result.
+ *
+ * <p>
+ * Failed requests are not cached. Callers that were waiting on a failed request get the same exception as the caller
+ * that sent it.
+ * </p>
+ */
+@Slf4j
+final class SignatureCache
+{
+    private final int maximumEntries;
+    private final Map<Object, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Signs data on behalf of the cache if no cached or in progress signature exists.
+     */
+    interface Signer
+    {
+        String sign() throws TransportException, UnsupportedEncodingException;
+    }
+
+    /**
+     * @param maximumEntries the maximum number of signatures to hold at a time. Once reached, expired signatures are
+     * evicted, and if none have expired, new signatures are still coalesced but are not kept once complete.
+     */
+    SignatureCache(int maximumEntries)
+    {
+        if (maximumEntries < 1)
+        {
+            throw new IllegalArgumentException("maximumEntries must be greater than 0");
+        }
+
+        this.maximumEntries = maximumEntries;
+    }
+
+    /**
+     * Get the signature for the provided key, either from the cache, from an identical request that is already in
+     * progress, or by signing it with the provided signer.
+     *
+     * @param key identifies the signature. Must implement equals and hashCode.
+     * @param retainUntilMillis the time, in milliseconds since the epoch, after which the signature is of no use.
+     * @param signer signs the data if no cached or in progress signature exists.
+     * @return the signature.
+     * @throws TransportException if the signer could not reach the HSM.
+     * @throws UnsupportedEncodingException if the signer could not encode the data or the signature.
+     */
+    String get(Object key, long retainUntilMillis, Signer signer) throws TransportException, UnsupportedEncodingException
+    {
+        while (true)
+        {
+            long now = System.currentTimeMillis();
+            Entry existingEntry = this.entries.get(key);
+            if (existingEntry != null)
+            {
+                if (existingEntry.signature.isDone() && existingEntry.retainUntilMillis <= now)
+                {
+                    this.entries.remove(key, existingEntry);
+                    continue;
+                }
+
+                log.trace("Reusing signature from an identical signing request");
+                return await(existingEntry);
+            }
+
+            if (this.entries.size() >= this.maximumEntries)
+            {
+                evictExpiredEntries(now);
+            }
+
+            Entry newEntry = new Entry(retainUntilMillis);
+            if (this.entries.putIfAbsent(key, newEntry) != null)
+            {
+                // another thread started an identical request first, so wait on that one instead
+                continue;
+            }
+
+            try
+            {
+                String signature = signer.sign();
+                newEntry.signature.complete(signature);
+                if (this.entries.size() > this.maximumEntries || retainUntilMillis <= System.currentTimeMillis())
+                {
+                    this.entries.remove(key, newEntry);
+                }
+
+                return signature;
+            }
+            catch (TransportException | UnsupportedEncodingException | RuntimeException e)
+            {
+                this.entries.remove(key, newEntry);
+                newEntry.signature.completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
+
+    private void evictExpiredEntries(long now)
+    {
+        this.entries.values().removeIf(entry -> entry.signature.isDone() && entry.retainUntilMillis <= now);
+    }
+
+    private static String await(Entry entry) throws TransportException, UnsupportedEncodingException
+    {
+        try
+        {
+            return entry.signature.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new TransportException("Interrupted while waiting for an identical signing request to complete", e);
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof TransportException)
+            {
+                throw (TransportException) cause;
+            }
+            else if (cause instanceof UnsupportedEncodingException)
+            {
+                throw (UnsupportedEncodingException) cause;
+            }
+            else if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+
+            throw new TransportException(cause);
+        }
+    }
+
+    private static final class Entry
+    {
+        final CompletableFuture<String> signature = new CompletableFuture<>();
+        final long retainUntilMillis;
+
+        Entry(long retainUntilMillis)
+        {
+            this.retainUntilMillis = retainUntilMillis;
+        }
+    }
+}
@@ -0,0 +1,206 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device.hsm;
+
+import com.microsoft.azure.sdk.iot.device.transport.https.HttpsResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A persistent HTTP/1.1 connection over a user provided {@link UnixDomainSocketChannel}.
+ *
+ * <p>
+ * Rather than opening the socket, sending one request and closing the socket again for every request, the socket is
+ * kept open between requests and reused for as long as the server keeps it open. Responses are read with
+ * {@link HttpsRequestResponseSerializer#readResponse(InputStream)}, which reads exactly one response off the socket
+ * so that the next response can be read from the same socket.
+ * </p>
+ * <p>
+ * Each {@link HttpsHsmClient} owns one connection, which sends one request at a time, and closes it when the client is
+ * closed. A {@link UnixDomainSocketChannel} holds at most one socket, so clients that are given the same channel must
+ * not have their connections open at the same time.
+ * </p>
+ */
+@Slf4j
+final class UnixDomainSocketHttpConnection
+{
+    private static final int READ_BUFFER_SIZE = 4096;
+
+    private final UnixDomainSocketChannel channel;
+
+    // guarded by this
+    private String openAddress; // null if the channel is not open
+    private ChannelInputStream inputStream;
+
+    /**
+     * @param channel the channel to send requests over. It is opened by the first request.
+     */
+    UnixDomainSocketHttpConnection(UnixDomainSocketChannel channel)
+    {
+        this.channel = channel;
+    }
+
+    /**
+     * Send a request and read its response, opening the channel first if it isn't open already. The channel is left
+     * open for the next request unless the server indicated that it will close the connection.
+     *
+     * @param address the address of the unix domain socket.
+     * @param request the serialized request, including its body.
+     * @return the response to the request.
+     * @throws IOException if the request could not be sent or its response could not be read.
+     */
+    synchronized HttpsResponse send(String address, byte[] request) throws IOException
+    {
+        if (this.openAddress != null && !this.openAddress.equals(address))
+        {
+            closeChannel();
+        }
+
+        boolean isReusedConnection = this.openAddress != null;
+        try
+        {
+            return sendOnce(address, request);
+        }
+        catch (IOException e)
+        {
+            closeChannel();
+
+            // The server may have closed an idle connection since the previous request, which surfaces as a failed
+            // write or as the socket closing before any of the response arrived. Requests to the workload API are safe
+            // to send again, so retry those once on a new connection.
+            if (!isReusedConnection || this.inputStream.bytesRead > 0)
+            {
+                throw e;
+            }
+
+            log.debug("Reused unix domain socket connection was closed by the server, retrying on a new connection", e);
+            return sendOnce(address, request);
+        }
+    }
+
+    private HttpsResponse sendOnce(String address, byte[] request) throws IOException
+    {
+        if (this.openAddress == null)
+        {
+            log.trace("Opening unix domain socket");
+            this.channel.open(address);
+            this.openAddress = address;
+            this.inputStream = new ChannelInputStream(this.channel);
+        }
+
+        this.inputStream.bytesRead = 0;
+
+        log.trace("Writing {} bytes to unix domain socket", request.length);
+        log.trace("Contents of the request:\r\n{}", new String(request, StandardCharsets.UTF_8));
+        this.channel.write(request);
+
+        HttpsResponse response = HttpsRequestResponseSerializer.readResponse(this.inputStream);
+        log.trace("Read {} byte response from unix domain socket", this.inputStream.bytesRead);
+
+        if (!HttpsRequestResponseSerializer.isConnectionReusable(response))
+        {
+            closeChannel();
+        }
+
+        return response;
+    }
+
+    /**
+     * Close the channel if it is open. The next request opens it again.
+     */
+    synchronized void close()
+    {
+        closeChannel();
+    }
+
+    private void closeChannel()
+    {
+        if (this.openAddress == null)
+        {
+            return;
+        }
+
+        log.trace("Closing unix domain socket");
+        this.openAddress = null;
+        try
+        {
+            this.channel.close();
+        }
+        catch (IOException e)
+        {
+            log.debug("Failed to close unix domain socket", e);
+        }
+    }
+
+    /**
+     * Buffers reads from a {@link UnixDomainSocketChannel} so that a response can be parsed a byte at a time without
+     * a call to the channel for each byte. Bytes that are read past the end of one response stay buffered for the next.
+     */
+    private static final class ChannelInputStream extends InputStream
+    {
+        private final UnixDomainSocketChannel channel;
+        private final byte[] buffer = new byte[READ_BUFFER_SIZE];
+        private int position;
+        private int limit;
+        private long bytesRead;
+
+        ChannelInputStream(UnixDomainSocketChannel channel)
+        {
+            this.channel = channel;
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            if (!fill())
+            {
+                return -1;
+            }
+
+            this.bytesRead++;
+            return this.buffer[this.position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] destination, int offset, int length) throws IOException
+        {
+            if (length == 0)
+            {
+                return 0;
+            }
+
+            if (!fill())
+            {
+                return -1;
+            }
+
+            int count = Math.min(length, this.limit - this.position);
+            System.arraycopy(this.buffer, this.position, destination, offset, count);
+            this.position += count;
+            this.bytesRead += count;
+            return count;
+        }
+
+        // returns false if the end of the stream was reached
+        private boolean fill() throws IOException
+        {
+            while (this.position >= this.limit)
+            {
+                int read = this.channel.read(this.buffer);
+                if (read < 0)
+                {
+                    return false;
+                }
+
+                this.position = 0;
+                this.limit = read;
+            }
+
+            return true;
+        }
+    }
+}
@@ -5,9 +5,9 @@
 
 package com.microsoft.azure.sdk.iot.device.hsm.parser;
 
-import com.google.gson.GsonBuilder;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
+import com.microsoft.azure.sdk.iot.device.internal.GsonSerializers;
 
 /**
  * Json parser for the response received from an HSM unit upon a failed sign request
@@ -22,7 +22,7 @@ public class ErrorResponse
 
     public static ErrorResponse fromJson(String json)
     {
-        return new GsonBuilder().create().fromJson(json, ErrorResponse.class);
+        return GsonSerializers.DEFAULT.fromJson(json, ErrorResponse.class);
     }
 
     public ErrorResponse()
@@ -5,9 +5,9 @@
 
 package com.microsoft.azure.sdk.iot.device.hsm.parser;
 
-import com.google.gson.GsonBuilder;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
+import com.microsoft.azure.sdk.iot.device.internal.GsonSerializers;
 
 import javax.crypto.Mac;
 
@@ -60,7 +60,7 @@ public class SignRequest
 
     public String toJson()
     {
-        return new GsonBuilder().create().toJson(this);
+        return GsonSerializers.DEFAULT.toJson(this);
     }
 
     //empty constructor for Gson to use
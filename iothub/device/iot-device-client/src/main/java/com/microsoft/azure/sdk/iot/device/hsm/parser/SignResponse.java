@@ -5,9 +5,9 @@
 
 package com.microsoft.azure.sdk.iot.device.hsm.parser;
 
-import com.google.gson.GsonBuilder;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
+import com.microsoft.azure.sdk.iot.device.internal.GsonSerializers;
 import lombok.Getter;
 
 
@@ -24,6 +24,6 @@ public class SignResponse
 
     public static SignResponse fromJson(String json)
     {
-        return new GsonBuilder().create().fromJson(json, SignResponse.class);
+        return GsonSerializers.DEFAULT.fromJson(json, SignResponse.class);
     }
 }
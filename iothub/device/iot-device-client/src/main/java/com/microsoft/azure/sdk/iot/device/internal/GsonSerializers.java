@@ -0,0 +1,48 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device.internal;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Shared {@link Gson} instances for serializing and deserializing the json payloads that this client exchanges with
+ * IoT Hub and Edgehub. For use within this SDK only, this class is not part of its public API and may change at any time.
+ *
+ * <p>
+ * Building a Gson instance is expensive, and each instance keeps its own cache of the type adapters it has resolved, so
+ * creating one per payload throws that cache away every time. Gson instances are thread safe, so these can be shared by
+ * every client in the process.
+ * </p>
+ * <p>
+ * Only the file upload payload types, which are serialized on every file upload, have hand written type adapters that
+ * avoid reflection. Those adapters are attached to the types with {@link com.google.gson.annotations.JsonAdapter}.
+ * Direct method payloads and twin patches are not covered. Their contents are user defined types or
+ * {@link com.google.gson.JsonElement} trees, so they are still serialized reflectively, only without building a new
+ * Gson instance each time.
+ * </p>
+ */
+public final class GsonSerializers
+{
+    /**
+     * Equivalent to {@code new GsonBuilder().create()}.
+     */
+    public static final Gson DEFAULT = new GsonBuilder().create();
+
+    /**
+     * Equivalent to {@code new GsonBuilder().serializeNulls().create()}.
+     */
+    public static final Gson SERIALIZE_NULLS = new GsonBuilder().serializeNulls().create();
+
+    /**
+     * Equivalent to {@code new GsonBuilder().disableHtmlEscaping().serializeNulls().create()}, for the file upload
+     * payload types.
+     */
+    public static final Gson FILE_UPLOAD = new GsonBuilder().disableHtmlEscaping().serializeNulls().create();
+
+    private GsonSerializers()
+    {
+        // static members only
+    }
+}
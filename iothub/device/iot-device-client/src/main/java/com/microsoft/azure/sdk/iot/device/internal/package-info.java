@@ -0,0 +1,8 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+/**
+ * Helpers that are shared between the packages of this SDK. Not part of its public API, the classes in this package
+ * may change or be removed in any release.
+ */
+package com.microsoft.azure.sdk.iot.device.internal;
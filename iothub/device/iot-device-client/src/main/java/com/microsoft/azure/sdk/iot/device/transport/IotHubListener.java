@@ -24,6 +24,14 @@ public interface IotHubListener
      */
     void onMessageSent(Message message, String deviceId, TransportException e);
 
+    /**
+     * Callback to be fired when the transport client can accept messages again after
+     * {@link IotHubTransportConnection#hasSendCapacity()} returned false. Does nothing by default.
+     */
+    default void onSendCapacityAvailable()
+    {
+    }
+
     /**
      * Callback to be fired when a transport message has been received.
      * @param transportMessage The message that was received. May be null if e is not null
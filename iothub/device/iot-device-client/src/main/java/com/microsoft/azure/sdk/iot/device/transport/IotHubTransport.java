@@ -74,6 +74,7 @@ public class IotHubTransport implements IotHubListener
     private Object multiplexingStateCallbackContext;
 
     private RetryPolicy multiplexingRetryPolicy;
+    private ReconnectCoordinator multiplexingReconnectCoordinator;
 
     // Callback for notifying the DeviceIO layer of connection status change events. The deviceIO layer
     // should stop spawning send/receive threads when this layer is disconnected or disconnected retrying
@@ -216,7 +217,9 @@ public class IotHubTransport implements IotHubListener
 
     public boolean hasMessagesToSend()
     {
-        return this.waitingPacketsQueue.size() > 0;
+        // Messages that can't be sent until the connection has capacity again don't count, so that the send thread
+        // waits for onSendCapacityAvailable() rather than repeatedly trying to send them
+        return this.waitingPacketsQueue.size() > 0 && hasSendCapacity();
     }
 
     public boolean hasReceivedMessagesToHandle()
@@ -254,6 +257,13 @@ public class IotHubTransport implements IotHubListener
         return this.connectionStatus == IotHubConnectionStatus.DISCONNECTED;
     }
 
+    @Override
+    public void onSendCapacityAvailable()
+    {
+        log.trace("Transport connection can accept messages again, waking up the send thread");
+        this.sendThreadSemaphore.release();
+    }
+
     @Override
     public void onMessageSent(Message message, String deviceId, TransportException e)
     {
@@ -289,7 +299,7 @@ public class IotHubTransport implements IotHubListener
             {
                 String correlationId = message.getCorrelationId();
 
-                if (!correlationId.isEmpty())
+                if (correlationId != null && !correlationId.isEmpty())
                 {
                     CorrelationCallbackContext callbackContext = correlationCallbacks.get(correlationId);
 
@@ -341,7 +351,7 @@ public class IotHubTransport implements IotHubListener
             if (message != null)
             {
                 String correlationId = message.getCorrelationId();
-                if (!correlationId.isEmpty())
+                if (correlationId != null && !correlationId.isEmpty())
                 {
                     CorrelationCallbackContext callbackContext = correlationCallbacks.get(correlationId);
                     if (callbackContext != null && callbackContext.getCallback() != null)
@@ -456,6 +466,11 @@ public class IotHubTransport implements IotHubListener
         this.multiplexingRetryPolicy = retryPolicy;
     }
 
+    public void setMultiplexingReconnectCoordinator(ReconnectCoordinator reconnectCoordinator)
+    {
+        this.multiplexingReconnectCoordinator = reconnectCoordinator;
+    }
+
     /**
      * Establishes a communication channel with an IoT Hub. If a channel is
      * already open, the function shall do nothing.
@@ -611,6 +626,7 @@ public class IotHubTransport implements IotHubListener
 
             // retry policy to be used for connection level retry, not device session specific retry
             RetryPolicy retryPolicy = isMultiplexing ? multiplexingRetryPolicy : this.getDefaultConfig().getRetryPolicy();
+            ReconnectCoordinator reconnectCoordinator = isMultiplexing ? multiplexingReconnectCoordinator : this.getDefaultConfig().getReconnectCoordinator();
 
             // keep attempting to reconnect the connection and any multiplexed device sessions until they are all CONNECTED
             // or they reach a DISCONNECTED state due to retry expired, timeout, encountering a non-retryable exception, etc.
@@ -636,7 +652,7 @@ public class IotHubTransport implements IotHubListener
                         reconnectionStartTimeMillis = System.currentTimeMillis();
                     }
 
-                    singleReconnectAttempt(retryPolicy, reconnectionAttempt, reconnectionStartTimeMillis);
+                    singleReconnectAttempt(retryPolicy, reconnectCoordinator, reconnectionAttempt, reconnectionStartTimeMillis);
                     reconnectionAttempt++;
                 }
                 else // one or more multiplexed device sessions lost connectivity
@@ -718,12 +734,33 @@ public class IotHubTransport implements IotHubListener
             if (inProgressPackets.size() > 0)
             {
                 log.trace("Due to disconnection event, clearing active queues, and re-queueing them to waiting queues to be re-processed later upon reconnection");
-                for (IotHubTransportPacket packetToRequeue : inProgressPackets.values())
+
+                // In progress packets were sent before any of the packets that are still waiting, so they are put back
+                // ahead of the waiting packets, in the order that they were originally queued in, so that they are
+                // resent in their original order once reconnected.
+                List<IotHubTransportPacket> packetsToRequeue = new ArrayList<>(inProgressPackets.values());
+                packetsToRequeue.sort(Comparator.comparingLong(IotHubTransportPacket::getSequenceNumber));
+                inProgressPackets.clear();
+                int requeuedPacketCount = packetsToRequeue.size();
+
+                // Held so that packets queued by other threads while the queue is rebuilt end up behind the packets
+                // that were already waiting, rather than between them or ahead of the requeued packets.
+                synchronized (this.waitingPacketsQueue)
                 {
-                    this.addToWaitingQueue(packetToRequeue);
+                    IotHubTransportPacket waitingPacket = this.waitingPacketsQueue.poll();
+                    while (waitingPacket != null)
+                    {
+                        packetsToRequeue.add(waitingPacket);
+                        waitingPacket = this.waitingPacketsQueue.poll();
+                    }
+
+                    // Not through addToWaitingQueue, these packets were already reported to their correlation
+                    // callbacks as queued when they were first added
+                    this.waitingPacketsQueue.addAll(packetsToRequeue);
                 }
 
-                inProgressPackets.clear();
+                // Wake up IotHubSendTask so it can resend these messages, once per message as addToWaitingQueue does
+                this.sendThreadSemaphore.release(requeuedPacketCount);
             }
         }
     }
@@ -775,7 +812,7 @@ public class IotHubTransport implements IotHubListener
 
         synchronized (this.waitingPacketsLock)
         {
-            while (this.connectionStatus == IotHubConnectionStatus.CONNECTED && timeSlice-- > 0)
+            while (this.connectionStatus == IotHubConnectionStatus.CONNECTED && timeSlice-- > 0 && hasSendCapacity())
             {
                 IotHubTransportPacket packet = waitingPacketsQueue.poll();
 
@@ -792,7 +829,7 @@ public class IotHubTransport implements IotHubListener
                         {
                             String correlationId = message.getCorrelationId();
 
-                            if (!correlationId.isEmpty())
+                            if (correlationId != null && !correlationId.isEmpty())
                             {
                                 CorrelationCallbackContext callbackContext = correlationCallbacks.get(correlationId);
                                 if (callbackContext != null && callbackContext.getCallback() != null)
@@ -811,6 +848,12 @@ public class IotHubTransport implements IotHubListener
         }
     }
 
+    private boolean hasSendCapacity()
+    {
+        IotHubTransportConnection connection = this.iotHubTransportConnection;
+        return connection == null || connection.hasSendCapacity();
+    }
+
     String getTransportConnectionId() {
         return this.iotHubTransportConnection.getConnectionId();
     }
@@ -1262,7 +1305,7 @@ public class IotHubTransport implements IotHubListener
                 try
                 {
                     String correlationId = receivedMessage.getCorrelationId();
-                    if (!correlationId.isEmpty())
+                    if (correlationId != null && !correlationId.isEmpty())
                     {
                         CorrelationCallbackContext callbackContext = correlationCallbacks.get(correlationId);
 
@@ -1308,7 +1351,7 @@ public class IotHubTransport implements IotHubListener
             try
             {
                 String correlationId = transportMessage.getCorrelationId();
-                if (!correlationId.isEmpty())
+                if (correlationId != null && !correlationId.isEmpty())
                 {
                     CorrelationCallbackContext callbackContext = correlationCallbacks.get(correlationId);
 
@@ -1457,6 +1500,14 @@ public class IotHubTransport implements IotHubListener
                 return;
             }
 
+            if (config.getReconnectCoordinator() != null
+                && !config.getReconnectCoordinator().awaitAdmission(this.getRemainingOperationTimeMillis(multiplexedDeviceState.getStartReconnectTime())))
+            {
+                this.updateStatus(IotHubConnectionStatus.DISCONNECTED, IotHubConnectionStatusChangeReason.RETRY_EXPIRED, transportException, deviceSessionToReconnect);
+                log.debug("Reconnection for device {} was abandoned due to the operation timeout while waiting for the reconnect coordinator", deviceSessionToReconnect);
+                return;
+            }
+
             log.trace("Attempting to reconnect device session: attempt {}", multiplexedDeviceState.getReconnectionAttemptNumber());
 
             // This call triggers some async amqp logic, so all this function can do is wait for a bit and check the connection
@@ -1487,7 +1538,7 @@ public class IotHubTransport implements IotHubListener
     /**
      * Attempts to close and then re-open the iotHubTransportConnection once
      */
-    private void singleReconnectAttempt(RetryPolicy retryPolicy, int reconnectionAttempt, long reconnectionStartTimeMillis) throws InterruptedException
+    private void singleReconnectAttempt(RetryPolicy retryPolicy, ReconnectCoordinator reconnectCoordinator, int reconnectionAttempt, long reconnectionStartTimeMillis) throws InterruptedException
     {
         if (this.hasOperationTimedOut(reconnectionStartTimeMillis))
         {
@@ -1513,6 +1564,15 @@ public class IotHubTransport implements IotHubListener
         log.trace("Sleeping between reconnect attempts");
         MILLISECONDS.sleep(retryDecision.getDuration());
 
+        if (reconnectCoordinator != null && !reconnectCoordinator.awaitAdmission(this.getRemainingOperationTimeMillis(reconnectionStartTimeMillis)))
+        {
+            log.debug("Reconnection was abandoned due to the operation timeout while waiting for the reconnect coordinator");
+            this.close(
+                    IotHubConnectionStatusChangeReason.RETRY_EXPIRED,
+                    new IotHubClientException(DEVICE_OPERATION_TIMED_OUT, "Device operation for reconnection timed out"));
+            return;
+        }
+
         try
         {
             log.trace("Attempting to close and re-open the iot hub transport connection...");
@@ -1556,7 +1616,10 @@ public class IotHubTransport implements IotHubListener
         @Override
         public void run()
         {
-            this.waitingPacketsQueue.add(this.transportPacket);
+            synchronized (this.waitingPacketsQueue)
+            {
+                this.waitingPacketsQueue.add(this.transportPacket);
+            }
 
             // Wake up send messages thread so that it can send this message
             this.sendThreadSemaphore.release();
@@ -1621,8 +1684,7 @@ public class IotHubTransport implements IotHubListener
     {
         Message message = packet.getMessage();
 
-        boolean messageAckExpected = !(message instanceof IotHubTransportMessage
-                && !((IotHubTransportMessage) message).isMessageAckNeeded(this.protocol));
+        boolean messageAckExpected = isMessageAckExpected(message);
 
         try
         {
@@ -1666,6 +1728,20 @@ public class IotHubTransport implements IotHubListener
         }
     }
 
+    private boolean isMessageAckExpected(Message message)
+    {
+        if (message instanceof IotHubTransportMessage
+                && !((IotHubTransportMessage) message).isMessageAckNeeded(this.protocol))
+        {
+            return false;
+        }
+
+        // QoS 0 messages are never acknowledged, so they are complete once the connection layer accepts them and
+        // don't need to be tracked in the inProgressPackets map at all
+        boolean isMqtt = this.protocol == IotHubClientProtocol.MQTT || this.protocol == IotHubClientProtocol.MQTT_WS;
+        return !(isMqtt && message.isAtMostOnceDelivery());
+    }
+
     /**
      * Checks if the provided packet has expired or if the sas token has expired
      *
@@ -1951,6 +2027,22 @@ public class IotHubTransport implements IotHubListener
         return (System.currentTimeMillis() - startTime) > this.getDefaultConfig().getOperationTimeout();
     }
 
+    /**
+     * Returns how much of the device operation timeout is left for an operation that started at the provided time
+     *
+     * @return the remaining time in milliseconds, or {@link Long#MAX_VALUE} if no device operation timeout applies
+     */
+    private long getRemainingOperationTimeMillis(long startTime)
+    {
+        if (startTime == 0 || this.getDefaultConfig() == null)
+        {
+            // multiplexed connection with no registered devices, and that scenario doesn't have a device operation timeout
+            return Long.MAX_VALUE;
+        }
+
+        return this.getDefaultConfig().getOperationTimeout() - (System.currentTimeMillis() - startTime);
+    }
+
     /**
      * Adds the packet to the callback queue if the provided packet has a callback. The packet is ignored otherwise.
      *
@@ -1990,7 +2082,7 @@ public class IotHubTransport implements IotHubListener
                 {
                     String correlationId = message.getCorrelationId();
                     CorrelatingMessageCallback correlationCallback = message.getCorrelatingMessageCallback();
-                    if (!correlationId.isEmpty() && correlationCallback != null)
+                    if (correlationId != null && !correlationId.isEmpty() && correlationCallback != null)
                     {
                         Object correlationCallbackContext = message.getCorrelatingMessageCallbackContext();
                         correlationCallbacks.put(correlationId, new CorrelationCallbackContext(
@@ -2008,7 +2100,10 @@ public class IotHubTransport implements IotHubListener
             log.warn("Exception thrown while calling the onQueueRequest callback in addToWaitingQueue", ex);
         }
 
-        this.waitingPacketsQueue.add(packet);
+        synchronized (this.waitingPacketsQueue)
+        {
+            this.waitingPacketsQueue.add(packet);
+        }
 
         // Wake up IotHubSendTask so it can send this message
         this.sendThreadSemaphore.release();
@@ -52,6 +52,18 @@ public interface IotHubTransportConnection
      */
     boolean sendMessageResult(IotHubTransportMessage message, IotHubMessageResult result) throws TransportException;
 
+    /**
+     * Check if the Transport Connection can accept another message right now. When this returns false, the Transport
+     * layer keeps its messages queued until {@link IotHubListener#onSendCapacityAvailable()} is called. Connections
+     * that don't bound the number of messages in flight can rely on the default implementation, which always returns true.
+     *
+     * @return true if {@link #sendMessage(Message)} can be called without waiting for earlier messages to be acknowledged
+     */
+    default boolean hasSendCapacity()
+    {
+        return true;
+    }
+
     /**
      * Gives the UUID associated with this connection instance. This string is used in conjunction with the callbacks
      * with connection status updates to ensure that all connection status updates are relevant to this connection object
@@ -7,12 +7,16 @@ import com.microsoft.azure.sdk.iot.device.MessageSentCallback;
 import com.microsoft.azure.sdk.iot.device.IotHubStatusCode;
 import com.microsoft.azure.sdk.iot.device.Message;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * A packet containing the data needed for an IoT Hub transport to send a
  * message.
  */
 public final class IotHubTransportPacket
 {
+    private static final AtomicLong NEXT_SEQUENCE_NUMBER = new AtomicLong();
+
     private final Message message;
     private final MessageSentCallback eventCallback;
     private final Object callbackContext;
@@ -20,6 +24,7 @@ public final class IotHubTransportPacket
     private final long startTimeMillis;
     private int currentRetryAttempt;
     private final String deviceId;
+    private final long sequenceNumber = NEXT_SEQUENCE_NUMBER.getAndIncrement();
 
     /**
      * Constructor.
@@ -115,6 +120,16 @@ public final class IotHubTransportPacket
         return this.startTimeMillis;
     }
 
+    /**
+     * Getter for the sequence number of this packet. Packets that were created later have higher sequence numbers, so
+     * this orders packets by when they were created even if they were created within the same millisecond.
+     * @return the sequence number of this packet
+     */
+    public long getSequenceNumber()
+    {
+        return this.sequenceNumber;
+    }
+
     /**
      * Getter for current retry attempt. This count should be incremented using incrementRetryAttempt
      * @return the current retry attempt
@@ -0,0 +1,245 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device.transport;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounds the rate of reconnection attempts across every client that it is shared with.
+ *
+ * <p>
+ * Each client applies its {@link RetryPolicy} on its own, so when many clients in one process lose their connections
+ * at the same time, their retries line up into waves that can overload a proxy or IoT hub. A client that was given a
+ * coordinator through {@link com.microsoft.azure.sdk.iot.device.ClientOptions#getReconnectCoordinator()} or
+ * {@link com.microsoft.azure.sdk.iot.device.MultiplexingClientOptions#getReconnectCoordinator()} still waits out its
+ * retry policy's delay, and must then also be admitted by the coordinator before each attempt:
+ * </p>
+ * <ul>
+ *     <li>If a {@link ReconnectHealthProbe} was provided, attempts are held back until the probe reports that the
+ *     network is healthy. Only one client runs the probe at a time, and a healthy result is trusted by every client for
+ *     the probe interval.</li>
+ *     <li>Attempts are then admitted through a token bucket. Up to the burst size of attempts are admitted right away
+ *     so that recovery from a short outage is fast, and further attempts are spread out at the configured rate. Each
+ *     delayed attempt is given a random offset within its slot so that attempts don't line up on slot boundaries.</li>
+ * </ul>
+ * <p>
+ * Waiting for admission counts against the client's operation timeout. A client that isn't admitted before its
+ * operation timeout runs out stops reconnecting and reports
+ * {@link com.microsoft.azure.sdk.iot.device.IotHubConnectionStatusChangeReason#RETRY_EXPIRED}.
+ * </p>
+ * <p>
+ * Share one instance between all clients of a process for the limits to apply process wide.
+ * </p>
+ */
+@Slf4j
+public final class ReconnectCoordinator
+{
+    private static final long NANOSECONDS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final long admissionIntervalNanos;
+    private final long burstNanos;
+    private final ReconnectHealthProbe healthProbe;
+    private final long healthProbeIntervalMillis;
+
+    // The token bucket, expressed as the time at which the bucket would be full again if no more attempts were made.
+    // guarded by this
+    private long bucketFullAtNanos = System.nanoTime();
+
+    private final Object healthLock = new Object();
+
+    // guarded by healthLock
+    private long lastHealthyProbeMillis;
+    private long nextProbeMillis;
+    private boolean isProbing;
+
+    /**
+     * Create a coordinator that admits reconnection attempts without health probing.
+     *
+     * @param maxAttemptsPerSecond the rate at which attempts are admitted once the burst has been used up. Must be
+     * greater than 0.
+     * @param burstSize the number of attempts that are admitted at once before the rate applies. Must be greater than 0.
+     */
+    public ReconnectCoordinator(double maxAttemptsPerSecond, int burstSize)
+    {
+        this(maxAttemptsPerSecond, burstSize, null, 0);
+    }
+
+    /**
+     * Create a coordinator that admits reconnection attempts only while the provided health probe reports that the
+     * network is healthy.
+     *
+     * @param maxAttemptsPerSecond the rate at which attempts are admitted once the burst has been used up. Must be
+     * greater than 0.
+     * @param burstSize the number of attempts that are admitted at once before the rate applies. Must be greater than 0.
+     * @param healthProbe the probe to check before admitting attempts. May be null if attempts should not be gated on
+     * the health of the network.
+     * @param healthProbeIntervalMillis how long a healthy probe result is trusted for, and how long to wait before
+     * probing again after an unhealthy result. Must be greater than 0 if a health probe is provided.
+     */
+    public ReconnectCoordinator(double maxAttemptsPerSecond, int burstSize, ReconnectHealthProbe healthProbe, long healthProbeIntervalMillis)
+    {
+        if (maxAttemptsPerSecond <= 0)
+        {
+            throw new IllegalArgumentException("maxAttemptsPerSecond must be greater than 0");
+        }
+
+        if (burstSize <= 0)
+        {
+            throw new IllegalArgumentException("burstSize must be greater than 0");
+        }
+
+        if (healthProbe != null && healthProbeIntervalMillis <= 0)
+        {
+            throw new IllegalArgumentException("healthProbeIntervalMillis must be greater than 0");
+        }
+
+        this.admissionIntervalNanos = Math.max(1, (long) (NANOSECONDS_PER_SECOND / maxAttemptsPerSecond));
+        this.burstNanos = this.admissionIntervalNanos * burstSize;
+        this.healthProbe = healthProbe;
+        this.healthProbeIntervalMillis = healthProbeIntervalMillis;
+    }
+
+    /**
+     * Block until the next reconnection attempt may be made, or until the provided time has passed.
+     *
+     * @param timeoutMillis the longest time to wait, such as what is left of the client's operation timeout.
+     * {@link Long#MAX_VALUE} to wait without limit.
+     * @return true if the attempt was admitted, false if it wasn't admitted before the timeout, such as when the health
+     * probe kept reporting an unhealthy network.
+     * @throws InterruptedException if the calling thread is interrupted while waiting, such as when its client is closed.
+     */
+    boolean awaitAdmission(long timeoutMillis) throws InterruptedException
+    {
+        long now = System.currentTimeMillis();
+        long deadlineMillis = timeoutMillis >= Long.MAX_VALUE - now ? Long.MAX_VALUE : now + Math.max(0, timeoutMillis);
+
+        if (this.healthProbe != null && !awaitHealthyNetwork(deadlineMillis))
+        {
+            return false;
+        }
+
+        long remainingNanos = deadlineMillis == Long.MAX_VALUE
+            ? Long.MAX_VALUE
+            : TimeUnit.MILLISECONDS.toNanos(Math.max(0, deadlineMillis - System.currentTimeMillis()));
+        long delayNanos = reserveAdmission(remainingNanos);
+        if (delayNanos < 0)
+        {
+            log.trace("Reconnection attempt would be delayed past its timeout by the reconnect coordinator");
+            return false;
+        }
+
+        if (delayNanos > 0)
+        {
+            log.trace("Reconnection attempt delayed by {} milliseconds by the reconnect coordinator", TimeUnit.NANOSECONDS.toMillis(delayNanos));
+            TimeUnit.NANOSECONDS.sleep(delayNanos);
+        }
+
+        return true;
+    }
+
+    /**
+     * @param maxDelayNanos the longest delay that the caller is willing to wait for.
+     * @return how long to wait before the reserved attempt may be made, or -1 if the attempt could not be made within
+     * the provided delay, in which case nothing is reserved so that later attempts aren't pushed back by it.
+     */
+    synchronized long reserveAdmission(long maxDelayNanos)
+    {
+        long now = System.nanoTime();
+
+        // each attempt takes one token, which comes back one admission interval later. A bucket that has been idle
+        // for a while is full, and it never holds more than the burst size of tokens.
+        long bucketFullAtNanos = Math.max(this.bucketFullAtNanos, now) + this.admissionIntervalNanos;
+
+        long admittedAtNanos = bucketFullAtNanos - this.burstNanos;
+        if (admittedAtNanos <= now)
+        {
+            this.bucketFullAtNanos = bucketFullAtNanos;
+            return 0;
+        }
+
+        long slotStartDelayNanos = admittedAtNanos - now;
+        if (slotStartDelayNanos > maxDelayNanos)
+        {
+            return -1;
+        }
+
+        this.bucketFullAtNanos = bucketFullAtNanos;
+
+        // this attempt has the slot [admittedAt, admittedAt + interval) to itself, so spread it out within that slot,
+        // but no further than the caller is willing to wait
+        long spreadNanos = Math.min(this.admissionIntervalNanos, maxDelayNanos - slotStartDelayNanos + 1);
+        return slotStartDelayNanos + ThreadLocalRandom.current().nextLong(spreadNanos);
+    }
+
+    /**
+     * @return true once the network is healthy, or false if it wasn't reported healthy before the deadline.
+     */
+    private boolean awaitHealthyNetwork(long deadlineMillis) throws InterruptedException
+    {
+        while (true)
+        {
+            synchronized (this.healthLock)
+            {
+                long now = System.currentTimeMillis();
+                if (this.lastHealthyProbeMillis != 0 && now - this.lastHealthyProbeMillis <= this.healthProbeIntervalMillis)
+                {
+                    return true;
+                }
+
+                if (now >= deadlineMillis)
+                {
+                    log.debug("Reconnect health probe did not report a healthy network before the reconnection attempt timed out");
+                    return false;
+                }
+
+                if (this.isProbing)
+                {
+                    this.healthLock.wait(Math.min(this.healthProbeIntervalMillis, deadlineMillis - now));
+                    continue;
+                }
+
+                if (now < this.nextProbeMillis)
+                {
+                    this.healthLock.wait(Math.min(this.nextProbeMillis, deadlineMillis) - now);
+                    continue;
+                }
+
+                this.isProbing = true;
+            }
+
+            // probed without holding the lock so that other clients keep waiting on the result rather than on the lock
+            boolean isHealthy = false;
+            try
+            {
+                isHealthy = this.healthProbe.isHealthy();
+            }
+            catch (RuntimeException e)
+            {
+                log.debug("Reconnect health probe threw an exception, treating the network as unhealthy", e);
+            }
+            finally
+            {
+                synchronized (this.healthLock)
+                {
+                    this.isProbing = false;
+                    long probeFinishedMillis = System.currentTimeMillis();
+                    if (isHealthy)
+                    {
+                        this.lastHealthyProbeMillis = probeFinishedMillis;
+                    }
+                    else
+                    {
+                        log.debug("Reconnect health probe reported an unhealthy network, holding back reconnection attempts");
+                        this.nextProbeMillis = probeFinishedMillis + this.healthProbeIntervalMillis;
+                    }
+
+                    this.healthLock.notifyAll();
+                }
+            }
+        }
+    }
+}
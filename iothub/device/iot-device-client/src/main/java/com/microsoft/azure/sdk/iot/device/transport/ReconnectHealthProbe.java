@@ -0,0 +1,21 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device.transport;
+
+/**
+ * A cheap check of whether the network path to IoT hub is usable, such as opening a TCP connection to the hub or to the
+ * proxy in front of it. Used by a {@link ReconnectCoordinator} to hold back reconnection attempts while the network is
+ * still down, rather than letting every client spend its attempts failing.
+ */
+public interface ReconnectHealthProbe
+{
+    /**
+     * Check whether the network path to IoT hub is usable. This is called from one reconnecting client at a time, no
+     * matter how many clients share the coordinator.
+     *
+     * @return true if reconnection attempts are likely to succeed, and false if they should be held back.
+     * @throws InterruptedException if the calling thread is interrupted while probing.
+     */
+    boolean isHealthy() throws InterruptedException;
+}
@@ -31,7 +31,7 @@ final class AmqpsMethodsReceiverLinkHandler extends AmqpsReceiverLinkHandler
 
     AmqpsMethodsReceiverLinkHandler(Receiver receiver, AmqpsLinkStateCallback amqpsLinkStateCallback, ClientConfiguration clientConfiguration, String linkCorrelationId)
     {
-        super(receiver, amqpsLinkStateCallback, linkCorrelationId);
+        super(receiver, amqpsLinkStateCallback, linkCorrelationId, clientConfiguration.getAmqpDirectMethodCreditWindow());
 
         this.clientConfiguration = clientConfiguration;
 
@@ -33,6 +33,7 @@ abstract class AmqpsReceiverLinkHandler extends BaseHandler
     private static final String TO_KEY = "to";
     private static final String USER_ID_KEY = "userId";
     private static final String AMQPS_APP_PROPERTY_PREFIX = "iothub-app-";
+    private static final int INITIAL_DECODE_BUFFER_SIZE = 1024;
 
     // Upon opening a receiver link, the client must extend link credit to the service so that the service
     // can send messages over that link to the client. Each "link credit" corresponds to 1 service to client message.
@@ -44,20 +45,33 @@ abstract class AmqpsReceiverLinkHandler extends BaseHandler
     String receiverLinkAddress;
     final Receiver receiverLink;
     private final AmqpsLinkStateCallback amqpsLinkStateCallback;
+    private final int maximumCreditWindow;
+    private LoggingFlowController flowController;
+
+    // Deliveries are read into this buffer before they are decoded. Proton copies every value that it decodes out of the
+    // buffer, so it can be reused. It is only used from the reactor thread, and it keeps the size that the largest
+    // delivery so far needed.
+    private byte[] decodeBuffer = new byte[INITIAL_DECODE_BUFFER_SIZE];
 
     AmqpsReceiverLinkHandler(Receiver receiver, AmqpsLinkStateCallback amqpsLinkStateCallback, String linkCorrelationId)
+    {
+        this(receiver, amqpsLinkStateCallback, linkCorrelationId, LoggingFlowController.DEFAULT_WINDOW);
+    }
+
+    AmqpsReceiverLinkHandler(Receiver receiver, AmqpsLinkStateCallback amqpsLinkStateCallback, String linkCorrelationId, int maximumCreditWindow)
     {
         this.amqpProperties = new HashMap<>();
         this.amqpProperties.put(Symbol.getSymbol(API_VERSION_KEY), TransportUtils.IOTHUB_API_VERSION);
         this.receiverLink = receiver;
         this.linkCorrelationId = linkCorrelationId;
         this.amqpsLinkStateCallback = amqpsLinkStateCallback;
+        this.maximumCreditWindow = maximumCreditWindow;
 
         //All events that happen to this receiver link will be handled in this class (onLinkRemoteOpen, for instance)
         BaseHandler.setHandler(receiver, this);
 
         //This flow controller handles all link credit handling on our behalf
-        add(new LoggingFlowController(this.linkCorrelationId));
+        addFlowController();
     }
 
     @Override
@@ -76,7 +90,7 @@ abstract class AmqpsReceiverLinkHandler extends BaseHandler
         if (!hasFlowController)
         {
             log.trace("No flow controller detected in {} link with address {} and link correlation id {}. Adding a new flow controller.", getLinkInstanceType(), this.receiverLinkAddress, this.linkCorrelationId);
-            add(new LoggingFlowController(this.linkCorrelationId));
+            addFlowController();
         }
     }
 
@@ -179,6 +193,10 @@ abstract class AmqpsReceiverLinkHandler extends BaseHandler
         if (this.receivedMessagesMap.containsKey(message))
         {
             this.receivedMessagesMap.remove(message).acknowledge(ackType);
+
+            // messages that the application has not acknowledged count against the credit window, so acknowledging one
+            // may allow more credit to be flowed to the service
+            this.flowController.onMessageAcknowledged(this.receiverLink);
             return true;
         }
 
@@ -187,6 +205,12 @@ abstract class AmqpsReceiverLinkHandler extends BaseHandler
 
     abstract String getLinkInstanceType();
 
+    private void addFlowController()
+    {
+        this.flowController = new LoggingFlowController(this.linkCorrelationId, this.maximumCreditWindow, this.receivedMessagesMap::size);
+        add(this.flowController);
+    }
+
     AmqpsMessage getMessageFromReceiverLink(Receiver receiver)
     {
         Delivery delivery = receiver.current();
@@ -199,8 +223,12 @@ abstract class AmqpsReceiverLinkHandler extends BaseHandler
         if (delivery.isReadable() && !delivery.isPartial())
         {
             int size = delivery.pending();
-            byte[] buffer = new byte[size];
-            int bytesRead = receiver.recv(buffer, 0, buffer.length);
+            if (size > this.decodeBuffer.length)
+            {
+                this.decodeBuffer = new byte[Math.max(size, this.decodeBuffer.length * 2)];
+            }
+
+            int bytesRead = receiver.recv(this.decodeBuffer, 0, size);
 
             log.trace("read {} bytes from {} receiver link with address {} and link correlation id {}", bytesRead, getLinkInstanceType(), this.receiverLinkAddress, this.linkCorrelationId);
 
@@ -218,7 +246,7 @@ abstract class AmqpsReceiverLinkHandler extends BaseHandler
 
             AmqpsMessage amqpsMessage = new AmqpsMessage();
             amqpsMessage.setDelivery(delivery);
-            amqpsMessage.decode(buffer, 0, bytesRead);
+            amqpsMessage.decode(this.decodeBuffer, 0, bytesRead);
 
             return amqpsMessage;
         }
@@ -244,9 +272,17 @@ abstract class AmqpsReceiverLinkHandler extends BaseHandler
         if (d != null)
         {
             Binary b = d.getValue();
-            msgBody = new byte[b.getLength()];
-            ByteBuffer buffer = b.asByteBuffer();
-            buffer.get(msgBody);
+            if (b.getArrayOffset() == 0 && b.getLength() == b.getArray().length)
+            {
+                // proton decodes the body into an array of its own, so the array doesn't need to be copied again
+                msgBody = b.getArray();
+            }
+            else
+            {
+                msgBody = new byte[b.getLength()];
+                ByteBuffer buffer = b.asByteBuffer();
+                buffer.get(msgBody);
+            }
         }
         else
         {
@@ -5,6 +5,7 @@ package com.microsoft.azure.sdk.iot.device.transport.amqps;
 
 import com.microsoft.azure.sdk.iot.device.Message;
 import com.microsoft.azure.sdk.iot.device.MessageProperty;
+import com.microsoft.azure.sdk.iot.device.MessageTemplate;
 import com.microsoft.azure.sdk.iot.device.transport.ProtocolException;
 import com.microsoft.azure.sdk.iot.device.transport.TransportUtils;
 import lombok.extern.slf4j.Slf4j;
@@ -29,9 +30,12 @@ import org.apache.qpid.proton.message.impl.MessageImpl;
 
 import java.nio.BufferOverflowException;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
@@ -40,14 +44,25 @@ abstract class AmqpsSenderLinkHandler extends BaseHandler
     static final String VERSION_IDENTIFIER_KEY = "com.microsoft:client-version";
     private static final String API_VERSION_KEY = "com.microsoft:api-version";
     private static final String PNP_MODEL_ID_KEY = "com.microsoft:model-id";
+    private static final Symbol SECURITY_INTERFACE_ID_SYMBOL = Symbol.valueOf(MessageProperty.IOTHUB_SECURITY_INTERFACE_ID);
+    private static final Symbol COMPONENT_ID_SYMBOL = Symbol.valueOf(MessageProperty.COMPONENT_ID);
+    private static final int INITIAL_ENCODE_BUFFER_SIZE = 1024;
     final Map<Integer, Message> inProgressMessages = new ConcurrentHashMap<>();
     final Map<Symbol, Object> amqpProperties;
     final String linkCorrelationId;
     String senderLinkAddress;
     final Sender senderLink;
     private long nextTag = 0;
+
+    // Messages are encoded into this buffer before proton copies them into the delivery. It is only used from the
+    // reactor thread, and it keeps the size that the largest message so far needed.
+    private byte[] encodeBuffer = new byte[INITIAL_ENCODE_BUFFER_SIZE];
     private final AmqpsLinkStateCallback amqpsLinkStateCallback;
 
+    // The encoded form of each message template that this link has sent messages from. It is only used from the reactor
+    // thread, and holds templates weakly so that templates that the user no longer holds don't stay cached.
+    private final Map<MessageTemplate, EncodedMessageTemplate> encodedTemplates = new WeakHashMap<>();
+
     AmqpsSenderLinkHandler(Sender sender, AmqpsLinkStateCallback amqpsLinkStateCallback, String linkCorrelationId, String modelId)
     {
         this.amqpProperties = new HashMap<>();
@@ -207,19 +222,18 @@ abstract class AmqpsSenderLinkHandler extends BaseHandler
             this.nextTag++;
         }
 
-        byte[] msgData = new byte[1024];
         int length;
 
         while (true)
         {
             try
             {
-                length = protonMessage.encode(msgData, 0, msgData.length);
+                length = protonMessage.encode(this.encodeBuffer, 0, this.encodeBuffer.length);
                 break;
             }
             catch (BufferOverflowException e)
             {
-                msgData = new byte[msgData.length * 2];
+                this.encodeBuffer = new byte[this.encodeBuffer.length * 2];
             }
         }
 
@@ -229,7 +243,7 @@ abstract class AmqpsSenderLinkHandler extends BaseHandler
         try
         {
             log.trace("Sending {} bytes over the amqp {} sender link with address {} and link correlation id {} with link credit {}", length, getLinkInstanceType(), this.senderLinkAddress, this.linkCorrelationId, this.senderLink.getCredit());
-            int bytesSent = this.senderLink.send(msgData, 0, length);
+            int bytesSent = this.senderLink.send(this.encodeBuffer, 0, length);
 
             if (bytesSent != length)
             {
@@ -272,27 +286,50 @@ abstract class AmqpsSenderLinkHandler extends BaseHandler
             properties.setCorrelationId(message.getCorrelationId());
         }
 
-        if (message.getContentType() != null)
+        MessageTemplate messageTemplate = message.getMessageTemplate();
+        EncodedMessageTemplate encodedTemplate = null;
+        if (messageTemplate != null)
         {
-            properties.setContentType(Symbol.valueOf(message.getContentType()));
-        }
+            encodedTemplate = this.encodedTemplates.computeIfAbsent(messageTemplate, EncodedMessageTemplate::new);
 
-        if (message.getContentEncoding() != null)
+            properties.setContentType(encodedTemplate.contentType);
+            properties.setContentEncoding(encodedTemplate.contentEncoding);
+        }
+        else
         {
-            properties.setContentEncoding(Symbol.valueOf(message.getContentEncoding()));
+            if (message.getContentType() != null)
+            {
+                properties.setContentType(Symbol.valueOf(message.getContentType()));
+            }
+
+            if (message.getContentEncoding() != null)
+            {
+                properties.setContentEncoding(Symbol.valueOf(message.getContentEncoding()));
+            }
         }
 
         outgoingMessage.setProperties(properties);
 
-        Map<String, Object> userProperties = new HashMap<>();
-        if (message.getProperties().length > 0)
+        Map<String, Object> userProperties;
+        int firstPropertyIndex = 0;
+        if (encodedTemplate != null)
         {
-            for (MessageProperty messageProperty : message.getProperties())
+            // the template's properties are the first properties of the message, and are already filtered
+            userProperties = new HashMap<>(encodedTemplate.applicationProperties);
+            firstPropertyIndex = messageTemplate.getProperties().size();
+        }
+        else
+        {
+            userProperties = new HashMap<>();
+        }
+
+        List<MessageProperty> messageProperties = message.getUnmodifiableProperties();
+        for (int i = firstPropertyIndex; i < messageProperties.size(); i++)
+        {
+            MessageProperty messageProperty = messageProperties.get(i);
+            if (!MessageProperty.RESERVED_PROPERTY_NAMES.contains(messageProperty.getName()))
             {
-                if (!MessageProperty.RESERVED_PROPERTY_NAMES.contains(messageProperty.getName()))
-                {
-                    userProperties.put(messageProperty.getName(), messageProperty.getValue());
-                }
+                userProperties.put(messageProperty.getName(), messageProperty.getValue());
             }
         }
 
@@ -314,15 +351,25 @@ abstract class AmqpsSenderLinkHandler extends BaseHandler
         ApplicationProperties applicationProperties = new ApplicationProperties(userProperties);
         outgoingMessage.setApplicationProperties(applicationProperties);
 
-        Map<Symbol, Object> messageAnnotationsMap = new HashMap<>();
-        if (message.isSecurityMessage())
+        boolean hasComponentName = message.getComponentName() != null && !message.getComponentName().isEmpty();
+        Map<Symbol, Object> messageAnnotationsMap;
+        if (message.isSecurityMessage() || hasComponentName)
         {
-            messageAnnotationsMap.put(Symbol.valueOf(MessageProperty.IOTHUB_SECURITY_INTERFACE_ID), MessageProperty.IOTHUB_SECURITY_INTERFACE_ID_VALUE);
-        }
+            messageAnnotationsMap = new HashMap<>();
+            if (message.isSecurityMessage())
+            {
+                messageAnnotationsMap.put(SECURITY_INTERFACE_ID_SYMBOL, MessageProperty.IOTHUB_SECURITY_INTERFACE_ID_VALUE);
+            }
 
-        if (message.getComponentName() != null && !message.getComponentName().isEmpty())
+            if (hasComponentName)
+            {
+                messageAnnotationsMap.put(COMPONENT_ID_SYMBOL, message.getComponentName());
+            }
+        }
+        else
         {
-            messageAnnotationsMap.put(Symbol.valueOf(MessageProperty.COMPONENT_ID), message.getComponentName());
+            // an empty map encodes the same as an empty HashMap, without allocating one for each message
+            messageAnnotationsMap = Collections.emptyMap();
         }
 
         MessageAnnotations messageAnnotations = new MessageAnnotations(messageAnnotationsMap);
@@ -353,4 +400,29 @@ abstract class AmqpsSenderLinkHandler extends BaseHandler
 
         this.senderLink.free();
     }
+
+    // The values of a message template, converted once for all the messages created from it
+    private static final class EncodedMessageTemplate
+    {
+        private final Symbol contentType;
+        private final Symbol contentEncoding;
+        private final Map<String, Object> applicationProperties;
+
+        EncodedMessageTemplate(MessageTemplate messageTemplate)
+        {
+            this.contentType = messageTemplate.getContentType() != null ? Symbol.valueOf(messageTemplate.getContentType()) : null;
+            this.contentEncoding = messageTemplate.getContentEncoding() != null ? Symbol.valueOf(messageTemplate.getContentEncoding()) : null;
+
+            Map<String, Object> applicationProperties = new HashMap<>();
+            for (MessageProperty messageProperty : messageTemplate.getProperties())
+            {
+                if (!MessageProperty.RESERVED_PROPERTY_NAMES.contains(messageProperty.getName()))
+                {
+                    applicationProperties.put(messageProperty.getName(), messageProperty.getValue());
+                }
+            }
+
+            this.applicationProperties = applicationProperties;
+        }
+    }
 }
@@ -33,7 +33,7 @@ final class AmqpsTelemetryReceiverLinkHandler extends AmqpsReceiverLinkHandler
 
     AmqpsTelemetryReceiverLinkHandler(Receiver receiver, AmqpsLinkStateCallback amqpsLinkStateCallback, ClientConfiguration clientConfiguration, String linkCorrelationId)
     {
-        super(receiver, amqpsLinkStateCallback, linkCorrelationId);
+        super(receiver, amqpsLinkStateCallback, linkCorrelationId, clientConfiguration.getAmqpCloudToDeviceMessageCreditWindow());
 
         this.clientConfiguration = clientConfiguration;
 
@@ -49,7 +49,7 @@ final class AmqpsTwinReceiverLinkHandler extends AmqpsReceiverLinkHandler
 
     AmqpsTwinReceiverLinkHandler(Receiver receiver, AmqpsLinkStateCallback amqpsLinkStateCallback, ClientConfiguration clientConfiguration, String linkCorrelationId, Map<String, DeviceOperations> twinOperationCorrelationMap)
     {
-        super(receiver, amqpsLinkStateCallback, linkCorrelationId);
+        super(receiver, amqpsLinkStateCallback, linkCorrelationId, clientConfiguration.getAmqpTwinCreditWindow());
 
         this.clientConfiguration = clientConfiguration;
 
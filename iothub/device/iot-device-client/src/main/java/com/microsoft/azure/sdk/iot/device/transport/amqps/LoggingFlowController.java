@@ -5,30 +5,95 @@ package com.microsoft.azure.sdk.iot.device.transport.amqps;
 
 import lombok.extern.slf4j.Slf4j;
 import org.apache.qpid.proton.engine.BaseHandler;
+import org.apache.qpid.proton.engine.EndpointState;
 import org.apache.qpid.proton.engine.Event;
 import org.apache.qpid.proton.engine.Link;
 import org.apache.qpid.proton.engine.Receiver;
 
+import java.util.function.IntSupplier;
+
 /**
  * Copy of {@link org.apache.qpid.proton.reactor.FlowController} but with some small edits for logging purposes.
  *
  * Use this FlowController to automatically flow link credit back to the service from this client's receiver links after
  * each delivery on the receiver link.
+ *
+ * Messages that were received but not acknowledged yet count against the credit window, so the service stops sending
+ * once the application falls a full window behind. The window adapts between 1 and its maximum: it halves when a
+ * delivery fills it with unacknowledged messages, and it doubles when the service has used up all of its credit while
+ * fewer than half of the window's messages are unacknowledged.
  */
 @Slf4j
 public class LoggingFlowController extends BaseHandler
 {
-    private static final int WINDOW = 1024;
+    static final int DEFAULT_WINDOW = 1024;
+    private static final int MINIMUM_WINDOW = 1;
     private final String linkCorrelationId;
+    private final int maximumWindow;
+    private final IntSupplier unacknowledgedMessageCount;
+
+    // only read and written from the reactor thread
+    private int window;
 
     public LoggingFlowController(String linkCorrelationId)
+    {
+        this(linkCorrelationId, DEFAULT_WINDOW, () -> 0);
+    }
+
+    /**
+     * @param linkCorrelationId the correlation id of the link, for logging.
+     * @param maximumWindow the largest number of messages that may be in flight to, or unacknowledged by, this client.
+     * @param unacknowledgedMessageCount the number of messages received over the link that have not been acknowledged.
+     */
+    LoggingFlowController(String linkCorrelationId, int maximumWindow, IntSupplier unacknowledgedMessageCount)
     {
         this.linkCorrelationId = linkCorrelationId;
+        this.maximumWindow = maximumWindow;
+        this.unacknowledgedMessageCount = unacknowledgedMessageCount;
+        this.window = maximumWindow;
+    }
+
+    /**
+     * Flow credit back to the service after a received message was acknowledged. Must be called from the reactor thread.
+     *
+     * @param link the link that the message was received on.
+     */
+    void onMessageAcknowledged(Receiver link)
+    {
+        if (link.getLocalState() != EndpointState.ACTIVE)
+        {
+            return;
+        }
+
+        // the service is only waiting on this client's credit if it has used all of it
+        if (link.getCredit() == 0 && 2 * this.unacknowledgedMessageCount.getAsInt() < this.window && this.window < this.maximumWindow)
+        {
+            this.window = Math.min(this.maximumWindow, this.window * 2);
+            log.trace("Increased credit window to {} on receiver link with address {} and correlation id {}", this.window, link.getSource().getAddress(), this.linkCorrelationId);
+        }
+
+        topup(link);
+    }
+
+    int getWindow()
+    {
+        return this.window;
+    }
+
+    void onDelivery(Receiver link)
+    {
+        if (this.unacknowledgedMessageCount.getAsInt() >= this.window && this.window > MINIMUM_WINDOW)
+        {
+            this.window = Math.max(MINIMUM_WINDOW, this.window / 2);
+            log.debug("Decreased credit window to {} on receiver link with address {} and correlation id {} since the application has not acknowledged the previously received messages", this.window, link.getSource().getAddress(), this.linkCorrelationId);
+        }
+
+        topup(link);
     }
 
     private void topup(Receiver link)
     {
-        int delta = WINDOW - link.getCredit();
+        int delta = this.window - link.getCredit() - this.unacknowledgedMessageCount.getAsInt();
 
         // if delta is zero, then there is no credit to replenish, so no need to send a flow message to the service
         if (delta > 0)
@@ -48,12 +113,17 @@ public class LoggingFlowController extends BaseHandler
             case LINK_LOCAL_OPEN:
             case LINK_REMOTE_OPEN:
             case LINK_FLOW:
-            case DELIVERY:
                 if (link instanceof Receiver)
                 {
                     topup((Receiver)link);
                 }
                 break;
+            case DELIVERY:
+                if (link instanceof Receiver)
+                {
+                    onDelivery((Receiver)link);
+                }
+                break;
             default:
                 break;
         }
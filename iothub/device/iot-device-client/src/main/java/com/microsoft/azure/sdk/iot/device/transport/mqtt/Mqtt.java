@@ -21,6 +21,8 @@ import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.Queue;
 
+import static com.microsoft.azure.sdk.iot.device.ClientConfiguration.DEFAULT_MQTT_MAX_IN_FLIGHT_MESSAGES;
+
 @Slf4j
 public abstract class Mqtt implements MqttCallback
 {
@@ -29,13 +31,14 @@ public abstract class Mqtt implements MqttCallback
 
     //mqtt connection options
     private static final int QOS = 1;
+    private static final int AT_MOST_ONCE_QOS = 0;
     private static final int MAX_SUBSCRIBE_ACK_WAIT_TIME = 15 * 1000;
 
-    // relatively arbitrary, but only because Paho doesn't have any particular recommendations here. Just a high enough
-    // value that users who are building a gateway type solution don't find this value to be a bottleneck.
-    static final int MAX_IN_FLIGHT_COUNT = 65000;
+    // How long publish waits for a slot in the in flight window before checking that the connection is still open
+    private static final int IN_FLIGHT_WINDOW_WAIT_MILLISECONDS = 1000;
 
     private MqttAsyncClient mqttAsyncClient;
+    private MqttInFlightWindow inFlightWindow;
     private final MqttConnectOptions connectOptions;
     private final MqttMessageListener messageListener;
     private final Map<Integer, Message> unacknowledgedSentMessages;
@@ -98,6 +101,7 @@ public abstract class Mqtt implements MqttCallback
         this.messageListener = messageListener;
         this.connectOptions = connectOptions;
         this.unacknowledgedSentMessages = unacknowledgedSentMessages;
+        this.inFlightWindow = new MqttInFlightWindow(DEFAULT_MQTT_MAX_IN_FLIGHT_MESSAGES);
     }
 
     void updatePassword(char[] newPassword)
@@ -202,31 +206,56 @@ public abstract class Mqtt implements MqttCallback
 
             byte[] payload = message.getBytes();
 
-            // Wait until either the number of in flight messages is below the limit before publishing another message
-            // Or wait until the connection is lost so the message can be requeued for later
-            while (this.mqttAsyncClient.getPendingDeliveryTokens().length >= MAX_IN_FLIGHT_COUNT)
+            if (message.isAtMostOnceDelivery())
             {
-                //noinspection BusyWait
-                Thread.sleep(10);
+                // QoS 0 messages are never acknowledged by the service, so there is nothing to track and they don't
+                // count against the in flight window
+                MqttMessage mqttMessage = (payload.length == 0) ? new MqttMessage() : new MqttMessage(payload);
+                mqttMessage.setQos(AT_MOST_ONCE_QOS);
+
+                log.trace("Publishing message ({}) to MQTT topic {} with QoS 0", message, publishTopic);
+                this.mqttAsyncClient.publish(publishTopic, mqttMessage);
+                return;
+            }
 
+            // Wait until either a slot in the in flight window is released before publishing another message
+            // Or wait until the connection is lost so the message can be requeued for later. The transport layer only
+            // sends messages while the window has capacity, so this normally doesn't wait at all.
+            while (!this.inFlightWindow.tryAcquire(IN_FLIGHT_WINDOW_WAIT_MILLISECONDS))
+            {
                 if (!this.mqttAsyncClient.isConnected())
                 {
-                    TransportException transportException = new TransportException("Cannot publish when mqtt client is holding " + MAX_IN_FLIGHT_COUNT + " tokens and is disconnected");
+                    TransportException transportException = new TransportException("Cannot publish when mqtt client is holding " + this.inFlightWindow.getCapacity() + " tokens and is disconnected");
                     transportException.setRetryable(true);
                     throw transportException;
                 }
             }
 
-            MqttMessage mqttMessage = (payload.length == 0) ? new MqttMessage() : new MqttMessage(payload);
+            boolean isPublished = false;
+            try
+            {
+                MqttMessage mqttMessage = (payload.length == 0) ? new MqttMessage() : new MqttMessage(payload);
 
-            mqttMessage.setQos(QOS);
+                mqttMessage.setQos(QOS);
 
-            synchronized (this.unacknowledgedSentMessagesLock)
+                synchronized (this.unacknowledgedSentMessagesLock)
+                {
+                    log.trace("Publishing message ({}) to MQTT topic {}", message, publishTopic);
+                    IMqttDeliveryToken publishToken = this.mqttAsyncClient.publish(publishTopic, mqttMessage);
+                    unacknowledgedSentMessages.put(publishToken.getMessageId(), message);
+                    this.inFlightWindow.track(publishToken.getMessageId());
+                    log.trace("Message published to MQTT topic {}. Mqtt message id {} added to list of messages to wait for acknowledgement ({})", publishTopic, publishToken.getMessageId(), message);
+                }
+
+                isPublished = true;
+            }
+            finally
             {
-                log.trace("Publishing message ({}) to MQTT topic {}", message, publishTopic);
-                IMqttDeliveryToken publishToken = this.mqttAsyncClient.publish(publishTopic, mqttMessage);
-                unacknowledgedSentMessages.put(publishToken.getMessageId(), message);
-                log.trace("Message published to MQTT topic {}. Mqtt message id {} added to list of messages to wait for acknowledgement ({})", publishTopic, publishToken.getMessageId(), message);
+                if (!isPublished)
+                {
+                    // this message will never be acknowledged, so it must not hold its slot
+                    onInFlightSlotReleased(this.inFlightWindow.release());
+                }
             }
         }
         catch (MqttException e)
@@ -371,6 +400,14 @@ public abstract class Mqtt implements MqttCallback
     @Override
     public void deliveryComplete(IMqttDeliveryToken iMqttDeliveryToken)
     {
+        if (iMqttDeliveryToken.getMessageId() == 0)
+        {
+            // Only QoS 0 publishes have no message id. Paho calls this once they are written to the socket, but they
+            // were already reported as sent when they were handed to Paho.
+            log.trace("Mqtt message published with QoS 0 was written to the socket");
+            return;
+        }
+
         Message deliveredMessage = null;
         log.trace("Mqtt message with message id {} was acknowledged by service", iMqttDeliveryToken.getMessageId());
         synchronized (this.unacknowledgedSentMessagesLock)
@@ -386,6 +423,10 @@ public abstract class Mqtt implements MqttCallback
             }
         }
 
+        // The window ignores acknowledgements for message ids that it isn't tracking, such as those published on a
+        // connection that was lost before the window was reset for the new connection
+        onInFlightSlotReleased(this.inFlightWindow.release(iMqttDeliveryToken.getMessageId()));
+
         if (deliveredMessage instanceof IotHubTransportMessage)
         {
             DeviceOperations deviceOperation = ((IotHubTransportMessage) deliveredMessage).getDeviceOperationType();
@@ -408,6 +449,23 @@ public abstract class Mqtt implements MqttCallback
         }
     }
 
+    private void onInFlightSlotReleased(boolean windowWasFull)
+    {
+        if (windowWasFull && this.listener != null)
+        {
+            // The transport layer stops sending messages while the window is full, so let it know it can resume
+            this.listener.onSendCapacityAvailable();
+        }
+    }
+
+    /**
+     * @return true if another message can be published without waiting for an earlier one to be acknowledged.
+     */
+    boolean hasSendCapacity()
+    {
+        return this.inFlightWindow.hasCapacity();
+    }
+
     /**
      * Send ack for the provided message.
      * @param messageId The message id to send the ack for
@@ -531,6 +589,12 @@ public abstract class Mqtt implements MqttCallback
         this.connectionId = connectionId;
     }
 
+    void setInFlightWindow(MqttInFlightWindow inFlightWindow)
+    {
+        // shared between the messaging, twin and method subclients since they all publish over the same mqttAsyncClient
+        this.inFlightWindow = inFlightWindow;
+    }
+
     void setMqttAsyncClient(MqttAsyncClient mqttAsyncClient)
     {
         // should never be set to null
@@ -0,0 +1,148 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device.transport.mqtt;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Tracks how many published messages are waiting for their PUBACK so that the number of in flight messages can be
+ * bounded without asking Paho for a copy of all of its pending delivery tokens before every publish.
+ *
+ * <p>
+ * A slot is acquired before each publish, is tracked by the MQTT message id of the publish once it was handed to Paho,
+ * and is released when that message id is acknowledged. Acknowledgements for message ids that this window is not
+ * tracking, such as those from a connection that was already reset, are ignored. All operations are constant time. This window is shared by the messaging, twin and method clients since they all publish over the same Paho
+ * client, whose own in flight limit is set to the same capacity.
+ * </p>
+ */
+final class MqttInFlightWindow
+{
+    private final int capacity;
+
+    // Slots acquired for publishes that were not yet handed to Paho. Guarded by this.
+    private int reservedCount;
+
+    // MQTT message ids of the publishes that are waiting for their PUBACK. Guarded by this.
+    private final Set<Integer> inFlightMessageIds = new HashSet<>();
+
+    /**
+     * @param capacity the maximum number of messages that may be in flight at once. Validated by
+     * {@link com.microsoft.azure.sdk.iot.device.ClientConfiguration} to be greater than 0.
+     */
+    MqttInFlightWindow(int capacity)
+    {
+        this.capacity = capacity;
+    }
+
+    int getCapacity()
+    {
+        return this.capacity;
+    }
+
+    /**
+     * @return true if a slot can currently be acquired without waiting.
+     */
+    synchronized boolean hasCapacity()
+    {
+        return this.inFlightCount() < this.capacity;
+    }
+
+    private int inFlightCount()
+    {
+        return this.reservedCount + this.inFlightMessageIds.size();
+    }
+
+    /**
+     * Acquire a slot, waiting up to the provided time for one to be released if the window is full.
+     *
+     * @param timeoutMilliseconds the maximum time to wait.
+     * @return true if a slot was acquired, false if the window was still full once the timeout elapsed.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    synchronized boolean tryAcquire(long timeoutMilliseconds) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + timeoutMilliseconds;
+        while (this.inFlightCount() >= this.capacity)
+        {
+            long remainingMilliseconds = deadline - System.currentTimeMillis();
+            if (remainingMilliseconds <= 0)
+            {
+                return false;
+            }
+
+            this.wait(remainingMilliseconds);
+        }
+
+        this.reservedCount++;
+        return true;
+    }
+
+    /**
+     * Track an acquired slot by the MQTT message id of its publish, which was handed to Paho.
+     *
+     * @param messageId the MQTT message id that the PUBACK of the publish will carry.
+     */
+    synchronized void track(int messageId)
+    {
+        if (this.reservedCount > 0)
+        {
+            // No reservation is left if the window was reset while publishing, but the message id is tracked anyway
+            // since the publish may have been sent on the new connection
+            this.reservedCount--;
+        }
+
+        this.inFlightMessageIds.add(messageId);
+    }
+
+    /**
+     * Release an acquired slot whose publish failed, so it will never be acknowledged.
+     *
+     * @return true if the window was full before this release, meaning that a sender may be waiting for this capacity.
+     */
+    synchronized boolean release()
+    {
+        if (this.reservedCount == 0)
+        {
+            // The window was reset while publishing
+            return false;
+        }
+
+        boolean wasFull = this.inFlightCount() >= this.capacity;
+        this.reservedCount--;
+        this.notifyAll();
+        return wasFull;
+    }
+
+    /**
+     * Release the slot of an acknowledged publish.
+     *
+     * @param messageId the MQTT message id of the acknowledgement.
+     * @return true if the window was full before this release, meaning that a sender may be waiting for this capacity.
+     * False if this window was not tracking the message id, in which case nothing was released.
+     */
+    synchronized boolean release(int messageId)
+    {
+        boolean wasFull = this.inFlightCount() >= this.capacity;
+        if (!this.inFlightMessageIds.remove(messageId))
+        {
+            // Acknowledgements that straggle in from a connection that was already reset
+            return false;
+        }
+
+        this.notifyAll();
+        return wasFull;
+    }
+
+    /**
+     * Release every slot. Used when a new connection is opened, since messages in flight on the previous connection
+     * will never be acknowledged.
+     */
+    synchronized void reset()
+    {
+        this.reservedCount = 0;
+        this.inFlightMessageIds.clear();
+        this.notifyAll();
+    }
+}
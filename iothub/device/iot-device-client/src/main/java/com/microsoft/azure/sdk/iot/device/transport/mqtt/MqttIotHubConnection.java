@@ -12,6 +12,7 @@ import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
 import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
 import org.eclipse.paho.client.mqttv3.MqttException;
 import org.eclipse.paho.client.mqttv3.MqttMessage;
+import org.eclipse.paho.client.mqttv3.ScheduledExecutorPingSender;
 import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
 
 import javax.net.ssl.SSLContext;
@@ -26,10 +27,11 @@ import java.util.Queue;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 import static com.microsoft.azure.sdk.iot.device.MessageType.DEVICE_METHODS;
 import static com.microsoft.azure.sdk.iot.device.MessageType.DEVICE_TWIN;
-import static com.microsoft.azure.sdk.iot.device.transport.mqtt.Mqtt.MAX_IN_FLIGHT_COUNT;
 import static org.eclipse.paho.client.mqttv3.MqttConnectOptions.MQTT_VERSION_3_1_1;
 
 @Slf4j
@@ -49,6 +51,19 @@ public class MqttIotHubConnection implements IotHubTransportConnection, MqttMess
 
     private static final String MODEL_ID = "model-id";
 
+    private static final String KEEP_ALIVE_THREAD_NAME = "azure-iot-sdk-MqttKeepAliveTask";
+    private static final int KEEP_ALIVE_THREAD_COUNT = 2;
+
+    // Shared by all connections in place of the timer thread that Paho would otherwise start for each connection's
+    // keep alive pings. A ping only queues a PINGREQ for the connection's own sender thread, so a couple of threads can
+    // keep any number of connections alive. The threads are daemons so that they never keep the process alive.
+    private static final ScheduledExecutorService KEEP_ALIVE_SCHEDULER = Executors.newScheduledThreadPool(KEEP_ALIVE_THREAD_COUNT, runnable ->
+    {
+        Thread thread = new Thread(runnable, KEEP_ALIVE_THREAD_NAME);
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private String connectionId;
     private String webSocketQueryString;
     private final Object mqttConnectionStateLock = new Object(); // lock for preventing simultaneous open and close calls
@@ -65,6 +80,9 @@ public class MqttIotHubConnection implements IotHubTransportConnection, MqttMess
 
     private final Map<IotHubTransportMessage, Integer> receivedMessagesToAcknowledge = new ConcurrentHashMap<>();
 
+    // bounds the number of messages published by the messaging, twin and method clients that are awaiting a PUBACK
+    private final MqttInFlightWindow inFlightWindow;
+
     /**
      * Constructs an instance from the given {@link ClientConfiguration}
      * object.
@@ -184,7 +202,8 @@ public class MqttIotHubConnection implements IotHubTransportConnection, MqttMess
         connectOptions.setCleanSession(SET_CLEAN_SESSION);
         connectOptions.setMqttVersion(MQTT_VERSION);
         connectOptions.setUserName(iotHubUserName);
-        connectOptions.setMaxInflight(MAX_IN_FLIGHT_COUNT);
+        this.inFlightWindow = new MqttInFlightWindow(this.config.getMqttMaxInFlightMessages());
+        connectOptions.setMaxInflight(this.config.getMqttMaxInFlightMessages());
         ProxySettings proxySettings = config.getProxySettings();
         if (proxySettings != null)
         {
@@ -237,6 +256,10 @@ public class MqttIotHubConnection implements IotHubTransportConnection, MqttMess
             connectOptions,
             unacknowledgedSentMessages,
             receivedMessages);
+
+        this.deviceMessaging.setInFlightWindow(this.inFlightWindow);
+        this.directMethod.setInFlightWindow(this.inFlightWindow);
+        this.deviceTwin.setInFlightWindow(this.inFlightWindow);
     }
 
     /**
@@ -283,6 +306,9 @@ public class MqttIotHubConnection implements IotHubTransportConnection, MqttMess
             this.deviceTwin.setMqttAsyncClient(mqttAsyncClient);
             this.directMethod.setMqttAsyncClient(mqttAsyncClient);
 
+            // nothing published on the previous connection will be acknowledged on this one
+            this.inFlightWindow.reset();
+
             this.deviceMessaging.start();
             this.state = IotHubConnectionStatus.CONNECTED;
 
@@ -376,6 +402,12 @@ public class MqttIotHubConnection implements IotHubTransportConnection, MqttMess
         return result;
     }
 
+    @Override
+    public boolean hasSendCapacity()
+    {
+        return this.deviceMessaging.hasSendCapacity();
+    }
+
     /**
      * Sends an ACK to the service for the provided message
      * @param message the message to acknowledge to the service
@@ -511,7 +543,9 @@ public class MqttIotHubConnection implements IotHubTransportConnection, MqttMess
         MqttAsyncClient mqttAsyncClient;
         try
         {
-            mqttAsyncClient = new MqttAsyncClient(serverUri, clientId, new MemoryPersistence());
+            // No executor service is given for Paho's own sender, receiver and callback threads since they block for the
+            // lifetime of the connection, and so can't share a fixed size pool without starving each other.
+            mqttAsyncClient = new MqttAsyncClient(serverUri, clientId, new MemoryPersistence(), new ScheduledExecutorPingSender(KEEP_ALIVE_SCHEDULER), null);
         }
         catch (MqttException e)
         {
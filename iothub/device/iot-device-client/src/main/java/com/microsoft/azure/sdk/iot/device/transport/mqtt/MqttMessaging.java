@@ -5,6 +5,7 @@ package com.microsoft.azure.sdk.iot.device.transport.mqtt;
 
 import com.microsoft.azure.sdk.iot.device.Message;
 import com.microsoft.azure.sdk.iot.device.MessageProperty;
+import com.microsoft.azure.sdk.iot.device.MessageTemplate;
 import com.microsoft.azure.sdk.iot.device.transport.TransportException;
 import org.apache.commons.lang3.tuple.Pair;
 import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
@@ -13,8 +14,11 @@ import org.eclipse.paho.client.mqttv3.MqttMessage;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.WeakHashMap;
 
 class MqttMessaging extends Mqtt
 {
@@ -24,6 +28,10 @@ class MqttMessaging extends Mqtt
     private final String publishTopic;
     private final boolean isEdgeHub;
 
+    // The encoded application properties of each message template that this connection has sent messages from. Held
+    // weakly so that templates that the user no longer holds don't stay cached.
+    private final Map<MessageTemplate, String> encodedTemplates = Collections.synchronizedMap(new WeakHashMap<>());
+
     public MqttMessaging(
         String deviceId,
         MqttMessageListener messageListener,
@@ -101,21 +109,52 @@ class MqttMessaging extends Mqtt
         separatorNeeded = appendPropertyIfPresent(stringBuilder, separatorNeeded, OUTPUT_NAME, message.getOutputName(), false);
         separatorNeeded = appendPropertyIfPresent(stringBuilder, separatorNeeded, CONNECTION_DEVICE_ID, message.getConnectionDeviceId(), false);
         separatorNeeded = appendPropertyIfPresent(stringBuilder, separatorNeeded, CONNECTION_MODULE_ID, message.getConnectionModuleId(), false);
-        separatorNeeded = appendPropertyIfPresent(stringBuilder, separatorNeeded, CONTENT_ENCODING, message.getContentEncoding(), false);
-        separatorNeeded = appendPropertyIfPresent(stringBuilder, separatorNeeded, CONTENT_TYPE, message.getContentType(), false);
+
+        MessageTemplate messageTemplate = message.getMessageTemplate();
+        if (messageTemplate == null)
+        {
+            separatorNeeded = appendPropertyIfPresent(stringBuilder, separatorNeeded, CONTENT_ENCODING, message.getContentEncoding(), false);
+            separatorNeeded = appendPropertyIfPresent(stringBuilder, separatorNeeded, CONTENT_TYPE, message.getContentType(), false);
+        }
+
         separatorNeeded = appendPropertyIfPresent(stringBuilder, separatorNeeded, CREATION_TIME_UTC, message.getCreationTimeUTCString(), false);
         if (message.isSecurityMessage())
         {
             separatorNeeded = appendPropertyIfPresent(stringBuilder, separatorNeeded, MQTT_SECURITY_INTERFACE_ID, MessageProperty.IOTHUB_SECURITY_INTERFACE_ID_VALUE, false);
         }
 
-        if (message.getComponentName() != null && !message.getComponentName().isEmpty())
+        int firstPropertyIndex = 0;
+        if (messageTemplate == null)
         {
-            separatorNeeded = appendPropertyIfPresent(stringBuilder, separatorNeeded, COMPONENT_ID, message.getComponentName(), false);
+            if (message.getComponentName() != null && !message.getComponentName().isEmpty())
+            {
+                separatorNeeded = appendPropertyIfPresent(stringBuilder, separatorNeeded, COMPONENT_ID, message.getComponentName(), false);
+            }
         }
+        else
+        {
+            String encodedTemplate = this.encodedTemplates.get(messageTemplate);
+            if (encodedTemplate == null)
+            {
+                encodedTemplate = encodeTemplate(messageTemplate);
+                this.encodedTemplates.put(messageTemplate, encodedTemplate);
+            }
 
-        for (MessageProperty property : message.getProperties())
+            if (!encodedTemplate.isEmpty())
+            {
+                // the encoded template starts with a separator
+                stringBuilder.append(encodedTemplate, separatorNeeded ? 0 : 1, encodedTemplate.length());
+                separatorNeeded = true;
+            }
+
+            // the template's properties are the first properties of the message, and are already encoded
+            firstPropertyIndex = messageTemplate.getProperties().size();
+        }
+
+        List<MessageProperty> properties = message.getUnmodifiableProperties();
+        for (int i = firstPropertyIndex; i < properties.size(); i++)
         {
+            MessageProperty property = properties.get(i);
             separatorNeeded = appendPropertyIfPresent(stringBuilder, separatorNeeded, property.getName(), property.getValue(), true);
         }
 
@@ -129,6 +168,28 @@ class MqttMessaging extends Mqtt
         this.publish(messagePublishTopic, message);
     }
 
+    /**
+     * Encodes the values of the provided template the way that {@link #send(Message)} encodes them, starting with a
+     * separator if the template has any values.
+     */
+    private String encodeTemplate(MessageTemplate messageTemplate) throws TransportException
+    {
+        StringBuilder stringBuilder = new StringBuilder();
+        boolean separatorNeeded = appendPropertyIfPresent(stringBuilder, true, CONTENT_ENCODING, messageTemplate.getContentEncoding(), false);
+        separatorNeeded = appendPropertyIfPresent(stringBuilder, separatorNeeded, CONTENT_TYPE, messageTemplate.getContentType(), false);
+        if (messageTemplate.getComponentName() != null && !messageTemplate.getComponentName().isEmpty())
+        {
+            separatorNeeded = appendPropertyIfPresent(stringBuilder, separatorNeeded, COMPONENT_ID, messageTemplate.getComponentName(), false);
+        }
+
+        for (MessageProperty property : messageTemplate.getProperties())
+        {
+            separatorNeeded = appendPropertyIfPresent(stringBuilder, separatorNeeded, property.getName(), property.getValue(), true);
+        }
+
+        return stringBuilder.toString();
+    }
+
     /**
      * Appends the property to the provided stringbuilder if the property value is not null.
      * @param stringBuilder the builder to build upon
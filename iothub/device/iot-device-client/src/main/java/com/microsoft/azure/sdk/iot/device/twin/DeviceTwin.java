@@ -11,6 +11,7 @@ import lombok.extern.slf4j.Slf4j;
 import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.microsoft.azure.sdk.iot.device.IotHubMessageResult.ABANDON;
 import static com.microsoft.azure.sdk.iot.device.IotHubMessageResult.COMPLETE;
@@ -23,6 +24,13 @@ public class DeviceTwin implements MessageCallback
     private DesiredPropertiesCallback desiredPropertiesCallback;
     private Object desiredPropertiesUpdateCallbackContext; // may be null
 
+    // null unless the user opted into coalescing reported properties updates
+    private final ReportedPropertiesCoalescer reportedPropertiesCoalescer;
+
+    // null unless the user opted into caching the twin locally
+    private final TwinCache twinCache;
+    private final AtomicBoolean isTwinCacheRefreshInProgress = new AtomicBoolean(false);
+
     public DeviceTwin(InternalClient client)
     {
         if (client == null)
@@ -32,6 +40,14 @@ public class DeviceTwin implements MessageCallback
 
         this.client = client;
         this.client.getConfig().setDeviceTwinMessageCallback(this, null);
+
+        long coalescingWindow = this.client.getConfig().getReportedPropertiesCoalescingWindow();
+        this.reportedPropertiesCoalescer = coalescingWindow > 0
+            ? new ReportedPropertiesCoalescer(coalescingWindow, (patch, callback) -> sendReportedPropertiesUpdate(patch, callback, null))
+            : null;
+
+        long twinCacheMaxAge = this.client.getConfig().getTwinCacheMaxAge();
+        this.twinCache = twinCacheMaxAge > 0 ? new TwinCache(twinCacheMaxAge) : null;
     }
 
     @Override
@@ -48,6 +64,13 @@ public class DeviceTwin implements MessageCallback
         if (dtMessage.getDeviceOperationType() == DeviceOperations.DEVICE_OPERATION_TWIN_SUBSCRIBE_DESIRED_PROPERTIES_RESPONSE)
         {
             Twin twin = Twin.createFromDesiredPropertyJson(new String(dtMessage.getBytes(), Message.DEFAULT_IOTHUB_MESSAGE_CHARSET));
+
+            if (this.twinCache != null
+                && this.twinCache.applyDesiredPropertiesPatch(twin.getDesiredProperties()) == TwinCache.PatchResult.GAP_DETECTED)
+            {
+                refreshTwinCache();
+            }
+
             this.desiredPropertiesCallback.onDesiredPropertiesUpdated(twin, desiredPropertiesUpdateCallbackContext);
         }
 
@@ -65,6 +88,22 @@ public class DeviceTwin implements MessageCallback
 
         Objects.requireNonNull(twinCallback, "Must provide a non-null callback for receiving the twin");
 
+        if (this.twinCache != null)
+        {
+            Twin cachedTwin = this.twinCache.getTwinIfFresh();
+            if (cachedTwin != null)
+            {
+                log.trace("Serving getTwin request from the local twin cache");
+                twinCallback.onResponseReceived(cachedTwin, null, callbackContext, IotHubStatusCode.OK, null);
+                return;
+            }
+        }
+
+        sendGetTwinRequest(twinCallback, callbackContext);
+    }
+
+    private void sendGetTwinRequest(GetTwinCorrelatingMessageCallback twinCallback, Object callbackContext)
+    {
         IotHubTransportMessage getTwinRequestMessage = new IotHubTransportMessage(new byte[0], MessageType.DEVICE_TWIN);
         getTwinRequestMessage.setRequestId(UUID.randomUUID().toString());
         getTwinRequestMessage.setCorrelationId(getTwinRequestMessage.getRequestId());
@@ -94,7 +133,16 @@ public class DeviceTwin implements MessageCallback
             {
                 int status = Integer.parseInt(((IotHubTransportMessage) message).getStatus());
                 Twin twin = Twin.createFromPropertiesJson(new String(message.getBytes(), Message.DEFAULT_IOTHUB_MESSAGE_CHARSET));
-                twinCallback.onResponseReceived(twin, message, callbackContext, IotHubStatusCode.getIotHubStatusCode(status), e);
+                IotHubStatusCode statusCode = IotHubStatusCode.getIotHubStatusCode(status);
+                if (twinCache != null && e == null && IotHubStatusCode.isSuccessful(statusCode))
+                {
+                    twinCache.update(twin);
+
+                    // any successful getTwin response satisfies a pending refresh, even if it was requested by the user
+                    isTwinCacheRefreshInProgress.set(false);
+                }
+
+                twinCallback.onResponseReceived(twin, message, callbackContext, statusCode, e);
             }
 
             @Override
@@ -125,6 +173,97 @@ public class DeviceTwin implements MessageCallback
 
         Objects.requireNonNull(reportedProperties, "Reported properties cannot be null");
 
+        if (this.reportedPropertiesCoalescer != null)
+        {
+            if (reportedProperties.getVersion() == null)
+            {
+                this.reportedPropertiesCoalescer.add(reportedProperties, reportedPropertiesUpdateCorrelatingMessageCallback, callbackContext);
+                return;
+            }
+
+            // Versioned patches can't be merged with others, but anything already pending must still go out first,
+            // including a merged patch that the coalescer's scheduler is sending right now
+            this.reportedPropertiesCoalescer.flushAndSend(
+                () -> sendReportedPropertiesUpdate(reportedProperties, reportedPropertiesUpdateCorrelatingMessageCallback, callbackContext));
+            return;
+        }
+
+        sendReportedPropertiesUpdate(reportedProperties, reportedPropertiesUpdateCorrelatingMessageCallback, callbackContext);
+    }
+
+    /**
+     * Send any reported properties updates that are waiting to be coalesced and stop coalescing further updates. Only
+     * has an effect if the client was configured with a reported properties coalescing window.
+     */
+    public void close()
+    {
+        if (this.reportedPropertiesCoalescer != null)
+        {
+            this.reportedPropertiesCoalescer.close();
+        }
+    }
+
+    private void refreshTwinCache()
+    {
+        if (!this.isTwinCacheRefreshInProgress.compareAndSet(false, true))
+        {
+            // the refresh that is already in flight will pick up this patch as well
+            return;
+        }
+
+        log.debug("Refreshing the local twin cache after a desired properties version gap was detected");
+        try
+        {
+            sendGetTwinRequest(new GetTwinCorrelatingMessageCallback()
+            {
+                @Override
+                public void onRequestQueued(Message message, Object callbackContext)
+                {
+                    // no action needed, only the outcome of the refresh matters
+                }
+
+                @Override
+                public void onRequestSent(Message message, Object callbackContext)
+                {
+                    // no action needed, only the outcome of the refresh matters
+                }
+
+                @Override
+                public void onRequestAcknowledged(Message message, Object callbackContext, IotHubClientException e)
+                {
+                    if (e != null)
+                    {
+                        log.debug("Failed to send the twin cache refresh request, the next getTwin call will be sent to the service", e);
+                        isTwinCacheRefreshInProgress.set(false);
+                    }
+                }
+
+                @Override
+                public void onResponseReceived(Twin twin, Message message, Object callbackContext, IotHubStatusCode statusCode, IotHubClientException e)
+                {
+                    // the cache itself was already updated by sendGetTwinRequest if this response was successful
+                    isTwinCacheRefreshInProgress.set(false);
+                }
+
+                @Override
+                public void onResponseAcknowledged(Message message, Object callbackContext)
+                {
+                    // no action needed, only the outcome of the refresh matters
+                }
+            }, null);
+        }
+        catch (IllegalStateException e)
+        {
+            log.debug("Could not refresh the local twin cache, the next getTwin call will be sent to the service", e);
+            this.isTwinCacheRefreshInProgress.set(false);
+        }
+    }
+
+    private void sendReportedPropertiesUpdate(
+        TwinCollection reportedProperties,
+        ReportedPropertiesUpdateCorrelatingMessageCallback reportedPropertiesUpdateCorrelatingMessageCallback,
+        Object callbackContext)
+    {
         String serializedReportedProperties = reportedProperties.toJsonElement().toString();
 
         IotHubTransportMessage updateReportedPropertiesRequest = new IotHubTransportMessage(serializedReportedProperties.getBytes(StandardCharsets.UTF_8), MessageType.DEVICE_TWIN);
@@ -188,6 +327,18 @@ public class DeviceTwin implements MessageCallback
                     iotHubStatus = IotHubStatusCode.getIotHubStatusCode(Integer.parseInt(status));
                 }
 
+                if (twinCache != null)
+                {
+                    if (e == null && IotHubStatusCode.isSuccessful(iotHubStatus))
+                    {
+                        twinCache.applyReportedPropertiesPatch(reportedProperties, dtMessage.getVersion());
+                    }
+                    else
+                    {
+                        twinCache.invalidate();
+                    }
+                }
+
                 if (reportedPropertiesUpdateCorrelatingMessageCallback != null)
                 {
                     log.trace("Executing twin status callback for device operation twin update reported properties response with status " + iotHubStatus);
@@ -3,15 +3,11 @@
 
 package com.microsoft.azure.sdk.iot.device.twin;
 
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonElement;
 import com.microsoft.azure.sdk.iot.device.*;
 import com.microsoft.azure.sdk.iot.device.exceptions.IotHubClientException;
 import com.microsoft.azure.sdk.iot.device.transport.IotHubTransportMessage;
 import lombok.extern.slf4j.Slf4j;
 
-import java.nio.charset.StandardCharsets;
-
 @Slf4j
 public final class DirectMethod
 {
@@ -26,10 +22,11 @@ public final class DirectMethod
     private final InternalClient client;
     private final ClientConfiguration config;
 
+    // null if method handlers should be executed inline on the thread that received the method invocation
+    private final DirectMethodDispatcher dispatcher;
+
     private final class DirectMethodResponseCallback implements MessageCallback
     {
-        final ClientConfiguration nestedConfig = config;
-
         /*
         **Codes_SRS_DEVICEMETHOD_25_007: [**On receiving a message from IOTHub with for method invoke, the callback DeviceMethodResponseMessageCallback is triggered.**]**
          */
@@ -61,6 +58,14 @@ public final class DirectMethod
                         {
                             isSubscribed = true;
                         }
+                        if (dispatcher != null)
+                        {
+                            // The method response is sent from the dispatcher thread once the handler completes,
+                            // so this receive thread is free to deliver other messages in the meantime
+                            dispatchMethodInvocation(methodMessage, methodCallback, deviceMethodCallbackContext);
+                            return IotHubMessageResult.COMPLETE;
+                        }
+
                         try
                         {
                             /*
@@ -68,9 +73,7 @@ public final class DirectMethod
                              */
                             log.trace("Executing method invocation callback for method name {} for message {}", methodMessage.getMethodName(), methodMessage);
 
-                            MethodParser methodParser = new MethodParser();
-                            JsonElement jsonElement = methodParser.getPayloadFromJson(new String(methodMessage.getBytes(), StandardCharsets.UTF_8));
-                            DirectMethodResponse responseData = methodCallback.onMethodInvoked(methodMessage.getMethodName(), new DirectMethodPayload(jsonElement), deviceMethodCallbackContext);
+                            DirectMethodResponse responseData = methodCallback.onMethodInvoked(methodMessage.getMethodName(), new DirectMethodPayload(methodMessage.getBytes()), deviceMethodCallbackContext);
                             log.trace("Method invocation callback returned for method name {} for message {}", methodMessage.getMethodName(), methodMessage);
 
                             /*
@@ -82,15 +85,7 @@ public final class DirectMethod
                                  **Codes_SRS_DEVICEMETHOD_25_011: [**If the user callback is successful and user has successfully provided the response message and status, then this method shall build a device method message of type DEVICE_OPERATION_METHOD_SEND_RESPONSE, serilize the user data by invoking MethodParser from serializer and save the user data as payload in the message before sending it to IotHub via sendeventAsync before marking the result as complete**]**
                                  **Codes_SRS_DEVICEMETHOD_25_015: [**User can provide null response message upon invoking the device method callback which will be serialized as is, before sending it to IotHub.**]**
                                  */
-                                JsonElement payload = new GsonBuilder().create().toJsonTree(responseData.getPayload());
-                                MethodParser methodParserObject = new MethodParser(payload);
-                                IotHubTransportMessage responseMessage = new IotHubTransportMessage(methodParserObject.toJson().getBytes(StandardCharsets.UTF_8), MessageType.DEVICE_METHODS);
-                                responseMessage.setRequestId(methodMessage.getRequestId());
-                                responseMessage.setConnectionDeviceId(this.nestedConfig.getDeviceId());
-                                responseMessage.setStatus(String.valueOf(responseData.getStatus()));
-                                responseMessage.setDeviceOperationType(DeviceOperations.DEVICE_OPERATION_METHOD_SEND_RESPONSE);
-
-                                client.sendEventAsync(responseMessage, new DirectMethodRequestMessageCallback(), null);
+                                sendMethodResponse(methodMessage, responseData);
                                 result = IotHubMessageResult.COMPLETE;
                             }
                             else
@@ -124,6 +119,65 @@ public final class DirectMethod
         }
     }
 
+    private void dispatchMethodInvocation(IotHubTransportMessage methodMessage, MethodCallback methodCallback, Object methodCallbackContext)
+    {
+        String methodName = methodMessage.getMethodName();
+        this.dispatcher.dispatch(
+            methodName,
+            () ->
+            {
+                DirectMethodResponse responseData;
+                try
+                {
+                    log.trace("Executing method invocation callback for method name {} for message {}", methodName, methodMessage);
+                    responseData = methodCallback.onMethodInvoked(methodName, new DirectMethodPayload(methodMessage.getBytes()), methodCallbackContext);
+                    log.trace("Method invocation callback returned for method name {} for message {}", methodName, methodMessage);
+                }
+                catch (Exception e)
+                {
+                    log.info("User callback did not succeed");
+                    return () -> notifyMethodError(methodMessage, IotHubStatusCode.ERROR);
+                }
+
+                if (responseData == null)
+                {
+                    log.info("User callback did not send any data for response");
+                    return () -> notifyMethodError(methodMessage, IotHubStatusCode.ERROR);
+                }
+
+                return () ->
+                {
+                    try
+                    {
+                        sendMethodResponse(methodMessage, responseData);
+                    }
+                    catch (Exception e)
+                    {
+                        log.info("Failed to send direct method response for method name {}", methodName, e);
+                        notifyMethodError(methodMessage, IotHubStatusCode.ERROR);
+                    }
+                };
+            },
+            () -> notifyMethodError(methodMessage, IotHubStatusCode.DEVICE_OPERATION_TIMED_OUT));
+    }
+
+    private void sendMethodResponse(IotHubTransportMessage methodMessage, DirectMethodResponse responseData)
+    {
+        byte[] payload = DirectMethodPayloadCodec.encodeResponsePayload(responseData.getPayload());
+        IotHubTransportMessage responseMessage = new IotHubTransportMessage(payload, MessageType.DEVICE_METHODS);
+        responseMessage.setRequestId(methodMessage.getRequestId());
+        responseMessage.setConnectionDeviceId(this.config.getDeviceId());
+        responseMessage.setStatus(String.valueOf(responseData.getStatus()));
+        responseMessage.setDeviceOperationType(DeviceOperations.DEVICE_OPERATION_METHOD_SEND_RESPONSE);
+
+        this.client.sendEventAsync(responseMessage, new DirectMethodRequestMessageCallback(), null);
+    }
+
+    private void notifyMethodError(Message methodMessage, IotHubStatusCode statusCode)
+    {
+        this.deviceMethodStatusCallback.onMessageSent(methodMessage, IotHubStatusCode.toException(statusCode), this.deviceMethodStatusCallbackContext);
+    }
+
     private final class DirectMethodRequestMessageCallback implements MessageSentCallback
     {
         @Override
@@ -164,9 +218,30 @@ public final class DirectMethod
             }
         };
         this.deviceMethodStatusCallbackContext = deviceMethodStatusCallbackContext;
+
+        this.dispatcher = this.config.getDirectMethodDispatchThreadCount() > 0
+            ? new DirectMethodDispatcher(
+                this.config.getDirectMethodDispatchThreadCount(),
+                this.config.getDirectMethodConcurrencyLimit(),
+                this.config.getDirectMethodConcurrencyLimits(),
+                this.config.getDirectMethodTimeout())
+            : null;
+
         this.config.setDirectMethodsMessageCallback(new DirectMethodResponseCallback(), null);
     }
 
+    /**
+     * Stop dispatching direct method invocations to the dispatch threads, if the client was configured to use them.
+     * Invocations that are already executing are allowed to finish and send their responses.
+     */
+    public void close()
+    {
+        if (this.dispatcher != null)
+        {
+            this.dispatcher.close();
+        }
+    }
+
     /**
      * A method which subscribes to receive device method invocation for the user with the IotHub.
      * @param methodCallback Callback where upon receiving the request the
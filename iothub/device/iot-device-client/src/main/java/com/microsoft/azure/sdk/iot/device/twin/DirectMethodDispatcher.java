@@ -0,0 +1,297 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device.twin;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Executes direct method invocations on a dedicated thread pool instead of the thread that received them, so that a
+ * slow method handler does not hold up other direct methods or any other callbacks of the client.
+ *
+ * <p>
+ * Invocations of the same method name are limited to a configurable number of concurrent executions. Once a method
+ * name is at its limit, further invocations of it are queued and executed in the order they were received, so a
+ * limit of 1 preserves the order of both the invocations and their responses for that method.
+ * </p>
+ * <p>
+ * If a timeout is configured, an invocation that has not completed within that time of being received is cancelled:
+ * its thread is interrupted, its result is discarded, and its concurrency slot is released for the next invocation.
+ * </p>
+ */
+@Slf4j
+final class DirectMethodDispatcher
+{
+    private static final String DISPATCH_THREAD_NAME = "azure-iot-sdk-DirectMethodDispatchTask";
+    private static final String TIMEOUT_THREAD_NAME = "azure-iot-sdk-DirectMethodTimeoutTask";
+
+    // Daemon threads so that a client that is never closed doesn't keep the process alive
+    private static final ThreadFactory DISPATCH_THREAD_FACTORY = runnable -> newDaemonThread(runnable, DISPATCH_THREAD_NAME);
+    private static final ThreadFactory TIMEOUT_THREAD_FACTORY = runnable -> newDaemonThread(runnable, TIMEOUT_THREAD_NAME);
+
+    private final ExecutorService dispatchExecutor;
+    private final ScheduledExecutorService timeoutScheduler; // null if invocations never time out
+    private final int defaultConcurrencyLimit;
+    private final Map<String, Integer> concurrencyLimits;
+    private final long timeoutMilliseconds;
+
+    // guarded by itself
+    private final Map<String, MethodLane> lanes = new HashMap<>();
+    private boolean isClosed;
+
+    /**
+     * @param threadCount the number of threads that method handlers will be executed on.
+     * @param defaultConcurrencyLimit the maximum number of concurrent invocations of any one method name.
+     * @param concurrencyLimits overrides of the default concurrency limit by method name. May be null.
+     * @param timeoutMilliseconds the time after which an invocation is cancelled, or 0 to never cancel invocations.
+     */
+    DirectMethodDispatcher(int threadCount, int defaultConcurrencyLimit, Map<String, Integer> concurrencyLimits, long timeoutMilliseconds)
+    {
+        if (threadCount <= 0)
+        {
+            throw new IllegalArgumentException("Direct method dispatch thread count must be greater than 0");
+        }
+
+        if (defaultConcurrencyLimit <= 0)
+        {
+            throw new IllegalArgumentException("Direct method concurrency limit must be greater than 0");
+        }
+
+        if (timeoutMilliseconds < 0)
+        {
+            throw new IllegalArgumentException("Direct method timeout must be greater than or equal to 0");
+        }
+
+        this.concurrencyLimits = new HashMap<>();
+        if (concurrencyLimits != null)
+        {
+            for (Map.Entry<String, Integer> limit : concurrencyLimits.entrySet())
+            {
+                if (limit.getValue() == null || limit.getValue() <= 0)
+                {
+                    throw new IllegalArgumentException("Direct method concurrency limit for method " + limit.getKey() + " must be greater than 0");
+                }
+
+                this.concurrencyLimits.put(limit.getKey(), limit.getValue());
+            }
+        }
+
+        this.dispatchExecutor = Executors.newFixedThreadPool(threadCount, DISPATCH_THREAD_FACTORY);
+        this.timeoutScheduler = timeoutMilliseconds > 0 ? Executors.newSingleThreadScheduledExecutor(TIMEOUT_THREAD_FACTORY) : null;
+        this.defaultConcurrencyLimit = defaultConcurrencyLimit;
+        this.timeoutMilliseconds = timeoutMilliseconds;
+    }
+
+    /**
+     * Queue a method invocation for execution.
+     *
+     * @param methodName the name of the invoked method, used to apply its concurrency limit.
+     * @param invocation executes the method handler and returns the action that publishes its result, such as sending
+     * the method response. The returned action is not executed if the invocation timed out.
+     * @param onTimedOut executed instead of the publishing action if the invocation timed out.
+     */
+    void dispatch(String methodName, Supplier<Runnable> invocation, Runnable onTimedOut)
+    {
+        DispatchedInvocation dispatchedInvocation =
+            new DispatchedInvocation(methodName, invocation, onTimedOut, System.currentTimeMillis() + this.timeoutMilliseconds);
+
+        synchronized (this.lanes)
+        {
+            if (this.isClosed)
+            {
+                throw new IllegalStateException("Cannot dispatch direct method invocations after the dispatcher has been closed");
+            }
+
+            MethodLane lane = this.lanes.get(methodName);
+            if (lane == null)
+            {
+                lane = new MethodLane(this.concurrencyLimits.getOrDefault(methodName, this.defaultConcurrencyLimit));
+                this.lanes.put(methodName, lane);
+            }
+
+            if (lane.runningCount < lane.concurrencyLimit)
+            {
+                lane.runningCount++;
+                start(dispatchedInvocation);
+            }
+            else
+            {
+                log.trace("Method {} is at its concurrency limit of {}, queueing invocation", methodName, lane.concurrencyLimit);
+                lane.waitingInvocations.add(dispatchedInvocation);
+            }
+        }
+    }
+
+    /**
+     * Stop accepting invocations. Invocations that are already executing are allowed to finish and publish their
+     * results, but queued invocations are dropped.
+     */
+    void close()
+    {
+        synchronized (this.lanes)
+        {
+            this.isClosed = true;
+            for (MethodLane lane : this.lanes.values())
+            {
+                if (!lane.waitingInvocations.isEmpty())
+                {
+                    log.debug("Dropping {} queued direct method invocation(s) since the client is closing", lane.waitingInvocations.size());
+                }
+            }
+
+            this.lanes.clear();
+        }
+
+        this.dispatchExecutor.shutdown();
+        if (this.timeoutScheduler != null)
+        {
+            this.timeoutScheduler.shutdownNow();
+        }
+    }
+
+    // must be called while holding the lanes lock
+    private void start(DispatchedInvocation dispatchedInvocation)
+    {
+        try
+        {
+            dispatchedInvocation.future = this.dispatchExecutor.submit(() -> execute(dispatchedInvocation));
+        }
+        catch (RejectedExecutionException e)
+        {
+            log.debug("Could not execute direct method invocation since the client is closing", e);
+            return;
+        }
+
+        if (this.timeoutScheduler != null)
+        {
+            long remainingMilliseconds = Math.max(0, dispatchedInvocation.deadlineMilliseconds - System.currentTimeMillis());
+            this.timeoutScheduler.schedule(() -> timeOut(dispatchedInvocation), remainingMilliseconds, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void execute(DispatchedInvocation dispatchedInvocation)
+    {
+        Runnable publishResult = null;
+        try
+        {
+            publishResult = dispatchedInvocation.invocation.get();
+        }
+        catch (RuntimeException e)
+        {
+            // Still need to release this invocation's slot below, or the method would never be dispatched again
+            log.warn("Invocation of method {} failed", dispatchedInvocation.methodName, e);
+        }
+
+        if (dispatchedInvocation.isFinished.compareAndSet(false, true))
+        {
+            try
+            {
+                if (publishResult != null)
+                {
+                    publishResult.run();
+                }
+            }
+            finally
+            {
+                release(dispatchedInvocation.methodName);
+            }
+        }
+        else
+        {
+            log.debug("Discarding result of timed out invocation of method {}", dispatchedInvocation.methodName);
+        }
+    }
+
+    private void timeOut(DispatchedInvocation dispatchedInvocation)
+    {
+        if (dispatchedInvocation.isFinished.compareAndSet(false, true))
+        {
+            log.warn("Invocation of method {} did not complete within {} milliseconds, cancelling it", dispatchedInvocation.methodName, this.timeoutMilliseconds);
+            dispatchedInvocation.future.cancel(true);
+
+            try
+            {
+                dispatchedInvocation.onTimedOut.run();
+            }
+            finally
+            {
+                release(dispatchedInvocation.methodName);
+            }
+        }
+    }
+
+    private void release(String methodName)
+    {
+        synchronized (this.lanes)
+        {
+            MethodLane lane = this.lanes.get(methodName);
+            if (lane == null)
+            {
+                // the dispatcher was closed
+                return;
+            }
+
+            DispatchedInvocation next = lane.waitingInvocations.poll();
+            if (next != null)
+            {
+                // hand the slot over to the next invocation of this method rather than decrementing and incrementing
+                start(next);
+            }
+            else if (--lane.runningCount == 0)
+            {
+                this.lanes.remove(methodName);
+            }
+        }
+    }
+
+    private static Thread newDaemonThread(Runnable runnable, String name)
+    {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static final class MethodLane
+    {
+        private final int concurrencyLimit;
+        private final Queue<DispatchedInvocation> waitingInvocations = new ArrayDeque<>();
+        private int runningCount;
+
+        private MethodLane(int concurrencyLimit)
+        {
+            this.concurrencyLimit = concurrencyLimit;
+        }
+    }
+
+    private static final class DispatchedInvocation
+    {
+        private final String methodName;
+        private final Supplier<Runnable> invocation;
+        private final Runnable onTimedOut;
+        private final long deadlineMilliseconds;
+        private final AtomicBoolean isFinished = new AtomicBoolean(false);
+        private volatile Future<?> future;
+
+        private DispatchedInvocation(String methodName, Supplier<Runnable> invocation, Runnable onTimedOut, long deadlineMilliseconds)
+        {
+            this.methodName = methodName;
+            this.invocation = invocation;
+            this.onTimedOut = onTimedOut;
+            this.deadlineMilliseconds = deadlineMilliseconds;
+        }
+    }
+}
@@ -3,19 +3,34 @@
 
 package com.microsoft.azure.sdk.iot.device.twin;
 
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
-import lombok.AccessLevel;
-import lombok.AllArgsConstructor;
+import com.microsoft.azure.sdk.iot.device.internal.GsonSerializers;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 
 /**
  * This class contains the payload of a direct method request that was received by the device/module.
  * It is used with the onMethodInvoked() callback which is executed each time a direct method is invoked.
  */
-@AllArgsConstructor(access = AccessLevel.PACKAGE)
 public class DirectMethodPayload
 {
-    private JsonElement methodPayload;
+    // The received payload is only parsed once a method handler asks for it, and then at most once, so handlers that
+    // ignore the payload or deserialize it into their own type never pay for building a json tree
+    private final byte[] methodPayloadBytes;
+    private volatile JsonElement methodPayload;
+
+    DirectMethodPayload(JsonElement methodPayload)
+    {
+        this.methodPayloadBytes = null;
+        this.methodPayload = methodPayload;
+    }
+
+    DirectMethodPayload(byte[] methodPayloadBytes)
+    {
+        this.methodPayloadBytes = methodPayloadBytes;
+    }
 
     /**
      * Return the DirectMethodPayload payload in JsonElement type
@@ -23,7 +38,15 @@ public class DirectMethodPayload
      */
     public JsonElement getPayloadAsJsonElement()
     {
-        return methodPayload;
+        // Parsing is idempotent, so threads racing here at worst parse the same payload more than once
+        JsonElement payload = this.methodPayload;
+        if (payload == null)
+        {
+            payload = DirectMethodPayloadCodec.parsePayload(this.methodPayloadBytes);
+            this.methodPayload = payload;
+        }
+
+        return payload;
     }
 
     /**
@@ -33,7 +56,7 @@ public class DirectMethodPayload
      */
     public String getPayloadAsJsonString()
     {
-        return methodPayload.toString();
+        return getPayloadAsJsonElement().toString();
     }
 
     /**
@@ -43,6 +66,14 @@ public class DirectMethodPayload
      */
     public <T> T getPayload(Class<T> clazz)
     {
-        return new GsonBuilder().create().fromJson(methodPayload, clazz);
+        if (this.methodPayload == null && this.methodPayloadBytes != null && this.methodPayloadBytes.length > 0)
+        {
+            // deserialize straight from the received bytes rather than through an intermediate json tree
+            return GsonSerializers.DEFAULT.fromJson(
+                new InputStreamReader(new ByteArrayInputStream(this.methodPayloadBytes), StandardCharsets.UTF_8),
+                clazz);
+        }
+
+        return GsonSerializers.DEFAULT.fromJson(getPayloadAsJsonElement(), clazz);
     }
 }
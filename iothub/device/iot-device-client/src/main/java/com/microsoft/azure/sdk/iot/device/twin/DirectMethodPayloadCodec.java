@@ -0,0 +1,234 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device.twin;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Stateless encoder and decoder for direct method payloads.
+ *
+ * <p>
+ * Every method of this class works only on its arguments and local state, so it can be used by any number of threads
+ * at once without locking. Decoding reads the json with a single streaming pass rather than building an intermediate
+ * string and then a parser per invocation.
+ * </p>
+ */
+final class DirectMethodPayloadCodec
+{
+    private static final String METHOD_NAME_TAG = "methodName";
+    private static final String RESPONSE_TIMEOUT_IN_SECONDS_TAG = "responseTimeoutInSeconds";
+    private static final String CONNECT_TIMEOUT_IN_SECONDS_TAG = "connectTimeoutInSeconds";
+    private static final String STATUS_TAG = "status";
+    private static final String PAYLOAD_TAG = "payload";
+
+    // Matches the output of serializing the payload to a JsonElement and then calling toString() on it, which is how
+    // method responses were serialized before this codec existed. JsonElement.toString() does not escape html characters.
+    private static final Gson RESPONSE_PAYLOAD_GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    private DirectMethodPayloadCodec()
+    {
+        // static members only
+    }
+
+    /**
+     * The result of decoding a direct method json document with {@link #decode(String)}.
+     */
+    static final class DecodedMethod
+    {
+        final MethodParser.Operation operation;
+        final String name;
+        final Long responseTimeout;
+        final Long connectTimeout;
+        final Integer status;
+        final JsonElement payload;
+
+        private DecodedMethod(MethodParser.Operation operation, String name, Long responseTimeout, Long connectTimeout, Integer status, JsonElement payload)
+        {
+            this.operation = operation;
+            this.name = name;
+            this.responseTimeout = responseTimeout;
+            this.connectTimeout = connectTimeout;
+            this.status = status;
+            this.payload = payload;
+        }
+    }
+
+    /**
+     * Decode a full direct method json document, which may be an invocation with a method name, a response with a
+     * status, or just a payload. See {@link MethodParser#fromJson(String)} for the accepted formats.
+     *
+     * @param json the json to decode.
+     * @return the decoded method.
+     * @throws IllegalArgumentException if the json is null, empty, or malformed, or contains both a method name and a status.
+     */
+    static DecodedMethod decode(String json) throws IllegalArgumentException
+    {
+        if (json == null || json.isEmpty())
+        {
+            throw new IllegalArgumentException("Invalid json.");
+        }
+
+        try (JsonReader reader = newReader(new StringReader(json)))
+        {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT)
+            {
+                JsonElement payload = readDocument(reader);
+                if (payload.isJsonNull())
+                {
+                    throw new IllegalArgumentException("Invalid json.");
+                }
+
+                return new DecodedMethod(MethodParser.Operation.payload, null, null, null, null, payload);
+            }
+
+            // The whole object is the payload if it turns out to have neither a method name nor a status, which isn't
+            // known until the end of the object, so each member is also kept as it is read
+            JsonObject jsonObject = new JsonObject();
+            JsonElement methodNameNode = null;
+            JsonElement statusNode = null;
+            JsonElement responseTimeoutNode = null;
+            JsonElement connectTimeoutNode = null;
+            JsonElement payloadNode = null;
+
+            reader.beginObject();
+            while (reader.hasNext())
+            {
+                String memberName = reader.nextName();
+                JsonElement value = JsonParser.parseReader(reader);
+                jsonObject.add(memberName, value);
+
+                switch (memberName)
+                {
+                    case METHOD_NAME_TAG:
+                        methodNameNode = value;
+                        break;
+                    case STATUS_TAG:
+                        statusNode = value;
+                        break;
+                    case RESPONSE_TIMEOUT_IN_SECONDS_TAG:
+                        responseTimeoutNode = value;
+                        break;
+                    case CONNECT_TIMEOUT_IN_SECONDS_TAG:
+                        connectTimeoutNode = value;
+                        break;
+                    case PAYLOAD_TAG:
+                        payloadNode = value;
+                        break;
+                    default:
+                        break;
+                }
+            }
+
+            reader.endObject();
+            if (reader.peek() != JsonToken.END_DOCUMENT)
+            {
+                throw new JsonSyntaxException("Did not consume the entire document.");
+            }
+
+            if (methodNameNode != null && statusNode != null)
+            {
+                throw new IllegalArgumentException("Invoke method name and Status reported in the same json");
+            }
+
+            if (methodNameNode != null)
+            {
+                return new DecodedMethod(
+                    MethodParser.Operation.invoke,
+                    methodNameNode.getAsString(),
+                    responseTimeoutNode != null ? responseTimeoutNode.getAsLong() : null,
+                    connectTimeoutNode != null ? connectTimeoutNode.getAsLong() : null,
+                    null,
+                    payloadNode);
+            }
+
+            if (statusNode != null)
+            {
+                Integer status = statusNode.isJsonPrimitive() ? statusNode.getAsInt() : null;
+                return new DecodedMethod(MethodParser.Operation.response, null, null, null, status, payloadNode);
+            }
+
+            return new DecodedMethod(MethodParser.Operation.payload, null, null, null, null, jsonObject);
+        }
+        catch (Exception e)
+        {
+            throw new IllegalArgumentException("Malformed json.", e);
+        }
+    }
+
+    /**
+     * Parse the body of a received direct method invocation, which holds only the method payload.
+     *
+     * @param body the UTF-8 encoded payload. May be null or empty, in which case the payload is an empty json object.
+     * @return the parsed payload.
+     * @throws JsonParseException if the payload is not valid json.
+     */
+    static JsonElement parsePayload(byte[] body) throws JsonParseException
+    {
+        if (body == null || body.length == 0)
+        {
+            return new JsonObject();
+        }
+
+        try (JsonReader reader = newReader(new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8)))
+        {
+            return readDocument(reader);
+        }
+        catch (MalformedJsonException e)
+        {
+            throw new JsonSyntaxException(e);
+        }
+        catch (IOException e)
+        {
+            throw new JsonIOException(e);
+        }
+    }
+
+    /**
+     * Serialize the payload of a direct method response.
+     *
+     * @param payload the payload provided by the method handler. May be null.
+     * @return the UTF-8 encoded json of the payload.
+     */
+    static byte[] encodeResponsePayload(Object payload)
+    {
+        return RESPONSE_PAYLOAD_GSON.toJson(payload).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static JsonReader newReader(Reader reader)
+    {
+        JsonReader jsonReader = new JsonReader(reader);
+
+        // JsonParser, which was used to parse method payloads before this codec existed, is lenient as well
+        jsonReader.setLenient(true);
+        return jsonReader;
+    }
+
+    private static JsonElement readDocument(JsonReader reader) throws IOException
+    {
+        JsonElement element = JsonParser.parseReader(reader);
+        if (reader.peek() != JsonToken.END_DOCUMENT)
+        {
+            throw new JsonSyntaxException("Did not consume the entire document.");
+        }
+
+        return element;
+    }
+}
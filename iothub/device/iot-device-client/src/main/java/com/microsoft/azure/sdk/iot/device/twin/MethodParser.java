@@ -3,8 +3,6 @@
 
 package com.microsoft.azure.sdk.iot.device.twin;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
@@ -13,6 +11,7 @@ import com.google.gson.JsonPrimitive;
 import com.google.gson.JsonSyntaxException;
 import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
+import com.microsoft.azure.sdk.iot.device.internal.GsonSerializers;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -141,126 +140,35 @@ public class MethodParser
      *                  - Otherwise, it is only `payload`.
      * @throws IllegalArgumentException This exception is thrown if the one of the provided information do not fits the requirements.
      */
-    public synchronized void fromJson(String json) throws IllegalArgumentException
+    public void fromJson(String json) throws IllegalArgumentException
     {
+        // The decoding itself is stateless, so instances of this class that are not shared don't need to lock here
+        DirectMethodPayloadCodec.DecodedMethod decodedMethod = DirectMethodPayloadCodec.decode(json);
 
-        if (json == null || json.isEmpty())
+        this.operation = decodedMethod.operation;
+        if (decodedMethod.name != null)
         {
-            throw new IllegalArgumentException("Invalid json.");
+            this.name = decodedMethod.name;
         }
 
-        JsonParser jsonParser = new JsonParser();
-        try
+        if (decodedMethod.responseTimeout != null)
         {
-            JsonElement jsonElement = jsonParser.parse(json);
-            if (jsonElement instanceof JsonPrimitive || jsonElement instanceof JsonArray)
-            {
-                /*
-                   Basic JSON String or Array
-                   Ex:
-                       "this is payload."
-                       1
-                       true
-                       2.0e10
-                       2.6
-                 */
-                this.operation = Operation.payload;
-                this.payload = jsonElement;
-            }
-            else if (jsonElement instanceof JsonObject)
-            {
-                JsonObject jsonObject = (JsonObject) jsonElement;
-                JsonElement statusTagNode = jsonObject.get(STATUS_TAG);
-                JsonElement methodNameNode = jsonObject.get(METHOD_NAME_TAG);
-                if (methodNameNode == null)
-                {
-                    if (statusTagNode == null)
-                    {
-                        /*
-                           If the json contains any payload without `methodName` or `status` identification, the fromJson shall parse only the payload, and set the operation as `payload`.
-                           Ex:
-                           {
-                               "input1": "someInput",
-                               "input2": "anotherInput"
-                           }
-                         */
-                        operation = Operation.payload;
-                        payload = jsonObject;
-                    }
-                    else
-                    {
-                        /*
-                           If the json contains the `status` identification, the fromJson shall parse both status and payload, and set the operation as `response`.
-                           Ex:
-                           {
-                               "status": 201,
-                               "payload": {"AnyValidPayload" : "" }
-                           }
-                         */
-                        operation = Operation.response;
-                        if (statusTagNode.isJsonPrimitive())
-                        {
-                            status = statusTagNode.getAsInt();
-                        }
-                        JsonElement payloadNode = jsonObject.get(PAYLOAD_TAG);
-                        if (payloadNode != null)
-                        {
-                            payload = payloadNode;
-                        }
-                    }
-                }
-                else
-                {
-                    if (statusTagNode == null)
-                    {
-                        /*
-                           If the json contains the `methodName` identification, the fromJson shall parse the full method, and set the operation as `invoke`.
-                           Ex:
-                           {
-                               "methodName": "reboot",
-                               "responseTimeoutInSeconds": 200,
-                               "connectTimeoutInSeconds": 5,
-                               "payload":
-                               {
-                                   "input1": "someInput",
-                                   "input2": "anotherInput"
-                               }
-                           }
-                         */
-                        operation = Operation.invoke;
-                        name = methodNameNode.getAsString();
-                        JsonElement responseTimeoutNode = jsonObject.get(RESPONSE_TIMEOUT_IN_SECONDS_TAG);
-                        if (responseTimeoutNode != null)
-                        {
-                            responseTimeout = responseTimeoutNode.getAsLong();
-
-                        }
-                        JsonElement connetionTimeoutNode = jsonObject.get(CONNECT_TIMEOUT_IN_SECONDS_TAG);
-                        if (connetionTimeoutNode != null)
-                        {
-                            connectTimeout = connetionTimeoutNode.getAsLong();
-                        }
-                        JsonElement payloadNode = jsonObject.get(PAYLOAD_TAG);
-                        if (payloadNode != null)
-                        {
-                            payload = payloadNode;
-                        }
-                    }
-                    else
-                    {
-                        throw new IllegalArgumentException("Invoke method name and Status reported in the same json");
-                    }
-                }
-            }
-            else
-            {
-                // JSON null, since string is not empty, it shouldn't reach here
-                throw new IllegalArgumentException("Invalid json.");
-            }
+            this.responseTimeout = decodedMethod.responseTimeout;
+        }
+
+        if (decodedMethod.connectTimeout != null)
+        {
+            this.connectTimeout = decodedMethod.connectTimeout;
         }
-        catch (Exception ex)
+
+        if (decodedMethod.status != null)
+        {
+            this.status = decodedMethod.status;
+        }
+
+        if (decodedMethod.payload != null)
         {
-            throw new IllegalArgumentException("Malformed json.", ex);
+            this.payload = decodedMethod.payload;
         }
     }
 
@@ -336,7 +244,7 @@ public class MethodParser
             }
             catch (JsonSyntaxException e)
             {
-                return new Gson().toJsonTree(payload);
+                return GsonSerializers.DEFAULT.toJsonTree(payload);
             }
         }
     }
@@ -3,12 +3,11 @@
 
 package com.microsoft.azure.sdk.iot.device.twin;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
+import com.microsoft.azure.sdk.iot.device.internal.GsonSerializers;
 
 import java.nio.charset.StandardCharsets;
 import java.text.ParseException;
@@ -310,7 +309,6 @@ public class ParserUtility
      */
     public static JsonElement mapToJsonElement(Map<String, Object> map) throws IllegalArgumentException
     {
-        Gson gson = new GsonBuilder().serializeNulls().create();
         JsonObject json = new JsonObject();
 
         if (map == null)
@@ -330,7 +328,7 @@ public class ParserUtility
             }
             else
             {
-                json.add(entry.getKey(), gson.toJsonTree(entry.getValue()));
+                json.add(entry.getKey(), GsonSerializers.SERIALIZE_NULLS.toJsonTree(entry.getValue()));
             }
         }
 
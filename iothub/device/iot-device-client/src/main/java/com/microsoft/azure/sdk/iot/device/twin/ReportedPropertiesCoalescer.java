@@ -0,0 +1,303 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device.twin;
+
+import com.microsoft.azure.sdk.iot.device.IotHubStatusCode;
+import com.microsoft.azure.sdk.iot.device.Message;
+import com.microsoft.azure.sdk.iot.device.exceptions.IotHubClientException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Merges reported property patches that are requested within a configurable window of each other into a single patch
+ * so that high frequency callers of {@link DeviceTwin#updateReportedPropertiesAsync(TwinCollection, ReportedPropertiesUpdateCorrelatingMessageCallback, Object)}
+ * only cost one request per window. Later values for a given key overwrite earlier ones, and nested collections are
+ * merged key by key, which matches how the service applies successive patches. Every caller whose patch was merged
+ * is notified of each state change of the single merged request, or of the failure to send it.
+ */
+@Slf4j
+final class ReportedPropertiesCoalescer
+{
+    private static final String THREAD_NAME = "azure-iot-sdk-ReportedPropertiesCoalescerTask";
+
+    // The thread is a daemon so that a pending flush never keeps the process alive
+    private static final ThreadFactory THREAD_FACTORY = runnable ->
+    {
+        Thread thread = new Thread(runnable, THREAD_NAME);
+        thread.setDaemon(true);
+        return thread;
+    };
+
+    private final long windowMilliseconds;
+    private final BiConsumer<TwinCollection, ReportedPropertiesUpdateCorrelatingMessageCallback> patchSender;
+
+    // Held while a merged patch is taken and sent, so that patches are sent in the order they were requested no matter
+    // whether they are flushed by the scheduler or by a caller
+    private final Object sendLock = new Object();
+
+    private final Object pendingLock = new Object();
+    private TwinCollection pendingPatch;
+    private List<PendingCallback> pendingCallbacks = new ArrayList<>();
+
+    private ScheduledExecutorService flushScheduler;
+    private boolean isClosed;
+
+    /**
+     * @param windowMilliseconds how long to wait after the first patch of a batch before sending the merged patch.
+     * @param patchSender sends a merged patch and reports its state changes to the provided callback.
+     */
+    ReportedPropertiesCoalescer(long windowMilliseconds, BiConsumer<TwinCollection, ReportedPropertiesUpdateCorrelatingMessageCallback> patchSender)
+    {
+        if (windowMilliseconds <= 0)
+        {
+            throw new IllegalArgumentException("Coalescing window must be greater than 0");
+        }
+
+        this.windowMilliseconds = windowMilliseconds;
+        this.patchSender = patchSender;
+    }
+
+    /**
+     * Merge the provided patch into the pending patch. The merged patch will be sent once the window that started with
+     * the first pending patch has elapsed.
+     *
+     * @param reportedProperties the patch to merge. Must not carry a version since versioned patches cannot be merged.
+     * @param callback the callback to notify of the state of the merged request. May be null.
+     * @param callbackContext the context to provide to each invocation of the callback. May be null.
+     */
+    void add(TwinCollection reportedProperties, ReportedPropertiesUpdateCorrelatingMessageCallback callback, Object callbackContext)
+    {
+        synchronized (this.pendingLock)
+        {
+            if (this.isClosed)
+            {
+                throw new IllegalStateException("Cannot coalesce reported properties after the client has been closed");
+            }
+
+            boolean isFirstPendingPatch = this.pendingPatch == null;
+            if (isFirstPendingPatch)
+            {
+                this.pendingPatch = new TwinCollection();
+            }
+
+            merge(this.pendingPatch, reportedProperties);
+            this.pendingCallbacks.add(new PendingCallback(callback, callbackContext));
+
+            if (isFirstPendingPatch)
+            {
+                if (this.flushScheduler == null)
+                {
+                    this.flushScheduler = Executors.newSingleThreadScheduledExecutor(THREAD_FACTORY);
+                }
+
+                this.flushScheduler.schedule(this::flushFromScheduler, this.windowMilliseconds, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Send the pending merged patch now, if there is one. Used when the owning twin is being torn down.
+     *
+     * <p>
+     * If the merged patch can't be sent, every merged caller is notified of the failure through
+     * {@link ReportedPropertiesUpdateCorrelatingMessageCallback#onRequestAcknowledged(Message, Object, IotHubClientException)}
+     * before the exception is rethrown.
+     * </p>
+     */
+    void flush()
+    {
+        synchronized (this.sendLock)
+        {
+            TwinCollection patchToSend;
+            List<PendingCallback> callbacksToNotify;
+            synchronized (this.pendingLock)
+            {
+                if (this.pendingPatch == null)
+                {
+                    return;
+                }
+
+                patchToSend = this.pendingPatch;
+                callbacksToNotify = this.pendingCallbacks;
+                this.pendingPatch = null;
+                this.pendingCallbacks = new ArrayList<>();
+            }
+
+            log.trace("Sending coalesced reported properties patch on behalf of {} update request(s)", callbacksToNotify.size());
+            FanOutCallback fanOutCallback = new FanOutCallback(callbacksToNotify);
+            try
+            {
+                this.patchSender.accept(patchToSend, fanOutCallback);
+            }
+            catch (RuntimeException e)
+            {
+                fanOutCallback.onRequestAcknowledged(null, null, new IotHubClientException(IotHubStatusCode.ERROR, "Failed to send the coalesced reported properties patch", e));
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Send the pending merged patch, if there is one, and then run the provided send while no merged patch can be sent
+     * in between. Used to preserve ordering when a patch that cannot be merged, such as a versioned patch, is sent.
+     *
+     * @param send sends the patch that could not be merged.
+     */
+    void flushAndSend(Runnable send)
+    {
+        synchronized (this.sendLock)
+        {
+            flush();
+            send.run();
+        }
+    }
+
+    /**
+     * Send any pending merged patch and stop the flush scheduler. Subsequent calls to {@link #add(TwinCollection, ReportedPropertiesUpdateCorrelatingMessageCallback, Object)}
+     * will throw.
+     */
+    void close()
+    {
+        try
+        {
+            flush();
+        }
+        catch (IllegalStateException e)
+        {
+            log.debug("Could not send the pending coalesced reported properties patch while closing", e);
+        }
+
+        synchronized (this.pendingLock)
+        {
+            this.isClosed = true;
+            if (this.flushScheduler != null)
+            {
+                this.flushScheduler.shutdownNow();
+                this.flushScheduler = null;
+            }
+        }
+    }
+
+    private void flushFromScheduler()
+    {
+        try
+        {
+            flush();
+        }
+        catch (Exception e)
+        {
+            // The merged callers were already notified of this failure by flush()
+            log.warn("Failed to send coalesced reported properties patch", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    static void merge(TwinCollection target, Map<String, Object> patch)
+    {
+        for (Map.Entry<String, Object> entry : patch.entrySet())
+        {
+            Object existingValue = target.get(entry.getKey());
+            Object newValue = entry.getValue();
+            if (existingValue instanceof TwinCollection && newValue instanceof Map)
+            {
+                // target only ever holds copies of the callers' collections, so it is safe to merge into them in place
+                merge((TwinCollection) existingValue, (Map<String, Object>) newValue);
+            }
+            else
+            {
+                target.put(entry.getKey(), newValue);
+            }
+        }
+    }
+
+    private static final class PendingCallback
+    {
+        private final ReportedPropertiesUpdateCorrelatingMessageCallback callback;
+        private final Object callbackContext;
+
+        private PendingCallback(ReportedPropertiesUpdateCorrelatingMessageCallback callback, Object callbackContext)
+        {
+            this.callback = callback;
+            this.callbackContext = callbackContext;
+        }
+    }
+
+    private static final class FanOutCallback implements ReportedPropertiesUpdateCorrelatingMessageCallback
+    {
+        private final List<PendingCallback> pendingCallbacks;
+
+        private FanOutCallback(List<PendingCallback> pendingCallbacks)
+        {
+            this.pendingCallbacks = pendingCallbacks;
+        }
+
+        @Override
+        public void onRequestQueued(Message message, Object callbackContext)
+        {
+            for (PendingCallback pending : this.pendingCallbacks)
+            {
+                if (pending.callback != null)
+                {
+                    pending.callback.onRequestQueued(message, pending.callbackContext);
+                }
+            }
+        }
+
+        @Override
+        public void onRequestSent(Message message, Object callbackContext)
+        {
+            for (PendingCallback pending : this.pendingCallbacks)
+            {
+                if (pending.callback != null)
+                {
+                    pending.callback.onRequestSent(message, pending.callbackContext);
+                }
+            }
+        }
+
+        @Override
+        public void onRequestAcknowledged(Message message, Object callbackContext, IotHubClientException e)
+        {
+            for (PendingCallback pending : this.pendingCallbacks)
+            {
+                if (pending.callback != null)
+                {
+                    pending.callback.onRequestAcknowledged(message, pending.callbackContext, e);
+                }
+            }
+        }
+
+        @Override
+        public void onResponseReceived(Message message, Object callbackContext, IotHubStatusCode statusCode, ReportedPropertiesUpdateResponse response, IotHubClientException e)
+        {
+            for (PendingCallback pending : this.pendingCallbacks)
+            {
+                if (pending.callback != null)
+                {
+                    pending.callback.onResponseReceived(message, pending.callbackContext, statusCode, response, e);
+                }
+            }
+        }
+
+        @Override
+        public void onResponseAcknowledged(Message message, Object callbackContext)
+        {
+            for (PendingCallback pending : this.pendingCallbacks)
+            {
+                if (pending.callback != null)
+                {
+                    pending.callback.onResponseAcknowledged(message, pending.callbackContext);
+                }
+            }
+        }
+    }
+}
@@ -95,6 +95,14 @@ import com.google.gson.annotations.SerializedName;
 @SuppressWarnings("unused") // A number of private members are unused but may be filled in or used by serialization
 public class Twin
 {
+    // only used by toString, so the shared twin Gson instance can't be used since it doesn't pretty print
+    private static final Gson PRETTY_PRINTING_GSON = new GsonBuilder()
+            .excludeFieldsWithoutExposeAnnotation()
+            .setObjectToNumberStrategy(ToNumberPolicy.LONG_OR_DOUBLE)
+            .setPrettyPrinting()
+            .disableHtmlEscaping()
+            .create();
+
     // the twin desired properties
     private static final String PROPERTIES_TAG = "properties";
     @Expose(serialize = false)
@@ -206,14 +214,7 @@ public class Twin
     @Override
     public String toString()
     {
-        Gson gson = new GsonBuilder()
-                .excludeFieldsWithoutExposeAnnotation()
-                .setObjectToNumberStrategy(ToNumberPolicy.LONG_OR_DOUBLE)
-                .setPrettyPrinting()
-                .disableHtmlEscaping()
-                .create();
-
-        JsonObject jsonObject = gson.toJsonTree(this).getAsJsonObject();
+        JsonObject jsonObject = PRETTY_PRINTING_GSON.toJsonTree(this).getAsJsonObject();
 
         if (this.properties != null)
         {
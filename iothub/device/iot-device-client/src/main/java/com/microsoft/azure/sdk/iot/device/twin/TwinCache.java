@@ -0,0 +1,213 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device.twin;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+
+/**
+ * Client side copy of a twin's desired and reported properties that is kept up to date by applying the patches that
+ * this client receives and sends, in {@code $version} order.
+ *
+ * <p>
+ * The cache is only considered fresh while every patch applied to it was the direct successor of the version it
+ * already held, and while its last full synchronization with the service is no older than the configured maximum age.
+ * If a desired properties patch skips a version (for instance because the patch was sent while this client was
+ * disconnected), the cache reports the gap so that the owner can refresh it with a single getTwin request.
+ * </p>
+ * <p>
+ * Twins served from the cache carry the versions of their desired and reported properties, but not their metadata.
+ * </p>
+ */
+@Slf4j
+final class TwinCache
+{
+    /**
+     * The outcome of applying a desired properties patch to the cache.
+     */
+    enum PatchResult
+    {
+        /**
+         * The patch was the next version and has been applied, or it was an old version that has already been applied.
+         */
+        APPLIED,
+
+        /**
+         * The cache has never been synchronized with the service, so there is nothing to apply the patch to.
+         */
+        NOT_SYNCHRONIZED,
+
+        /**
+         * The patch is newer than the next expected version, so at least one patch was missed. The cache is now stale.
+         */
+        GAP_DETECTED
+    }
+
+    private final long maxAgeMilliseconds;
+
+    private TwinCollection desiredProperties;
+    private TwinCollection reportedProperties;
+    private long lastSynchronizedMilliseconds;
+    private boolean isStale = true;
+
+    /**
+     * @param maxAgeMilliseconds the maximum time since the last full synchronization that the cache may be served for.
+     */
+    TwinCache(long maxAgeMilliseconds)
+    {
+        if (maxAgeMilliseconds <= 0)
+        {
+            throw new IllegalArgumentException("Twin cache max age must be greater than 0");
+        }
+
+        this.maxAgeMilliseconds = maxAgeMilliseconds;
+    }
+
+    /**
+     * Replace the cached state with a twin received from the service.
+     *
+     * @param twin the full twin returned by a getTwin request.
+     */
+    synchronized void update(Twin twin)
+    {
+        this.desiredProperties = copy(twin.getDesiredProperties());
+        this.reportedProperties = copy(twin.getReportedProperties());
+        this.lastSynchronizedMilliseconds = System.currentTimeMillis();
+        this.isStale = this.desiredProperties.getVersion() == null || this.reportedProperties.getVersion() == null;
+    }
+
+    /**
+     * Apply a desired properties patch received from the service.
+     *
+     * @param patch the desired properties patch, including its {@code $version}.
+     * @return the outcome of applying the patch.
+     */
+    synchronized PatchResult applyDesiredPropertiesPatch(TwinCollection patch)
+    {
+        if (this.desiredProperties == null)
+        {
+            return PatchResult.NOT_SYNCHRONIZED;
+        }
+
+        Integer currentVersion = this.desiredProperties.getVersion();
+        Integer patchVersion = patch.getVersion();
+        if (currentVersion == null || patchVersion == null)
+        {
+            this.isStale = true;
+            return PatchResult.GAP_DETECTED;
+        }
+
+        if (patchVersion <= currentVersion)
+        {
+            log.trace("Ignoring desired properties patch with version {} since the cached desired properties are already at version {}", patchVersion, currentVersion);
+            return PatchResult.APPLIED;
+        }
+
+        if (patchVersion != currentVersion + 1)
+        {
+            log.debug("Desired properties patch version {} does not follow cached version {}, marking twin cache as stale", patchVersion, currentVersion);
+            this.isStale = true;
+            return PatchResult.GAP_DETECTED;
+        }
+
+        applyPatch(this.desiredProperties, patch);
+        this.desiredProperties.setVersion(patchVersion);
+        return PatchResult.APPLIED;
+    }
+
+    /**
+     * Apply a reported properties patch that this client sent and that the service has accepted.
+     *
+     * @param patch the reported properties patch that was sent.
+     * @param newVersion the reported properties version that the service returned for the patch. May be null.
+     */
+    synchronized void applyReportedPropertiesPatch(TwinCollection patch, Integer newVersion)
+    {
+        if (this.reportedProperties == null)
+        {
+            return;
+        }
+
+        Integer currentVersion = this.reportedProperties.getVersion();
+        if (currentVersion == null || newVersion == null || newVersion != currentVersion + 1)
+        {
+            // Edgehub doesn't increment the version, and other connections for this identity may have patched
+            // the reported properties in between, so the cached reported properties can no longer be trusted
+            this.isStale = true;
+            return;
+        }
+
+        applyPatch(this.reportedProperties, patch);
+        this.reportedProperties.setVersion(newVersion);
+    }
+
+    /**
+     * Mark the cache as stale so that the next request for the twin goes to the service.
+     */
+    synchronized void invalidate()
+    {
+        this.isStale = true;
+    }
+
+    /**
+     * @return a copy of the cached twin if the cache is fresh, or null if the twin must be requested from the service.
+     */
+    synchronized Twin getTwinIfFresh()
+    {
+        if (this.isStale || this.desiredProperties == null)
+        {
+            return null;
+        }
+
+        if (System.currentTimeMillis() - this.lastSynchronizedMilliseconds > this.maxAgeMilliseconds)
+        {
+            return null;
+        }
+
+        // The twin constructor copies both collections but only carries over versions that are stored as raw
+        // "$version" entries, so the versions need to be restored on the copies
+        Twin twin = new Twin(this.desiredProperties, this.reportedProperties);
+        twin.getDesiredProperties().setVersion(this.desiredProperties.getVersion());
+        twin.getReportedProperties().setVersion(this.reportedProperties.getVersion());
+        return twin;
+    }
+
+    @SuppressWarnings("unchecked")
+    static void applyPatch(TwinCollection target, Map<String, Object> patch)
+    {
+        for (Map.Entry<String, Object> entry : patch.entrySet())
+        {
+            Object existingValue = target.get(entry.getKey());
+            Object newValue = entry.getValue();
+            if (newValue == null)
+            {
+                // A null value in a twin patch deletes the property
+                target.remove(entry.getKey());
+            }
+            else if (existingValue instanceof TwinCollection && newValue instanceof Map)
+            {
+                applyPatch((TwinCollection) existingValue, (Map<String, Object>) newValue);
+            }
+            else
+            {
+                target.put(entry.getKey(), newValue);
+            }
+        }
+    }
+
+    private static TwinCollection copy(TwinCollection collection)
+    {
+        if (collection == null)
+        {
+            return new TwinCollection();
+        }
+
+        TwinCollection copy = new TwinCollection(collection);
+
+        // the copy constructor skips the version of empty collections
+        copy.setVersion(collection.getVersion());
+        return copy;
+    }
+}
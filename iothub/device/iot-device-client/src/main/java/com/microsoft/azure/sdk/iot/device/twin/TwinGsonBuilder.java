@@ -9,7 +9,19 @@ import com.google.gson.ToNumberPolicy;
  */
 class TwinGsonBuilder
 {
-    static Gson gson;
+    // Gson instances are thread safe, so a single instance is shared by every twin operation in the process
+    private static final Gson GSON = new GsonBuilder()
+            // gson treats all numbers as doubles unless we set this option. As a result, if a user passed in a reported property value as an int, we would serialize/deserialize it as a double anyways.
+            // See this discussion for more details https://stackoverflow.com/questions/45734769/why-does-gson-parse-an-integer-as-a-double
+            .setObjectToNumberStrategy(ToNumberPolicy.LONG_OR_DOUBLE)
+
+            // The intendend way to delete a reported property from a twin is to update the property to have a
+            // null value, so we need to allow null valued properties to be serialized.
+            .serializeNulls()
+
+            .excludeFieldsWithoutExposeAnnotation()
+            .disableHtmlEscaping()
+            .create();
 
     /**
      * Get the singleton gson instance.
@@ -17,24 +29,6 @@ class TwinGsonBuilder
      */
     static Gson getGson()
     {
-        // intentionally not setting up thread safety precautions here because the worst case scenario is that multiple
-        // instances are made. As soon as each of those instances is overwritten, Java garbage collection will pick them up anyways.
-        if (gson == null)
-        {
-            gson = new GsonBuilder()
-                    // gson treats all numbers as doubles unless we set this option. As a result, if a user passed in a reported property value as an int, we would serialize/deserialize it as a double anyways.
-                    // See this discussion for more details https://stackoverflow.com/questions/45734769/why-does-gson-parse-an-integer-as-a-double
-                    .setObjectToNumberStrategy(ToNumberPolicy.LONG_OR_DOUBLE)
-
-                    // The intendend way to delete a reported property from a twin is to update the property to have a
-                    // null value, so we need to allow null valued properties to be serialized.
-                    .serializeNulls()
-
-                    .excludeFieldsWithoutExposeAnnotation()
-                    .disableHtmlEscaping()
-                    .create();
-        }
-
-        return gson;
+        return GSON;
     }
 }
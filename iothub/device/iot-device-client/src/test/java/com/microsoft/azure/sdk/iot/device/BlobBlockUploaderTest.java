@@ -0,0 +1,396 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+public class BlobBlockUploaderTest
+{
+    private static final int BLOCK_SIZE = 1024;
+
+    private BlobStorageStandIn storage;
+    private URL blobUrl;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        storage = new BlobStorageStandIn();
+        blobUrl = new URL("http://localhost:" + storage.getPort() + "/container/blob?sv=2020-01-01&sig=signature");
+    }
+
+    @After
+    public void tearDown()
+    {
+        storage.stop();
+    }
+
+    @Test
+    public void uploadCommitsAllBlocksInOrder() throws Exception
+    {
+        //arrange
+        byte[] content = randomBytes(BLOCK_SIZE * 10 + 17);
+        BlobBlockUploader uploader = new BlobBlockUploader(blobUrl, BLOCK_SIZE, 4, 0, null, null, 0, 0);
+
+        //act
+        uploader.upload(new ByteArrayInputStream(content));
+
+        //assert
+        assertArrayEquals(content, storage.committedContent);
+        assertEquals(11, storage.putBlockCount.get());
+    }
+
+    @Test
+    public void uploadOfEmptyStreamCommitsEmptyBlob() throws Exception
+    {
+        //arrange
+        BlobBlockUploader uploader = new BlobBlockUploader(blobUrl, BLOCK_SIZE, 4, 0, null, null, 0, 0);
+
+        //act
+        uploader.upload(new ByteArrayInputStream(new byte[0]));
+
+        //assert
+        assertArrayEquals(new byte[0], storage.committedContent);
+        assertEquals(0, storage.putBlockCount.get());
+    }
+
+    @Test
+    public void uploadReadsStreamsThatReturnPartialReads() throws Exception
+    {
+        //arrange
+        byte[] content = randomBytes(BLOCK_SIZE * 3);
+        InputStream trickle = new ByteArrayInputStream(content)
+        {
+            @Override
+            public synchronized int read(byte[] b, int off, int len)
+            {
+                return super.read(b, off, Math.min(len, 100));
+            }
+        };
+        BlobBlockUploader uploader = new BlobBlockUploader(blobUrl, BLOCK_SIZE, 2, 0, null, null, 0, 0);
+
+        //act
+        uploader.upload(trickle);
+
+        //assert
+        assertArrayEquals(content, storage.committedContent);
+        assertEquals(3, storage.putBlockCount.get());
+    }
+
+    @Test
+    public void failedBlockIsRetried() throws Exception
+    {
+        //arrange
+        byte[] content = randomBytes(BLOCK_SIZE * 4);
+        storage.failuresBeforeSuccess.set(2);
+        BlobBlockUploader uploader = new BlobBlockUploader(blobUrl, BLOCK_SIZE, 2, 2, null, null, 0, 0);
+
+        //act
+        uploader.upload(new ByteArrayInputStream(content));
+
+        //assert
+        assertArrayEquals(content, storage.committedContent);
+        assertEquals(6, storage.putBlockCount.get());
+    }
+
+    @Test
+    public void blockWithMismatchedReturnedMd5IsRetried() throws Exception
+    {
+        //arrange
+        byte[] content = randomBytes(BLOCK_SIZE * 2);
+        storage.corruptedResponsesBeforeSuccess.set(1);
+        BlobBlockUploader uploader = new BlobBlockUploader(blobUrl, BLOCK_SIZE, 1, 1, null, null, 0, 0);
+
+        //act
+        uploader.upload(new ByteArrayInputStream(content));
+
+        //assert
+        assertArrayEquals(content, storage.committedContent);
+        assertEquals(3, storage.putBlockCount.get());
+    }
+
+    @Test
+    public void uploadFailsOnceBlockRetriesAreExhausted() throws Exception
+    {
+        //arrange
+        storage.failuresBeforeSuccess.set(Integer.MAX_VALUE);
+        BlobBlockUploader uploader = new BlobBlockUploader(blobUrl, BLOCK_SIZE, 2, 1, null, null, 0, 0);
+
+        //act
+        try
+        {
+            uploader.upload(new ByteArrayInputStream(randomBytes(BLOCK_SIZE * 4)));
+            fail("Expected the upload to fail");
+        }
+        catch (BlobBlockUploader.BlobStorageException e)
+        {
+            //assert
+            assertEquals(500, e.getStatusCode());
+        }
+
+        assertNull(storage.committedContent);
+    }
+
+    @Test
+    public void clientErrorsAreNotRetried() throws Exception
+    {
+        //arrange
+        storage.rejectWithStatus = 403;
+        BlobBlockUploader uploader = new BlobBlockUploader(blobUrl, BLOCK_SIZE, 1, 3, null, null, 0, 0);
+
+        //act
+        try
+        {
+            uploader.upload(new ByteArrayInputStream(randomBytes(BLOCK_SIZE)));
+            fail("Expected the upload to fail");
+        }
+        catch (BlobBlockUploader.BlobStorageException e)
+        {
+            //assert
+            assertEquals(403, e.getStatusCode());
+        }
+
+        assertEquals(1, storage.putBlockCount.get());
+        assertNull(storage.committedContent);
+    }
+
+    @Test
+    public void resumedUploadSkipsJournaledBlocks() throws Exception
+    {
+        //arrange
+        byte[] content = randomBytes(BLOCK_SIZE * 4 + 100);
+        Path source = Files.createTempFile("upload", ".bin");
+        Path journalDirectory = Files.createTempDirectory("journals");
+        Files.write(source, content);
+
+        // the first attempt fails on its third block and stops there since it uploads one block at a time
+        storage.remainingSuccesses.set(2);
+        FileUploadJournal journal = FileUploadJournal.open(journalDirectory, "blob", source, BLOCK_SIZE);
+        journal.setCorrelationId("someCorrelationId");
+        try (InputStream inputStream = Files.newInputStream(source))
+        {
+            new BlobBlockUploader(blobUrl, BLOCK_SIZE, 1, 0, null, null, 0, 0).upload(inputStream, journal);
+            fail("Expected the first attempt to fail");
+        }
+        catch (BlobBlockUploader.BlobStorageException e)
+        {
+            // expected
+        }
+
+        storage.remainingSuccesses.set(Integer.MAX_VALUE);
+        storage.putBlockCount.set(0);
+        FileUploadJournal reloadedJournal = FileUploadJournal.open(journalDirectory, "blob", source, BLOCK_SIZE);
+
+        //act
+        try (InputStream inputStream = Files.newInputStream(source))
+        {
+            new BlobBlockUploader(blobUrl, BLOCK_SIZE, 2, 0, null, null, 0, 0).upload(inputStream, reloadedJournal);
+        }
+
+        //assert
+        assertArrayEquals(content, storage.committedContent);
+        assertEquals(3, storage.putBlockCount.get());
+    }
+
+    @Test
+    public void blockIdsHaveEqualLength()
+    {
+        //assert
+        assertEquals(BlobBlockUploader.getBlockId(0).length(), BlobBlockUploader.getBlockId(49999).length());
+        assertNotEquals(BlobBlockUploader.getBlockId(0), BlobBlockUploader.getBlockId(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void httpIsRejectedForRemoteHosts() throws Exception
+    {
+        new BlobBlockUploader(new URL("http://account.blob.core.windows.net/container/blob"), BLOCK_SIZE, 1, 0, null, null, 0, 0);
+    }
+
+    private static byte[] randomBytes(int length)
+    {
+        byte[] bytes = new byte[length];
+        new Random(length).nextBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * Implements just enough of the Put Block and Put Block List operations of Azure Storage to verify uploads,
+     * including validating the Content-MD5 header of each block the way the service does.
+     */
+    private static class BlobStorageStandIn
+    {
+        private static final Pattern LATEST_BLOCK_PATTERN = Pattern.compile("<Latest>([^<]*)</Latest>");
+
+        private final HttpServer server;
+        private final Map<String, byte[]> uncommittedBlocks = new ConcurrentHashMap<>();
+        final AtomicInteger putBlockCount = new AtomicInteger();
+        final AtomicInteger failuresBeforeSuccess = new AtomicInteger();
+        final AtomicInteger corruptedResponsesBeforeSuccess = new AtomicInteger();
+        final AtomicInteger remainingSuccesses = new AtomicInteger(Integer.MAX_VALUE);
+        volatile int rejectWithStatus;
+        volatile byte[] committedContent;
+
+        BlobStorageStandIn() throws IOException
+        {
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/container/blob", this::handle);
+            server.start();
+        }
+
+        int getPort()
+        {
+            return server.getAddress().getPort();
+        }
+
+        void stop()
+        {
+            server.stop(0);
+        }
+
+        private void handle(HttpExchange exchange) throws IOException
+        {
+            try
+            {
+                byte[] body = readAll(exchange.getRequestBody());
+                Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+                if (!"PUT".equals(exchange.getRequestMethod()) || !"signature".equals(query.get("sig")))
+                {
+                    respond(exchange, 403, null);
+                }
+                else if ("block".equals(query.get("comp")))
+                {
+                    putBlock(exchange, query.get("blockid"), body);
+                }
+                else if ("blocklist".equals(query.get("comp")))
+                {
+                    putBlockList(exchange, body);
+                }
+                else
+                {
+                    respond(exchange, 400, null);
+                }
+            }
+            catch (Exception e)
+            {
+                respond(exchange, 500, null);
+            }
+        }
+
+        private void putBlock(HttpExchange exchange, String blockId, byte[] body) throws Exception
+        {
+            putBlockCount.incrementAndGet();
+            if (rejectWithStatus != 0)
+            {
+                respond(exchange, rejectWithStatus, null);
+                return;
+            }
+
+            if (failuresBeforeSuccess.getAndDecrement() > 0 || remainingSuccesses.getAndDecrement() <= 0)
+            {
+                respond(exchange, 500, null);
+                return;
+            }
+
+            String md5 = Base64.getEncoder().encodeToString(MessageDigest.getInstance("MD5").digest(body));
+            String sentMd5 = exchange.getRequestHeaders().getFirst("Content-MD5");
+            if (sentMd5 == null || !sentMd5.equals(md5))
+            {
+                respond(exchange, 400, null);
+                return;
+            }
+
+            uncommittedBlocks.put(blockId, body);
+            boolean corrupt = corruptedResponsesBeforeSuccess.getAndDecrement() > 0;
+            respond(exchange, 201, corrupt ? Base64.getEncoder().encodeToString(new byte[16]) : md5);
+        }
+
+        private void putBlockList(HttpExchange exchange, byte[] body) throws IOException
+        {
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            Matcher matcher = LATEST_BLOCK_PATTERN.matcher(new String(body, StandardCharsets.UTF_8));
+            List<String> blockIds = new ArrayList<>();
+            while (matcher.find())
+            {
+                blockIds.add(matcher.group(1));
+            }
+
+            for (String blockId : blockIds)
+            {
+                byte[] block = uncommittedBlocks.get(blockId);
+                if (block == null)
+                {
+                    respond(exchange, 400, null);
+                    return;
+                }
+
+                content.write(block);
+            }
+
+            committedContent = content.toByteArray();
+            respond(exchange, 201, null);
+        }
+
+        private static void respond(HttpExchange exchange, int status, String contentMd5) throws IOException
+        {
+            if (contentMd5 != null)
+            {
+                exchange.getResponseHeaders().add("Content-MD5", contentMd5);
+            }
+
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        }
+
+        private static Map<String, String> parseQuery(String query) throws IOException
+        {
+            Map<String, String> parameters = new ConcurrentHashMap<>();
+            for (String parameter : query.split("&"))
+            {
+                String[] keyValue = parameter.split("=", 2);
+                parameters.put(keyValue[0], URLDecoder.decode(keyValue[1], StandardCharsets.UTF_8.name()));
+            }
+
+            return parameters;
+        }
+
+        private static byte[] readAll(InputStream inputStream) throws IOException
+        {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            int read;
+            while ((read = inputStream.read(buffer)) >= 0)
+            {
+                outputStream.write(buffer, 0, read);
+            }
+
+            return outputStream.toByteArray();
+        }
+    }
+}
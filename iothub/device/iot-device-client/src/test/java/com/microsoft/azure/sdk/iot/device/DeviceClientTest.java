@@ -12,14 +12,24 @@ import mockit.Expectations;
 import mockit.Mocked;
 import mockit.NonStrictExpectations;
 import mockit.Verifications;
+import mockit.VerificationsInOrder;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 import static com.microsoft.azure.sdk.iot.device.DeviceClientType.SINGLE_CLIENT;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Unit tests for DeviceClient.
@@ -55,6 +65,9 @@ public class DeviceClientTest
     @Mocked
     ProductInfo mockedProductInfo;
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private static final long SEND_PERIOD_MILLIS = 10L;
     private static final long RECEIVE_PERIOD_MILLIS_AMQPS = 10L;
 
@@ -293,4 +306,143 @@ public class DeviceClientTest
         assertNull(Deencapsulation.getField(client, "config"));
         assertNull(Deencapsulation.getField(client, "deviceIO"));
     }
+
+    private DeviceClient createResumableFileUploadClient(final Path journalDirectory)
+    {
+        new NonStrictExpectations()
+        {
+            {
+                mockConfig.getFileUploadJournalDirectory();
+                result = journalDirectory;
+                mockConfig.getFileUploadBlockSize();
+                result = 1024;
+            }
+        };
+
+        DeviceClient client = Deencapsulation.newInstance(DeviceClient.class);
+        client.config = mockConfig;
+        Deencapsulation.setField(client, "fileUpload", mockFileUpload);
+        return client;
+    }
+
+    private static FileUploadSasUriResponse sasUriResponse(String correlationId)
+    {
+        return new FileUploadSasUriResponse("{\"correlationId\":\"" + correlationId + "\",\"hostName\":\"storage.blob.core.windows.net\","
+            + "\"containerName\":\"container\",\"blobName\":\"blob\",\"sasToken\":\"?sig=abc\"}");
+    }
+
+    private static boolean hasJournal(Path journalDirectory) throws IOException
+    {
+        try (java.util.stream.Stream<Path> journals = Files.list(journalDirectory))
+        {
+            return journals.findAny().isPresent();
+        }
+    }
+
+    @Test
+    public void resumableUploadFileNotifiesSuccessOfUpload(final @Mocked BlobBlockUploader mockBlobBlockUploader) throws Exception
+    {
+        //arrange
+        final Path journalDirectory = temporaryFolder.newFolder("journals").toPath();
+        Path source = temporaryFolder.newFile("source").toPath();
+        DeviceClient client = createResumableFileUploadClient(journalDirectory);
+        new NonStrictExpectations()
+        {
+            {
+                mockFileUpload.getFileUploadSasUri((FileUploadSasUriRequest) any);
+                result = sasUriResponse("correlation1");
+            }
+        };
+
+        //act
+        client.uploadFile("blob", source);
+
+        //assert
+        final List<FileUploadCompletionNotification> notifications = new ArrayList<>();
+        new Verifications()
+        {
+            {
+                mockBlobBlockUploader.upload((InputStream) any, (FileUploadJournal) any);
+                times = 1;
+                mockFileUpload.sendNotification(withCapture(notifications));
+                times = 1;
+            }
+        };
+        assertEquals("correlation1", notifications.get(0).getCorrelationId());
+        assertTrue(notifications.get(0).isSuccess());
+        assertFalse(hasJournal(journalDirectory));
+    }
+
+    @Test
+    public void resumableUploadFileNotifiesFailureOfInterruptedUploadBeforeRequestingNewSasUri(final @Mocked BlobBlockUploader mockBlobBlockUploader) throws Exception
+    {
+        //arrange
+        final Path journalDirectory = temporaryFolder.newFolder("journals").toPath();
+        Path source = temporaryFolder.newFile("source").toPath();
+        FileUploadJournal.open(journalDirectory, "blob", source, 1024).setCorrelationId("interruptedCorrelation");
+        DeviceClient client = createResumableFileUploadClient(journalDirectory);
+        new NonStrictExpectations()
+        {
+            {
+                mockFileUpload.getFileUploadSasUri((FileUploadSasUriRequest) any);
+                result = sasUriResponse("correlation2");
+            }
+        };
+
+        //act
+        client.uploadFile("blob", source);
+
+        //assert
+        final List<FileUploadCompletionNotification> notifications = new ArrayList<>();
+        new VerificationsInOrder()
+        {
+            {
+                mockFileUpload.sendNotification(withCapture(notifications));
+                mockFileUpload.getFileUploadSasUri((FileUploadSasUriRequest) any);
+                mockFileUpload.sendNotification(withCapture(notifications));
+            }
+        };
+        assertEquals("interruptedCorrelation", notifications.get(0).getCorrelationId());
+        assertFalse(notifications.get(0).isSuccess());
+        assertEquals("correlation2", notifications.get(1).getCorrelationId());
+        assertTrue(notifications.get(1).isSuccess());
+    }
+
+    @Test
+    public void resumableUploadFileKeepsJournalAndDoesNotNotifyAfterNetworkFailure(final @Mocked BlobBlockUploader mockBlobBlockUploader) throws Exception
+    {
+        //arrange
+        final Path journalDirectory = temporaryFolder.newFolder("journals").toPath();
+        Path source = temporaryFolder.newFile("source").toPath();
+        DeviceClient client = createResumableFileUploadClient(journalDirectory);
+        new NonStrictExpectations()
+        {
+            {
+                mockFileUpload.getFileUploadSasUri((FileUploadSasUriRequest) any);
+                result = sasUriResponse("correlation1");
+                mockBlobBlockUploader.upload((InputStream) any, (FileUploadJournal) any);
+                result = new IOException("network failure");
+            }
+        };
+
+        //act
+        try
+        {
+            client.uploadFile("blob", source);
+        }
+        catch (IOException expected)
+        {
+            // expected
+        }
+
+        //assert
+        new Verifications()
+        {
+            {
+                mockFileUpload.sendNotification((FileUploadCompletionNotification) any);
+                times = 0;
+            }
+        };
+        assertTrue(hasJournal(journalDirectory));
+    }
 }
@@ -0,0 +1,147 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.*;
+
+public class FileUploadJournalTest
+{
+    private static final int BLOCK_SIZE = 1024;
+    private static final String BLOB_NAME = "diagnostics/bundle.zip";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path journalDirectory;
+    private Path source;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        journalDirectory = temporaryFolder.getRoot().toPath().resolve("journals");
+        File sourceFile = temporaryFolder.newFile("bundle.zip");
+        source = sourceFile.toPath();
+        Files.write(source, new byte[BLOCK_SIZE * 4]);
+    }
+
+    @Test
+    public void uploadedBlocksAreReloaded() throws IOException
+    {
+        //arrange
+        FileUploadJournal journal = FileUploadJournal.open(journalDirectory, BLOB_NAME, source, BLOCK_SIZE);
+        journal.setCorrelationId("correlation1");
+        journal.blockUploaded(0);
+        journal.blockUploaded(2);
+
+        //act
+        FileUploadJournal reloadedJournal = FileUploadJournal.open(journalDirectory, BLOB_NAME, source, BLOCK_SIZE);
+
+        //assert
+        assertEquals("correlation1", reloadedJournal.getCorrelationId());
+        assertTrue(reloadedJournal.isBlockUploaded(0));
+        assertFalse(reloadedJournal.isBlockUploaded(1));
+        assertTrue(reloadedJournal.isBlockUploaded(2));
+        assertEquals(2, reloadedJournal.getUploadedBlockCount());
+    }
+
+    @Test
+    public void newSasUriKeepsUploadedBlocks() throws IOException
+    {
+        //arrange
+        FileUploadJournal journal = FileUploadJournal.open(journalDirectory, BLOB_NAME, source, BLOCK_SIZE);
+        journal.setCorrelationId("correlation1");
+        journal.blockUploaded(1);
+
+        //act
+        journal.setCorrelationId("correlation2");
+
+        //assert
+        FileUploadJournal reloadedJournal = FileUploadJournal.open(journalDirectory, BLOB_NAME, source, BLOCK_SIZE);
+        assertEquals("correlation2", reloadedJournal.getCorrelationId());
+        assertTrue(reloadedJournal.isBlockUploaded(1));
+    }
+
+    @Test
+    public void journalIsDiscardedIfFileChanged() throws IOException
+    {
+        //arrange
+        FileUploadJournal journal = FileUploadJournal.open(journalDirectory, BLOB_NAME, source, BLOCK_SIZE);
+        journal.setCorrelationId("correlation1");
+        journal.blockUploaded(0);
+        Files.write(source, new byte[BLOCK_SIZE * 5]);
+
+        //act
+        FileUploadJournal reloadedJournal = FileUploadJournal.open(journalDirectory, BLOB_NAME, source, BLOCK_SIZE);
+
+        //assert
+        assertNull(reloadedJournal.getCorrelationId());
+        assertFalse(reloadedJournal.isBlockUploaded(0));
+    }
+
+    @Test
+    public void journalIsDiscardedIfBlockSizeChanged() throws IOException
+    {
+        //arrange
+        FileUploadJournal journal = FileUploadJournal.open(journalDirectory, BLOB_NAME, source, BLOCK_SIZE);
+        journal.setCorrelationId("correlation1");
+        journal.blockUploaded(0);
+
+        //act
+        FileUploadJournal reloadedJournal = FileUploadJournal.open(journalDirectory, BLOB_NAME, source, BLOCK_SIZE * 2);
+
+        //assert
+        assertNull(reloadedJournal.getCorrelationId());
+        assertEquals(0, reloadedJournal.getUploadedBlockCount());
+    }
+
+    @Test
+    public void truncatedLastEntryIsIgnored() throws IOException
+    {
+        //arrange
+        FileUploadJournal journal = FileUploadJournal.open(journalDirectory, BLOB_NAME, source, BLOCK_SIZE);
+        journal.setCorrelationId("correlation1");
+        journal.blockUploaded(0);
+        try (java.util.stream.Stream<Path> journals = Files.list(journalDirectory))
+        {
+            Path journalPath = journals.findFirst().get();
+            Files.write(journalPath, "1x".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+        }
+
+        //act
+        FileUploadJournal reloadedJournal = FileUploadJournal.open(journalDirectory, BLOB_NAME, source, BLOCK_SIZE);
+
+        //assert
+        assertTrue(reloadedJournal.isBlockUploaded(0));
+        assertEquals(1, reloadedJournal.getUploadedBlockCount());
+    }
+
+    @Test
+    public void deletedJournalIsNotReloaded() throws IOException
+    {
+        //arrange
+        FileUploadJournal journal = FileUploadJournal.open(journalDirectory, BLOB_NAME, source, BLOCK_SIZE);
+        journal.setCorrelationId("correlation1");
+        journal.blockUploaded(0);
+
+        //act
+        journal.delete();
+
+        //assert
+        FileUploadJournal reloadedJournal = FileUploadJournal.open(journalDirectory, BLOB_NAME, source, BLOCK_SIZE);
+        assertNull(reloadedJournal.getCorrelationId());
+        assertEquals(0, reloadedJournal.getUploadedBlockCount());
+    }
+}
@@ -0,0 +1,101 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FileUploadJsonAdaptersTest
+{
+    @Test
+    public void sasUriRequestMatchesReflectiveSerialization()
+    {
+        //arrange
+        FileUploadSasUriRequest request = new FileUploadSasUriRequest("some/blob<name>.txt");
+
+        //act
+        String json = request.toJson();
+
+        //assert
+        assertEquals("{\"blobName\":\"some/blob<name>.txt\"}", json);
+    }
+
+    @Test
+    public void sasUriRequestSerializesNullBlobName()
+    {
+        //arrange
+        FileUploadSasUriRequest request = new FileUploadSasUriRequest(null);
+
+        //act
+        String json = request.toJson();
+
+        //assert
+        assertEquals("{\"blobName\":null}", json);
+    }
+
+    @Test
+    public void completionNotificationMatchesReflectiveSerialization()
+    {
+        //arrange
+        FileUploadCompletionNotification notification = new FileUploadCompletionNotification("someCorrelationId", true, 200, "Success & done");
+
+        //act
+        String json = notification.toJson();
+
+        //assert
+        assertEquals("{\"correlationId\":\"someCorrelationId\",\"isSuccess\":true,\"statusCode\":200,\"statusDescription\":\"Success & done\"}", json);
+    }
+
+    @Test
+    public void completionNotificationSerializesNullFields()
+    {
+        //arrange
+        FileUploadCompletionNotification notification = new FileUploadCompletionNotification("someCorrelationId", false);
+
+        //act
+        String json = notification.toJson();
+
+        //assert
+        assertEquals("{\"correlationId\":\"someCorrelationId\",\"isSuccess\":false,\"statusCode\":null,\"statusDescription\":null}", json);
+    }
+
+    @Test
+    public void sasUriResponseParsesAllFields()
+    {
+        //arrange
+        String json = "{\"correlationId\":\"someCorrelationId\",\"hostName\":\"storage.blob.core.windows.net\","
+            + "\"containerName\":\"container\",\"blobName\":\"blob\",\"sasToken\":\"?sig=abc\"}";
+
+        //act
+        FileUploadSasUriResponse response = new FileUploadSasUriResponse(json);
+
+        //assert
+        assertEquals("someCorrelationId", response.getCorrelationId());
+        assertEquals("storage.blob.core.windows.net", response.getHostName());
+        assertEquals("container", response.getContainerName());
+        assertEquals("blob", response.getBlobName());
+        assertEquals("?sig=abc", response.getSasToken());
+    }
+
+    @Test
+    public void sasUriResponseIgnoresUnknownAndNullFields()
+    {
+        //arrange
+        String json = "{\"correlationId\":\"someCorrelationId\",\"unknown\":{\"nested\":[1,2]},\"hostName\":null}";
+
+        //act
+        FileUploadSasUriResponse response = new FileUploadSasUriResponse(json);
+
+        //assert
+        assertEquals("someCorrelationId", response.getCorrelationId());
+        assertNull(response.getHostName());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sasUriResponseRejectsMalformedJson()
+    {
+        new FileUploadSasUriResponse("{\"correlationId\":");
+    }
+}
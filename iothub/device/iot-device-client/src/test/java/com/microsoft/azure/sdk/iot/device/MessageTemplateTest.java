@@ -0,0 +1,114 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MessageTemplateTest
+{
+    private static MessageTemplate createTemplate()
+    {
+        return MessageTemplate.builder()
+                .contentType("application/json")
+                .contentEncoding("utf-8")
+                .componentName("thermostat")
+                .property("name1", "value1")
+                .property("name2", "value2")
+                .build();
+    }
+
+    @Test
+    public void createMessageCopiesValuesOfTemplate()
+    {
+        //arrange
+        MessageTemplate template = createTemplate();
+
+        //act
+        Message message = template.createMessage("body");
+
+        //assert
+        assertSame(template, message.getMessageTemplate());
+        assertEquals("application/json", message.getContentType());
+        assertEquals("utf-8", message.getContentEncoding());
+        assertEquals("thermostat", message.getComponentName());
+        assertEquals("value1", message.getProperty("name1"));
+        assertEquals("value2", message.getProperty("name2"));
+        assertArrayEquals("body".getBytes(), message.getBytes());
+    }
+
+    @Test
+    public void messagePropertiesOutsideTemplateFollowTemplateProperties()
+    {
+        //arrange
+        MessageTemplate template = createTemplate();
+        Message message = template.createMessage(new byte[0]);
+
+        //act
+        message.setProperty("name3", "value3");
+
+        //assert
+        assertSame(template, message.getMessageTemplate());
+        List<MessageProperty> properties = message.getUnmodifiableProperties();
+        assertEquals(3, properties.size());
+        assertEquals("name1", properties.get(0).getName());
+        assertEquals("name2", properties.get(1).getName());
+        assertEquals("name3", properties.get(2).getName());
+    }
+
+    @Test
+    public void changingTemplatePropertyDetachesMessageFromTemplate()
+    {
+        //arrange
+        Message message = createTemplate().createMessage(new byte[0]);
+
+        //act
+        message.setProperty("NAME2", "otherValue");
+
+        //assert
+        assertNull(message.getMessageTemplate());
+        assertEquals("otherValue", message.getProperty("name2"));
+    }
+
+    @Test
+    public void changingTemplateValueDetachesMessageFromTemplate()
+    {
+        //arrange
+        Message contentTypeMessage = createTemplate().createMessage(new byte[0]);
+        Message contentEncodingMessage = createTemplate().createMessage(new byte[0]);
+        Message componentNameMessage = createTemplate().createMessage(new byte[0]);
+
+        //act
+        contentTypeMessage.setContentType("text/plain");
+        contentEncodingMessage.setContentEncoding("utf-16");
+        componentNameMessage.setComponentName("other");
+
+        //assert
+        assertNull(contentTypeMessage.getMessageTemplate());
+        assertNull(contentEncodingMessage.getMessageTemplate());
+        assertNull(componentNameMessage.getMessageTemplate());
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void builderRejectsPropertiesWithSameName()
+    {
+        //act
+        MessageTemplate.builder()
+                .property("name", "value1")
+                .property("NAME", "value2")
+                .build();
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void builderRejectsReservedPropertyName()
+    {
+        //act
+        MessageTemplate.builder()
+                .property("iothub-ack", "value")
+                .build();
+    }
+}
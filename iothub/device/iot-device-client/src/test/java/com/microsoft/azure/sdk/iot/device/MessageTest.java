@@ -11,6 +11,7 @@ import org.junit.Test;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.List;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
@@ -388,4 +389,46 @@ public class MessageTest
         assertTrue(msg.isSecurityMessage());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void unmodifiablePropertiesReflectSetProperties()
+    {
+        //arrange
+        Message msg = new Message();
+        List<MessageProperty> properties = msg.getUnmodifiableProperties();
+
+        //act
+        msg.setProperty("name1", "value1");
+        msg.setProperty("name2", "value2");
+        msg.setProperty("NAME1", "value3");
+
+        //assert
+        assertEquals(2, properties.size());
+        assertEquals("name2", properties.get(0).getName());
+        assertEquals("NAME1", properties.get(1).getName());
+        assertEquals("value3", properties.get(1).getValue());
+    }
+
+    @Test (expected = UnsupportedOperationException.class)
+    public void unmodifiablePropertiesRejectsChanges()
+    {
+        //arrange
+        Message msg = new Message();
+
+        //act
+        msg.getUnmodifiableProperties().add(new MessageProperty("name", "value"));
+    }
+
+    @Test
+    public void getCreationTimeUTCStringFormatsInUTC()
+    {
+        //arrange
+        Message msg = new Message();
+        msg.setCreationTimeUTC(new Date(1538413472123L));
+
+        //act
+        String creationTimeUTCString = msg.getCreationTimeUTCString();
+
+        //assert
+        assertEquals("2018-10-01T17:04:32.0000123Z", creationTimeUTCString);
+    }
+}
@@ -0,0 +1,89 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+public class SequentialMessageIdGeneratorTest
+{
+    @Test
+    public void generatedIdsAreUniqueVersion4Uuids()
+    {
+        //arrange
+        SequentialMessageIdGenerator generator = new SequentialMessageIdGenerator();
+        Set<String> ids = new HashSet<>();
+
+        //act
+        for (int i = 0; i < 1000; i++)
+        {
+            ids.add(generator.generateMessageId());
+            ids.add(generator.generateCorrelationId());
+        }
+
+        //assert
+        assertEquals(2000, ids.size());
+        for (String id : ids)
+        {
+            UUID uuid = UUID.fromString(id);
+            assertEquals(4, uuid.version());
+            assertEquals(2, uuid.variant());
+        }
+    }
+
+    @Test
+    public void separateGeneratorsDoNotRepeatIds()
+    {
+        //arrange
+        SequentialMessageIdGenerator first = new SequentialMessageIdGenerator();
+        SequentialMessageIdGenerator second = new SequentialMessageIdGenerator();
+
+        //act
+        String firstId = first.generateMessageId();
+        String secondId = second.generateMessageId();
+
+        //assert
+        assertNotEquals(firstId, secondId);
+    }
+
+    @Test
+    public void correlationIdsCanBeLeftUnset()
+    {
+        //arrange
+        SequentialMessageIdGenerator generator = new SequentialMessageIdGenerator(false);
+
+        //act
+        String correlationId = generator.generateCorrelationId();
+
+        //assert
+        assertNull(correlationId);
+        assertNotNull(generator.generateMessageId());
+    }
+
+    @Test
+    public void messagesUseTheConfiguredGenerator()
+    {
+        //arrange
+        Message.setMessageIdGenerator(new SequentialMessageIdGenerator(false));
+
+        try
+        {
+            //act
+            Message message = new Message(new byte[0]);
+
+            //assert
+            assertNotNull(message.getMessageId());
+            assertEquals("", message.getCorrelationId());
+        }
+        finally
+        {
+            Message.setMessageIdGenerator(new SequentialMessageIdGenerator());
+        }
+    }
+}
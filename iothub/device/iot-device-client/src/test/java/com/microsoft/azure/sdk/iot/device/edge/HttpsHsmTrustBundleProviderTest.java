@@ -11,6 +11,7 @@ import com.microsoft.azure.sdk.iot.device.transport.TransportException;
 import com.microsoft.azure.sdk.iot.device.hsm.HttpsHsmClient;
 import mockit.Mocked;
 import mockit.NonStrictExpectations;
+import mockit.Verifications;
 import org.junit.Test;
 
 import java.io.IOException;
@@ -57,5 +58,12 @@ public class HttpsHsmTrustBundleProviderTest
 
         //assert
         assertEquals(expectedCertificatesString, actualCertificatesString);
+        new Verifications()
+        {
+            {
+                mockedHttpsHsmClient.close();
+                times = 1;
+            }
+        };
     }
 }
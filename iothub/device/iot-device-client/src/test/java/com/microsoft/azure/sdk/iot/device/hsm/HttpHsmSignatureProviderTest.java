@@ -160,4 +160,22 @@ public class HttpHsmSignatureProviderTest
         signatureProvider.sign(keyName, null, expectedGenId);
     }
 
+    @Test
+    public void closeClosesHttpsHsmClient() throws NoSuchAlgorithmException, URISyntaxException
+    {
+        //arrange
+        HttpHsmSignatureProvider httpHsmSignatureProvider = new HttpHsmSignatureProvider(expectedProviderUri, expectedApiVersion, mockedUnixDomainSocketChannel);
+
+        //act
+        httpHsmSignatureProvider.close();
+
+        //assert
+        new Verifications()
+        {
+            {
+                mockedHttpsHsmClient.close();
+                times = 1;
+            }
+        };
+    }
 }
@@ -239,7 +239,7 @@ public class HttpsHsmClientTest
                 new HttpsRequest((URL) any, HttpsMethod.POST, expectedJson.getBytes(StandardCharsets.UTF_8), anyString);
                 result = mockedHttpsRequest;
 
-                HttpsRequestResponseSerializer.serializeRequest(mockedHttpsRequest, anyString, anyString, anyString);
+                HttpsRequestResponseSerializer.serializeRequest(mockedHttpsRequest, anyString, anyString, anyString, true);
                 result = expectedMetaData;
 
                 mockedHttpsRequest.setHeaderField(anyString, anyString);
@@ -250,15 +250,12 @@ public class HttpsHsmClientTest
 
                 mockedUnixDomainSocketChannel.open(anyString);
 
-                mockedUnixDomainSocketChannel.read((byte[]) any);
-                result = 100;
-
-                mockedUnixDomainSocketChannel.read((byte[]) any);
-                result = -1;
-
-                HttpsRequestResponseSerializer.deserializeResponse((BufferedReader) any);
+                HttpsRequestResponseSerializer.readResponse((InputStream) any);
                 result = mockedHttpsResponse;
 
+                HttpsRequestResponseSerializer.isConnectionReusable(mockedHttpsResponse);
+                result = true;
+
                 mockedHttpsResponse.getStatus();
                 result = 200;
             }
@@ -274,15 +271,18 @@ public class HttpsHsmClientTest
         new Verifications()
         {
             {
-                HttpsRequestResponseSerializer.serializeRequest(mockedHttpsRequest, anyString, anyString, anyString);
+                HttpsRequestResponseSerializer.serializeRequest(mockedHttpsRequest, anyString, anyString, anyString, true);
                 times = 1;
 
-                HttpsRequestResponseSerializer.deserializeResponse((BufferedReader) any);
+                HttpsRequestResponseSerializer.readResponse((InputStream) any);
                 times = 1;
 
                 mockedUnixDomainSocketChannel.write((byte[]) any);
                 times = 1;
 
+                mockedUnixDomainSocketChannel.close();
+                times = 0;
+
                 mockedHttpsRequest.send();
                 times = 0;
             }
@@ -15,6 +15,8 @@ import org.junit.Test;
 import java.io.IOException;
 import java.net.URISyntaxException;
 
+import static org.junit.Assert.assertNull;
+
 public class IotHubSasTokenHsmAuthenticationProviderTest
 {
     @Mocked
@@ -170,11 +172,100 @@ public class IotHubSasTokenHsmAuthenticationProviderTest
         Deencapsulation.setField(auth, "moduleId", expectedModuleId);
         Deencapsulation.setField(auth, "signatureProvider", mockedSignatureProvider);
         Deencapsulation.setField(auth, "tokenValidSecs", expectedTimeToLive);
+        Deencapsulation.setField(auth, "sasTokenSignedAtMillis", -expectedTimeToLive * 1000L);
 
         //act
         auth.refreshSasToken();
     }
 
+    @Test
+    public void getSasTokenKeepsRecentlySignedSasToken() throws TransportException, IOException
+    {
+        //arrange
+        new MockUp<System>()
+        {
+            @Mock long currentTimeMillis()
+            {
+                return 0;
+            }
+        };
+        new Expectations()
+        {
+            {
+                mockedSignatureProvider.sign("module", anyString, anyString);
+                result = expectedSignature;
+                times = 1;
+
+                mockedIotHubSasToken.toString();
+                result = expectedSharedAccessToken;
+            }
+        };
+
+        IotHubSasTokenHsmAuthenticationProvider auth = IotHubSasTokenHsmAuthenticationProvider.create(mockedSignatureProvider, expectedDeviceId, expectedModuleId, expectedHostname, "", "gen1", expectedTimeToLive, expectedBufferPercent);
+
+        //act
+        auth.getSasToken();
+    }
+
+    // An explicit refresh must replace the token even if it was signed moments ago, such as after it was rejected
+    @Test
+    public void refreshSasTokenSignsNewSasTokenEvenIfRecentlySigned() throws TransportException, IOException
+    {
+        //arrange
+        new MockUp<System>()
+        {
+            @Mock long currentTimeMillis()
+            {
+                return 0;
+            }
+        };
+        new Expectations()
+        {
+            {
+                mockedSignatureProvider.sign("module", anyString, anyString);
+                result = expectedSignature;
+                times = 2;
+            }
+        };
+
+        IotHubSasTokenHsmAuthenticationProvider auth = IotHubSasTokenHsmAuthenticationProvider.create(mockedSignatureProvider, expectedDeviceId, expectedModuleId, expectedHostname, "", "gen1", expectedTimeToLive, expectedBufferPercent);
+        Deencapsulation.setField(auth, "hostname", expectedHostname);
+        Deencapsulation.setField(auth, "gatewayHostname", "");
+        Deencapsulation.setField(auth, "deviceId", expectedDeviceId);
+        Deencapsulation.setField(auth, "moduleId", expectedModuleId);
+
+        //act
+        auth.refreshSasToken();
+    }
+
+    @Test
+    public void closeClosesSignatureProvider() throws TransportException, IOException
+    {
+        //arrange
+        new NonStrictExpectations()
+        {
+            {
+                mockedSignatureProvider.sign("module", anyString, anyString);
+                result = expectedSignature;
+            }
+        };
+
+        IotHubSasTokenHsmAuthenticationProvider auth = IotHubSasTokenHsmAuthenticationProvider.create(mockedSignatureProvider, expectedDeviceId, expectedModuleId, expectedHostname, "", "gen1", expectedTimeToLive, expectedBufferPercent);
+
+        //act
+        auth.close();
+
+        //assert
+        assertNull(Deencapsulation.getField(auth, "preSignTask"));
+        new Verifications()
+        {
+            {
+                mockedSignatureProvider.close();
+                times = 1;
+            }
+        };
+    }
+
     // Tests_SRS_MODULEAUTHENTICATIONWITHHSM_34_002: [If the provided signature provider is null, this function shall throw an IllegalArgumentException.]
     @Test (expected = IllegalArgumentException.class)
     public void staticConstructorThrowsForNullSignatureProvider() throws IOException, TransportException
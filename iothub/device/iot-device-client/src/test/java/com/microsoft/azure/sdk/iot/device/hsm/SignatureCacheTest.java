@@ -0,0 +1,161 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device.hsm;
+
+import com.microsoft.azure.sdk.iot.device.transport.TransportException;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SignatureCacheTest
+{
+    private static final long RETAIN_FOR_AN_HOUR = System.currentTimeMillis() + 60 * 60 * 1000;
+
+    @Test
+    public void signatureIsCachedUntilItExpires() throws Exception
+    {
+        //arrange
+        SignatureCache cache = new SignatureCache(10);
+        AtomicInteger signCount = new AtomicInteger();
+
+        //act
+        String first = cache.get("key", RETAIN_FOR_AN_HOUR, () -> "signature" + signCount.incrementAndGet());
+        String second = cache.get("key", RETAIN_FOR_AN_HOUR, () -> "signature" + signCount.incrementAndGet());
+
+        //assert
+        assertEquals("signature1", first);
+        assertEquals("signature1", second);
+        assertEquals(1, signCount.get());
+    }
+
+    @Test
+    public void expiredSignatureIsNotReused() throws Exception
+    {
+        //arrange
+        SignatureCache cache = new SignatureCache(10);
+        AtomicInteger signCount = new AtomicInteger();
+        long alreadyExpired = System.currentTimeMillis() - 1;
+
+        //act
+        cache.get("key", alreadyExpired, () -> "signature" + signCount.incrementAndGet());
+        String second = cache.get("key", RETAIN_FOR_AN_HOUR, () -> "signature" + signCount.incrementAndGet());
+
+        //assert
+        assertEquals("signature2", second);
+        assertEquals(2, signCount.get());
+    }
+
+    @Test
+    public void differentKeysAreSignedSeparately() throws Exception
+    {
+        //arrange
+        SignatureCache cache = new SignatureCache(10);
+
+        //act
+        String first = cache.get("key1", RETAIN_FOR_AN_HOUR, () -> "signature1");
+        String second = cache.get("key2", RETAIN_FOR_AN_HOUR, () -> "signature2");
+
+        //assert
+        assertEquals("signature1", first);
+        assertEquals("signature2", second);
+    }
+
+    @Test
+    public void failedSignatureIsNotCached() throws Exception
+    {
+        //arrange
+        SignatureCache cache = new SignatureCache(10);
+        try
+        {
+            cache.get("key", RETAIN_FOR_AN_HOUR, () ->
+            {
+                throw new TransportException("HSM unreachable");
+            });
+            fail("Expected the signer's exception to be thrown");
+        }
+        catch (TransportException expected)
+        {
+            // expected
+        }
+
+        //act
+        String signature = cache.get("key", RETAIN_FOR_AN_HOUR, () -> "signature");
+
+        //assert
+        assertEquals("signature", signature);
+    }
+
+    @Test
+    public void concurrentIdenticalRequestsAreCoalesced() throws Exception
+    {
+        //arrange
+        SignatureCache cache = new SignatureCache(10);
+        AtomicInteger signCount = new AtomicInteger();
+        CountDownLatch signStarted = new CountDownLatch(1);
+        CountDownLatch releaseSign = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try
+        {
+            Future<String> first = executor.submit(() -> cache.get("key", RETAIN_FOR_AN_HOUR, () ->
+            {
+                signCount.incrementAndGet();
+                signStarted.countDown();
+                try
+                {
+                    releaseSign.await();
+                }
+                catch (InterruptedException e)
+                {
+                    throw new TransportException(e);
+                }
+
+                return "signature";
+            }));
+            assertTrue(signStarted.await(10, TimeUnit.SECONDS));
+
+            //act
+            Future<String> second = executor.submit(() -> cache.get("key", RETAIN_FOR_AN_HOUR, () ->
+            {
+                signCount.incrementAndGet();
+                return "other signature";
+            }));
+            Thread.sleep(100);
+            releaseSign.countDown();
+
+            //assert
+            assertEquals("signature", first.get(10, TimeUnit.SECONDS));
+            assertEquals("signature", second.get(10, TimeUnit.SECONDS));
+            assertEquals(1, signCount.get());
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void signaturesBeyondMaximumEntriesAreNotKept() throws Exception
+    {
+        //arrange
+        SignatureCache cache = new SignatureCache(1);
+        AtomicInteger signCount = new AtomicInteger();
+        cache.get("key1", RETAIN_FOR_AN_HOUR, () -> "signature" + signCount.incrementAndGet());
+
+        //act
+        cache.get("key2", RETAIN_FOR_AN_HOUR, () -> "signature" + signCount.incrementAndGet());
+        String third = cache.get("key2", RETAIN_FOR_AN_HOUR, () -> "signature" + signCount.incrementAndGet());
+
+        //assert
+        assertEquals("signature3", third);
+        assertEquals("signature1", cache.get("key1", RETAIN_FOR_AN_HOUR, () -> "unexpected"));
+    }
+}
@@ -0,0 +1,268 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device.hsm;
+
+import com.microsoft.azure.sdk.iot.device.transport.https.HttpsResponse;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+import static org.junit.Assert.*;
+
+public class UnixDomainSocketHttpConnectionTest
+{
+    private static final String ADDRESS = "/var/run/iotedge/workload.sock";
+    private static final byte[] REQUEST = "GET /trust-bundle HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    @Test
+    public void readResponseReadsBinaryBodyByContentLengthAndLeavesNextResponseUnread() throws IOException
+    {
+        //arrange
+        byte[] body = new byte[] { '{', '\n', '\r', 0, (byte) 0xFF, '\n', '}' };
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        stream.write(response("HTTP/1.1 200 OK", "Content-Length: " + body.length, body));
+        stream.write(response("HTTP/1.1 404 Not Found", "Content-Length: 2", "{}".getBytes(StandardCharsets.US_ASCII)));
+        InputStream inputStream = new ByteArrayInputStream(stream.toByteArray());
+
+        //act
+        HttpsResponse first = HttpsRequestResponseSerializer.readResponse(inputStream);
+        HttpsResponse second = HttpsRequestResponseSerializer.readResponse(inputStream);
+
+        //assert
+        assertEquals(200, first.getStatus());
+        assertArrayEquals(body, first.getBody());
+        assertEquals(404, second.getStatus());
+        assertEquals("Not Found", new String(second.getErrorReason(), StandardCharsets.UTF_8));
+        assertArrayEquals("{}".getBytes(StandardCharsets.US_ASCII), second.getBody());
+        assertEquals(-1, inputStream.read());
+    }
+
+    @Test
+    public void readResponseReadsChunkedBody() throws IOException
+    {
+        //arrange
+        String rawResponse = "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n"
+            + "5\r\nhello\r\n"
+            + "7;extension=1\r\n, world\r\n"
+            + "0\r\nSome-Trailer: value\r\n\r\n";
+
+        //act
+        HttpsResponse response = HttpsRequestResponseSerializer.readResponse(new ByteArrayInputStream(rawResponse.getBytes(StandardCharsets.US_ASCII)));
+
+        //assert
+        assertEquals("hello, world", new String(response.getBody(), StandardCharsets.US_ASCII));
+        assertTrue(HttpsRequestResponseSerializer.isConnectionReusable(response));
+    }
+
+    @Test
+    public void readResponseTrimsHeaderValues() throws IOException
+    {
+        //arrange
+        byte[] rawResponse = response("HTTP/1.1 200 OK", "Content-Type:   application/json  \r\nContent-Length: 0", new byte[0]);
+
+        //act
+        HttpsResponse response = HttpsRequestResponseSerializer.readResponse(new ByteArrayInputStream(rawResponse));
+
+        //assert
+        assertEquals("application/json", response.getHeaderField("content-type"));
+        assertEquals(0, response.getBody().length);
+    }
+
+    @Test
+    public void responseWithoutLengthIsReadToEndAndNotReusable() throws IOException
+    {
+        //arrange
+        byte[] rawResponse = "HTTP/1.1 200 OK\r\nContent-Type: application/json\r\n\r\n{\"a\":1}".getBytes(StandardCharsets.US_ASCII);
+
+        //act
+        HttpsResponse response = HttpsRequestResponseSerializer.readResponse(new ByteArrayInputStream(rawResponse));
+
+        //assert
+        assertEquals("{\"a\":1}", new String(response.getBody(), StandardCharsets.US_ASCII));
+        assertFalse(HttpsRequestResponseSerializer.isConnectionReusable(response));
+    }
+
+    @Test
+    public void responseWithConnectionCloseIsNotReusable() throws IOException
+    {
+        //arrange
+        byte[] rawResponse = response("HTTP/1.1 200 OK", "Connection: close\r\nContent-Length: 0", new byte[0]);
+
+        //act
+        HttpsResponse response = HttpsRequestResponseSerializer.readResponse(new ByteArrayInputStream(rawResponse));
+
+        //assert
+        assertFalse(HttpsRequestResponseSerializer.isConnectionReusable(response));
+    }
+
+    @Test(expected = IOException.class)
+    public void readResponseThrowsForTruncatedBody() throws IOException
+    {
+        //arrange
+        byte[] rawResponse = response("HTTP/1.1 200 OK", "Content-Length: 10", "short".getBytes(StandardCharsets.US_ASCII));
+
+        //act
+        HttpsRequestResponseSerializer.readResponse(new ByteArrayInputStream(rawResponse));
+    }
+
+    @Test
+    public void connectionIsReusedAcrossRequests() throws IOException
+    {
+        //arrange
+        FakeChannel channel = new FakeChannel();
+        channel.responses.add(response("HTTP/1.1 200 OK", "Content-Length: 5", "first".getBytes(StandardCharsets.US_ASCII)));
+        channel.responses.add(response("HTTP/1.1 200 OK", "Content-Length: 6", "second".getBytes(StandardCharsets.US_ASCII)));
+        UnixDomainSocketHttpConnection connection = new UnixDomainSocketHttpConnection(channel);
+
+        //act
+        HttpsResponse first = connection.send(ADDRESS, REQUEST);
+        HttpsResponse second = connection.send(ADDRESS, REQUEST);
+
+        //assert
+        assertEquals("first", new String(first.getBody(), StandardCharsets.US_ASCII));
+        assertEquals("second", new String(second.getBody(), StandardCharsets.US_ASCII));
+        assertEquals(1, channel.openCount);
+        assertEquals(0, channel.closeCount);
+    }
+
+    @Test
+    public void closeClosesOpenChannelOnce() throws IOException
+    {
+        //arrange
+        FakeChannel channel = new FakeChannel();
+        channel.responses.add(response("HTTP/1.1 200 OK", "Content-Length: 0", new byte[0]));
+        channel.responses.add(response("HTTP/1.1 200 OK", "Content-Length: 0", new byte[0]));
+        UnixDomainSocketHttpConnection connection = new UnixDomainSocketHttpConnection(channel);
+        connection.send(ADDRESS, REQUEST);
+
+        //act
+        connection.close();
+        connection.close();
+
+        //assert
+        assertEquals(1, channel.closeCount);
+        connection.send(ADDRESS, REQUEST);
+        assertEquals(2, channel.openCount);
+    }
+
+    @Test
+    public void connectionIsClosedWhenServerAsksForIt() throws IOException
+    {
+        //arrange
+        FakeChannel channel = new FakeChannel();
+        channel.responses.add(response("HTTP/1.1 200 OK", "Connection: close\r\nContent-Length: 0", new byte[0]));
+        channel.responses.add(response("HTTP/1.1 200 OK", "Content-Length: 0", new byte[0]));
+        UnixDomainSocketHttpConnection connection = new UnixDomainSocketHttpConnection(channel);
+
+        //act
+        connection.send(ADDRESS, REQUEST);
+        connection.send(ADDRESS, REQUEST);
+
+        //assert
+        assertEquals(2, channel.openCount);
+        assertEquals(1, channel.closeCount);
+    }
+
+    @Test
+    public void requestIsRetriedOnceIfReusedConnectionWasClosedByServer() throws IOException
+    {
+        //arrange
+        FakeChannel channel = new FakeChannel();
+        channel.responses.add(response("HTTP/1.1 200 OK", "Content-Length: 5", "first".getBytes(StandardCharsets.US_ASCII)));
+        channel.responses.add(response("HTTP/1.1 200 OK", "Content-Length: 6", "second".getBytes(StandardCharsets.US_ASCII)));
+        UnixDomainSocketHttpConnection connection = new UnixDomainSocketHttpConnection(channel);
+        connection.send(ADDRESS, REQUEST);
+        channel.closedByServer = true;
+
+        //act
+        HttpsResponse response = connection.send(ADDRESS, REQUEST);
+
+        //assert
+        assertEquals("second", new String(response.getBody(), StandardCharsets.US_ASCII));
+        assertEquals(2, channel.openCount);
+    }
+
+    @Test(expected = IOException.class)
+    public void requestIsNotRetriedOnNewConnection() throws IOException
+    {
+        //arrange
+        FakeChannel channel = new FakeChannel();
+        channel.closedByServer = true;
+        UnixDomainSocketHttpConnection connection = new UnixDomainSocketHttpConnection(channel);
+
+        //act
+        connection.send(ADDRESS, REQUEST);
+    }
+
+    private static byte[] response(String statusLine, String headers, byte[] body) throws IOException
+    {
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        response.write((statusLine + "\r\n" + headers + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        response.write(body);
+        return response.toByteArray();
+    }
+
+    /**
+     * Responds to each request with the next queued response, handing it out a few bytes at a time.
+     */
+    private static class FakeChannel implements UnixDomainSocketChannel
+    {
+        final Queue<byte[]> responses = new ArrayDeque<>();
+        int openCount;
+        int closeCount;
+
+        // if true, the open connection is closed by the server before the next response, and is reopened normally
+        boolean closedByServer;
+
+        private ByteArrayInputStream readable = new ByteArrayInputStream(new byte[0]);
+
+        @Override
+        public void open(String address)
+        {
+            assertEquals(ADDRESS, address);
+            openCount++;
+            if (openCount > 1)
+            {
+                closedByServer = false;
+            }
+        }
+
+        @Override
+        public void write(byte[] output)
+        {
+            if (!closedByServer)
+            {
+                readable = new ByteArrayInputStream(responses.remove());
+            }
+        }
+
+        @Override
+        public int read(byte[] inputBuffer)
+        {
+            if (closedByServer)
+            {
+                return -1;
+            }
+
+            if (readable.available() == 0)
+            {
+                fail("Read past the end of the response, which would block on a kept alive connection");
+            }
+
+            return readable.read(inputBuffer, 0, Math.min(inputBuffer.length, 7));
+        }
+
+        @Override
+        public void close()
+        {
+            closeCount++;
+        }
+    }
+}
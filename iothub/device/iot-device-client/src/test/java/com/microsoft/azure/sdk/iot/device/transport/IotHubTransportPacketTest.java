@@ -196,4 +196,17 @@ public class IotHubTransportPacketTest
         //act
         new IotHubTransportPacket(mockMsg, mockCallback, new Object(), IotHubStatusCode.OK, -1, null);
     }
+
+    @Test
+    public void laterPacketsHaveHigherSequenceNumbers()
+    {
+        //arrange
+        IotHubTransportPacket first = new IotHubTransportPacket(mockMsg, mockCallback, null, IotHubStatusCode.OK, 10, null);
+
+        //act
+        IotHubTransportPacket second = new IotHubTransportPacket(mockMsg, mockCallback, null, IotHubStatusCode.OK, 10, null);
+
+        //assert
+        assertThat(second.getSequenceNumber() > first.getSequenceNumber(), is(true));
+    }
 }
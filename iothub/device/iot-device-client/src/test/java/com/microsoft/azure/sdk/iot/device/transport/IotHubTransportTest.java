@@ -13,6 +13,7 @@ import com.microsoft.azure.sdk.iot.device.transport.mqtt.MqttIotHubConnection;
 import com.microsoft.azure.sdk.iot.device.transport.mqtt.exceptions.MqttUnauthorizedException;
 import mockit.*;
 import org.junit.Test;
+import org.slf4j.Logger;
 
 import java.io.IOException;
 import java.util.*;
@@ -376,6 +377,74 @@ public class IotHubTransportTest
         transport.close(null, mockedTransportException);
     }
 
+    // An unhealthy network must not hold back the reconnection past the operation timeout
+    @Test
+    public void singleReconnectAttemptClosesWithRetryExpiredWhenReconnectCoordinatorTimesOut(@Mocked final ReconnectCoordinator mockedReconnectCoordinator) throws TransportException, InterruptedException
+    {
+        //arrange
+        final StringBuilder methodsCalled = new StringBuilder();
+        new MockUp<IotHubTransport>()
+        {
+            @Mock void close(IotHubConnectionStatusChangeReason reason, Throwable cause)
+            {
+                if (reason == RETRY_EXPIRED)
+                {
+                    methodsCalled.append("close");
+                }
+            }
+        };
+
+        new Expectations()
+        {
+            {
+                mockedConfig.getDeviceId();
+                result = "someDeviceId";
+            }
+        };
+
+        final IotHubTransport transport = new IotHubTransport(mockedConfig, mockedIotHubConnectionStatusChangeCallback, false);
+        Deencapsulation.setField(transport, "iotHubTransportConnection", mockedIotHubTransportConnection);
+        Deencapsulation.setField(transport, "connectionStatusLastException", mockedTransportException);
+        final long reconnectionStartTimeMillis = System.currentTimeMillis();
+
+        new NonStrictExpectations()
+        {
+            {
+                mockedConfig.getOperationTimeout();
+                result = 60 * 1000;
+
+                mockedRetryPolicy.getRetryDecision(anyInt, (TransportException) any);
+                result = mockedRetryDecision;
+
+                mockedRetryDecision.shouldRetry();
+                result = true;
+
+                mockedRetryDecision.getDuration();
+                result = 0;
+
+                mockedReconnectCoordinator.awaitAdmission(anyLong);
+                result = false;
+            }
+        };
+
+        //act
+        Deencapsulation.invoke(transport, "singleReconnectAttempt", mockedRetryPolicy, mockedReconnectCoordinator, 0, reconnectionStartTimeMillis);
+
+        //assert
+        assertEquals("close", methodsCalled.toString());
+        new Verifications()
+        {
+            {
+                long remainingMillis;
+                mockedReconnectCoordinator.awaitAdmission(remainingMillis = withCapture());
+                assertTrue(remainingMillis > 0 && remainingMillis <= 60 * 1000);
+
+                mockedIotHubTransportConnection.close();
+                times = 0;
+            }
+        };
+    }
+
     //Tests_SRS_IOTHUBTRANSPORT_34_021: [This function shall move all waiting messages to the callback queue with status MESSAGE_CANCELLED_ONCLOSE.]
     //Tests_SRS_IOTHUBTRANSPORT_34_022: [This function shall move all in progress messages to the callback queue with status MESSAGE_CANCELLED_ONCLOSE.]
     //Tests_SRS_IOTHUBTRANSPORT_34_023: [This function shall invoke all callbacks.]
@@ -1169,6 +1238,74 @@ public class IotHubTransportTest
         assertEquals(1, waitingPacketsQueue.size());
     }
 
+    // Messages created by a SequentialMessageIdGenerator that leaves the correlation id unset
+    @SuppressWarnings("EmptyMethod")
+    @Test
+    public void sendMessagesAndOnMessageSentSucceedForMessageWithoutCorrelationId(@Capturing final Logger mockedLogger)
+    {
+        //arrange
+        new MockUp<IotHubTransport>()
+        {
+            @Mock void sendPacket(IotHubTransportPacket packet)
+            {
+                //do nothing
+            }
+
+            @Mock boolean isMessageValid(IotHubTransportPacket packet)
+            {
+                return true;
+            }
+        };
+
+        new Expectations()
+        {
+            {
+                mockedConfig.getDeviceId();
+                result = "someDeviceId";
+            }
+        };
+
+        final IotHubTransport transport = new IotHubTransport(mockedConfig, mockedIotHubConnectionStatusChangeCallback, false);
+        final String messageId = "1234";
+        final Map<String, IotHubTransportPacket> inProgressPackets = new ConcurrentHashMap<>();
+        inProgressPackets.put(messageId, mockedPacket);
+        Deencapsulation.setField(transport, "connectionStatus", CONNECTED);
+        Deencapsulation.setField(transport, "inProgressPackets", inProgressPackets);
+        Queue<IotHubTransportPacket> waitingPacketsQueue = new ConcurrentLinkedQueue<>();
+        waitingPacketsQueue.add(mockedPacket);
+        Deencapsulation.setField(transport, "waitingPacketsQueue", waitingPacketsQueue);
+
+        new NonStrictExpectations()
+        {
+            {
+                mockedPacket.getMessage();
+                result = mockedMessage;
+
+                mockedMessage.getMessageId();
+                result = messageId;
+
+                mockedMessage.getCorrelationId();
+                result = null;
+            }
+        };
+
+        //act
+        transport.sendMessages();
+        transport.onMessageSent(mockedMessage, null, null);
+
+        //assert
+        assertTrue(waitingPacketsQueue.isEmpty());
+        Queue<IotHubTransportPacket> callbackPacketsQueue = Deencapsulation.getField(transport, "callbackPacketsQueue");
+        assertEquals(1, callbackPacketsQueue.size());
+        new Verifications()
+        {
+            {
+                mockedLogger.warn(anyString, (Throwable) any);
+                times = 0;
+            }
+        };
+    }
+
     //Tests_SRS_IOTHUBTRANSPORT_34_045: [This function shall dequeue each packet in the callback queue and onStatusChanged
     // their saved callback with their saved status and context]
     @Test
@@ -2649,6 +2786,67 @@ public class IotHubTransportTest
         };
     }
 
+    // In progress packets are resent ahead of the packets that were still waiting, in the order they were first queued
+    // in, and without being reported to their correlation callbacks as queued a second time
+    @Test
+    public void clearInProgressMessagesRequeuesInProgressPacketsInOrderAheadOfWaitingPackets(
+        @Injectable final IotHubTransportPacket firstPacket,
+        @Injectable final IotHubTransportPacket secondPacket,
+        @Injectable final IotHubTransportPacket waitingPacket,
+        @Mocked final CorrelatingMessageCallback mockedCorrelatingMessageCallback)
+    {
+        //arrange
+        new NonStrictExpectations()
+        {
+            {
+                mockedConfig.getDeviceId();
+                result = "someDeviceId";
+
+                firstPacket.getSequenceNumber();
+                result = 1L;
+                secondPacket.getSequenceNumber();
+                result = 2L;
+                waitingPacket.getSequenceNumber();
+                result = 3L;
+
+                firstPacket.getMessage();
+                result = mockedMessage;
+                secondPacket.getMessage();
+                result = mockedMessage;
+                mockedMessage.getCorrelationId();
+                result = "someCorrelationId";
+                mockedMessage.getCorrelatingMessageCallback();
+                result = mockedCorrelatingMessageCallback;
+            }
+        };
+
+        IotHubTransport transport = new IotHubTransport(mockedConfig, mockedIotHubConnectionStatusChangeCallback, false);
+        Map<String, IotHubTransportPacket> inProgressMessages = new HashMap<>();
+        Queue<IotHubTransportPacket> waitingPacketsQueue = new ConcurrentLinkedQueue<>();
+        Deencapsulation.setField(transport, "inProgressPackets", inProgressMessages);
+        Deencapsulation.setField(transport, "waitingPacketsQueue", waitingPacketsQueue);
+
+        // hash map iteration order would put the second packet first
+        inProgressMessages.put("a", secondPacket);
+        inProgressMessages.put("b", firstPacket);
+        waitingPacketsQueue.add(waitingPacket);
+
+        //act
+        Deencapsulation.invoke(transport, "clearInProgressMessages");
+
+        //assert
+        assertTrue(inProgressMessages.isEmpty());
+        assertEquals(Arrays.asList(firstPacket, secondPacket, waitingPacket), new ArrayList<>(waitingPacketsQueue));
+        assertEquals(2, transport.getSendThreadSemaphore().availablePermits());
+        new Verifications()
+        {
+            {
+                mockedCorrelatingMessageCallback.onRequestQueued((Message) any, any);
+                times = 0;
+            }
+        };
+    }
+
     @Test
     public void sendMessagesChecksForExpiredMessagesInInProgressPackets()
     {
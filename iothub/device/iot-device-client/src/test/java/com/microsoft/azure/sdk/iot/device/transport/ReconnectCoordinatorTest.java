@@ -0,0 +1,215 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device.transport;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ReconnectCoordinatorTest
+{
+    @Test
+    public void attemptsWithinBurstAreAdmittedImmediately()
+    {
+        //arrange
+        ReconnectCoordinator coordinator = new ReconnectCoordinator(1, 5);
+
+        //act
+        List<Long> delays = new ArrayList<>();
+        for (int i = 0; i < 5; i++)
+        {
+            delays.add(coordinator.reserveAdmission(Long.MAX_VALUE));
+        }
+
+        //assert
+        for (long delay : delays)
+        {
+            assertEquals(0, delay);
+        }
+    }
+
+    @Test
+    public void attemptsBeyondBurstAreSpreadOutAtTheConfiguredRate()
+    {
+        //arrange
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(100);
+        ReconnectCoordinator coordinator = new ReconnectCoordinator(10, 2);
+        coordinator.reserveAdmission(Long.MAX_VALUE);
+        coordinator.reserveAdmission(Long.MAX_VALUE);
+
+        //act
+        long firstDelay = coordinator.reserveAdmission(Long.MAX_VALUE);
+        long secondDelay = coordinator.reserveAdmission(Long.MAX_VALUE);
+
+        //assert
+        // each delayed attempt lands somewhere within its own slot, the first slot starting one interval from now
+        assertTrue(firstDelay > 0);
+        assertTrue(firstDelay < 2 * intervalNanos);
+        assertTrue(secondDelay >= intervalNanos);
+        assertTrue(secondDelay < 3 * intervalNanos);
+    }
+
+    @Test
+    public void awaitAdmissionWaitsForHealthyProbe() throws InterruptedException
+    {
+        //arrange
+        AtomicInteger probeCount = new AtomicInteger();
+        ReconnectCoordinator coordinator = new ReconnectCoordinator(1000, 10, () -> probeCount.incrementAndGet() >= 3, 20);
+
+        //act
+        long startMillis = System.currentTimeMillis();
+        coordinator.awaitAdmission(Long.MAX_VALUE);
+        long elapsedMillis = System.currentTimeMillis() - startMillis;
+
+        //assert
+        assertEquals(3, probeCount.get());
+        assertTrue("Expected to wait a probe interval after each unhealthy probe", elapsedMillis >= 40);
+    }
+
+    @Test
+    public void awaitAdmissionGivesUpWhenProbeStaysUnhealthyPastTimeout() throws InterruptedException
+    {
+        //arrange
+        AtomicInteger probeCount = new AtomicInteger();
+        ReconnectCoordinator coordinator = new ReconnectCoordinator(1000, 10, () ->
+        {
+            probeCount.incrementAndGet();
+            return false;
+        }, 20);
+
+        //act
+        long startMillis = System.currentTimeMillis();
+        boolean admitted = coordinator.awaitAdmission(100);
+        long elapsedMillis = System.currentTimeMillis() - startMillis;
+
+        //assert
+        assertFalse(admitted);
+        assertTrue(probeCount.get() > 1);
+        assertTrue("Expected to give up once the timeout passed", elapsedMillis >= 100 && elapsedMillis < 5 * 1000);
+    }
+
+    @Test
+    public void awaitAdmissionGivesUpWhenRateLimitDelaysPastTimeout() throws InterruptedException
+    {
+        //arrange
+        ReconnectCoordinator coordinator = new ReconnectCoordinator(1, 1);
+        coordinator.reserveAdmission(Long.MAX_VALUE);
+
+        //act
+        long startMillis = System.currentTimeMillis();
+        boolean admitted = coordinator.awaitAdmission(500);
+        long elapsedMillis = System.currentTimeMillis() - startMillis;
+
+        //assert
+        assertFalse(admitted);
+        assertTrue("Expected to give up without waiting out the timeout", elapsedMillis < 400);
+    }
+
+    @Test
+    public void attemptThatTimesOutDoesNotTakeToken()
+    {
+        //arrange
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1);
+        ReconnectCoordinator coordinator = new ReconnectCoordinator(1, 1);
+        coordinator.reserveAdmission(Long.MAX_VALUE);
+
+        //act
+        long timedOutDelay = coordinator.reserveAdmission(TimeUnit.MILLISECONDS.toNanos(500));
+        long nextDelay = coordinator.reserveAdmission(Long.MAX_VALUE);
+
+        //assert
+        // the next attempt still gets the first slot, rather than the one after the timed out attempt's slot
+        assertEquals(-1, timedOutDelay);
+        assertTrue(nextDelay < 2 * intervalNanos);
+    }
+
+    @Test
+    public void healthyProbeResultIsSharedByLaterAttempts() throws InterruptedException
+    {
+        //arrange
+        AtomicInteger probeCount = new AtomicInteger();
+        ReconnectCoordinator coordinator = new ReconnectCoordinator(1000, 10, () ->
+        {
+            probeCount.incrementAndGet();
+            return true;
+        }, 60 * 1000);
+
+        //act
+        coordinator.awaitAdmission(Long.MAX_VALUE);
+        coordinator.awaitAdmission(Long.MAX_VALUE);
+        coordinator.awaitAdmission(Long.MAX_VALUE);
+
+        //assert
+        assertEquals(1, probeCount.get());
+    }
+
+    @Test
+    public void concurrentAttemptsShareOneProbe() throws InterruptedException
+    {
+        //arrange
+        AtomicInteger probeCount = new AtomicInteger();
+        ReconnectCoordinator coordinator = new ReconnectCoordinator(1000, 10, () ->
+        {
+            probeCount.incrementAndGet();
+            Thread.sleep(100);
+            return true;
+        }, 60 * 1000);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 5; i++)
+        {
+            threads.add(new Thread(() ->
+            {
+                try
+                {
+                    coordinator.awaitAdmission(Long.MAX_VALUE);
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+        }
+
+        //act
+        for (Thread thread : threads)
+        {
+            thread.start();
+        }
+
+        for (Thread thread : threads)
+        {
+            thread.join(10 * 1000);
+        }
+
+        //assert
+        assertEquals(1, probeCount.get());
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsForNonPositiveRate()
+    {
+        //act
+        new ReconnectCoordinator(0, 1);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsForNonPositiveBurst()
+    {
+        //act
+        new ReconnectCoordinator(1, 0);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsForHealthProbeWithoutInterval()
+    {
+        //act
+        new ReconnectCoordinator(1, 1, () -> true, 0);
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.sdk.iot.device.transport.amqps;
+
+import com.microsoft.azure.sdk.iot.device.transport.IotHubTransportMessage;
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.messaging.ApplicationProperties;
+import org.apache.qpid.proton.amqp.messaging.Data;
+import org.apache.qpid.proton.amqp.messaging.Properties;
+import org.apache.qpid.proton.engine.Receiver;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the conversion of proton messages to IoT Hub messages in AmqpsReceiverLinkHandler
+ */
+public class AmqpsReceiverLinkHandlerTest
+{
+    private static AmqpsReceiverLinkHandler createReceiverLinkHandler()
+    {
+        Receiver receiver = Proton.connection().session().receiver("receiver");
+        return new AmqpsReceiverLinkHandler(receiver, null, "linkCorrelationId")
+        {
+            @Override
+            String getLinkInstanceType()
+            {
+                return "test";
+            }
+        };
+    }
+
+    @Test
+    public void protonMessageToIoTHubMessageConvertsBodyAndProperties()
+    {
+        //arrange
+        AmqpsReceiverLinkHandler receiverLinkHandler = createReceiverLinkHandler();
+        AmqpsMessage protonMessage = new AmqpsMessage();
+        protonMessage.setBody(new Data(new Binary("body".getBytes(StandardCharsets.UTF_8))));
+        Properties properties = new Properties();
+        properties.setMessageId("messageId");
+        properties.setCorrelationId("correlationId");
+        protonMessage.setProperties(properties);
+        Map<String, Object> applicationProperties = new HashMap<>();
+        applicationProperties.put("name", "value");
+        protonMessage.setApplicationProperties(new ApplicationProperties(applicationProperties));
+
+        //act
+        IotHubTransportMessage message = receiverLinkHandler.protonMessageToIoTHubMessage(protonMessage);
+
+        //assert
+        assertArrayEquals("body".getBytes(StandardCharsets.UTF_8), message.getBytes());
+        assertEquals("messageId", message.getMessageId());
+        assertEquals("correlationId", message.getCorrelationId());
+        assertEquals("value", message.getProperty("name"));
+    }
+
+    @Test
+    public void protonMessageToIoTHubMessageCopiesOnlyTheBodyOfPartialArray()
+    {
+        //arrange
+        AmqpsReceiverLinkHandler receiverLinkHandler = createReceiverLinkHandler();
+        byte[] array = "xxbodyxx".getBytes(StandardCharsets.UTF_8);
+        AmqpsMessage protonMessage = new AmqpsMessage();
+        protonMessage.setBody(new Data(new Binary(array, 2, 4)));
+
+        //act
+        IotHubTransportMessage message = receiverLinkHandler.protonMessageToIoTHubMessage(protonMessage);
+
+        //assert
+        assertArrayEquals("body".getBytes(StandardCharsets.UTF_8), message.getBytes());
+    }
+
+    @Test
+    public void protonMessageToIoTHubMessageWithoutBodyHasEmptyBody()
+    {
+        //arrange
+        AmqpsReceiverLinkHandler receiverLinkHandler = createReceiverLinkHandler();
+
+        //act
+        IotHubTransportMessage message = receiverLinkHandler.protonMessageToIoTHubMessage(new AmqpsMessage());
+
+        //assert
+        assertArrayEquals(new byte[0], message.getBytes());
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.sdk.iot.device.transport.amqps;
+
+import com.microsoft.azure.sdk.iot.device.Message;
+import com.microsoft.azure.sdk.iot.device.MessageTemplate;
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.amqp.Symbol;
+import org.apache.qpid.proton.amqp.messaging.MessageAnnotations;
+import org.apache.qpid.proton.engine.Connection;
+import org.apache.qpid.proton.engine.Sender;
+import org.apache.qpid.proton.message.impl.MessageImpl;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the conversion of IoT Hub messages to proton messages in AmqpsSenderLinkHandler
+ */
+public class AmqpsSenderLinkHandlerTest
+{
+    private static AmqpsSenderLinkHandler createSenderLinkHandler()
+    {
+        Connection connection = Proton.connection();
+        Sender sender = connection.session().sender("sender");
+        return new AmqpsSenderLinkHandler(sender, null, "linkCorrelationId", null)
+        {
+            @Override
+            protected String getLinkInstanceType()
+            {
+                return "test";
+            }
+        };
+    }
+
+    private static byte[] encode(MessageImpl protonMessage)
+    {
+        byte[] buffer = new byte[64 * 1024];
+        int length = protonMessage.encode(buffer, 0, buffer.length);
+        return Arrays.copyOf(buffer, length);
+    }
+
+    @Test
+    public void messageWithoutAnnotationsEncodesLikeEmptyAnnotationsMap()
+    {
+        //arrange
+        AmqpsSenderLinkHandler senderLinkHandler = createSenderLinkHandler();
+        Message message = new Message("body");
+        message.setContentType("application/json");
+        message.setProperty("name", "value");
+
+        //act
+        MessageImpl protonMessage = senderLinkHandler.iotHubMessageToProtonMessage(message);
+        byte[] actual = encode(protonMessage);
+        protonMessage.setMessageAnnotations(new MessageAnnotations(new HashMap<Symbol, Object>()));
+        byte[] expected = encode(protonMessage);
+
+        //assert
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    public void templatedMessageEncodesLikeMessageWithSameValues()
+    {
+        //arrange
+        AmqpsSenderLinkHandler senderLinkHandler = createSenderLinkHandler();
+        MessageTemplate template = MessageTemplate.builder()
+                .contentType("application/json")
+                .contentEncoding("utf-8")
+                .componentName("thermostat")
+                .property("name1", "value1")
+                .build();
+        Message templatedMessage = template.createMessage("body");
+        templatedMessage.setProperty("name2", "value2");
+        Message message = new Message("body");
+        message.setMessageId(templatedMessage.getMessageId());
+        message.setCorrelationId(templatedMessage.getCorrelationId());
+        message.setContentType("application/json");
+        message.setContentEncoding("utf-8");
+        message.setComponentName("thermostat");
+        message.setProperty("name1", "value1");
+        message.setProperty("name2", "value2");
+
+        //act
+        byte[] templatedEncoding = encode(senderLinkHandler.iotHubMessageToProtonMessage(templatedMessage));
+        byte[] encoding = encode(senderLinkHandler.iotHubMessageToProtonMessage(message));
+
+        //assert
+        assertArrayEquals(encoding, templatedEncoding);
+    }
+
+    @Test
+    public void sendMessageGrowsEncodeBufferForLargeMessages()
+    {
+        //arrange
+        AmqpsSenderLinkHandler senderLinkHandler = createSenderLinkHandler();
+        Message smallMessage = new Message(new byte[10]);
+        Message largeMessage = new Message(new byte[10 * 1024]);
+
+        //act
+        AmqpsSendResult largeResult = senderLinkHandler.sendMessageAndGetDeliveryTag(largeMessage);
+        AmqpsSendResult smallResult = senderLinkHandler.sendMessageAndGetDeliveryTag(smallMessage);
+
+        //assert
+        assertTrue(largeResult.isDeliverySuccessful());
+        assertTrue(smallResult.isDeliverySuccessful());
+        assertEquals(2, senderLinkHandler.inProgressMessages.size());
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) Microsoft. All rights reserved.
+ * Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ */
+package com.microsoft.azure.sdk.iot.device.transport.amqps;
+
+import org.apache.qpid.proton.Proton;
+import org.apache.qpid.proton.amqp.messaging.Source;
+import org.apache.qpid.proton.engine.Collector;
+import org.apache.qpid.proton.engine.Connection;
+import org.apache.qpid.proton.engine.Event;
+import org.apache.qpid.proton.engine.Receiver;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the credit window of LoggingFlowController
+ */
+public class LoggingFlowControllerTest
+{
+    private static final int MAXIMUM_WINDOW = 8;
+
+    private Collector collector;
+    private Receiver receiver;
+    private AtomicInteger unacknowledgedMessageCount;
+    private LoggingFlowController flowController;
+
+    @Before
+    public void setUp()
+    {
+        this.collector = Proton.collector();
+        Connection connection = Proton.connection();
+        connection.collect(this.collector);
+        this.receiver = connection.session().receiver("receiver");
+        this.receiver.setSource(new Source());
+        this.receiver.open();
+        this.unacknowledgedMessageCount = new AtomicInteger();
+        this.flowController = new LoggingFlowController("linkCorrelationId", MAXIMUM_WINDOW, this.unacknowledgedMessageCount::get);
+    }
+
+    private void fireEvent(Event.Type type)
+    {
+        // drain the events that the engine raised, then deliver an event of the provided type to the flow controller
+        Event event;
+        while ((event = this.collector.peek()) != null)
+        {
+            if (event.getType() == type && event.getLink() == this.receiver)
+            {
+                this.flowController.onUnhandled(event);
+                this.collector.pop();
+                return;
+            }
+
+            this.collector.pop();
+        }
+
+        fail("No " + type + " event was raised");
+    }
+
+    @Test
+    public void linkOpenFlowsTheFullWindow()
+    {
+        //act
+        fireEvent(Event.Type.LINK_LOCAL_OPEN);
+
+        //assert
+        assertEquals(MAXIMUM_WINDOW, this.receiver.getCredit());
+    }
+
+    @Test
+    public void unacknowledgedMessagesCountAgainstTheWindow()
+    {
+        //arrange
+        this.unacknowledgedMessageCount.set(3);
+
+        //act
+        fireEvent(Event.Type.LINK_LOCAL_OPEN);
+
+        //assert
+        assertEquals(MAXIMUM_WINDOW - 3, this.receiver.getCredit());
+    }
+
+    @Test
+    public void acknowledgementFlowsCreditBack()
+    {
+        //arrange
+        this.unacknowledgedMessageCount.set(MAXIMUM_WINDOW);
+        fireEvent(Event.Type.LINK_LOCAL_OPEN);
+        assertEquals(0, this.receiver.getCredit());
+
+        //act
+        this.unacknowledgedMessageCount.decrementAndGet();
+        this.flowController.onMessageAcknowledged(this.receiver);
+
+        //assert
+        assertEquals(1, this.receiver.getCredit());
+    }
+
+    @Test
+    public void windowShrinksWhenDeliveryFillsItWithUnacknowledgedMessages()
+    {
+        //arrange
+        this.unacknowledgedMessageCount.set(MAXIMUM_WINDOW);
+
+        //act
+        this.flowController.onDelivery(this.receiver);
+
+        //assert
+        assertEquals(MAXIMUM_WINDOW / 2, this.flowController.getWindow());
+        assertEquals(0, this.receiver.getCredit());
+    }
+
+    @Test
+    public void windowDoesNotShrinkBelowOne()
+    {
+        //arrange
+        this.unacknowledgedMessageCount.set(MAXIMUM_WINDOW);
+
+        //act
+        for (int i = 0; i < 10; i++)
+        {
+            this.flowController.onDelivery(this.receiver);
+        }
+
+        //assert
+        assertEquals(1, this.flowController.getWindow());
+    }
+
+    @Test
+    public void windowGrowsWhenApplicationKeepsUp()
+    {
+        //arrange
+        this.unacknowledgedMessageCount.set(MAXIMUM_WINDOW);
+        this.flowController.onDelivery(this.receiver);
+        this.flowController.onDelivery(this.receiver);
+        int shrunkWindow = this.flowController.getWindow();
+
+        //act
+        this.unacknowledgedMessageCount.set(0);
+        this.flowController.onMessageAcknowledged(this.receiver);
+
+        //assert
+        assertEquals(MAXIMUM_WINDOW / 4, shrunkWindow);
+        assertEquals(MAXIMUM_WINDOW / 2, this.flowController.getWindow());
+        assertEquals(MAXIMUM_WINDOW / 2, this.receiver.getCredit());
+    }
+
+    @Test
+    public void windowDoesNotGrowWhileServiceHasCredit()
+    {
+        //arrange
+        this.unacknowledgedMessageCount.set(MAXIMUM_WINDOW);
+        this.flowController.onDelivery(this.receiver);
+        this.flowController.onDelivery(this.receiver);
+        this.unacknowledgedMessageCount.set(0);
+        this.flowController.onMessageAcknowledged(this.receiver);
+        int window = this.flowController.getWindow();
+
+        //act
+        this.flowController.onMessageAcknowledged(this.receiver);
+
+        //assert
+        assertEquals(MAXIMUM_WINDOW / 2, window);
+        assertEquals(MAXIMUM_WINDOW / 2, this.flowController.getWindow());
+    }
+}
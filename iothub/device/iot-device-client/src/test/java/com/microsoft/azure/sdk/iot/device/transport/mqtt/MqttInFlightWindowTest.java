@@ -0,0 +1,150 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device.transport.mqtt;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+public class MqttInFlightWindowTest
+{
+    @Test
+    public void acquireUpToCapacity() throws InterruptedException
+    {
+        //arrange
+        MqttInFlightWindow window = new MqttInFlightWindow(2);
+
+        //act
+        boolean first = window.tryAcquire(0);
+        boolean second = window.tryAcquire(0);
+        boolean third = window.tryAcquire(0);
+
+        //assert
+        assertTrue(first);
+        assertTrue(second);
+        assertFalse(third);
+        assertFalse(window.hasCapacity());
+    }
+
+    @Test
+    public void releaseReportsWhenWindowWasFull() throws InterruptedException
+    {
+        //arrange
+        MqttInFlightWindow window = new MqttInFlightWindow(2);
+        window.tryAcquire(0);
+        window.tryAcquire(0);
+
+        //act
+        boolean firstReleaseWasFull = window.release();
+        boolean secondReleaseWasFull = window.release();
+
+        //assert
+        assertTrue(firstReleaseWasFull);
+        assertFalse(secondReleaseWasFull);
+        assertTrue(window.hasCapacity());
+    }
+
+    @Test
+    public void releaseWithNothingInFlightIsIgnored() throws InterruptedException
+    {
+        //arrange
+        MqttInFlightWindow window = new MqttInFlightWindow(1);
+
+        //act
+        window.release();
+
+        //assert
+        assertTrue(window.tryAcquire(0));
+        assertFalse(window.tryAcquire(0));
+    }
+
+    @Test
+    public void resetReleasesAllSlots() throws InterruptedException
+    {
+        //arrange
+        MqttInFlightWindow window = new MqttInFlightWindow(2);
+        window.tryAcquire(0);
+        window.tryAcquire(0);
+
+        //act
+        window.reset();
+
+        //assert
+        assertTrue(window.tryAcquire(0));
+        assertTrue(window.tryAcquire(0));
+    }
+
+    @Test
+    public void releaseOfTrackedMessageIdReleasesItsSlot() throws InterruptedException
+    {
+        //arrange
+        MqttInFlightWindow window = new MqttInFlightWindow(1);
+        window.tryAcquire(0);
+        window.track(7);
+
+        //act
+        boolean wasFull = window.release(7);
+
+        //assert
+        assertTrue(wasFull);
+        assertTrue(window.hasCapacity());
+        assertFalse(window.release(7));
+    }
+
+    @Test
+    public void acknowledgementFromBeforeResetIsIgnored() throws InterruptedException
+    {
+        //arrange
+        MqttInFlightWindow window = new MqttInFlightWindow(2);
+        window.tryAcquire(0);
+        window.track(1);
+        window.reset();
+        window.tryAcquire(0);
+        window.track(2);
+        window.tryAcquire(0);
+        window.track(3);
+
+        //act
+        boolean wasFull = window.release(1);
+
+        //assert
+        assertFalse(wasFull);
+        assertFalse(window.hasCapacity());
+    }
+
+    @Test
+    public void waitingAcquireSucceedsOnceSlotIsReleased() throws InterruptedException
+    {
+        //arrange
+        MqttInFlightWindow window = new MqttInFlightWindow(1);
+        window.tryAcquire(0);
+        AtomicBoolean acquired = new AtomicBoolean(false);
+        CountDownLatch done = new CountDownLatch(1);
+        Thread waiter = new Thread(() ->
+        {
+            try
+            {
+                acquired.set(window.tryAcquire(10 * 1000));
+            }
+            catch (InterruptedException e)
+            {
+                // leaves acquired as false
+            }
+
+            done.countDown();
+        });
+        waiter.start();
+
+        //act
+        window.release();
+
+        //assert
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertTrue(acquired.get());
+    }
+}
@@ -17,6 +17,7 @@ import mockit.*;
 import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
 import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
 import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.ScheduledExecutorPingSender;
 import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
 import org.junit.Test;
 
@@ -252,7 +253,7 @@ public class MqttIotHubConnectionTest
         new Verifications()
         {
             {
-                new MqttAsyncClient(serverUri, deviceId, (MemoryPersistence) any);
+                new MqttAsyncClient(serverUri, deviceId, (MemoryPersistence) any, (ScheduledExecutorPingSender) any, null);
                 times = 1;
             }
         };
@@ -290,7 +291,7 @@ public class MqttIotHubConnectionTest
         new Verifications()
         {
             {
-                new MqttAsyncClient(serverUri, deviceId, (MemoryPersistence) any);
+                new MqttAsyncClient(serverUri, deviceId, (MemoryPersistence) any, (ScheduledExecutorPingSender) any, null);
                 times = 1;
             }
         };
@@ -333,7 +334,7 @@ public class MqttIotHubConnectionTest
         new Verifications()
         {
             {
-                new MqttAsyncClient(serverUri, deviceId, (MemoryPersistence) any);
+                new MqttAsyncClient(serverUri, deviceId, (MemoryPersistence) any, (ScheduledExecutorPingSender) any, null);
                times = 1;
             }
         };
@@ -357,7 +358,7 @@ public class MqttIotHubConnectionTest
                 result = true;
                 mockConfig.getProxySettings();
                 result = null;
-                new MqttAsyncClient(serverUri, deviceId, (MemoryPersistence) any);
+                new MqttAsyncClient(serverUri, deviceId, (MemoryPersistence) any, (ScheduledExecutorPingSender) any, null);
             }
         };
 
@@ -385,7 +386,7 @@ public class MqttIotHubConnectionTest
         new Verifications()
         {
             {
-                new MqttAsyncClient(anyString, deviceId, (MemoryPersistence) any);
+                new MqttAsyncClient(anyString, deviceId, (MemoryPersistence) any, (ScheduledExecutorPingSender) any, null);
                 maxTimes = 1;
             }
         };
@@ -1127,7 +1128,7 @@ public class MqttIotHubConnectionTest
         new NonStrictExpectations()
         {
             {
-                new MqttAsyncClient(anyString, anyString, (MemoryPersistence) any);
+                new MqttAsyncClient(anyString, anyString, (MemoryPersistence) any, (ScheduledExecutorPingSender) any, null);
                 result = mockedMqttConnection;
                 new MqttMessaging(anyString, null, anyString, anyBoolean, (MqttConnectOptions) any, (Map) any, (Queue) any);
                 result = mockDeviceMessaging;
@@ -17,6 +17,7 @@ import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -335,8 +336,10 @@ public class MqttMessagingTest
             {
                 mockedMessage.getBytes();
                 result = messageBody;
-                mockedMessage.getProperties();
-                result = messageProperties;
+                mockedMessage.getUnmodifiableProperties();
+                result = Arrays.asList(messageProperties);
+                mockedMessage.getMessageTemplate();
+                result = null;
             }
         };
 
@@ -370,8 +373,10 @@ public class MqttMessagingTest
             {
                 mockedMessage.getBytes();
                 result = messageBody;
-                mockedMessage.getProperties();
-                result = messageProperties;
+                mockedMessage.getUnmodifiableProperties();
+                result = Arrays.asList(messageProperties);
+                mockedMessage.getMessageTemplate();
+                result = null;
                 mockedMessage.getMessageId();
                 result = messageId;
             }
@@ -406,8 +411,10 @@ public class MqttMessagingTest
             {
                 mockedMessage.getBytes();
                 result = messageBody;
-                mockedMessage.getProperties();
-                result = messageProperties;
+                mockedMessage.getUnmodifiableProperties();
+                result = Arrays.asList(messageProperties);
+                mockedMessage.getMessageTemplate();
+                result = null;
                 mockedMessage.getCorrelationId();
                 result = correlationId;
             }
@@ -441,8 +448,10 @@ public class MqttMessagingTest
             {
                 mockedMessage.getBytes();
                 result = messageBody;
-                mockedMessage.getProperties();
-                result = messageProperties;
+                mockedMessage.getUnmodifiableProperties();
+                result = Arrays.asList(messageProperties);
+                mockedMessage.getMessageTemplate();
+                result = null;
                 mockedMessage.getComponentName();
                 result = componentName;
             }
@@ -477,8 +486,10 @@ public class MqttMessagingTest
             {
                 mockedMessage.getBytes();
                 result = messageBody;
-                mockedMessage.getProperties();
-                result = messageProperties;
+                mockedMessage.getUnmodifiableProperties();
+                result = Arrays.asList(messageProperties);
+                mockedMessage.getMessageTemplate();
+                result = null;
                 mockedMessage.getUserId();
                 result = userId;
             }
@@ -513,8 +524,10 @@ public class MqttMessagingTest
             {
                 mockedMessage.getBytes();
                 result = messageBody;
-                mockedMessage.getProperties();
-                result = messageProperties;
+                mockedMessage.getUnmodifiableProperties();
+                result = Arrays.asList(messageProperties);
+                mockedMessage.getMessageTemplate();
+                result = null;
                 mockedMessage.getTo();
                 result = to;
             }
@@ -583,8 +596,10 @@ public class MqttMessagingTest
                 result = contentType;
                 mockedMessage.getContentEncoding();
                 result = contentEncoding;
-                mockedMessage.getProperties();
-                result = messageProperties;
+                mockedMessage.getUnmodifiableProperties();
+                result = Arrays.asList(messageProperties);
+                mockedMessage.getMessageTemplate();
+                result = null;
                 mockedMessage.getOutputName();
                 result = outputName;
                 mockedMessage.getCreationTimeUTC();
@@ -328,6 +328,41 @@ public class MqttTest
         };
     }
 
+    @Test
+    public void publishWithAtMostOnceDeliveryUsesQos0AndDoesNotTrackMessage(final @Mocked Message mockedMessage) throws TransportException, MqttException
+    {
+        //arrange
+        baseConnectExpectation();
+        basePublishExpectations(mockedMessage);
+        new NonStrictExpectations()
+        {
+            {
+                mockedMessage.isAtMostOnceDelivery();
+                result = true;
+            }
+        };
+
+        Mqtt mockMqtt = instantiateMqtt(true);
+        Map<Integer, Message> unacknowledgedMessages = new HashMap<>();
+        Deencapsulation.setField(mockMqtt, "unacknowledgedSentMessages", unacknowledgedMessages);
+        Deencapsulation.invoke(mockMqtt, "connect");
+
+        //act
+        Deencapsulation.invoke(mockMqtt, "publish", MOCK_PARSE_TOPIC, mockedMessage);
+
+        //assert
+        assertTrue(unacknowledgedMessages.isEmpty());
+        new Verifications()
+        {
+            {
+                mockMqttMessage.setQos(0);
+                times = 1;
+                mockMqttAsyncClient.publish(MOCK_PARSE_TOPIC, mockMqttMessage);
+                times = 1;
+            }
+        };
+    }
+
     /*
     **Tests_SRS_Mqtt_25_012: [If the MQTT connection is closed, the function shall throw a TransportException.]
      */
@@ -1023,6 +1058,32 @@ public class MqttTest
         };
     }
 
+    @Test
+    public void deliveryCompleteDoesNotNotifyListenerForQos0Publish() throws TransportException
+    {
+        //arrange
+        Mqtt mockMqtt = instantiateMqtt(true, mockedIotHubListener);
+        new NonStrictExpectations()
+        {
+            {
+                mockMqttDeliveryToken.getMessageId();
+                result = 0;
+            }
+        };
+
+        //act
+        mockMqtt.deliveryComplete(mockMqttDeliveryToken);
+
+        //assert
+        new Verifications()
+        {
+            {
+                mockedIotHubListener.onMessageSent((Message) any, anyString, (TransportException) any);
+                times = 0;
+            }
+        };
+    }
+
     //Tests_SRS_Mqtt_34_056: [If the acknowledged message is of type
     // DEVICE_OPERATION_TWIN_SUBSCRIBE_DESIRED_PROPERTIES_REQUEST, DEVICE_OPERATION_METHOD_SUBSCRIBE_REQUEST,
     // or DEVICE_OPERATION_TWIN_UNSUBSCRIBE_DESIRED_PROPERTIES_REQUEST, this function shall not notify the saved
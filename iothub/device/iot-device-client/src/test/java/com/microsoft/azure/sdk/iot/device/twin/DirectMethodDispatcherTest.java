@@ -0,0 +1,247 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device.twin;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class DirectMethodDispatcherTest
+{
+    private static final long WAIT_SECONDS = 10;
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorRejectsNonPositiveThreadCount()
+    {
+        new DirectMethodDispatcher(0, 1, null, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorRejectsNonPositiveMethodConcurrencyLimit()
+    {
+        new DirectMethodDispatcher(1, 1, Collections.singletonMap("method", 0), 0);
+    }
+
+    @Test
+    public void slowMethodDoesNotBlockOtherMethods() throws InterruptedException
+    {
+        //arrange
+        DirectMethodDispatcher dispatcher = new DirectMethodDispatcher(2, 1, null, 0);
+        CountDownLatch releaseSlowMethod = new CountDownLatch(1);
+        CountDownLatch fastMethodPublished = new CountDownLatch(1);
+
+        //act
+        dispatcher.dispatch("slow", () ->
+        {
+            awaitQuietly(releaseSlowMethod);
+            return () -> { };
+        }, () -> { });
+        dispatcher.dispatch("fast", () -> fastMethodPublished::countDown, () -> { });
+
+        //assert
+        assertTrue(fastMethodPublished.await(WAIT_SECONDS, TimeUnit.SECONDS));
+        releaseSlowMethod.countDown();
+        dispatcher.close();
+    }
+
+    @Test
+    public void methodsExecuteOnNamedDaemonThreads() throws InterruptedException
+    {
+        //arrange
+        DirectMethodDispatcher dispatcher = new DirectMethodDispatcher(1, 1, null, 60 * 1000);
+        AtomicReference<Thread> executingThread = new AtomicReference<>();
+        CountDownLatch published = new CountDownLatch(1);
+
+        //act
+        dispatcher.dispatch("method", () ->
+        {
+            executingThread.set(Thread.currentThread());
+            return published::countDown;
+        }, () -> { });
+
+        //assert
+        assertTrue(published.await(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(executingThread.get().isDaemon());
+        assertEquals("azure-iot-sdk-DirectMethodDispatchTask", executingThread.get().getName());
+        dispatcher.close();
+    }
+
+    @Test
+    public void invocationsOfSameMethodArePublishedInOrderWithLimitOfOne() throws InterruptedException
+    {
+        //arrange
+        DirectMethodDispatcher dispatcher = new DirectMethodDispatcher(4, 1, null, 0);
+        List<Integer> publishedOrder = new CopyOnWriteArrayList<>();
+        AtomicInteger concurrentExecutions = new AtomicInteger();
+        AtomicBoolean limitExceeded = new AtomicBoolean(false);
+        int invocationCount = 20;
+        CountDownLatch allPublished = new CountDownLatch(invocationCount);
+
+        //act
+        for (int i = 0; i < invocationCount; i++)
+        {
+            final int invocationNumber = i;
+            dispatcher.dispatch("method", () ->
+            {
+                if (concurrentExecutions.incrementAndGet() > 1)
+                {
+                    limitExceeded.set(true);
+                }
+
+                concurrentExecutions.decrementAndGet();
+                return () ->
+                {
+                    publishedOrder.add(invocationNumber);
+                    allPublished.countDown();
+                };
+            }, () -> { });
+        }
+
+        //assert
+        assertTrue(allPublished.await(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertFalse(limitExceeded.get());
+        for (int i = 0; i < invocationCount; i++)
+        {
+            assertEquals(Integer.valueOf(i), publishedOrder.get(i));
+        }
+
+        dispatcher.close();
+    }
+
+    @Test
+    public void perMethodLimitAllowsConcurrentInvocations() throws InterruptedException
+    {
+        //arrange
+        DirectMethodDispatcher dispatcher = new DirectMethodDispatcher(2, 1, Collections.singletonMap("parallel", 2), 0);
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        CountDownLatch bothPublished = new CountDownLatch(2);
+
+        //act
+        for (int i = 0; i < 2; i++)
+        {
+            dispatcher.dispatch("parallel", () ->
+            {
+                bothRunning.countDown();
+                awaitQuietly(bothRunning);
+                return bothPublished::countDown;
+            }, () -> { });
+        }
+
+        //assert
+        assertTrue(bothPublished.await(WAIT_SECONDS, TimeUnit.SECONDS));
+        dispatcher.close();
+    }
+
+    @Test
+    public void timedOutInvocationIsCancelledAndNotPublished() throws InterruptedException
+    {
+        //arrange
+        DirectMethodDispatcher dispatcher = new DirectMethodDispatcher(1, 1, null, 50);
+        CountDownLatch timedOut = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        AtomicBoolean published = new AtomicBoolean(false);
+
+        //act
+        dispatcher.dispatch("method", () ->
+        {
+            try
+            {
+                Thread.sleep(WAIT_SECONDS * 1000);
+            }
+            catch (InterruptedException e)
+            {
+                interrupted.countDown();
+            }
+
+            return () -> published.set(true);
+        }, timedOut::countDown);
+
+        //assert
+        assertTrue(timedOut.await(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertTrue(interrupted.await(WAIT_SECONDS, TimeUnit.SECONDS));
+        assertFalse(published.get());
+        dispatcher.close();
+    }
+
+    @Test
+    public void timedOutInvocationReleasesSlotForNextInvocation() throws InterruptedException
+    {
+        //arrange
+        DirectMethodDispatcher dispatcher = new DirectMethodDispatcher(2, 1, null, 200);
+        CountDownLatch neverReleased = new CountDownLatch(1);
+        CountDownLatch firstTimedOut = new CountDownLatch(1);
+        CountDownLatch secondPublished = new CountDownLatch(1);
+        dispatcher.dispatch("method", () ->
+        {
+            // ignores interruption, like a poorly behaved handler would
+            while (neverReleased.getCount() > 0)
+            {
+                awaitQuietly(neverReleased);
+            }
+
+            return () -> { };
+        }, firstTimedOut::countDown);
+        assertTrue(firstTimedOut.await(WAIT_SECONDS, TimeUnit.SECONDS));
+
+        //act
+        // dispatched only once the first has timed out, since its deadline would otherwise pass while it waits
+        dispatcher.dispatch("method", () -> secondPublished::countDown, () -> { });
+
+        //assert
+        assertTrue(secondPublished.await(WAIT_SECONDS, TimeUnit.SECONDS));
+        neverReleased.countDown();
+        dispatcher.close();
+    }
+
+    @Test
+    public void failedInvocationReleasesSlotForNextInvocation() throws InterruptedException
+    {
+        //arrange
+        DirectMethodDispatcher dispatcher = new DirectMethodDispatcher(1, 1, null, 0);
+        CountDownLatch secondPublished = new CountDownLatch(1);
+
+        //act
+        dispatcher.dispatch("method", () ->
+        {
+            throw new IllegalStateException("handler failure");
+        }, () -> { });
+        dispatcher.dispatch("method", () -> secondPublished::countDown, () -> { });
+
+        //assert
+        assertTrue(secondPublished.await(WAIT_SECONDS, TimeUnit.SECONDS));
+        dispatcher.close();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void dispatchAfterCloseThrows()
+    {
+        //arrange
+        DirectMethodDispatcher dispatcher = new DirectMethodDispatcher(1, 1, null, 0);
+        dispatcher.close();
+
+        //act
+        dispatcher.dispatch("method", () -> () -> { }, () -> { });
+    }
+
+    private static void awaitQuietly(CountDownLatch latch)
+    {
+        try
+        {
+            latch.await(WAIT_SECONDS, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            // tests that care about interruption check for it themselves
+        }
+    }
+}
@@ -0,0 +1,184 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device.twin;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class DirectMethodPayloadCodecTest
+{
+    @Test
+    public void decodeInvocation()
+    {
+        //arrange
+        String json = "{\"methodName\":\"reboot\",\"responseTimeoutInSeconds\":200,\"connectTimeoutInSeconds\":5,\"payload\":{\"input1\":\"someInput\"}}";
+
+        //act
+        DirectMethodPayloadCodec.DecodedMethod decodedMethod = DirectMethodPayloadCodec.decode(json);
+
+        //assert
+        assertEquals(MethodParser.Operation.invoke, decodedMethod.operation);
+        assertEquals("reboot", decodedMethod.name);
+        assertEquals(Long.valueOf(200), decodedMethod.responseTimeout);
+        assertEquals(Long.valueOf(5), decodedMethod.connectTimeout);
+        assertEquals("{\"input1\":\"someInput\"}", decodedMethod.payload.toString());
+    }
+
+    @Test
+    public void decodeResponse()
+    {
+        //arrange
+        String json = "{\"status\":201,\"payload\":[1,2]}";
+
+        //act
+        DirectMethodPayloadCodec.DecodedMethod decodedMethod = DirectMethodPayloadCodec.decode(json);
+
+        //assert
+        assertEquals(MethodParser.Operation.response, decodedMethod.operation);
+        assertEquals(Integer.valueOf(201), decodedMethod.status);
+        assertEquals("[1,2]", decodedMethod.payload.toString());
+    }
+
+    @Test
+    public void decodeObjectWithoutNameOrStatusIsPayload()
+    {
+        //arrange
+        String json = "{\"input1\":\"someInput\",\"payload\":true}";
+
+        //act
+        DirectMethodPayloadCodec.DecodedMethod decodedMethod = DirectMethodPayloadCodec.decode(json);
+
+        //assert
+        assertEquals(MethodParser.Operation.payload, decodedMethod.operation);
+        assertEquals(json, decodedMethod.payload.toString());
+    }
+
+    @Test
+    public void decodePrimitiveIsPayload()
+    {
+        //act
+        DirectMethodPayloadCodec.DecodedMethod decodedMethod = DirectMethodPayloadCodec.decode("2.6");
+
+        //assert
+        assertEquals(MethodParser.Operation.payload, decodedMethod.operation);
+        assertEquals(2.6, decodedMethod.payload.getAsDouble(), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decodeRejectsNameAndStatusTogether()
+    {
+        DirectMethodPayloadCodec.decode("{\"methodName\":\"reboot\",\"status\":200}");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decodeRejectsMalformedJson()
+    {
+        DirectMethodPayloadCodec.decode("{\"methodName\":");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decodeRejectsTrailingContent()
+    {
+        DirectMethodPayloadCodec.decode("{\"methodName\":\"reboot\"} {}");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decodeRejectsEmptyJson()
+    {
+        DirectMethodPayloadCodec.decode("");
+    }
+
+    @Test
+    public void parseEmptyPayloadIsEmptyObject()
+    {
+        //act
+        JsonElement payload = DirectMethodPayloadCodec.parsePayload(new byte[0]);
+
+        //assert
+        assertTrue(payload.isJsonObject());
+        assertEquals(0, payload.getAsJsonObject().size());
+    }
+
+    @Test
+    public void encodeResponsePayloadMatchesJsonTreeSerialization()
+    {
+        //arrange
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("html", "<b>a=b&c</b>");
+        payload.put("number", 5);
+        payload.put("nothing", null);
+
+        //act
+        byte[] encoded = DirectMethodPayloadCodec.encodeResponsePayload(payload);
+
+        //assert
+        String expected = new GsonBuilder().create().toJsonTree(payload).toString();
+        assertEquals(expected, new String(encoded, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void encodeNullResponsePayload()
+    {
+        //act
+        byte[] encoded = DirectMethodPayloadCodec.encodeResponsePayload(null);
+
+        //assert
+        assertEquals("null", new String(encoded, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void directMethodPayloadDeserializesReceivedBytes()
+    {
+        //arrange
+        DirectMethodPayload payload = new DirectMethodPayload("{\"count\":3}".getBytes(StandardCharsets.UTF_8));
+
+        //act
+        Counter counter = payload.getPayload(Counter.class);
+
+        //assert
+        assertEquals(3, counter.count);
+        assertEquals("{\"count\":3}", payload.getPayloadAsJsonString());
+        assertSame(payload.getPayloadAsJsonElement(), payload.getPayloadAsJsonElement());
+    }
+
+    @Test
+    public void decodeIsSafeToUseConcurrently() throws Exception
+    {
+        //arrange
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<String>> names = new ArrayList<>();
+
+        //act
+        for (int i = 0; i < 100; i++)
+        {
+            final String json = "{\"methodName\":\"method" + i + "\",\"payload\":" + i + "}";
+            names.add(executor.submit(() -> DirectMethodPayloadCodec.decode(json).name));
+        }
+
+        //assert
+        for (int i = 0; i < 100; i++)
+        {
+            assertEquals("method" + i, names.get(i).get());
+        }
+
+        executor.shutdown();
+    }
+
+    private static class Counter
+    {
+        int count;
+    }
+}
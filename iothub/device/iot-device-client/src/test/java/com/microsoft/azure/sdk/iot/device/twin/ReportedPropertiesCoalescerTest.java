@@ -0,0 +1,335 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device.twin;
+
+import com.microsoft.azure.sdk.iot.device.IotHubStatusCode;
+import com.microsoft.azure.sdk.iot.device.Message;
+import com.microsoft.azure.sdk.iot.device.exceptions.IotHubClientException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class ReportedPropertiesCoalescerTest
+{
+    private final List<TwinCollection> sentPatches = new ArrayList<>();
+    private final List<ReportedPropertiesUpdateCorrelatingMessageCallback> sentCallbacks = new ArrayList<>();
+
+    private ReportedPropertiesCoalescer createCoalescer(long window)
+    {
+        return new ReportedPropertiesCoalescer(window, (patch, callback) ->
+        {
+            sentPatches.add(patch);
+            sentCallbacks.add(callback);
+        });
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorRejectsNonPositiveWindow()
+    {
+        createCoalescer(0);
+    }
+
+    @Test
+    public void flushSendsOneMergedPatchWithLatestValues()
+    {
+        //arrange
+        ReportedPropertiesCoalescer coalescer = createCoalescer(60 * 1000);
+        TwinCollection first = new TwinCollection();
+        first.put("temperature", 20);
+        first.put("humidity", 40);
+        TwinCollection second = new TwinCollection();
+        second.put("temperature", 21);
+
+        //act
+        coalescer.add(first, null, null);
+        coalescer.add(second, null, null);
+        coalescer.flush();
+
+        //assert
+        assertEquals(1, sentPatches.size());
+        assertEquals(21, sentPatches.get(0).get("temperature"));
+        assertEquals(40, sentPatches.get(0).get("humidity"));
+        coalescer.close();
+    }
+
+    @Test
+    public void mergeCombinesNestedCollectionsKeyByKey()
+    {
+        //arrange
+        TwinCollection target = new TwinCollection();
+        TwinCollection firstNested = new TwinCollection();
+        firstNested.put("a", 1);
+        firstNested.put("b", 2);
+        TwinCollection first = new TwinCollection();
+        first.put("component", firstNested);
+
+        TwinCollection secondNested = new TwinCollection();
+        secondNested.put("b", 3);
+        secondNested.put("c", null);
+        TwinCollection second = new TwinCollection();
+        second.put("component", secondNested);
+
+        //act
+        ReportedPropertiesCoalescer.merge(target, first);
+        ReportedPropertiesCoalescer.merge(target, second);
+
+        //assert
+        TwinCollection merged = (TwinCollection) target.get("component");
+        assertEquals(1, merged.get("a"));
+        assertEquals(3, merged.get("b"));
+        assertTrue(merged.containsKey("c"));
+        assertNull(merged.get("c"));
+
+        // the callers' collections must not be modified by merging
+        assertEquals(2, firstNested.get("b"));
+    }
+
+    @Test
+    public void flushNotifiesEveryMergedCallerWithItsOwnContext()
+    {
+        //arrange
+        ReportedPropertiesCoalescer coalescer = createCoalescer(60 * 1000);
+        List<Object> notifiedContexts = new ArrayList<>();
+        ReportedPropertiesUpdateCorrelatingMessageCallback callback = new RecordingCallback(notifiedContexts);
+        TwinCollection patch = new TwinCollection();
+        patch.put("key", "value");
+        coalescer.add(patch, callback, "context1");
+        coalescer.add(patch, callback, "context2");
+        coalescer.add(patch, null, "context3");
+        coalescer.flush();
+
+        //act
+        sentCallbacks.get(0).onResponseReceived(null, null, IotHubStatusCode.OK, new ReportedPropertiesUpdateResponse(5), null);
+
+        //assert
+        assertEquals(2, notifiedContexts.size());
+        assertEquals("context1", notifiedContexts.get(0));
+        assertEquals("context2", notifiedContexts.get(1));
+        coalescer.close();
+    }
+
+    @Test
+    public void flushWithNothingPendingSendsNothing()
+    {
+        //arrange
+        ReportedPropertiesCoalescer coalescer = createCoalescer(60 * 1000);
+
+        //act
+        coalescer.flush();
+
+        //assert
+        assertTrue(sentPatches.isEmpty());
+        coalescer.close();
+    }
+
+    @Test
+    public void pendingPatchIsSentOnceWindowElapses() throws InterruptedException
+    {
+        //arrange
+        CountDownLatch sentLatch = new CountDownLatch(1);
+        ReportedPropertiesCoalescer coalescer = new ReportedPropertiesCoalescer(10, (patch, callback) -> sentLatch.countDown());
+        TwinCollection patch = new TwinCollection();
+        patch.put("key", "value");
+
+        //act
+        coalescer.add(patch, null, null);
+
+        //assert
+        assertTrue(sentLatch.await(10, TimeUnit.SECONDS));
+        coalescer.close();
+    }
+
+    @Test
+    public void closeSendsPendingPatch()
+    {
+        //arrange
+        ReportedPropertiesCoalescer coalescer = createCoalescer(60 * 1000);
+        TwinCollection patch = new TwinCollection();
+        patch.put("key", "value");
+        coalescer.add(patch, null, null);
+
+        //act
+        coalescer.close();
+
+        //assert
+        assertEquals(1, sentPatches.size());
+    }
+
+    @Test
+    public void scheduledFlushRunsOnNamedDaemonThread() throws InterruptedException
+    {
+        //arrange
+        CountDownLatch sentLatch = new CountDownLatch(1);
+        AtomicReference<Thread> senderThread = new AtomicReference<>();
+        ReportedPropertiesCoalescer coalescer = new ReportedPropertiesCoalescer(10, (patch, callback) ->
+        {
+            senderThread.set(Thread.currentThread());
+            sentLatch.countDown();
+        });
+        TwinCollection patch = new TwinCollection();
+        patch.put("key", "value");
+
+        //act
+        coalescer.add(patch, null, null);
+
+        //assert
+        assertTrue(sentLatch.await(10, TimeUnit.SECONDS));
+        assertTrue(senderThread.get().isDaemon());
+        assertEquals("azure-iot-sdk-ReportedPropertiesCoalescerTask", senderThread.get().getName());
+        coalescer.close();
+    }
+
+    @Test
+    public void failedScheduledFlushNotifiesEveryMergedCaller() throws InterruptedException
+    {
+        //arrange
+        CountDownLatch failureLatch = new CountDownLatch(2);
+        List<Object> failedContexts = new CopyOnWriteArrayList<>();
+        ReportedPropertiesUpdateCorrelatingMessageCallback callback = new RecordingCallback(new ArrayList<>())
+        {
+            @Override
+            public void onRequestAcknowledged(Message message, Object callbackContext, IotHubClientException e)
+            {
+                if (e != null)
+                {
+                    failedContexts.add(callbackContext);
+                    failureLatch.countDown();
+                }
+            }
+        };
+        ReportedPropertiesCoalescer coalescer = new ReportedPropertiesCoalescer(10, (patch, sentCallback) ->
+        {
+            throw new IllegalStateException("client is closed");
+        });
+        TwinCollection patch = new TwinCollection();
+        patch.put("key", "value");
+
+        //act
+        coalescer.add(patch, callback, "context1");
+        coalescer.add(patch, callback, "context2");
+
+        //assert
+        assertTrue(failureLatch.await(10, TimeUnit.SECONDS));
+        assertTrue(failedContexts.contains("context1"));
+        assertTrue(failedContexts.contains("context2"));
+        coalescer.close();
+    }
+
+    @Test
+    public void flushAndSendSendsPendingPatchFirst()
+    {
+        //arrange
+        ReportedPropertiesCoalescer coalescer = createCoalescer(60 * 1000);
+        TwinCollection pending = new TwinCollection();
+        pending.put("key", "pending");
+        TwinCollection versioned = new TwinCollection();
+        versioned.put("key", "versioned");
+        coalescer.add(pending, null, null);
+
+        //act
+        coalescer.flushAndSend(() -> sentPatches.add(versioned));
+
+        //assert
+        assertEquals(2, sentPatches.size());
+        assertEquals("pending", sentPatches.get(0).get("key"));
+        assertSame(versioned, sentPatches.get(1));
+        coalescer.close();
+    }
+
+    @Test
+    public void flushAndSendWaitsForScheduledFlushInProgress() throws InterruptedException
+    {
+        //arrange
+        CountDownLatch scheduledSendStarted = new CountDownLatch(1);
+        CountDownLatch releaseScheduledSend = new CountDownLatch(1);
+        List<String> sendOrder = new CopyOnWriteArrayList<>();
+        ReportedPropertiesCoalescer coalescer = new ReportedPropertiesCoalescer(10, (patch, callback) ->
+        {
+            scheduledSendStarted.countDown();
+            try
+            {
+                releaseScheduledSend.await(10, TimeUnit.SECONDS);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+
+            sendOrder.add("merged");
+        });
+        TwinCollection patch = new TwinCollection();
+        patch.put("key", "value");
+        coalescer.add(patch, null, null);
+        assertTrue(scheduledSendStarted.await(10, TimeUnit.SECONDS));
+
+        //act
+        Thread versionedSender = new Thread(() -> coalescer.flushAndSend(() -> sendOrder.add("versioned")));
+        versionedSender.start();
+        Thread.sleep(100);
+        releaseScheduledSend.countDown();
+        versionedSender.join(10 * 1000);
+
+        //assert
+        assertEquals(2, sendOrder.size());
+        assertEquals("merged", sendOrder.get(0));
+        assertEquals("versioned", sendOrder.get(1));
+        coalescer.close();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void addAfterCloseThrows()
+    {
+        //arrange
+        ReportedPropertiesCoalescer coalescer = createCoalescer(60 * 1000);
+        coalescer.close();
+        TwinCollection patch = new TwinCollection();
+        patch.put("key", "value");
+
+        //act
+        coalescer.add(patch, null, null);
+    }
+
+    private static class RecordingCallback implements ReportedPropertiesUpdateCorrelatingMessageCallback
+    {
+        private final List<Object> notifiedContexts;
+
+        RecordingCallback(List<Object> notifiedContexts)
+        {
+            this.notifiedContexts = notifiedContexts;
+        }
+
+        @Override
+        public void onRequestQueued(Message message, Object callbackContext)
+        {
+        }
+
+        @Override
+        public void onRequestSent(Message message, Object callbackContext)
+        {
+        }
+
+        @Override
+        public void onRequestAcknowledged(Message message, Object callbackContext, IotHubClientException e)
+        {
+        }
+
+        @Override
+        public void onResponseReceived(Message message, Object callbackContext, IotHubStatusCode statusCode, ReportedPropertiesUpdateResponse response, IotHubClientException e)
+        {
+            notifiedContexts.add(callbackContext);
+        }
+
+        @Override
+        public void onResponseAcknowledged(Message message, Object callbackContext)
+        {
+        }
+    }
+}
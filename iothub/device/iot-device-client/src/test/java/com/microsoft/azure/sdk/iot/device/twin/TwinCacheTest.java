@@ -0,0 +1,190 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.device.twin;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TwinCacheTest
+{
+    private static final long MAX_AGE = 60 * 1000;
+
+    private static Twin createTwin(int desiredVersion, int reportedVersion)
+    {
+        return Twin.createFromPropertiesJson(
+            "{\"desired\":{\"color\":\"red\",\"$version\":" + desiredVersion + "},"
+                + "\"reported\":{\"speed\":10,\"$version\":" + reportedVersion + "}}");
+    }
+
+    private static TwinCollection createPatch(int version, String key, Object value)
+    {
+        TwinCollection patch = new TwinCollection();
+        patch.put(key, value);
+        patch.setVersion(version);
+        return patch;
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorRejectsNonPositiveMaxAge()
+    {
+        new TwinCache(0);
+    }
+
+    @Test
+    public void cacheIsNotFreshBeforeFirstUpdate()
+    {
+        //arrange
+        TwinCache twinCache = new TwinCache(MAX_AGE);
+
+        //act
+        TwinCache.PatchResult result = twinCache.applyDesiredPropertiesPatch(createPatch(1, "color", "blue"));
+
+        //assert
+        assertEquals(TwinCache.PatchResult.NOT_SYNCHRONIZED, result);
+        assertNull(twinCache.getTwinIfFresh());
+    }
+
+    @Test
+    public void nextDesiredVersionIsApplied()
+    {
+        //arrange
+        TwinCache twinCache = new TwinCache(MAX_AGE);
+        twinCache.update(createTwin(3, 7));
+
+        //act
+        TwinCache.PatchResult result = twinCache.applyDesiredPropertiesPatch(createPatch(4, "color", "blue"));
+
+        //assert
+        assertEquals(TwinCache.PatchResult.APPLIED, result);
+        Twin cachedTwin = twinCache.getTwinIfFresh();
+        assertNotNull(cachedTwin);
+        assertEquals("blue", cachedTwin.getDesiredProperties().get("color"));
+        assertEquals(Integer.valueOf(4), cachedTwin.getDesiredProperties().getVersion());
+    }
+
+    @Test
+    public void oldDesiredVersionIsIgnored()
+    {
+        //arrange
+        TwinCache twinCache = new TwinCache(MAX_AGE);
+        twinCache.update(createTwin(3, 7));
+
+        //act
+        TwinCache.PatchResult result = twinCache.applyDesiredPropertiesPatch(createPatch(3, "color", "blue"));
+
+        //assert
+        assertEquals(TwinCache.PatchResult.APPLIED, result);
+        assertEquals("red", twinCache.getTwinIfFresh().getDesiredProperties().get("color"));
+    }
+
+    @Test
+    public void skippedDesiredVersionMarksCacheStale()
+    {
+        //arrange
+        TwinCache twinCache = new TwinCache(MAX_AGE);
+        twinCache.update(createTwin(3, 7));
+
+        //act
+        TwinCache.PatchResult result = twinCache.applyDesiredPropertiesPatch(createPatch(5, "color", "blue"));
+
+        //assert
+        assertEquals(TwinCache.PatchResult.GAP_DETECTED, result);
+        assertNull(twinCache.getTwinIfFresh());
+
+        // a full refresh makes the cache fresh again
+        twinCache.update(createTwin(5, 7));
+        assertNotNull(twinCache.getTwinIfFresh());
+    }
+
+    @Test
+    public void nullValueInPatchDeletesProperty()
+    {
+        //arrange
+        TwinCache twinCache = new TwinCache(MAX_AGE);
+        twinCache.update(createTwin(3, 7));
+
+        //act
+        twinCache.applyDesiredPropertiesPatch(createPatch(4, "color", null));
+
+        //assert
+        assertFalse(twinCache.getTwinIfFresh().getDesiredProperties().containsKey("color"));
+    }
+
+    @Test
+    public void nextReportedVersionIsApplied()
+    {
+        //arrange
+        TwinCache twinCache = new TwinCache(MAX_AGE);
+        twinCache.update(createTwin(3, 7));
+        TwinCollection reportedPatch = new TwinCollection();
+        reportedPatch.put("speed", 20);
+
+        //act
+        twinCache.applyReportedPropertiesPatch(reportedPatch, 8);
+
+        //assert
+        Twin cachedTwin = twinCache.getTwinIfFresh();
+        assertEquals(20, cachedTwin.getReportedProperties().get("speed"));
+        assertEquals(Integer.valueOf(8), cachedTwin.getReportedProperties().getVersion());
+    }
+
+    @Test
+    public void unexpectedReportedVersionMarksCacheStale()
+    {
+        //arrange
+        TwinCache twinCache = new TwinCache(MAX_AGE);
+        twinCache.update(createTwin(3, 7));
+        TwinCollection reportedPatch = new TwinCollection();
+        reportedPatch.put("speed", 20);
+
+        //act
+        twinCache.applyReportedPropertiesPatch(reportedPatch, 7);
+
+        //assert
+        assertNull(twinCache.getTwinIfFresh());
+    }
+
+    @Test
+    public void cachedTwinIsACopy()
+    {
+        //arrange
+        TwinCache twinCache = new TwinCache(MAX_AGE);
+        twinCache.update(createTwin(3, 7));
+
+        //act
+        twinCache.getTwinIfFresh().getDesiredProperties().put("color", "green");
+
+        //assert
+        assertEquals("red", twinCache.getTwinIfFresh().getDesiredProperties().get("color"));
+    }
+
+    @Test
+    public void expiredCacheIsNotServed() throws InterruptedException
+    {
+        //arrange
+        TwinCache twinCache = new TwinCache(1);
+        twinCache.update(createTwin(3, 7));
+
+        //act
+        Thread.sleep(10);
+
+        //assert
+        assertNull(twinCache.getTwinIfFresh());
+    }
+
+    @Test
+    public void invalidateMarksCacheStale()
+    {
+        //arrange
+        TwinCache twinCache = new TwinCache(MAX_AGE);
+        twinCache.update(createTwin(3, 7));
+
+        //act
+        twinCache.invalidate();
+
+        //assert
+        assertNull(twinCache.getTwinIfFresh());
+    }
+}
@@ -16,6 +16,7 @@ import com.microsoft.azure.sdk.iot.provisioning.device.internal.exceptions.Provi
 import com.microsoft.azure.sdk.iot.provisioning.security.SecurityProvider;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.Map;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -29,6 +30,12 @@ public class ProvisioningDeviceClient
     private final ProvisioningDeviceClientContract provisioningDeviceClientContract;
     private final ExecutorService executor;
 
+    // The caller's scheduler that registrations run on, or null if they run on this client's own executor
+    private final ScheduledExecutorService scheduler;
+
+    // Registrations that were submitted to the caller's scheduler, so that close() can cancel them
+    private final Map<ProvisioningTask, Future<?>> scheduledRegistrations = new ConcurrentHashMap<>();
+
     /**
      * Creates an instance of ProvisioningDeviceClient
      * @param globalEndpoint global endpoint for the service to connect to. Cannot be {@code null}.
@@ -40,10 +47,38 @@ public class ProvisioningDeviceClient
      */
     public static ProvisioningDeviceClient create(String globalEndpoint, String idScope, ProvisioningDeviceClientTransportProtocol protocol, SecurityProvider securityProvider) throws ProvisioningDeviceClientException
     {
-        return new ProvisioningDeviceClient(globalEndpoint, idScope, protocol, securityProvider);
+        return new ProvisioningDeviceClient(globalEndpoint, idScope, protocol, securityProvider, null);
     }
 
-    private ProvisioningDeviceClient(String globalEndpoint, String idScope, ProvisioningDeviceClientTransportProtocol protocol, SecurityProvider securityProvider) throws ProvisioningDeviceClientException
+    /**
+     * Creates an instance of ProvisioningDeviceClient whose registrations run on the provided scheduler rather than on
+     * threads of its own.
+     * <p>
+     * Many clients can share one scheduler to register many devices at the same time. Registrations only hold a thread
+     * of the scheduler while they are communicating with the service, not while they wait to query the service for the
+     * status of the registration. The duration of each registration is reported by
+     * {@link ProvisioningDeviceClientRegistrationResult#getRegistrationDurationMillis()}.
+     * </p>
+     * @param globalEndpoint global endpoint for the service to connect to. Cannot be {@code null}.
+     * @param idScope IdScope for the instance of the service hosted by you. Cannot be {@code null}.
+     * @param protocol Protocol to communicate with the service onto. Cannot be {@code null}.
+     * @param securityProvider Security Provider for X509 or TPM flow. Cannot be {@code null}.
+     * @param scheduler Scheduler that the registrations of this client run on. Cannot be {@code null}. It is owned by the
+     *                  caller, so {@link #close()} does not shut it down.
+     * @return An instance of ProvisioningDeviceClient
+     * @throws ProvisioningDeviceClientException if any of the underlying API calls fail to process.
+     */
+    public static ProvisioningDeviceClient create(String globalEndpoint, String idScope, ProvisioningDeviceClientTransportProtocol protocol, SecurityProvider securityProvider, ScheduledExecutorService scheduler) throws ProvisioningDeviceClientException
+    {
+        if (scheduler == null)
+        {
+            throw new IllegalArgumentException("scheduler cannot be null");
+        }
+
+        return new ProvisioningDeviceClient(globalEndpoint, idScope, protocol, securityProvider, scheduler);
+    }
+
+    private ProvisioningDeviceClient(String globalEndpoint, String idScope, ProvisioningDeviceClientTransportProtocol protocol, SecurityProvider securityProvider, ScheduledExecutorService scheduler) throws ProvisioningDeviceClientException
     {
         if (globalEndpoint == null || globalEndpoint.isEmpty())
         {
@@ -73,7 +108,8 @@ public class ProvisioningDeviceClient
         this.provisioningDeviceClientConfig.setSecurityProvider(securityProvider);
 
         this.provisioningDeviceClientContract = ProvisioningDeviceClientContract.createProvisioningContract(this.provisioningDeviceClientConfig);
-        this.executor = Executors.newFixedThreadPool(MAX_THREADS_TO_RUN);
+        this.scheduler = scheduler;
+        this.executor = scheduler == null ? Executors.newFixedThreadPool(MAX_THREADS_TO_RUN) : scheduler;
 
         log.debug("Initialized a ProvisioningDeviceClient instance using SDK version {}", SDKUtils.PROVISIONING_DEVICE_CLIENT_VERSION);
     }
@@ -95,8 +131,8 @@ public class ProvisioningDeviceClient
         this.provisioningDeviceClientConfig.setRegistrationCallback(provisioningDeviceClientRegistrationCallback, context);
 
         log.debug("Starting provisioning thread...");
-        Callable<Object> provisioningTask = new ProvisioningTask(this.provisioningDeviceClientConfig, this.provisioningDeviceClientContract);
-        executor.submit(provisioningTask);
+        ProvisioningTask provisioningTask = new ProvisioningTask(this.provisioningDeviceClientConfig, this.provisioningDeviceClientContract, this.scheduler);
+        this.submit(provisioningTask);
     }
 
     /**
@@ -122,8 +158,18 @@ public class ProvisioningDeviceClient
         this.provisioningDeviceClientConfig.setRegistrationCallback(provisioningDeviceClientRegistrationCallback, context);
 
         log.debug("Starting provisioning thread...");
-        ProvisioningTask provisioningTask = new ProvisioningTask(this.provisioningDeviceClientConfig, this.provisioningDeviceClientContract);
-        executor.submit(provisioningTask);
+        ProvisioningTask provisioningTask = new ProvisioningTask(this.provisioningDeviceClientConfig, this.provisioningDeviceClientContract, this.scheduler);
+        this.submit(provisioningTask);
+    }
+
+    private void submit(ProvisioningTask provisioningTask)
+    {
+        Future<?> registration = executor.submit(provisioningTask);
+        if (this.scheduler != null)
+        {
+            this.scheduledRegistrations.keySet().removeIf(ProvisioningTask::isFinished);
+            this.scheduledRegistrations.put(provisioningTask, registration);
+        }
     }
 
     /**
@@ -213,13 +259,24 @@ public class ProvisioningDeviceClient
     }
 
     /**
-     * Closes all the executors opened by the client if they have not already closed.
+     * Closes all the executors opened by the client if they have not already closed. A scheduler that was provided
+     * to {@link #create(String, String, ProvisioningDeviceClientTransportProtocol, SecurityProvider, ScheduledExecutorService)}
+     * is not shut down, but the registrations and status queries that this client scheduled on it are cancelled and
+     * their callbacks are not invoked.
      */
     public void close()
     {
-        if (executor != null && !executor.isTerminated())
+        if (scheduler == null && executor != null && !executor.isTerminated())
         {
             executor.shutdownNow();
         }
+
+        for (Map.Entry<ProvisioningTask, Future<?>> scheduledRegistration : this.scheduledRegistrations.entrySet())
+        {
+            scheduledRegistration.getValue().cancel(false);
+            scheduledRegistration.getKey().cancel();
+        }
+
+        this.scheduledRegistrations.clear();
     }
 }
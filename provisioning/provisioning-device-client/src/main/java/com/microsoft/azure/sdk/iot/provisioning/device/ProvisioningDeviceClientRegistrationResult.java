@@ -42,4 +42,10 @@ public class ProvisioningDeviceClientRegistrationResult
 
     @Getter
     protected String provisioningPayload;
+
+    /**
+     * The time, in milliseconds, from when the registration was requested until it finished, successfully or not.
+     */
+    @Getter
+    protected long registrationDurationMillis;
 }
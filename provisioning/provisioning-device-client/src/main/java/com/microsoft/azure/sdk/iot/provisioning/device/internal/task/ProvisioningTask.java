@@ -47,8 +47,21 @@ public class ProvisioningTask implements Callable<Object>
     @SuppressWarnings("unused") // Used in a number of methods to report state, may be used for expansion
     private ProvisioningDeviceClientStatus dpsStatus = null;
 
+    // Runs the register and status tasks when there is no shared scheduler. With a shared scheduler, they run directly
+    // on its thread instead, so this is null.
     private final ExecutorService executor;
 
+    // Shared scheduler that status queries are scheduled on. If null, this task sleeps between status queries instead.
+    private final ScheduledExecutorService scheduler;
+
+    // The status query that is scheduled on the shared scheduler, if any
+    private volatile Future<?> pendingStatusQuery;
+    private volatile boolean cancelled;
+    private volatile boolean finished;
+
+    // When the registration was requested, for reporting the duration of the registration
+    private final long registrationStartNanos;
+
     /**
      * Constructor for creating a provisioning task
      * @param provisioningDeviceClientConfig Config that contains details pertaining to Service
@@ -58,6 +71,24 @@ public class ProvisioningTask implements Callable<Object>
     public ProvisioningTask(ProvisioningDeviceClientConfig provisioningDeviceClientConfig,
                             ProvisioningDeviceClientContract provisioningDeviceClientContract) throws ProvisioningDeviceClientException
     {
+        this(provisioningDeviceClientConfig, provisioningDeviceClientContract, null);
+    }
+
+    /**
+     * Constructor for creating a provisioning task that schedules its status queries on the provided scheduler rather
+     * than holding its thread while it waits to query the status of the registration.
+     * @param provisioningDeviceClientConfig Config that contains details pertaining to Service
+     * @param provisioningDeviceClientContract Contract with the service over the specified protocol
+     * @param scheduler Scheduler for the status queries. This task does not shut it down. If {@code null}, this task
+     *                  waits for each status query on the thread that it was called on.
+     * @throws ProvisioningDeviceClientException If any of the input parameters are invalid then this exception is thrown
+     */
+    public ProvisioningTask(ProvisioningDeviceClientConfig provisioningDeviceClientConfig,
+                            ProvisioningDeviceClientContract provisioningDeviceClientContract,
+                            ScheduledExecutorService scheduler) throws ProvisioningDeviceClientException
+    {
+        this.registrationStartNanos = System.nanoTime();
+
         if (provisioningDeviceClientContract == null)
         {
             throw new ProvisioningDeviceClientException(new IllegalArgumentException("DPS Transport cannot be null"));
@@ -90,13 +121,19 @@ public class ProvisioningTask implements Callable<Object>
 
         this.authorization = new Authorization();
         //SRS_ProvisioningTask_25_015: [ Constructor shall start the executor with a fixed thread pool of size 2.]
-        this.executor = Executors.newFixedThreadPool(MAX_THREADS_TO_RUN);
+        this.executor = scheduler == null ? Executors.newFixedThreadPool(MAX_THREADS_TO_RUN) : null;
+        this.scheduler = scheduler;
     }
 
     private void invokeRegistrationCallback(RegistrationResult registrationInfo, Exception e) throws ProvisioningDeviceClientException
     {
-        if (this.provisioningDeviceClientRegistrationCallback != null)
+        if (this.cancelled)
         {
+            log.debug("Registration was cancelled, so its result is not reported");
+        }
+        else if (this.provisioningDeviceClientRegistrationCallback != null)
+        {
+            registrationInfo.setRegistrationDurationMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.registrationStartNanos));
             this.provisioningDeviceClientRegistrationCallback.run(registrationInfo, e, this.dpsRegistrationCallbackContext);
         }
         else
@@ -110,10 +147,18 @@ public class ProvisioningTask implements Callable<Object>
     {
         RegisterTask registerTask = new RegisterTask(this.provisioningDeviceClientConfig, securityProvider,
                                                      provisioningDeviceClientContract, authorization);
-        FutureTask<RegistrationOperationStatusParser> futureRegisterTask = new FutureTask<>(registerTask);
-        executor.submit(futureRegisterTask);
-        RegistrationOperationStatusParser registrationOperationStatusParser = futureRegisterTask.get(MAX_TIME_TO_WAIT_FOR_REGISTRATION,
-                                                                                                      TimeUnit.MILLISECONDS);
+        RegistrationOperationStatusParser registrationOperationStatusParser;
+        if (this.scheduler == null)
+        {
+            FutureTask<RegistrationOperationStatusParser> futureRegisterTask = new FutureTask<>(registerTask);
+            executor.submit(futureRegisterTask);
+            registrationOperationStatusParser = futureRegisterTask.get(MAX_TIME_TO_WAIT_FOR_REGISTRATION, TimeUnit.MILLISECONDS);
+        }
+        else
+        {
+            registrationOperationStatusParser = this.callOnSchedulerThread(registerTask);
+        }
+
        if (registrationOperationStatusParser == null)
         {
             this.dpsStatus = PROVISIONING_DEVICE_STATUS_ERROR;
@@ -142,6 +187,12 @@ public class ProvisioningTask implements Callable<Object>
                                                                                       ProvisioningDeviceClientException
     {
         Thread.sleep(provisioningDeviceClientContract.getRetryValue());
+        return this.queryStatus(operationId);
+    }
+
+    private RegistrationOperationStatusParser queryStatus(String operationId) throws TimeoutException, InterruptedException, ExecutionException,
+                                                                                      ProvisioningDeviceClientException
+    {
         StatusTask statusTask = new StatusTask(
                 securityProvider,
                 provisioningDeviceClientContract,
@@ -149,9 +200,17 @@ public class ProvisioningTask implements Callable<Object>
                 operationId,
                 this.authorization);
 
-        FutureTask<RegistrationOperationStatusParser> futureStatusTask = new FutureTask<>(statusTask);
-        executor.submit(futureStatusTask);
-        RegistrationOperationStatusParser statusRegistrationOperationStatusParser =  futureStatusTask.get(MAX_TIME_TO_WAIT_FOR_STATUS_UPDATE, TimeUnit.MILLISECONDS);
+        RegistrationOperationStatusParser statusRegistrationOperationStatusParser;
+        if (this.scheduler == null)
+        {
+            FutureTask<RegistrationOperationStatusParser> futureStatusTask = new FutureTask<>(statusTask);
+            executor.submit(futureStatusTask);
+            statusRegistrationOperationStatusParser = futureStatusTask.get(MAX_TIME_TO_WAIT_FOR_STATUS_UPDATE, TimeUnit.MILLISECONDS);
+        }
+        else
+        {
+            statusRegistrationOperationStatusParser = this.callOnSchedulerThread(statusTask);
+        }
 
         if (statusRegistrationOperationStatusParser == null)
         {
@@ -175,103 +234,127 @@ public class ProvisioningTask implements Callable<Object>
         return statusRegistrationOperationStatusParser;
     }
 
+    // Runs a register or status task directly on the current thread of the shared scheduler rather than holding that
+    // thread while waiting for another one. The thread belongs to the caller, so the name that the task gives it is undone.
+    private RegistrationOperationStatusParser callOnSchedulerThread(Callable<RegistrationOperationStatusParser> task) throws ExecutionException
+    {
+        Thread currentThread = Thread.currentThread();
+        String threadName = currentThread.getName();
+        try
+        {
+            return task.call();
+        }
+        catch (Exception e)
+        {
+            // Reported the same way as a failure of a task that ran on the executor
+            throw new ExecutionException(e);
+        }
+        finally
+        {
+            currentThread.setName(threadName);
+        }
+    }
+
     private void executeStateMachineForStatus(RegistrationOperationStatusParser registrationOperationStatusParser)
             throws TimeoutException, InterruptedException, ExecutionException, ProvisioningDeviceClientException, SecurityProviderException
-
     {
-        boolean isContinue = false;
-        ProvisioningStatus nextStatus = ProvisioningStatus.fromString(registrationOperationStatusParser.getStatus());
-        log.info("Current provisioning status: {}", nextStatus);
         // continue invoking for status until a terminal state is reached
-        do
+        while (this.handleStatus(registrationOperationStatusParser))
         {
-            if (nextStatus == null)
-            {
-                throw new ProvisioningDeviceClientException("Did not receive a valid status");
-            }
-
-            switch (nextStatus)
-            {
-                case UNASSIGNED:
-                    //intended fall through
-                case ASSIGNING:
-                    log.trace("Polling device provisioning service for status of registration...");
-                    registrationOperationStatusParser = this.invokeStatus(registrationOperationStatusParser.getOperationId());
-                    nextStatus = ProvisioningStatus.fromString(registrationOperationStatusParser.getStatus());
-                    isContinue = true;
-                    break;
-                case ASSIGNED:
-                    this.dpsStatus = PROVISIONING_DEVICE_STATUS_ASSIGNED;
-                    DeviceRegistrationResultParser registrationStatus = registrationOperationStatusParser.getRegistrationState();
-
-                    if (registrationStatus == null
-                            || registrationStatus.getAssignedHub() == null
-                            || registrationStatus.getAssignedHub().isEmpty()
-                            || registrationStatus.getDeviceId() == null
-                            || registrationStatus.getDeviceId().isEmpty())
-                    {
-                        throw new ProvisioningDeviceClientException("Could not retrieve Assigned Hub or Device ID and status changed to Assigned");
-                    }
-
-                    RegistrationResult registrationInfo = new RegistrationResult(
-                                                            registrationStatus.getAssignedHub(),
-                                                            registrationStatus.getDeviceId(),
-                                                            registrationStatus.getPayload(), PROVISIONING_DEVICE_STATUS_ASSIGNED);
-
-                    registrationInfo.setRegistrationId(registrationStatus.getRegistrationId());
-                    registrationInfo.setStatus(registrationStatus.getStatus());
-                    registrationInfo.setSubstatus(ProvisioningDeviceClientSubstatus.fromString(registrationStatus.getSubstatus()));
-                    registrationInfo.setCreatedDateTimeUtc(registrationStatus.getCreatedDateTimeUtc());
-                    registrationInfo.setLastUpdatesDateTimeUtc(registrationStatus.getLastUpdatesDateTimeUtc());
-                    registrationInfo.setETag(registrationStatus.getETag());
+            registrationOperationStatusParser = this.invokeStatus(registrationOperationStatusParser.getOperationId());
+        }
+    }
 
-                    if (this.securityProvider instanceof SecurityProviderTpm)
-                    {
-                        if (registrationStatus.getTpm() == null
-                                || registrationStatus.getTpm().getAuthenticationKey() == null
-                                || registrationStatus.getTpm().getAuthenticationKey().isEmpty())
-                        {
-                            throw new ProvisioningDeviceClientException("Could not retrieve Authentication key when status was assigned");
-                        }
-
-                        String authenticationKey = registrationStatus.getTpm().getAuthenticationKey();
-                        ((SecurityProviderTpm) this.securityProvider).activateIdentityKey(decodeBase64(authenticationKey.getBytes(StandardCharsets.UTF_8)));
-                    }
-                    log.info("Device provisioning service assigned the device successfully");
-                    this.invokeRegistrationCallback(registrationInfo, null);
-                    isContinue = false;
-                    break;
-                case FAILED:
-                    this.dpsStatus = PROVISIONING_DEVICE_STATUS_FAILED;
-                    String errorMessage = registrationOperationStatusParser.getRegistrationState().getErrorMessage();
-                    ProvisioningDeviceHubException dpsHubException = new ProvisioningDeviceHubException(errorMessage);
-                    if (registrationOperationStatusParser.getRegistrationState().getErrorCode() != null)
-                    {
-                        dpsHubException.setErrorCode(registrationOperationStatusParser.getRegistrationState().getErrorCode());
-                    }
+    /**
+     * Handles the status of the registration that the service responded with, invoking the registration callback if it
+     * is a terminal status.
+     * @return {@code true} if the status of the registration has to be queried again, {@code false} if the registration finished.
+     */
+    private boolean handleStatus(RegistrationOperationStatusParser registrationOperationStatusParser)
+            throws ProvisioningDeviceClientException, SecurityProviderException
+    {
+        ProvisioningStatus status = ProvisioningStatus.fromString(registrationOperationStatusParser.getStatus());
+        if (status == null)
+        {
+            throw new ProvisioningDeviceClientException("Did not receive a valid status");
+        }
 
-                    registrationInfo = new RegistrationResult(null, null, null, PROVISIONING_DEVICE_STATUS_FAILED);
-                    log.error("Device provisioning service failed to provision the device, finished with status FAILED: {}", errorMessage);
-                    this.invokeRegistrationCallback(registrationInfo, dpsHubException);
-                    isContinue = false;
-                    break;
-                case DISABLED:
-                    this.dpsStatus = PROVISIONING_DEVICE_STATUS_DISABLED;
-                    String disabledErrorMessage = registrationOperationStatusParser.getRegistrationState().getErrorMessage();
-                    dpsHubException = new ProvisioningDeviceHubException(disabledErrorMessage);
-                    if (registrationOperationStatusParser.getRegistrationState().getErrorCode() != null)
+        switch (status)
+        {
+            case UNASSIGNED:
+                //intended fall through
+            case ASSIGNING:
+                log.trace("Polling device provisioning service for status of registration...");
+                return true;
+            case ASSIGNED:
+                this.dpsStatus = PROVISIONING_DEVICE_STATUS_ASSIGNED;
+                DeviceRegistrationResultParser registrationStatus = registrationOperationStatusParser.getRegistrationState();
+
+                if (registrationStatus == null
+                        || registrationStatus.getAssignedHub() == null
+                        || registrationStatus.getAssignedHub().isEmpty()
+                        || registrationStatus.getDeviceId() == null
+                        || registrationStatus.getDeviceId().isEmpty())
+                {
+                    throw new ProvisioningDeviceClientException("Could not retrieve Assigned Hub or Device ID and status changed to Assigned");
+                }
+
+                RegistrationResult registrationInfo = new RegistrationResult(
+                                                        registrationStatus.getAssignedHub(),
+                                                        registrationStatus.getDeviceId(),
+                                                        registrationStatus.getPayload(), PROVISIONING_DEVICE_STATUS_ASSIGNED);
+
+                registrationInfo.setRegistrationId(registrationStatus.getRegistrationId());
+                registrationInfo.setStatus(registrationStatus.getStatus());
+                registrationInfo.setSubstatus(ProvisioningDeviceClientSubstatus.fromString(registrationStatus.getSubstatus()));
+                registrationInfo.setCreatedDateTimeUtc(registrationStatus.getCreatedDateTimeUtc());
+                registrationInfo.setLastUpdatesDateTimeUtc(registrationStatus.getLastUpdatesDateTimeUtc());
+                registrationInfo.setETag(registrationStatus.getETag());
+
+                if (this.securityProvider instanceof SecurityProviderTpm)
+                {
+                    if (registrationStatus.getTpm() == null
+                            || registrationStatus.getTpm().getAuthenticationKey() == null
+                            || registrationStatus.getTpm().getAuthenticationKey().isEmpty())
                     {
-                        dpsHubException.setErrorCode(registrationOperationStatusParser.getRegistrationState().getErrorCode());
+                        throw new ProvisioningDeviceClientException("Could not retrieve Authentication key when status was assigned");
                     }
 
-                    registrationInfo = new RegistrationResult(null, null, null, PROVISIONING_DEVICE_STATUS_DISABLED);
-                    log.error("Device provisioning service failed to provision the device, finished with status DISABLED: {}", disabledErrorMessage);
-                    this.invokeRegistrationCallback(registrationInfo, dpsHubException);
-                    isContinue = false;
-                    break;
-            }
+                    String authenticationKey = registrationStatus.getTpm().getAuthenticationKey();
+                    ((SecurityProviderTpm) this.securityProvider).activateIdentityKey(decodeBase64(authenticationKey.getBytes(StandardCharsets.UTF_8)));
+                }
+                log.info("Device provisioning service assigned the device successfully");
+                this.invokeRegistrationCallback(registrationInfo, null);
+                return false;
+            case FAILED:
+                this.dpsStatus = PROVISIONING_DEVICE_STATUS_FAILED;
+                String errorMessage = registrationOperationStatusParser.getRegistrationState().getErrorMessage();
+                ProvisioningDeviceHubException dpsHubException = new ProvisioningDeviceHubException(errorMessage);
+                if (registrationOperationStatusParser.getRegistrationState().getErrorCode() != null)
+                {
+                    dpsHubException.setErrorCode(registrationOperationStatusParser.getRegistrationState().getErrorCode());
+                }
+
+                registrationInfo = new RegistrationResult(null, null, null, PROVISIONING_DEVICE_STATUS_FAILED);
+                log.error("Device provisioning service failed to provision the device, finished with status FAILED: {}", errorMessage);
+                this.invokeRegistrationCallback(registrationInfo, dpsHubException);
+                return false;
+            case DISABLED:
+                this.dpsStatus = PROVISIONING_DEVICE_STATUS_DISABLED;
+                String disabledErrorMessage = registrationOperationStatusParser.getRegistrationState().getErrorMessage();
+                dpsHubException = new ProvisioningDeviceHubException(disabledErrorMessage);
+                if (registrationOperationStatusParser.getRegistrationState().getErrorCode() != null)
+                {
+                    dpsHubException.setErrorCode(registrationOperationStatusParser.getRegistrationState().getErrorCode());
+                }
+
+                registrationInfo = new RegistrationResult(null, null, null, PROVISIONING_DEVICE_STATUS_DISABLED);
+                log.error("Device provisioning service failed to provision the device, finished with status DISABLED: {}", disabledErrorMessage);
+                this.invokeRegistrationCallback(registrationInfo, dpsHubException);
+                return false;
         }
-        while (isContinue);
+
+        return false;
     }
 
     // this thread will continue to run until DPS status is assigned and registered or exit on error
@@ -294,7 +377,7 @@ public class ProvisioningTask implements Callable<Object>
                 + "-"
                 + THREAD_NAME;
 
-        Thread.currentThread().setName(threadName);
+        this.setThreadName(threadName);
 
         try
         {
@@ -334,31 +417,141 @@ public class ProvisioningTask implements Callable<Object>
                     + "-"
                     + THREAD_NAME;
 
-            Thread.currentThread().setName(threadName);
+            this.setThreadName(threadName);
 
             log.info("Connection to device provisioning service opened successfully, sending initial device registration message");
             RegistrationOperationStatusParser registrationOperationStatusParser = this.invokeRegister();
 
             log.info("Waiting for device provisioning service to provision this device...");
-            this.executeStateMachineForStatus(registrationOperationStatusParser);
-            this.close();
+            log.info("Current provisioning status: {}", registrationOperationStatusParser.getStatus());
+            if (this.scheduler == null)
+            {
+                this.executeStateMachineForStatus(registrationOperationStatusParser);
+                this.close();
+            }
+            else if (this.handleStatus(registrationOperationStatusParser))
+            {
+                this.scheduleStatusQuery(registrationOperationStatusParser.getOperationId());
+            }
+            else
+            {
+                this.close();
+            }
         }
         catch (ExecutionException | TimeoutException | ProvisioningDeviceClientException | SecurityProviderException | InterruptedException e)
         {
-            //SRS_ProvisioningTask_25_006: [ This method shall invoke the status callback, if any of the task fail or throw any exception. ]
-            this.dpsStatus = PROVISIONING_DEVICE_STATUS_ERROR;
-            invokeRegistrationCallback(new RegistrationResult(null, null, null, PROVISIONING_DEVICE_STATUS_ERROR), e);
-            //SRS_ProvisioningTask_25_015: [ This method shall invoke close call on the contract and close the threads started.]
-            this.close();
+            this.onRegistrationError(e);
         }
         return null;
     }
 
+    private void scheduleStatusQuery(String operationId) throws ProvisioningDeviceClientException
+    {
+        if (this.cancelled)
+        {
+            this.close();
+            return;
+        }
+
+        try
+        {
+            this.pendingStatusQuery = this.scheduler.schedule(() -> this.queryStatusAndContinue(operationId), provisioningDeviceClientContract.getRetryValue(), TimeUnit.MILLISECONDS);
+        }
+        catch (RejectedExecutionException e)
+        {
+            throw new ProvisioningDeviceClientException("Could not schedule the query for the status of the registration", e);
+        }
+
+        // cancel() may have run before the status query was recorded, in which case it could not cancel it
+        if (this.cancelled && this.pendingStatusQuery.cancel(false))
+        {
+            this.close();
+        }
+    }
+
+    /**
+     * Cancels this registration if it is waiting on the shared scheduler to query the status of the registration, and
+     * closes its connection to the service. The registration callback is not invoked after this method is called.
+     * The shared scheduler is not shut down.
+     */
+    public void cancel()
+    {
+        this.cancelled = true;
+        Future<?> statusQuery = this.pendingStatusQuery;
+        if (statusQuery != null && statusQuery.cancel(false))
+        {
+            try
+            {
+                this.close();
+            }
+            catch (ProvisioningDeviceConnectionException e)
+            {
+                log.warn("Failed to close the connection of the cancelled registration", e);
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if this registration finished, failed or was cancelled and its connection was closed.
+     */
+    public boolean isFinished()
+    {
+        return this.finished;
+    }
+
+    // Runs on the scheduler. Queries the status of the registration once and schedules the next query if the
+    // registration has not finished, so that no thread is held while waiting for the service to provision the device.
+    private void queryStatusAndContinue(String operationId)
+    {
+        try
+        {
+            RegistrationOperationStatusParser registrationOperationStatusParser = this.queryStatus(operationId);
+            if (this.handleStatus(registrationOperationStatusParser))
+            {
+                this.scheduleStatusQuery(registrationOperationStatusParser.getOperationId());
+            }
+            else
+            {
+                this.close();
+            }
+        }
+        catch (ExecutionException | TimeoutException | ProvisioningDeviceClientException | SecurityProviderException | InterruptedException e)
+        {
+            try
+            {
+                this.onRegistrationError(e);
+            }
+            catch (ProvisioningDeviceClientException closeException)
+            {
+                log.warn("Failed to finish the registration after it failed", closeException);
+            }
+        }
+    }
+
+    private void onRegistrationError(Exception e) throws ProvisioningDeviceClientException
+    {
+        //SRS_ProvisioningTask_25_006: [ This method shall invoke the status callback, if any of the task fail or throw any exception. ]
+        this.dpsStatus = PROVISIONING_DEVICE_STATUS_ERROR;
+        invokeRegistrationCallback(new RegistrationResult(null, null, null, PROVISIONING_DEVICE_STATUS_ERROR), e);
+        //SRS_ProvisioningTask_25_015: [ This method shall invoke close call on the contract and close the threads started.]
+        this.close();
+    }
+
+    private void setThreadName(String threadName)
+    {
+        // The threads of a shared scheduler belong to the caller, so they are not renamed
+        if (this.scheduler == null)
+        {
+            Thread.currentThread().setName(threadName);
+        }
+    }
+
     /**
      * This method shall shutdown the existing threads if not already done so.
      */
     private void close() throws ProvisioningDeviceConnectionException
     {
+        this.finished = true;
         provisioningDeviceClientContract.close();
         //SRS_ProvisioningTask_25_014: [ This method shall shutdown the executors if they have not already shutdown. ]
         if (executor != null && !executor.isShutdown())
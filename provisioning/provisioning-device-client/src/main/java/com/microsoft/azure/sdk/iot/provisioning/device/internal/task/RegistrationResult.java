@@ -58,4 +58,9 @@ class RegistrationResult extends ProvisioningDeviceClientRegistrationResult
     {
         this.lastUpdatesDateTimeUtc = lastUpdatesDateTimeUtc;
     }
+
+    void setRegistrationDurationMillis(long registrationDurationMillis)
+    {
+        this.registrationDurationMillis = registrationDurationMillis;
+    }
 }
@@ -24,6 +24,8 @@ import org.junit.runner.RunWith;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
 
 /*
     Unit tests for ProvisioningDeviceClient
@@ -50,6 +52,9 @@ public class ProvisioningDeviceClientTest
     @Mocked
     Executors mockedExecutors;
 
+    @Mocked
+    ScheduledExecutorService mockedScheduledExecutorService;
+
     @Mocked
     ProvisioningDeviceClientConfig mockedProvisioningDeviceClientConfig;
 
@@ -217,4 +222,98 @@ public class ProvisioningDeviceClientTest
             }
         };
     }
+
+    @Test
+    public void constructorWithSchedulerDoesNotCreateExecutor() throws ProvisioningDeviceClientException
+    {
+        //act
+        ProvisioningDeviceClient testProvisioningDeviceClient = ProvisioningDeviceClient.create(END_POINT, SCOPE_ID, TEST_PROTOCOL, mockedSecurityProvider, mockedScheduledExecutorService);
+
+        //assert
+        new Verifications()
+        {
+            {
+                Executors.newFixedThreadPool(anyInt);
+                times = 0;
+            }
+        };
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsOnNullScheduler() throws ProvisioningDeviceClientException
+    {
+        //act
+        ProvisioningDeviceClient testProvisioningDeviceClient = ProvisioningDeviceClient.create(END_POINT, SCOPE_ID, TEST_PROTOCOL, mockedSecurityProvider, null);
+    }
+
+    @Test
+    public void registerWithSchedulerSubmitsToScheduler() throws ProvisioningDeviceClientException
+    {
+        //arrange
+        ProvisioningDeviceClient testProvisioningDeviceClient = ProvisioningDeviceClient.create(END_POINT, SCOPE_ID, TEST_PROTOCOL, mockedSecurityProvider, mockedScheduledExecutorService);
+
+        //act
+        testProvisioningDeviceClient.registerDevice(mockedRegistrationCB, null);
+
+        //assert
+        new Verifications()
+        {
+            {
+                new ProvisioningTask(mockedProvisioningDeviceClientConfig, mockedProvisioningDeviceClientContract, mockedScheduledExecutorService);
+                times = 1;
+                mockedScheduledExecutorService.submit((ProvisioningTask) any);
+                times = 1;
+            }
+        };
+    }
+
+    @Test
+    public void closeDoesNotShutDownScheduler() throws ProvisioningDeviceClientException
+    {
+        //arrange
+        ProvisioningDeviceClient testProvisioningDeviceClient = ProvisioningDeviceClient.create(END_POINT, SCOPE_ID, TEST_PROTOCOL, mockedSecurityProvider, mockedScheduledExecutorService);
+
+        //act
+        testProvisioningDeviceClient.close();
+
+        //assert
+        new Verifications()
+        {
+            {
+                mockedScheduledExecutorService.shutdownNow();
+                times = 0;
+            }
+        };
+    }
+
+    @Test
+    public void closeCancelsRegistrationsScheduledOnScheduler(@Mocked final Future<Object> mockedFuture) throws ProvisioningDeviceClientException
+    {
+        //arrange
+        new NonStrictExpectations()
+        {
+            {
+                mockedScheduledExecutorService.submit((ProvisioningTask) any);
+                result = mockedFuture;
+            }
+        };
+        ProvisioningDeviceClient testProvisioningDeviceClient = ProvisioningDeviceClient.create(END_POINT, SCOPE_ID, TEST_PROTOCOL, mockedSecurityProvider, mockedScheduledExecutorService);
+        testProvisioningDeviceClient.registerDevice(mockedRegistrationCB, null);
+
+        //act
+        testProvisioningDeviceClient.close();
+
+        //assert
+        new Verifications()
+        {
+            {
+                mockedFuture.cancel(false);
+                times = 1;
+                mockedProvisioningTask.cancel();
+                times = 1;
+                mockedScheduledExecutorService.shutdownNow();
+                times = 0;
+            }
+        };
+    }
 }
@@ -0,0 +1,241 @@
+/*
+ *
+ *  Copyright (c) Microsoft. All rights reserved.
+ *  Licensed under the MIT license. See LICENSE file in the project root for full license information.
+ *
+ */
+
+package com.microsoft.azure.sdk.iot.provisioning.device.internal.task;
+
+import com.microsoft.azure.sdk.iot.provisioning.device.ProvisioningDeviceClientRegistrationResult;
+import com.microsoft.azure.sdk.iot.provisioning.device.ProvisioningDeviceClientTransportProtocol;
+import com.microsoft.azure.sdk.iot.provisioning.device.internal.ProvisioningDeviceClientConfig;
+import com.microsoft.azure.sdk.iot.provisioning.device.internal.contract.ProvisioningDeviceClientContract;
+import com.microsoft.azure.sdk.iot.provisioning.device.internal.contract.ResponseCallback;
+import com.microsoft.azure.sdk.iot.provisioning.device.internal.exceptions.ProvisioningDeviceClientException;
+import com.microsoft.azure.sdk.iot.provisioning.security.SecurityProviderSymmetricKey;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.microsoft.azure.sdk.iot.provisioning.device.ProvisioningDeviceClientStatus.*;
+import static org.junit.Assert.*;
+
+/*
+  Unit tests for ProvisioningTask when its status queries are scheduled on a shared scheduler
+*/
+public class ProvisioningTaskSchedulerTest
+{
+    private static final String ASSIGNING_RESPONSE = "{\"operationId\":\"testOperationId\",\"status\":\"assigning\"}";
+    private static final String ASSIGNED_RESPONSE = "{\"operationId\":\"testOperationId\",\"status\":\"assigned\","
+            + "\"registrationState\":{\"registrationId\":\"testRegistrationId\",\"assignedHub\":\"testHub\",\"deviceId\":\"testDeviceId\",\"status\":\"assigned\"}}";
+    private static final String FAILED_RESPONSE = "{\"operationId\":\"testOperationId\",\"status\":\"failed\","
+            + "\"registrationState\":{\"registrationId\":\"testRegistrationId\",\"errorCode\":400,\"errorMessage\":\"testErrorMessage\",\"status\":\"failed\"}}";
+
+    private ScheduledExecutorService scheduler;
+
+    // Responds to the registration and to each status query with the next of the provided responses
+    private static class FakeContract extends ProvisioningDeviceClientContract
+    {
+        private final String[] responses;
+        private final AtomicInteger responseIndex = new AtomicInteger();
+        private final CountDownLatch closeLatch = new CountDownLatch(1);
+
+        FakeContract(String... responses)
+        {
+            this.responses = responses;
+        }
+
+        private void respond(ResponseCallback responseCallback, Object context) throws ProvisioningDeviceClientException
+        {
+            byte[] response = this.responses[this.responseIndex.getAndIncrement()].getBytes(StandardCharsets.UTF_8);
+            responseCallback.run(new ResponseData(response, ContractState.DPS_REGISTRATION_RECEIVED, 0), context);
+        }
+
+        @Override
+        public void open(RequestData requestData)
+        {
+        }
+
+        @Override
+        public void requestNonceForTPM(RequestData requestData, ResponseCallback responseCallback, Object context)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void authenticateWithProvisioningService(RequestData requestData, ResponseCallback responseCallback, Object context) throws ProvisioningDeviceClientException
+        {
+            respond(responseCallback, context);
+        }
+
+        @Override
+        public void getRegistrationStatus(RequestData requestData, ResponseCallback responseCallback, Object context) throws ProvisioningDeviceClientException
+        {
+            respond(responseCallback, context);
+        }
+
+        @Override
+        public void close()
+        {
+            this.closeLatch.countDown();
+        }
+
+        @Override
+        public String getConnectionId()
+        {
+            return "testConnectionId";
+        }
+
+        @Override
+        public String getHostName()
+        {
+            return "testHostName";
+        }
+    }
+
+    private static ProvisioningDeviceClientConfig createConfig(AtomicReference<ProvisioningDeviceClientRegistrationResult> result,
+                                                               AtomicReference<Exception> exception,
+                                                               CountDownLatch registrationLatch)
+    {
+        ProvisioningDeviceClientConfig config = new ProvisioningDeviceClientConfig();
+        config.setProvisioningServiceGlobalEndpoint("testGlobalEndpoint");
+        config.setIdScope("testIdScope");
+        config.setProtocol(ProvisioningDeviceClientTransportProtocol.MQTT);
+        config.setSecurityProvider(new SecurityProviderSymmetricKey("dGVzdEtleQ==".getBytes(StandardCharsets.UTF_8), "testRegistrationId"));
+        config.setRegistrationCallback(
+            (registrationResult, e, context) ->
+            {
+                result.set(registrationResult);
+                exception.set(e);
+                registrationLatch.countDown();
+            },
+            null);
+        return config;
+    }
+
+    @Before
+    public void setUp()
+    {
+        this.scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.scheduler.shutdownNow();
+    }
+
+    @Test
+    public void callReturnsBeforeRegistrationFinishesAndStatusQueryIsScheduled() throws Exception
+    {
+        // arrange
+        AtomicReference<ProvisioningDeviceClientRegistrationResult> result = new AtomicReference<>();
+        AtomicReference<Exception> exception = new AtomicReference<>();
+        CountDownLatch registrationLatch = new CountDownLatch(1);
+        FakeContract contract = new FakeContract(ASSIGNING_RESPONSE, ASSIGNED_RESPONSE);
+        ProvisioningTask provisioningTask = new ProvisioningTask(createConfig(result, exception, registrationLatch), contract, this.scheduler);
+
+        // act
+        provisioningTask.call();
+
+        // assert
+        assertEquals(1, registrationLatch.getCount());
+        assertTrue(registrationLatch.await(30, TimeUnit.SECONDS));
+        assertNull(exception.get());
+        assertEquals(PROVISIONING_DEVICE_STATUS_ASSIGNED, result.get().getProvisioningDeviceClientStatus());
+        assertEquals("testHub", result.get().getIothubUri());
+        assertEquals("testDeviceId", result.get().getDeviceId());
+        assertTrue(result.get().getRegistrationDurationMillis() >= contract.getRetryValue());
+        assertTrue(contract.closeLatch.await(30, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void callFinishesWithoutSchedulingWhenRegistrationIsAssignedImmediately() throws Exception
+    {
+        // arrange
+        AtomicReference<ProvisioningDeviceClientRegistrationResult> result = new AtomicReference<>();
+        AtomicReference<Exception> exception = new AtomicReference<>();
+        CountDownLatch registrationLatch = new CountDownLatch(1);
+        FakeContract contract = new FakeContract(ASSIGNED_RESPONSE);
+        ProvisioningTask provisioningTask = new ProvisioningTask(createConfig(result, exception, registrationLatch), contract, this.scheduler);
+        String threadName = Thread.currentThread().getName();
+
+        // act
+        provisioningTask.call();
+
+        // assert
+        assertEquals(0, registrationLatch.getCount());
+        assertEquals(0, contract.closeLatch.getCount());
+        assertEquals(PROVISIONING_DEVICE_STATUS_ASSIGNED, result.get().getProvisioningDeviceClientStatus());
+        assertEquals(threadName, Thread.currentThread().getName());
+    }
+
+    @Test
+    public void scheduledStatusQueryReportsFailedRegistration() throws Exception
+    {
+        // arrange
+        AtomicReference<ProvisioningDeviceClientRegistrationResult> result = new AtomicReference<>();
+        AtomicReference<Exception> exception = new AtomicReference<>();
+        CountDownLatch registrationLatch = new CountDownLatch(1);
+        FakeContract contract = new FakeContract(ASSIGNING_RESPONSE, FAILED_RESPONSE);
+        ProvisioningTask provisioningTask = new ProvisioningTask(createConfig(result, exception, registrationLatch), contract, this.scheduler);
+
+        // act
+        provisioningTask.call();
+
+        // assert
+        assertTrue(registrationLatch.await(30, TimeUnit.SECONDS));
+        assertEquals(PROVISIONING_DEVICE_STATUS_FAILED, result.get().getProvisioningDeviceClientStatus());
+        assertNotNull(exception.get());
+        assertTrue(contract.closeLatch.await(30, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void registrationFailsWhenSchedulerIsShutDown() throws Exception
+    {
+        // arrange
+        AtomicReference<ProvisioningDeviceClientRegistrationResult> result = new AtomicReference<>();
+        AtomicReference<Exception> exception = new AtomicReference<>();
+        CountDownLatch registrationLatch = new CountDownLatch(1);
+        FakeContract contract = new FakeContract(ASSIGNING_RESPONSE);
+        ProvisioningTask provisioningTask = new ProvisioningTask(createConfig(result, exception, registrationLatch), contract, this.scheduler);
+        this.scheduler.shutdown();
+
+        // act
+        provisioningTask.call();
+
+        // assert
+        assertEquals(0, registrationLatch.getCount());
+        assertEquals(PROVISIONING_DEVICE_STATUS_ERROR, result.get().getProvisioningDeviceClientStatus());
+        assertTrue(exception.get() instanceof ProvisioningDeviceClientException);
+        assertEquals(0, contract.closeLatch.getCount());
+    }
+
+    @Test
+    public void cancelStopsScheduledStatusQueryWithoutInvokingCallback() throws Exception
+    {
+        // arrange
+        AtomicReference<ProvisioningDeviceClientRegistrationResult> result = new AtomicReference<>();
+        AtomicReference<Exception> exception = new AtomicReference<>();
+        CountDownLatch registrationLatch = new CountDownLatch(1);
+        FakeContract contract = new FakeContract(ASSIGNING_RESPONSE, ASSIGNED_RESPONSE);
+        ProvisioningTask provisioningTask = new ProvisioningTask(createConfig(result, exception, registrationLatch), contract, this.scheduler);
+        provisioningTask.call();
+
+        // act
+        provisioningTask.cancel();
+
+        // assert
+        assertEquals(0, contract.closeLatch.getCount());
+        assertTrue(provisioningTask.isFinished());
+        assertFalse(registrationLatch.await(contract.getRetryValue() + 1000, TimeUnit.MILLISECONDS));
+        assertEquals(1, contract.responseIndex.get());
+        assertFalse(this.scheduler.isShutdown());
+    }
+}
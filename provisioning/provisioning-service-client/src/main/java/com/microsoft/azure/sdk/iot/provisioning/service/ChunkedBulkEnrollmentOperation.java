@@ -0,0 +1,214 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.provisioning.service;
+
+import com.microsoft.azure.sdk.iot.provisioning.service.configs.BulkEnrollmentOperationResult;
+import com.microsoft.azure.sdk.iot.provisioning.service.configs.BulkOperationMode;
+import com.microsoft.azure.sdk.iot.provisioning.service.configs.IndividualEnrollment;
+import com.microsoft.azure.sdk.iot.provisioning.service.exceptions.ProvisioningServiceClientException;
+import com.microsoft.azure.sdk.iot.provisioning.service.exceptions.ProvisioningServiceClientTooManyRequestsException;
+import com.microsoft.azure.sdk.iot.provisioning.service.exceptions.ProvisioningServiceClientTransportException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs a bulk operation over any number of individualEnrollments by splitting them into chunks that the Device
+ * Provisioning Service accepts in a single request, and sending a bounded number of those chunks at a time.
+ *
+ * <p> Chunks that are throttled by the service are retried with an exponential backoff. If a chunk fails for any other
+ *     reason, or is still throttled after the last retry, no further chunks are sent and the chunk's exception is thrown
+ *     once the chunks that are already in flight complete.
+ */
+@Slf4j
+final class ChunkedBulkEnrollmentOperation
+{
+    // The maximum number of individualEnrollments that the Device Provisioning Service accepts in one bulk operation.
+    static final int MAX_ENROLLMENTS_PER_REQUEST = 10;
+
+    private static final int MAX_THROTTLED_RETRIES = 5;
+    private static final long INITIAL_THROTTLED_RETRY_DELAY_MILLISECONDS = 1000;
+    private static final long MAX_THROTTLED_RETRY_DELAY_MILLISECONDS = 30 * 1000;
+
+    /**
+     * Sends a single chunk of a bulk operation to the Device Provisioning Service.
+     */
+    interface ChunkSender
+    {
+        BulkEnrollmentOperationResult send(BulkOperationMode bulkOperationMode, Collection<IndividualEnrollment> individualEnrollments)
+                throws ProvisioningServiceClientException;
+    }
+
+    private final ChunkSender chunkSender;
+    private final int chunkSize;
+    private final long initialRetryDelayMillis;
+
+    ChunkedBulkEnrollmentOperation(ChunkSender chunkSender)
+    {
+        this(chunkSender, MAX_ENROLLMENTS_PER_REQUEST, INITIAL_THROTTLED_RETRY_DELAY_MILLISECONDS);
+    }
+
+    ChunkedBulkEnrollmentOperation(ChunkSender chunkSender, int chunkSize, long initialRetryDelayMillis)
+    {
+        this.chunkSender = chunkSender;
+        this.chunkSize = chunkSize;
+        this.initialRetryDelayMillis = initialRetryDelayMillis;
+    }
+
+    /**
+     * Run the bulk operation over all of the provided individualEnrollments.
+     *
+     * @param bulkOperationMode the {@link BulkOperationMode} that defines the single operation to do over the individualEnrollments. It cannot be {@code null}.
+     * @param individualEnrollments the individualEnrollments to run the operation over, which are read one chunk at a time. It cannot be {@code null} or empty.
+     * @param executor the {@link Executor} that sends the chunks. It cannot be {@code null}.
+     * @param maxConcurrentRequests the maximum number of chunks to send at a time. It must be greater than 0.
+     * @return The {@link BulkEnrollmentOperationResult} that merges the results of every chunk.
+     * @throws IllegalArgumentException if the provided parameters are not correct.
+     * @throws ProvisioningServiceClientException if a chunk could not be sent, or if the calling thread was interrupted.
+     */
+    BulkEnrollmentOperationResult run(
+            BulkOperationMode bulkOperationMode,
+            Iterator<IndividualEnrollment> individualEnrollments,
+            Executor executor,
+            int maxConcurrentRequests)
+            throws ProvisioningServiceClientException
+    {
+        if (bulkOperationMode == null)
+        {
+            throw new IllegalArgumentException("bulkOperationMode cannot be null.");
+        }
+
+        if (individualEnrollments == null || !individualEnrollments.hasNext())
+        {
+            throw new IllegalArgumentException("individualEnrollments cannot be null or empty.");
+        }
+
+        if (executor == null)
+        {
+            throw new IllegalArgumentException("executor cannot be null.");
+        }
+
+        if (maxConcurrentRequests < 1)
+        {
+            throw new IllegalArgumentException("maxConcurrentRequests must be greater than 0.");
+        }
+
+        Semaphore inFlightChunks = new Semaphore(maxConcurrentRequests);
+        AtomicReference<Exception> firstFailure = new AtomicReference<>();
+        List<BulkEnrollmentOperationResult[]> chunkResults = new ArrayList<>();
+
+        try
+        {
+            while (individualEnrollments.hasNext() && firstFailure.get() == null)
+            {
+                List<IndividualEnrollment> chunk = new ArrayList<>(this.chunkSize);
+                while (chunk.size() < this.chunkSize && individualEnrollments.hasNext())
+                {
+                    chunk.add(individualEnrollments.next());
+                }
+
+                inFlightChunks.acquire();
+                if (firstFailure.get() != null)
+                {
+                    inFlightChunks.release();
+                    break;
+                }
+
+                BulkEnrollmentOperationResult[] chunkResult = new BulkEnrollmentOperationResult[1];
+                chunkResults.add(chunkResult);
+                try
+                {
+                    executor.execute(() ->
+                    {
+                        try
+                        {
+                            chunkResult[0] = sendWithRetry(bulkOperationMode, chunk);
+                        }
+                        catch (ProvisioningServiceClientException | RuntimeException e)
+                        {
+                            firstFailure.compareAndSet(null, e);
+                        }
+                        finally
+                        {
+                            inFlightChunks.release();
+                        }
+                    });
+                }
+                catch (RuntimeException e)
+                {
+                    inFlightChunks.release();
+                    throw e;
+                }
+            }
+
+            // every permit is only released once its chunk completes, and the release publishes the chunk's result
+            inFlightChunks.acquire(maxConcurrentRequests);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new ProvisioningServiceClientTransportException("Interrupted while running the bulk operation", e);
+        }
+
+        Exception failure = firstFailure.get();
+        if (failure instanceof ProvisioningServiceClientException)
+        {
+            throw (ProvisioningServiceClientException) failure;
+        }
+        else if (failure != null)
+        {
+            throw (RuntimeException) failure;
+        }
+
+        List<BulkEnrollmentOperationResult> results = new ArrayList<>(chunkResults.size());
+        for (BulkEnrollmentOperationResult[] chunkResult : chunkResults)
+        {
+            results.add(chunkResult[0]);
+        }
+
+        return BulkEnrollmentOperationResult.merge(results);
+    }
+
+    private BulkEnrollmentOperationResult sendWithRetry(BulkOperationMode bulkOperationMode, List<IndividualEnrollment> chunk)
+            throws ProvisioningServiceClientException
+    {
+        long retryDelayMillis = this.initialRetryDelayMillis;
+        for (int retry = 0; ; retry++)
+        {
+            try
+            {
+                return this.chunkSender.send(bulkOperationMode, chunk);
+            }
+            catch (ProvisioningServiceClientTooManyRequestsException e)
+            {
+                if (retry >= MAX_THROTTLED_RETRIES)
+                {
+                    throw e;
+                }
+
+                // the random part of the delay keeps throttled chunks from retrying in lockstep
+                long sleepMillis = ThreadLocalRandom.current().nextLong(retryDelayMillis / 2, retryDelayMillis + 1);
+                log.debug("Bulk operation chunk was throttled, retrying in {} milliseconds", sleepMillis);
+                try
+                {
+                    Thread.sleep(sleepMillis);
+                }
+                catch (InterruptedException interruptedException)
+                {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+
+                retryDelayMillis = Math.min(retryDelayMillis * 2, MAX_THROTTLED_RETRY_DELAY_MILLISECONDS);
+            }
+        }
+    }
+}
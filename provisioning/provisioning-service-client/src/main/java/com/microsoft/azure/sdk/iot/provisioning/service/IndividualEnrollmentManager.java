@@ -14,7 +14,9 @@ import com.microsoft.azure.sdk.iot.provisioning.service.exceptions.ProvisioningS
 import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * IndividualEnrollment Manager
@@ -165,6 +167,30 @@ class IndividualEnrollmentManager
         return new BulkEnrollmentOperationResult(new String(body, StandardCharsets.UTF_8));
     }
 
+    /**
+     * Create, update or delete any number of individualEnrollments by splitting them into concurrently sent bulk operations.
+     *
+     * @see ProvisioningServiceClient#runBulkEnrollmentOperation(BulkOperationMode, Iterator, Executor, int)
+     *
+     * @param bulkOperationMode the {@link BulkOperationMode} that defines the single operation to do over the individualEnrollments. It cannot be {@code null}.
+     * @param individualEnrollments the individualEnrollments to run the operation over. It cannot be {@code null} or empty.
+     * @param executor the {@link Executor} that sends the bulk operations. It cannot be {@code null}.
+     * @param maxConcurrentRequests the maximum number of bulk operations to send at a time. It must be greater than 0.
+     * @return An {@link BulkEnrollmentOperationResult} that merges the results of every bulk operation.
+     * @throws IllegalArgumentException if the provided parameters are not correct.
+     * @throws ProvisioningServiceClientTransportException if the SDK failed to send a request to the Device Provisioning Service.
+     * @throws ProvisioningServiceClientException if the Device Provisioning Service was not able to execute a bulk operation.
+     */
+    BulkEnrollmentOperationResult bulkOperation(
+            BulkOperationMode bulkOperationMode,
+            Iterator<IndividualEnrollment> individualEnrollments,
+            Executor executor,
+            int maxConcurrentRequests)
+            throws ProvisioningServiceClientException
+    {
+        return new ChunkedBulkEnrollmentOperation(this::bulkOperation).run(bulkOperationMode, individualEnrollments, executor, maxConcurrentRequests);
+    }
+
     /**
      * Get individualEnrollment information.
      *
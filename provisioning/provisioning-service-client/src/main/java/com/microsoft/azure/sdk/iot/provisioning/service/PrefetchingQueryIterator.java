@@ -0,0 +1,173 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.provisioning.service;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterates over the items of every page of a {@link Query}.
+ *
+ * <p> As soon as a page arrives, the next page is requested on the provided executor, so that it downloads while the
+ *     items of the current page are read. The items of a page are deserialized one at a time as they are read, rather
+ *     than all at once into a {@link com.microsoft.azure.sdk.iot.provisioning.service.configs.QueryResult}.
+ *
+ * <p> Like {@link Query#next()}, this iterator throws {@code IllegalArgumentException} if a page could not be
+ *     retrieved from the Device Provisioning Service.
+ *
+ * @param <T> the type of the query's items.
+ */
+final class PrefetchingQueryIterator<T> implements Iterator<T>
+{
+    private static final Gson GSON = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().disableHtmlEscaping().create();
+
+    private final Query query;
+    private final Class<T> itemType;
+    private final Executor executor;
+
+    // the request for the page after the current one, or null if it has not been requested
+    private CompletableFuture<byte[]> nextPage;
+
+    // the page whose items are being read, or null if no page is being read
+    private JsonReader currentPage;
+
+    PrefetchingQueryIterator(Query query, Class<T> itemType, Executor executor)
+    {
+        if (query == null)
+        {
+            throw new IllegalArgumentException("query cannot be null.");
+        }
+
+        if (itemType == null)
+        {
+            throw new IllegalArgumentException("itemType cannot be null.");
+        }
+
+        if (executor == null)
+        {
+            throw new IllegalArgumentException("executor cannot be null.");
+        }
+
+        this.query = query;
+        this.itemType = itemType;
+        this.executor = executor;
+    }
+
+    /**
+     * Create a sequential {@link Stream} over the items of every page of the provided query.
+     *
+     * @param query the {@link Query} to stream the items of.
+     * @param itemType the type of the query's items.
+     * @param executor the {@link Executor} that requests the pages.
+     * @param <T> the type of the query's items.
+     * @return The {@link Stream} of items.
+     */
+    static <T> Stream<T> stream(Query query, Class<T> itemType, Executor executor)
+    {
+        Iterator<T> iterator = new PrefetchingQueryIterator<>(query, itemType, executor);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        try
+        {
+            while (this.currentPage == null || !this.currentPage.hasNext())
+            {
+                if (this.currentPage != null)
+                {
+                    this.currentPage.endArray();
+                    this.currentPage.close();
+                    this.currentPage = null;
+                }
+
+                if (this.nextPage == null)
+                {
+                    // no request is in flight, so the query's state is not being changed by another thread
+                    if (!this.query.hasNext())
+                    {
+                        return false;
+                    }
+
+                    this.nextPage = requestNextPage();
+                }
+
+                byte[] body = await(this.nextPage);
+                this.nextPage = this.query.hasNext() ? requestNextPage() : null;
+
+                this.currentPage = new JsonReader(new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8));
+                this.currentPage.beginArray();
+            }
+        }
+        catch (IOException e)
+        {
+            throw new JsonSyntaxException(e);
+        }
+
+        return true;
+    }
+
+    @Override
+    public T next()
+    {
+        if (!hasNext())
+        {
+            throw new NoSuchElementException("There are no more pending elements");
+        }
+
+        return GSON.fromJson(this.currentPage, this.itemType);
+    }
+
+    private CompletableFuture<byte[]> requestNextPage()
+    {
+        CompletableFuture<byte[]> page = new CompletableFuture<>();
+        this.executor.execute(() ->
+        {
+            try
+            {
+                page.complete(this.query.nextPage((type, body, continuationToken) -> body));
+            }
+            catch (RuntimeException e)
+            {
+                page.completeExceptionally(e);
+            }
+        });
+
+        return page;
+    }
+
+    private static byte[] await(CompletableFuture<byte[]> page)
+    {
+        try
+        {
+            return page.join();
+        }
+        catch (CompletionException e)
+        {
+            if (e.getCause() instanceof RuntimeException)
+            {
+                throw (RuntimeException) e.getCause();
+            }
+
+            throw e;
+        }
+    }
+}
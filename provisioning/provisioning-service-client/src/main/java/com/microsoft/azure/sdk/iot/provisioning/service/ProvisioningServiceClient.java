@@ -15,6 +15,10 @@ import com.microsoft.azure.sdk.iot.provisioning.service.exceptions.ProvisioningS
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 
 /**
  * Device Provisioning Service Client.
@@ -45,6 +49,11 @@ import java.util.Collection;
  *     the {@link QuerySpecification}, with the SQL query. This factory returns a {@link Query} object, which is an
  *     active iterator.
  *
+ * <p> The methods whose names end in {@code Async} send their request on an {@link Executor} that the application
+ *     provides, and return a {@link CompletableFuture} rather than blocking the calling thread. Each request holds one
+ *     of the executor's threads until its response arrives, so give them an executor with as many threads as the
+ *     number of requests that should be in flight at once.
+ *
  * <p> This java SDK can be represented in the follow diagram, the first layer are the public APIs the your application
  *     shall use:
  *
@@ -230,6 +239,24 @@ public final class ProvisioningServiceClient
         return individualEnrollmentManager.createOrUpdate(individualEnrollment);
     }
 
+    /**
+     * Create or update a individual Device Enrollment record without blocking the calling thread.
+     *
+     * <p> This method runs {@link #createOrUpdateIndividualEnrollment(IndividualEnrollment)} on the provided executor. See
+     *     {@link ProvisioningServiceClient} for how to size the executor.
+     *
+     * @param individualEnrollment the {@link IndividualEnrollment} object that describes the individualEnrollment that will be created of
+     *                   updated. It cannot be {@code null}.
+     * @param executor the {@link Executor} that sends the request. It cannot be {@code null}.
+     * @return A {@link CompletableFuture} that completes with an {@link IndividualEnrollment} object with the result of the create or update requested, or
+     *         exceptionally with the {@link ProvisioningServiceClientException} that the request failed with.
+     * @throws IllegalArgumentException if the provided executor is {@code null}.
+     */
+    public CompletableFuture<IndividualEnrollment> createOrUpdateIndividualEnrollmentAsync(IndividualEnrollment individualEnrollment, Executor executor)
+    {
+        return supplyAsync(() -> createOrUpdateIndividualEnrollment(individualEnrollment), executor);
+    }
+
     /**
      * Create, update or delete a set of individual Device Enrollments.
      *
@@ -314,6 +341,57 @@ public final class ProvisioningServiceClient
         return individualEnrollmentManager.bulkOperation(bulkOperationMode, individualEnrollments);
     }
 
+    /**
+     * Create, update or delete any number of individual Device Enrollments.
+     *
+     * <p> The Device Provisioning Service limits how many individualEnrollments a single bulk operation may contain. This
+     *     method reads the individualEnrollments one chunk of that size at a time, and sends each chunk as its own bulk
+     *     operation on the provided executor, with at most {@code maxConcurrentRequests} of them in flight at once.
+     *     To run the operation over a {@code Stream}, pass its {@code iterator()}.
+     *
+     * <p> Chunks that the Device Provisioning Service throttles are retried with an exponential backoff. If a chunk
+     *     fails for any other reason, or is still throttled after its last retry, no more chunks are sent, and its
+     *     exception is thrown once the chunks in flight complete. The chunks that were sent before the failure may have
+     *     been applied.
+     *
+     * @param bulkOperationMode the {@link BulkOperationMode} that defines the single operation to do over the individualEnrollments. It cannot be {@code null}.
+     * @param individualEnrollments the {@link Iterator} of {@link IndividualEnrollment} that contains the description of each individualEnrollment. It cannot be {@code null} or empty.
+     * @param executor the {@link Executor} that sends the chunks. It cannot be {@code null}.
+     * @param maxConcurrentRequests the maximum number of chunks to send at a time. It must be greater than 0.
+     * @return A {@link BulkEnrollmentOperationResult} object that merges the results of every chunk.
+     * @throws IllegalArgumentException if the provided parameters are not correct.
+     * @throws ProvisioningServiceClientTransportException if the SDK failed to send a request to the Device Provisioning Service.
+     * @throws ProvisioningServiceClientException if the Device Provisioning Service was not able to execute a chunk of the bulk operation.
+     */
+    public BulkEnrollmentOperationResult runBulkEnrollmentOperation(
+            BulkOperationMode bulkOperationMode,
+            Iterator<IndividualEnrollment> individualEnrollments,
+            Executor executor,
+            int maxConcurrentRequests)
+            throws ProvisioningServiceClientException
+    {
+        return individualEnrollmentManager.bulkOperation(bulkOperationMode, individualEnrollments, executor, maxConcurrentRequests);
+    }
+
+    /**
+     * Create, update or delete a set of individual Device Enrollments without blocking the calling thread.
+     *
+     * <p> This method runs {@link #runBulkEnrollmentOperation(BulkOperationMode, Collection)} on the provided executor. See
+     *     {@link ProvisioningServiceClient} for how to size the executor.
+     *
+     * @param bulkOperationMode the {@link BulkOperationMode} that defines the single operation to do over the individualEnrollments. It cannot be {@code null}.
+     * @param individualEnrollments the collection of {@link IndividualEnrollment} that contains the description of each individualEnrollment. It cannot be {@code null} or empty.
+     * @param executor the {@link Executor} that sends the request. It cannot be {@code null}.
+     * @return A {@link CompletableFuture} that completes with a {@link BulkEnrollmentOperationResult} object with the result of operation for each enrollment, or
+     *         exceptionally with the {@link ProvisioningServiceClientException} that the request failed with.
+     * @throws IllegalArgumentException if the provided executor is {@code null}.
+     */
+    public CompletableFuture<BulkEnrollmentOperationResult> runBulkEnrollmentOperationAsync(
+            BulkOperationMode bulkOperationMode, Collection<IndividualEnrollment> individualEnrollments, Executor executor)
+    {
+        return supplyAsync(() -> runBulkEnrollmentOperation(bulkOperationMode, individualEnrollments), executor);
+    }
+
     /**
      * Retrieve the individualEnrollment information.
      *
@@ -360,6 +438,23 @@ public final class ProvisioningServiceClient
         return individualEnrollmentManager.get(registrationId);
     }
 
+    /**
+     * Retrieve the individualEnrollment information without blocking the calling thread.
+     *
+     * <p> This method runs {@link #getIndividualEnrollment(String)} on the provided executor. See
+     *     {@link ProvisioningServiceClient} for how to size the executor.
+     *
+     * @param registrationId the {@code String} that identifies the individualEnrollment. It cannot be {@code null} or empty.
+     * @param executor the {@link Executor} that sends the request. It cannot be {@code null}.
+     * @return A {@link CompletableFuture} that completes with the {@link IndividualEnrollment} with the content of the individualEnrollment in the Provisioning Device Service, or
+     *         exceptionally with the {@link ProvisioningServiceClientException} that the request failed with.
+     * @throws IllegalArgumentException if the provided executor is {@code null}.
+     */
+    public CompletableFuture<IndividualEnrollment> getIndividualEnrollmentAsync(String registrationId, Executor executor)
+    {
+        return supplyAsync(() -> getIndividualEnrollment(registrationId), executor);
+    }
+
     /**
      * Get the attestation mechanism details for a given individual enrollment
      * @param registrationId the registration id of the individual enrollment to look up the attestation mechanism for
@@ -468,6 +563,27 @@ public final class ProvisioningServiceClient
         individualEnrollmentManager.delete(registrationId, null);
     }
 
+    /**
+     * Delete the individualEnrollment information without blocking the calling thread.
+     *
+     * <p> This method runs {@link #deleteIndividualEnrollment(String)} on the provided executor. See
+     *     {@link ProvisioningServiceClient} for how to size the executor.
+     *
+     * @param registrationId the {@code String} that identifies the individualEnrollment. It cannot be {@code null} or empty.
+     * @param executor the {@link Executor} that sends the request. It cannot be {@code null}.
+     * @return A {@link CompletableFuture} that completes once the request succeeds, or
+     *         exceptionally with the {@link ProvisioningServiceClientException} that the request failed with.
+     * @throws IllegalArgumentException if the provided executor is {@code null}.
+     */
+    public CompletableFuture<Void> deleteIndividualEnrollmentAsync(String registrationId, Executor executor)
+    {
+        return supplyAsync(() ->
+        {
+            deleteIndividualEnrollment(registrationId);
+            return null;
+        }, executor);
+    }
+
     /**
      * Delete the individualEnrollment information.
      *
@@ -518,6 +634,29 @@ public final class ProvisioningServiceClient
         individualEnrollmentManager.delete(registrationId, eTag);
     }
 
+    /**
+     * Delete the individualEnrollment information without blocking the calling thread.
+     *
+     * <p> This method runs {@link #deleteIndividualEnrollment(String, String)} on the provided executor. See
+     *     {@link ProvisioningServiceClient} for how to size the executor.
+     *
+     * @param registrationId the {@code String} that identifies the individualEnrollment. It cannot be {@code null} or empty.
+     * @param eTag the {@code String} with the IndividualEnrollment eTag. It can be {@code null} or empty.
+     *             The Device Provisioning Service will ignore it in all of these cases.
+     * @param executor the {@link Executor} that sends the request. It cannot be {@code null}.
+     * @return A {@link CompletableFuture} that completes once the request succeeds, or
+     *         exceptionally with the {@link ProvisioningServiceClientException} that the request failed with.
+     * @throws IllegalArgumentException if the provided executor is {@code null}.
+     */
+    public CompletableFuture<Void> deleteIndividualEnrollmentAsync(String registrationId, String eTag, Executor executor)
+    {
+        return supplyAsync(() ->
+        {
+            deleteIndividualEnrollment(registrationId, eTag);
+            return null;
+        }, executor);
+    }
+
     /**
      * Factory to create a individualEnrollment query.
      *
@@ -559,6 +698,27 @@ public final class ProvisioningServiceClient
         return individualEnrollmentManager.createQuery(querySpecification, pageSize);
     }
 
+    /**
+     * Stream the individualEnrollments that match a query.
+     *
+     * <p> This method runs the query from {@link #createIndividualEnrollmentQuery(QuerySpecification, int)} and returns
+     *     the individualEnrollments of every page in a single sequential {@code Stream}.
+     *
+     * <p> The query's pages are requested on the provided executor, and each page is requested as soon as the previous
+     *     one arrives, so that it downloads while the items of the previous page are processed. The items are
+     *     deserialized one at a time as the stream consumes them.
+     *
+     * @param querySpecification the {@link QuerySpecification} with the SQL query. It cannot be {@code null}.
+     * @param pageSize the {@code int} with the maximum number of items per page. It can be 0 for default, but not negative.
+     * @param executor the {@link Executor} that requests the pages. It cannot be {@code null}.
+     * @return The {@code Stream} of {@link IndividualEnrollment}.
+     * @throws IllegalArgumentException if the provided parameters are not correct.
+     */
+    public Stream<IndividualEnrollment> streamIndividualEnrollments(QuerySpecification querySpecification, int pageSize, Executor executor)
+    {
+        return PrefetchingQueryIterator.stream(createIndividualEnrollmentQuery(querySpecification, pageSize), IndividualEnrollment.class, executor);
+    }
+
     /**
      * Create or update an enrollment group record.
      *
@@ -633,6 +793,23 @@ public final class ProvisioningServiceClient
         return enrollmentGroupManager.createOrUpdate(enrollmentGroup);
     }
 
+    /**
+     * Create or update an enrollment group record without blocking the calling thread.
+     *
+     * <p> This method runs {@link #createOrUpdateEnrollmentGroup(EnrollmentGroup)} on the provided executor. See
+     *     {@link ProvisioningServiceClient} for how to size the executor.
+     *
+     * @param enrollmentGroup the {@link EnrollmentGroup} object that describes the individualEnrollment that will be created of updated. It cannot be {@code null}.
+     * @param executor the {@link Executor} that sends the request. It cannot be {@code null}.
+     * @return A {@link CompletableFuture} that completes with an {@link EnrollmentGroup} object with the result of the create or update requested, or
+     *         exceptionally with the {@link ProvisioningServiceClientException} that the request failed with.
+     * @throws IllegalArgumentException if the provided executor is {@code null}.
+     */
+    public CompletableFuture<EnrollmentGroup> createOrUpdateEnrollmentGroupAsync(EnrollmentGroup enrollmentGroup, Executor executor)
+    {
+        return supplyAsync(() -> createOrUpdateEnrollmentGroup(enrollmentGroup), executor);
+    }
+
     /**
      * Retrieve the enrollmentGroup information.
      *
@@ -678,6 +855,23 @@ public final class ProvisioningServiceClient
         return enrollmentGroupManager.get(enrollmentGroupId);
     }
 
+    /**
+     * Retrieve the enrollmentGroup information without blocking the calling thread.
+     *
+     * <p> This method runs {@link #getEnrollmentGroup(String)} on the provided executor. See
+     *     {@link ProvisioningServiceClient} for how to size the executor.
+     *
+     * @param enrollmentGroupId the {@code String} that identifies the enrollmentGroup. It cannot be {@code null} or empty.
+     * @param executor the {@link Executor} that sends the request. It cannot be {@code null}.
+     * @return A {@link CompletableFuture} that completes with the {@link EnrollmentGroup} with the content of the enrollmentGroup in the Provisioning Device Service, or
+     *         exceptionally with the {@link ProvisioningServiceClientException} that the request failed with.
+     * @throws IllegalArgumentException if the provided executor is {@code null}.
+     */
+    public CompletableFuture<EnrollmentGroup> getEnrollmentGroupAsync(String enrollmentGroupId, Executor executor)
+    {
+        return supplyAsync(() -> getEnrollmentGroup(enrollmentGroupId), executor);
+    }
+
     /**
      * Get the attestation mechanism details for a given enrollment group
      * @param enrollmentGroupId the group id of the enrollment group to look up the attestation mechanism for
@@ -784,6 +978,27 @@ public final class ProvisioningServiceClient
         enrollmentGroupManager.delete(enrollmentGroupId, null);
     }
 
+    /**
+     * Delete the enrollmentGroup information without blocking the calling thread.
+     *
+     * <p> This method runs {@link #deleteEnrollmentGroup(String)} on the provided executor. See
+     *     {@link ProvisioningServiceClient} for how to size the executor.
+     *
+     * @param enrollmentGroupId the {@code String} that identifies the enrollmentGroup. It cannot be {@code null} or empty.
+     * @param executor the {@link Executor} that sends the request. It cannot be {@code null}.
+     * @return A {@link CompletableFuture} that completes once the request succeeds, or
+     *         exceptionally with the {@link ProvisioningServiceClientException} that the request failed with.
+     * @throws IllegalArgumentException if the provided executor is {@code null}.
+     */
+    public CompletableFuture<Void> deleteEnrollmentGroupAsync(String enrollmentGroupId, Executor executor)
+    {
+        return supplyAsync(() ->
+        {
+            deleteEnrollmentGroup(enrollmentGroupId);
+            return null;
+        }, executor);
+    }
+
     /**
      * Delete the enrollmentGroup information.
      *
@@ -833,6 +1048,29 @@ public final class ProvisioningServiceClient
         enrollmentGroupManager.delete(enrollmentGroupId, eTag);
     }
 
+    /**
+     * Delete the enrollmentGroup information without blocking the calling thread.
+     *
+     * <p> This method runs {@link #deleteEnrollmentGroup(String, String)} on the provided executor. See
+     *     {@link ProvisioningServiceClient} for how to size the executor.
+     *
+     * @param enrollmentGroupId the {@code String} that identifies the enrollmentGroup. It cannot be {@code null} or empty.
+     * @param eTag the {@code String} with the enrollmentGroup eTag. It can be {@code null} or empty.
+     *             The Device Provisioning Service will ignore it in all of these cases.
+     * @param executor the {@link Executor} that sends the request. It cannot be {@code null}.
+     * @return A {@link CompletableFuture} that completes once the request succeeds, or
+     *         exceptionally with the {@link ProvisioningServiceClientException} that the request failed with.
+     * @throws IllegalArgumentException if the provided executor is {@code null}.
+     */
+    public CompletableFuture<Void> deleteEnrollmentGroupAsync(String enrollmentGroupId, String eTag, Executor executor)
+    {
+        return supplyAsync(() ->
+        {
+            deleteEnrollmentGroup(enrollmentGroupId, eTag);
+            return null;
+        }, executor);
+    }
+
     /**
      * Factory to create an enrollmentGroup query.
      *
@@ -874,6 +1112,27 @@ public final class ProvisioningServiceClient
         return enrollmentGroupManager.createQuery(querySpecification, pageSize);
     }
 
+    /**
+     * Stream the enrollmentGroups that match a query.
+     *
+     * <p> This method runs the query from {@link #createEnrollmentGroupQuery(QuerySpecification, int)} and returns
+     *     the enrollmentGroups of every page in a single sequential {@code Stream}.
+     *
+     * <p> The query's pages are requested on the provided executor, and each page is requested as soon as the previous
+     *     one arrives, so that it downloads while the items of the previous page are processed. The items are
+     *     deserialized one at a time as the stream consumes them.
+     *
+     * @param querySpecification the {@link QuerySpecification} with the SQL query. It cannot be {@code null}.
+     * @param pageSize the {@code int} with the maximum number of items per page. It can be 0 for default, but not negative.
+     * @param executor the {@link Executor} that requests the pages. It cannot be {@code null}.
+     * @return The {@code Stream} of {@link EnrollmentGroup}.
+     * @throws IllegalArgumentException if the provided parameters are not correct.
+     */
+    public Stream<EnrollmentGroup> streamEnrollmentGroups(QuerySpecification querySpecification, int pageSize, Executor executor)
+    {
+        return PrefetchingQueryIterator.stream(createEnrollmentGroupQuery(querySpecification, pageSize), EnrollmentGroup.class, executor);
+    }
+
     /**
      * Retrieve the registration status information.
      *
@@ -919,6 +1178,23 @@ public final class ProvisioningServiceClient
         return registrationStatusManager.get(id);
     }
 
+    /**
+     * Retrieve the registration status without blocking the calling thread.
+     *
+     * <p> This method runs {@link #getDeviceRegistrationState(String)} on the provided executor. See
+     *     {@link ProvisioningServiceClient} for how to size the executor.
+     *
+     * @param id the {@code String} that identifies the registration status. It cannot be {@code null} or empty.
+     * @param executor the {@link Executor} that sends the request. It cannot be {@code null}.
+     * @return A {@link CompletableFuture} that completes with the {@link DeviceRegistrationState} with the content of the registration status in the Provisioning Device Service, or
+     *         exceptionally with the {@link ProvisioningServiceClientException} that the request failed with.
+     * @throws IllegalArgumentException if the provided executor is {@code null}.
+     */
+    public CompletableFuture<DeviceRegistrationState> getDeviceRegistrationStateAsync(String id, Executor executor)
+    {
+        return supplyAsync(() -> getDeviceRegistrationState(id), executor);
+    }
+
     /**
      * Delete the Registration Status information.
      *
@@ -1009,6 +1285,27 @@ public final class ProvisioningServiceClient
         registrationStatusManager.delete(id, null);
     }
 
+    /**
+     * Delete the registration status without blocking the calling thread.
+     *
+     * <p> This method runs {@link #deleteDeviceRegistrationState(String)} on the provided executor. See
+     *     {@link ProvisioningServiceClient} for how to size the executor.
+     *
+     * @param id the {@code String} that identifies the registration status. It cannot be {@code null} or empty.
+     * @param executor the {@link Executor} that sends the request. It cannot be {@code null}.
+     * @return A {@link CompletableFuture} that completes once the request succeeds, or
+     *         exceptionally with the {@link ProvisioningServiceClientException} that the request failed with.
+     * @throws IllegalArgumentException if the provided executor is {@code null}.
+     */
+    public CompletableFuture<Void> deleteDeviceRegistrationStateAsync(String id, Executor executor)
+    {
+        return supplyAsync(() ->
+        {
+            deleteDeviceRegistrationState(id);
+            return null;
+        }, executor);
+    }
+
     /**
      * Delete the registration status information.
      *
@@ -1056,6 +1353,29 @@ public final class ProvisioningServiceClient
         registrationStatusManager.delete(id, eTag);
     }
 
+    /**
+     * Delete the registration status without blocking the calling thread.
+     *
+     * <p> This method runs {@link #deleteDeviceRegistrationState(String, String)} on the provided executor. See
+     *     {@link ProvisioningServiceClient} for how to size the executor.
+     *
+     * @param id the {@code String} that identifies the registration status. It cannot be {@code null} or empty.
+     * @param eTag the {@code String} with the DeviceRegistrationState eTag. It can be {@code null} or empty.
+     *             The Device Provisioning Service will ignore it in all of these cases.
+     * @param executor the {@link Executor} that sends the request. It cannot be {@code null}.
+     * @return A {@link CompletableFuture} that completes once the request succeeds, or
+     *         exceptionally with the {@link ProvisioningServiceClientException} that the request failed with.
+     * @throws IllegalArgumentException if the provided executor is {@code null}.
+     */
+    public CompletableFuture<Void> deleteDeviceRegistrationStateAsync(String id, String eTag, Executor executor)
+    {
+        return supplyAsync(() ->
+        {
+            deleteDeviceRegistrationState(id, eTag);
+            return null;
+        }, executor);
+    }
+
     /**
      * Factory to create a registration status query.
      *
@@ -1097,4 +1417,64 @@ public final class ProvisioningServiceClient
     {
         return registrationStatusManager.createEnrollmentGroupQuery(querySpecification, enrollmentGroupId, pageSize);
     }
+
+    /**
+     * Stream the registration states of an enrollmentGroup that match a query.
+     *
+     * <p> This method runs the query from {@link #createEnrollmentGroupRegistrationStateQuery(QuerySpecification, String, int)}
+     *     and returns the registration states of every page in a single sequential {@code Stream}.
+     *
+     * <p> The query's pages are requested on the provided executor, and each page is requested as soon as the previous
+     *     one arrives, so that it downloads while the items of the previous page are processed. The items are
+     *     deserialized one at a time as the stream consumes them.
+     *
+     * @param querySpecification the {@link QuerySpecification} with the SQL query. It cannot be {@code null}.
+     * @param enrollmentGroupId the {@code String} that identifies the enrollmentGroup. It cannot be {@code null} or empty.
+     * @param pageSize the {@code int} with the maximum number of items per page. It can be 0 for default, but not negative.
+     * @param executor the {@link Executor} that requests the pages. It cannot be {@code null}.
+     * @return The {@code Stream} of {@link DeviceRegistrationState}.
+     * @throws IllegalArgumentException if the provided parameters are not correct.
+     */
+    public Stream<DeviceRegistrationState> streamEnrollmentGroupRegistrationStates(
+            QuerySpecification querySpecification,
+            String enrollmentGroupId,
+            int pageSize,
+            Executor executor)
+    {
+        return PrefetchingQueryIterator.stream(
+                createEnrollmentGroupRegistrationStateQuery(querySpecification, enrollmentGroupId, pageSize),
+                DeviceRegistrationState.class,
+                executor);
+    }
+
+    private static <T> CompletableFuture<T> supplyAsync(ProvisioningServiceRequest<T> request, Executor executor)
+    {
+        if (executor == null)
+        {
+            throw new IllegalArgumentException("executor cannot be null");
+        }
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        executor.execute(() ->
+        {
+            try
+            {
+                future.complete(request.send());
+            }
+            catch (ProvisioningServiceClientException | RuntimeException e)
+            {
+                future.completeExceptionally(e);
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * A blocking request to the Device Provisioning Service that one of the asynchronous methods runs on an executor.
+     */
+    private interface ProvisioningServiceRequest<T>
+    {
+        T send() throws ProvisioningServiceClientException;
+    }
 }
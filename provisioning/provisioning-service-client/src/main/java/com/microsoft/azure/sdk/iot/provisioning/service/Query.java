@@ -155,6 +155,18 @@ public class Query implements Iterator<QueryResult>
      */
     @Override
     public QueryResult next()
+    {
+        return nextPage((type, body, continuationToken) -> new QueryResult(type, new String(body, StandardCharsets.UTF_8), continuationToken));
+    }
+
+    /**
+     * Request the next page of result for the query, and hand it to the provided parser without decoding it.
+     *
+     * @param pageParser the {@link PageParser} that creates the result from the page.
+     * @return The result that the parser created from the next page.
+     * @throws NoSuchElementException if the query does no have more pages to return.
+     */
+    <T> T nextPage(PageParser<T> pageParser)
     {
         if (!hasNext)
         {
@@ -193,14 +205,21 @@ public class Query implements Iterator<QueryResult>
             throw new IllegalArgumentException("Http response for next cannot contains a null body");
         }
 
-        String bodyStr = new String(body, StandardCharsets.UTF_8);
         Map<String, String> headers = httpResponse.getHeaderFields();
         String type = headers.get(ITEM_TYPE_KEY);
         this.continuationToken = headers.get(CONTINUATION_TOKEN_KEY);
 
         hasNext = (this.continuationToken != null);
 
-        return new QueryResult(type, bodyStr, this.continuationToken);
+        return pageParser.parse(type, body, this.continuationToken);
+    }
+
+    /**
+     * Creates the result of a query from a page of the query's items, as it was received from the Device Provisioning Service.
+     */
+    interface PageParser<T>
+    {
+        T parse(String type, byte[] body, String continuationToken);
     }
 
     /**
@@ -123,6 +123,16 @@ public final class ProvisioningSasToken
         return expiresOnDate / ONE_SECOND_IN_MILLISECONDS;
     }
 
+    /**
+     * Returns the time at which this SAS token expires.
+     *
+     * @return The expiry time, as a UNIX timestamp in seconds.
+     */
+    public long getExpiryTime()
+    {
+        return this.expiryTime;
+    }
+
     /**
      * Returns the string representation of the SAS token.
      *
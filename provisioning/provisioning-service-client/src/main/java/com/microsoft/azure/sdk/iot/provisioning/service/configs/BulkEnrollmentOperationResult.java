@@ -9,6 +9,7 @@ import com.google.gson.annotations.Expose;
 import com.google.gson.annotations.SerializedName;
 import com.microsoft.azure.sdk.iot.provisioning.service.ProvisioningServiceClient;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
@@ -90,6 +91,39 @@ public class BulkEnrollmentOperationResult
         this.errors = result.errors;
     }
 
+    /**
+     * Merges the results of several bulk operations into one, such as the results of the chunks that a large bulk
+     * operation was split into. The merged result is successful only if all of the provided results are, and it holds
+     * the errors of all of them.
+     *
+     * @param results the {@code Collection} of {@link BulkEnrollmentOperationResult} to merge. It cannot be {@code null}.
+     * @return The {@code BulkEnrollmentOperationResult} that merges the provided results.
+     * @throws IllegalArgumentException If the provided collection is null.
+     */
+    public static BulkEnrollmentOperationResult merge(Collection<BulkEnrollmentOperationResult> results)
+    {
+        if (results == null)
+        {
+            throw new IllegalArgumentException("results cannot be null");
+        }
+
+        boolean isSuccessful = true;
+        List<BulkEnrollmentOperationError> errors = new ArrayList<>();
+        for (BulkEnrollmentOperationResult result : results)
+        {
+            isSuccessful &= result.isSuccessful;
+            if (result.errors != null)
+            {
+                errors.addAll(Arrays.asList(result.errors));
+            }
+        }
+
+        BulkEnrollmentOperationResult mergedResult = new BulkEnrollmentOperationResult();
+        mergedResult.isSuccessful = isSuccessful;
+        mergedResult.errors = errors.toArray(new BulkEnrollmentOperationError[0]);
+        return mergedResult;
+    }
+
     /**
      * Getter for the Bulk Operation successful.
      *
@@ -53,6 +53,10 @@ import java.util.Map;
  * }
  * </pre>
  *
+ * <p> Requests are not serialized, so one instance may be used by many threads at once. The SAS token that authorizes
+ *     the requests is signed once and shared by them until it nears its expiry. The HTTPS connections are reused
+ *     between requests by the keep-alive cache of {@code HttpsURLConnection}, which holds on to as many idle
+ *     connections per host as the {@code http.maxConnections} system property allows.
  */
 public class ContractApiHttp
 {
@@ -75,8 +79,16 @@ public class ContractApiHttp
     private static final String HEADER_FIELD_VALUE_CONTENT_TYPE = "application/json";
     private static final String HEADER_FIELD_VALUE_CHARSET = "utf-8";
 
+    // A new SAS token is signed once the shared one has less than this long left before it expires, so that no request
+    // is sent with a token that expires while the request is in flight.
+    private static final long SAS_TOKEN_RENEWAL_MARGIN_MILLISECONDS = 10 * 60 * 1000;
+    private static final long ONE_SECOND_IN_MILLISECONDS = 1000;
+
     private final ProvisioningConnectionString provisioningConnectionString;
 
+    private final Object sasTokenLock = new Object();
+    private volatile ProvisioningSasToken sasToken;
+
     /**
      * PRIVATE CONSTRUCTOR
      *
@@ -128,7 +140,7 @@ public class ContractApiHttp
      * @throws ProvisioningServiceClientException if the Provisioning Service response contains an error message.
      * @throws IllegalArgumentException if the provided parameters are not correct.
      */
-    public synchronized HttpResponse request(
+    public HttpResponse request(
             HttpMethod httpMethod,
             String path,
             Map<String, String> headerParameters,
@@ -137,7 +149,7 @@ public class ContractApiHttp
     {
         /* SRS_HTTP_DEVICE_REGISTRATION_CLIENT_21_005: [The request shall create a SAS token based on the connection string.*/
         /* SRS_HTTP_DEVICE_REGISTRATION_CLIENT_21_006: [If the request get problem to create the SAS token, it shall throw IllegalArgumentException.*/
-        String sasTokenString = new ProvisioningSasToken(this.provisioningConnectionString).toString();
+        String sasTokenString = getSasToken().toString();
 
         /* SRS_HTTP_DEVICE_REGISTRATION_CLIENT_21_007: [The request shall create a HTTP URL based on the Device Registration path.*/
         URL url = getUrlForPath(path);
@@ -163,6 +175,32 @@ public class ContractApiHttp
         return httpResponse;
     }
 
+    private ProvisioningSasToken getSasToken()
+    {
+        ProvisioningSasToken sasToken = this.sasToken;
+        if (sasToken == null || isNearingExpiry(sasToken))
+        {
+            synchronized (this.sasTokenLock)
+            {
+                // another request may have renewed the token while this one was waiting on the lock
+                sasToken = this.sasToken;
+                if (sasToken == null || isNearingExpiry(sasToken))
+                {
+                    sasToken = new ProvisioningSasToken(this.provisioningConnectionString);
+                    this.sasToken = sasToken;
+                }
+            }
+        }
+
+        return sasToken;
+    }
+
+    private static boolean isNearingExpiry(ProvisioningSasToken sasToken)
+    {
+        long expiryTimeMillis = sasToken.getExpiryTime() * ONE_SECOND_IN_MILLISECONDS;
+        return expiryTimeMillis - System.currentTimeMillis() < SAS_TOKEN_RENEWAL_MARGIN_MILLISECONDS;
+    }
+
     private HttpRequest createRequest(URL url, HttpMethod method, Map<String, String> headerParameters, byte[] payload, String sasToken) throws ProvisioningServiceClientTransportException
     {
         /* SRS_HTTP_DEVICE_REGISTRATION_CLIENT_21_011: [If the request get problem creating the HttpRequest, it shall throw ProvisioningServiceClientTransportException.*/
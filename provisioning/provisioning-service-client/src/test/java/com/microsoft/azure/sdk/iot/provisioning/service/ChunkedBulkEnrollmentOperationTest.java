@@ -0,0 +1,170 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.provisioning.service;
+
+import com.microsoft.azure.sdk.iot.provisioning.service.configs.BulkEnrollmentOperationResult;
+import com.microsoft.azure.sdk.iot.provisioning.service.configs.BulkOperationMode;
+import com.microsoft.azure.sdk.iot.provisioning.service.configs.IndividualEnrollment;
+import com.microsoft.azure.sdk.iot.provisioning.service.configs.SymmetricKeyAttestation;
+import com.microsoft.azure.sdk.iot.provisioning.service.exceptions.ProvisioningServiceClientException;
+import com.microsoft.azure.sdk.iot.provisioning.service.exceptions.ProvisioningServiceClientTooManyRequestsException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for splitting bulk enrollment operations into concurrently sent chunks.
+ */
+public class ChunkedBulkEnrollmentOperationTest
+{
+    private static final String SUCCESSFUL_RESULT = "{\"isSuccessful\":true,\"errors\":[]}";
+    private static final String FAILED_RESULT = "{\"isSuccessful\":false,\"errors\":[{\"registrationId\":\"id-3\",\"errorCode\":400,\"errorStatus\":\"bad\"}]}";
+
+    @Test
+    public void enrollmentsAreSentInChunksAndResultsAreMerged() throws ProvisioningServiceClientException
+    {
+        // arrange
+        List<Integer> chunkSizes = Collections.synchronizedList(new ArrayList<>());
+        ChunkedBulkEnrollmentOperation operation = new ChunkedBulkEnrollmentOperation((mode, chunk) ->
+        {
+            chunkSizes.add(chunk.size());
+            return new BulkEnrollmentOperationResult(chunk.size() == 5 ? FAILED_RESULT : SUCCESSFUL_RESULT);
+        }, 10, 0);
+
+        // act
+        BulkEnrollmentOperationResult result = operation.run(BulkOperationMode.CREATE, enrollments(25).iterator(), Runnable::run, 1);
+
+        // assert
+        assertEquals(3, chunkSizes.size());
+        assertEquals(25, chunkSizes.stream().mapToInt(Integer::intValue).sum());
+        assertFalse(result.getSuccessful());
+        assertEquals(1, result.getErrors().size());
+        assertEquals("id-3", result.getErrors().get(0).getRegistrationId());
+    }
+
+    @Test
+    public void throttledChunksAreRetried() throws ProvisioningServiceClientException
+    {
+        // arrange
+        AtomicInteger attempts = new AtomicInteger();
+        ChunkedBulkEnrollmentOperation operation = new ChunkedBulkEnrollmentOperation((mode, chunk) ->
+        {
+            if (attempts.incrementAndGet() < 3)
+            {
+                throw new ProvisioningServiceClientTooManyRequestsException("throttled");
+            }
+
+            return new BulkEnrollmentOperationResult(SUCCESSFUL_RESULT);
+        }, 10, 1);
+
+        // act
+        BulkEnrollmentOperationResult result = operation.run(BulkOperationMode.CREATE, enrollments(5).iterator(), Runnable::run, 1);
+
+        // assert
+        assertEquals(3, attempts.get());
+        assertTrue(result.getSuccessful());
+    }
+
+    @Test
+    public void noMoreChunksAreSentAfterAChunkFails()
+    {
+        // arrange
+        AtomicInteger attempts = new AtomicInteger();
+        ChunkedBulkEnrollmentOperation operation = new ChunkedBulkEnrollmentOperation((mode, chunk) ->
+        {
+            attempts.incrementAndGet();
+            throw new ProvisioningServiceClientException("failed");
+        }, 10, 0);
+
+        // act
+        try
+        {
+            operation.run(BulkOperationMode.CREATE, enrollments(50).iterator(), Runnable::run, 1);
+            fail("Expected the chunk's exception to be thrown");
+        }
+        catch (ProvisioningServiceClientException e)
+        {
+            // assert
+            assertEquals("failed", e.getMessage());
+            assertEquals(1, attempts.get());
+        }
+    }
+
+    @Test
+    public void chunksInFlightAreBoundedByMaxConcurrentRequests() throws Exception
+    {
+        // arrange
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        ChunkedBulkEnrollmentOperation operation = new ChunkedBulkEnrollmentOperation((mode, chunk) ->
+        {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try
+            {
+                Thread.sleep(20);
+            }
+            catch (InterruptedException e)
+            {
+                throw new ProvisioningServiceClientException(e);
+            }
+
+            inFlight.decrementAndGet();
+            return new BulkEnrollmentOperationResult(SUCCESSFUL_RESULT);
+        }, 10, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try
+        {
+            // act
+            BulkEnrollmentOperationResult result = operation.run(BulkOperationMode.CREATE, enrollments(200).iterator(), executor, 3);
+
+            // assert
+            assertTrue(result.getSuccessful());
+            assertTrue(maxInFlight.get() <= 3);
+            assertTrue(maxInFlight.get() > 1);
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void runThrowsOnEmptyEnrollments() throws ProvisioningServiceClientException
+    {
+        // arrange
+        ChunkedBulkEnrollmentOperation operation = new ChunkedBulkEnrollmentOperation((mode, chunk) -> null);
+
+        // act
+        operation.run(BulkOperationMode.CREATE, Collections.<IndividualEnrollment>emptyIterator(), Runnable::run, 1);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void runThrowsOnNonPositiveMaxConcurrentRequests() throws ProvisioningServiceClientException
+    {
+        // arrange
+        ChunkedBulkEnrollmentOperation operation = new ChunkedBulkEnrollmentOperation((mode, chunk) -> null);
+
+        // act
+        operation.run(BulkOperationMode.CREATE, enrollments(1).iterator(), Runnable::run, 0);
+    }
+
+    private static List<IndividualEnrollment> enrollments(int count)
+    {
+        List<IndividualEnrollment> enrollments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+        {
+            enrollments.add(new IndividualEnrollment("id-" + i, new SymmetricKeyAttestation(null, null)));
+        }
+
+        return enrollments;
+    }
+}
@@ -0,0 +1,144 @@
+// Copyright (c) Microsoft. All rights reserved.
+// Licensed under the MIT license. See LICENSE file in the project root for full license information.
+
+package com.microsoft.azure.sdk.iot.provisioning.service;
+
+import com.microsoft.azure.sdk.iot.provisioning.service.configs.IndividualEnrollment;
+import com.microsoft.azure.sdk.iot.provisioning.service.configs.QuerySpecification;
+import com.microsoft.azure.sdk.iot.provisioning.service.contract.ContractApiHttp;
+import com.microsoft.azure.sdk.iot.provisioning.service.exceptions.ProvisioningServiceClientException;
+import com.microsoft.azure.sdk.iot.provisioning.service.transport.https.HttpMethod;
+import com.microsoft.azure.sdk.iot.provisioning.service.transport.https.HttpResponse;
+import mockit.Deencapsulation;
+import mockit.Mocked;
+import mockit.NonStrictExpectations;
+import mockit.Verifications;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the prefetching query item iterator.
+ */
+public class PrefetchingQueryIteratorTest
+{
+    @Mocked
+    private ContractApiHttp mockedContractApiHttp;
+
+    @Mocked
+    private QuerySpecification mockedQuerySpecification;
+
+    @Mocked
+    private HttpResponse mockedHttpResponse;
+
+    private Query createQuery()
+    {
+        return Deencapsulation.newInstance(Query.class, new Class[]{ContractApiHttp.class, String.class, QuerySpecification.class, Integer.class},
+                mockedContractApiHttp, "enrollments", mockedQuerySpecification, 2);
+    }
+
+    @Test
+    public void streamReturnsItemsOfEveryPage() throws ProvisioningServiceClientException
+    {
+        // arrange
+        final Map<String, String> firstPageHeaders = new HashMap<>();
+        firstPageHeaders.put("x-ms-item-type", "enrollment");
+        firstPageHeaders.put("x-ms-continuation", "validToken");
+        final Map<String, String> lastPageHeaders = new HashMap<>();
+        lastPageHeaders.put("x-ms-item-type", "enrollment");
+        new NonStrictExpectations()
+        {
+            {
+                mockedContractApiHttp.request((HttpMethod) any, anyString, (Map<String, String>) any, anyString);
+                result = mockedHttpResponse;
+                mockedHttpResponse.getBody();
+                returns("[{\"registrationId\":\"id-1\"},{\"registrationId\":\"id-2\"}]".getBytes(StandardCharsets.UTF_8),
+                        "[{\"registrationId\":\"id-3\"}]".getBytes(StandardCharsets.UTF_8));
+                mockedHttpResponse.getHeaderFields();
+                returns(firstPageHeaders, lastPageHeaders);
+            }
+        };
+
+        // act
+        List<String> registrationIds = PrefetchingQueryIterator.stream(createQuery(), IndividualEnrollment.class, Runnable::run)
+                .map(IndividualEnrollment::getRegistrationId)
+                .collect(Collectors.toList());
+
+        // assert
+        assertEquals(3, registrationIds.size());
+        assertEquals("id-1", registrationIds.get(0));
+        assertEquals("id-2", registrationIds.get(1));
+        assertEquals("id-3", registrationIds.get(2));
+    }
+
+    @Test
+    public void nextPageIsRequestedBeforeItemsOfCurrentPageAreRead() throws ProvisioningServiceClientException
+    {
+        // arrange
+        final Map<String, String> firstPageHeaders = new HashMap<>();
+        firstPageHeaders.put("x-ms-continuation", "validToken");
+        final Map<String, String> lastPageHeaders = new HashMap<>();
+        new NonStrictExpectations()
+        {
+            {
+                mockedContractApiHttp.request((HttpMethod) any, anyString, (Map<String, String>) any, anyString);
+                result = mockedHttpResponse;
+                mockedHttpResponse.getBody();
+                returns("[{\"registrationId\":\"id-1\"}]".getBytes(StandardCharsets.UTF_8),
+                        "[]".getBytes(StandardCharsets.UTF_8));
+                mockedHttpResponse.getHeaderFields();
+                returns(firstPageHeaders, lastPageHeaders);
+            }
+        };
+        PrefetchingQueryIterator<IndividualEnrollment> iterator = new PrefetchingQueryIterator<>(createQuery(), IndividualEnrollment.class, Runnable::run);
+
+        // act
+        boolean hasNext = iterator.hasNext();
+
+        // assert
+        assertTrue(hasNext);
+        new Verifications()
+        {
+            {
+                mockedContractApiHttp.request((HttpMethod) any, anyString, (Map<String, String>) any, anyString);
+                times = 2;
+            }
+        };
+    }
+
+    @Test
+    public void emptyQueryHasNoItems() throws ProvisioningServiceClientException
+    {
+        // arrange
+        new NonStrictExpectations()
+        {
+            {
+                mockedContractApiHttp.request((HttpMethod) any, anyString, (Map<String, String>) any, anyString);
+                result = mockedHttpResponse;
+                mockedHttpResponse.getBody();
+                result = "[]".getBytes(StandardCharsets.UTF_8);
+                mockedHttpResponse.getHeaderFields();
+                result = new HashMap<String, String>();
+            }
+        };
+
+        // act
+        long count = PrefetchingQueryIterator.stream(createQuery(), IndividualEnrollment.class, Runnable::run).count();
+
+        // assert
+        assertEquals(0, count);
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void constructorThrowsOnNullExecutor()
+    {
+        // act
+        new PrefetchingQueryIterator<>(createQuery(), IndividualEnrollment.class, null);
+    }
+}
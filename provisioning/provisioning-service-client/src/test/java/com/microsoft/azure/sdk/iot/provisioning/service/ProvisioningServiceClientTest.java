@@ -16,6 +16,8 @@ import org.junit.Test;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import static org.junit.Assert.*;
 
@@ -336,6 +338,70 @@ public class ProvisioningServiceClientTest
         assertNotNull(result);
     }
 
+    @Test
+    public void getIndividualEnrollmentAsyncCompletesWithEnrollment(
+            @Mocked final IndividualEnrollment mockedIndividualEnrollment)
+            throws Exception
+    {
+        // arrange
+        final String registrationId = "valid-registration-id";
+        ProvisioningServiceClient provisioningServiceClient = createClient();
+        new NonStrictExpectations()
+        {
+            {
+                Deencapsulation.invoke(mockedIndividualEnrollmentManager, "get", registrationId);
+                result = mockedIndividualEnrollment;
+                times = 1;
+            }
+        };
+
+        // act
+        CompletableFuture<IndividualEnrollment> future = provisioningServiceClient.getIndividualEnrollmentAsync(registrationId, Runnable::run);
+
+        // assert
+        assertEquals(mockedIndividualEnrollment, future.get());
+    }
+
+    @Test
+    public void getIndividualEnrollmentAsyncCompletesExceptionallyOnFailure() throws Exception
+    {
+        // arrange
+        final String registrationId = "valid-registration-id";
+        final ProvisioningServiceClientException expectedException = new ProvisioningServiceClientException("failed");
+        ProvisioningServiceClient provisioningServiceClient = createClient();
+        new NonStrictExpectations()
+        {
+            {
+                Deencapsulation.invoke(mockedIndividualEnrollmentManager, "get", registrationId);
+                result = expectedException;
+            }
+        };
+
+        // act
+        CompletableFuture<IndividualEnrollment> future = provisioningServiceClient.getIndividualEnrollmentAsync(registrationId, Runnable::run);
+
+        // assert
+        try
+        {
+            future.get();
+            fail("Expected the future to complete exceptionally");
+        }
+        catch (ExecutionException e)
+        {
+            assertEquals(expectedException, e.getCause());
+        }
+    }
+
+    @Test (expected = IllegalArgumentException.class)
+    public void getIndividualEnrollmentAsyncThrowsOnNullExecutor()
+    {
+        // arrange
+        ProvisioningServiceClient provisioningServiceClient = createClient();
+
+        // act
+        provisioningServiceClient.getIndividualEnrollmentAsync("valid-registration-id", null);
+    }
+
     /* SRS_PROVISIONING_SERVICE_CLIENT_21_011: [The deleteIndividualEnrollment shall delete the individualEnrollment for the provided enrollment by calling the delete in the individualEnrollmentManager.] */
     @Test
     public void deleteIndividualEnrollmentWithEnrollmentSucceed(
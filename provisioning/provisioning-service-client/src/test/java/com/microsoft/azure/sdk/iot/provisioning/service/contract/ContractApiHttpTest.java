@@ -207,6 +207,62 @@ public class ContractApiHttpTest
         // assert
     }
 
+    @Test
+    public void requestReusesSasTokenUntilItNearsExpiry() throws ProvisioningServiceClientException, IOException
+    {
+        // arrange
+        requestNonStrictExpectations();
+        new NonStrictExpectations()
+        {
+            {
+                mockedProvisioningSasToken.getExpiryTime();
+                result = System.currentTimeMillis() / 1000 + 60 * 60;
+            }
+        };
+        ContractApiHttp contractApiHttp = ContractApiHttp.createFromConnectionString(mockedProvisioningConnectionString);
+
+        // act
+        contractApiHttp.request(HttpMethod.PUT, VALID_PATH, VALID_HEADER, VALID_PAYLOAD);
+        contractApiHttp.request(HttpMethod.PUT, VALID_PATH, VALID_HEADER, VALID_PAYLOAD);
+
+        // assert
+        new Verifications()
+        {
+            {
+                new ProvisioningSasToken(mockedProvisioningConnectionString);
+                times = 1;
+            }
+        };
+    }
+
+    @Test
+    public void requestRenewsSasTokenThatNearsExpiry() throws ProvisioningServiceClientException, IOException
+    {
+        // arrange
+        requestNonStrictExpectations();
+        new NonStrictExpectations()
+        {
+            {
+                mockedProvisioningSasToken.getExpiryTime();
+                result = System.currentTimeMillis() / 1000 + 60;
+            }
+        };
+        ContractApiHttp contractApiHttp = ContractApiHttp.createFromConnectionString(mockedProvisioningConnectionString);
+
+        // act
+        contractApiHttp.request(HttpMethod.PUT, VALID_PATH, VALID_HEADER, VALID_PAYLOAD);
+        contractApiHttp.request(HttpMethod.PUT, VALID_PATH, VALID_HEADER, VALID_PAYLOAD);
+
+        // assert
+        new Verifications()
+        {
+            {
+                new ProvisioningSasToken(mockedProvisioningConnectionString);
+                times = 2;
+            }
+        };
+    }
+
     /* SRS_HTTP_DEVICE_REGISTRATION_CLIENT_21_007: [The request shall create a HTTP URL based on the Device Registration path.*/
     @Test
     public void requestCreatesURL() throws ProvisioningServiceClientException, IOException